@@ -5,6 +5,7 @@ import org.springframework.boot.actuate.autoconfigure.security.servlet.Managemen
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication(exclude = {
@@ -12,6 +13,7 @@ import org.springframework.retry.annotation.EnableRetry;
         ManagementWebSecurityAutoConfiguration.class // <<-- ¡AÑADE ESTA EXCLUSIÓN!
 })
 @EnableRetry
+@EnableScheduling // Sincronización de la copia local de productos (ProductSnapshotSync) y caducidad de reservas
 public class InventoryServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(InventoryServiceApplication.class, args);
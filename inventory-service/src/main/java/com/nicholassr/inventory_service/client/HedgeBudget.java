@@ -0,0 +1,39 @@
+package com.nicholassr.inventory_service.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cubo de fichas que limita las peticiones duplicadas (hedges) a una fracción de las originales.
+ * Cada petición original deposita {@code ratio} fichas (hasta {@code maxTokens}) y cada hedge
+ * consume una: aunque todas las llamadas vayan lentas, el tráfico extra no pasa de {@code ratio}.
+ */
+class HedgeBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+
+    HedgeBudget(double ratio, int maxTokens) {
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.maxTokens = maxTokens * SCALE;
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    void onRequest() {
+        tokens.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(maxTokens, current + deposit));
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.nicholassr.inventory_service.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Peticiones duplicadas (hedging) de {@link ProductServiceClient} ({@code product-service.hedging.*}): si una
+ * consulta de producto no ha respondido tras el retardo, se envía un duplicado y gana la primera respuesta
+ * correcta.
+ */
+@Data
+@ConfigurationProperties(prefix = "product-service.hedging")
+public class HedgingProperties {
+
+    private boolean enabled = false;
+
+    /** Retardo fijo antes del hedge; 0 para usar el percentil de las latencias recientes. */
+    private long delayMs = 0;
+
+    /** Percentil de latencia usado como retardo adaptativo (0.95 = p95). */
+    private double percentile = 0.95;
+
+    /** Retardo mínimo del hedge adaptativo. */
+    private long minDelayMs = 20;
+
+    /** Número de latencias recientes que se conservan. */
+    private int windowSize = 1000;
+
+    /** Muestras necesarias antes de empezar a duplicar peticiones. */
+    private int minSamples = 100;
+
+    /** Hedges permitidos por petición original (0.1 = como mucho un 10% más de tráfico). */
+    private double budgetRatio = 0.1;
+
+    /** Fichas máximas acumuladas en el presupuesto. */
+    private int budgetBurst = 10;
+}
@@ -0,0 +1,56 @@
+package com.nicholassr.inventory_service.client;
+
+import java.util.Arrays;
+
+/**
+ * Ventana circular con las latencias más recientes de las llamadas al servicio de productos.
+ * El percentil se recalcula cada {@code RECOMPUTE_EVERY} muestras para que leerlo no cueste
+ * una ordenación por petición.
+ */
+class LatencyPercentileTracker {
+
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final long[] samples;
+    private final double percentile;
+    private final int minSamples;
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private volatile long cachedPercentileNanos = -1;
+
+    LatencyPercentileTracker(int windowSize, double percentile, int minSamples) {
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        if (++sinceRecompute >= RECOMPUTE_EVERY || cachedPercentileNanos < 0 && count >= minSamples) {
+            sinceRecompute = 0;
+            recompute();
+        }
+    }
+
+    private void recompute() {
+        if (count < minSamples) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        cachedPercentileNanos = sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * @return el percentil configurado en nanosegundos, o -1 si aún no hay muestras suficientes.
+     */
+    long percentileNanos() {
+        return cachedPercentileNanos;
+    }
+}
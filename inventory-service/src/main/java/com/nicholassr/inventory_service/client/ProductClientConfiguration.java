@@ -0,0 +1,10 @@
+package com.nicholassr.inventory_service.client;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Propiedades del cliente del servicio de productos. */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(HedgingProperties.class)
+public class ProductClientConfiguration {
+}
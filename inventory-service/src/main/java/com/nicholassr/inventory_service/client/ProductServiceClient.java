@@ -1,11 +1,16 @@
 package com.nicholassr.inventory_service.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.github.jasminb.jsonapi.JSONAPIDocument;
-import com.github.jasminb.jsonapi.ResourceConverter;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
 import com.nicholassr.inventory_service.services.InventoryServices;
+import com.nicholassr.inventory_service.dtos.ProductChangeDto;
 import com.nicholassr.inventory_service.dtos.ProductDto; // Asegúrate de que este import sea correcto
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
@@ -15,6 +20,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Recover;
@@ -26,17 +32,47 @@ import reactor.core.publisher.Mono; // Importa Mono para el manejo de errores de
 
 import reactor.netty.http.client.HttpClient;
 
+import java.net.URI;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 @Component
 public class ProductServiceClient {
 
+    /**
+     * Codificación binaria que ofrece el servicio de productos para llamadas internas.
+     * Debe coincidir con {@code ProductController.SMILE_MEDIA_TYPE}.
+     */
+    static final MediaType SMILE_MEDIA_TYPE = MediaType.parseMediaType("application/x-jackson-smile");
+    static final MediaType JSON_API_MEDIA_TYPE = MediaType.parseMediaType("application/vnd.api+json");
+    // Lo atiende ReadYourWritesFilter (microservices-common) en el servicio de productos
+    private static final String READ_CONSISTENCY_HEADER = "X-Read-Consistency";
+
     private static final Logger logger = LoggerFactory.getLogger(ProductServiceClient.class);
     private final WebClient webClient;
-    private final ResourceConverter resourceConverter;
+    private final JsonApiConverter resourceConverter;
+    private final JsonApiConverter smileResourceConverter;
     private final String apiKey;
+    private final int timeoutMs;
+
+    // Hedging: si la petición no ha respondido tras el retardo, se lanza un duplicado y gana la primera respuesta.
+    private final boolean hedgingEnabled;
+    private final long fixedHedgeDelayMs;
+    private final long minHedgeDelayMs;
+    private final LatencyPercentileTracker latencyTracker;
+    private final HedgeBudget hedgeBudget;
+    private final Counter requestsCounter;
+    private final Counter hedgesSentCounter;
+    private final Counter hedgesSuppressedCounter;
+    private final Counter hedgeWinsCounter;
 
     /**
      * Constructor del cliente para el servicio de productos.
@@ -46,15 +82,22 @@ public class ProductServiceClient {
      * @param productServiceUrl URL base del microservicio de productos.
      * @param apiKey Clave API para autenticación con el servicio de productos.
      * @param timeoutMs Tiempo de espera para las peticiones en milisegundos.
+     * @param binaryEncoding Si es true se pide Smile al servicio de productos (con JSON:API como alternativa).
+     * @param hedging Configuración de las peticiones duplicadas (hedging, {@code product-service.hedging.*}).
      * @param objectMapper ObjectMapper para serialización/deserialización JSON.
+     * @param meterRegistry Registro donde se publican las métricas de hedging.
      */
     public ProductServiceClient(
             @Value("${products.service.url}") String productServiceUrl,
             @Value("${products.service.api-key}") String apiKey,
             @Value("${product-service.timeout-ms}") int timeoutMs,
-            ObjectMapper objectMapper) {
+            @Value("${product-service.binary-encoding.enabled:true}") boolean binaryEncoding,
+            HedgingProperties hedging,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
 
         this.apiKey = apiKey;
+        this.timeoutMs = timeoutMs;
 
         // Configuración de HttpClient para gestionar timeouts a nivel de conexión, lectura y escritura.
         // Se asegura una configuración robusta para la comunicación de red.
@@ -67,16 +110,45 @@ public class ProductServiceClient {
 
         // Construcción de WebClient:
         // - baseUrl: La URL base del servicio de productos.
-        // - defaultHeader: Establece el tipo de contenido esperado (JSON:API).
+        // - defaultHeader: Establece el tipo de contenido esperado (Smile preferido, JSON:API como alternativa).
         // - clientConnector: Utiliza el HttpClient configurado para los timeouts.
+        String accept = binaryEncoding
+                ? SMILE_MEDIA_TYPE + ", " + JSON_API_MEDIA_TYPE + ";q=0.9"
+                : JSON_API_MEDIA_TYPE.toString();
         this.webClient = WebClient.builder()
                 .baseUrl(productServiceUrl)
-                .defaultHeader(HttpHeaders.ACCEPT, MediaType.parseMediaType("application/vnd.api+json").toString())
+                .defaultHeader(HttpHeaders.ACCEPT, accept)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
 
-        // Configuración de ResourceConverter para mapear las respuestas JSON:API a ProductResponseDto.
-        this.resourceConverter = new ResourceConverter(objectMapper, ProductDto.class, InventoryServices.InventoryDetails.class);
+        // Conversores JSON:API (codecs generados en compilación) para mapear las respuestas a ProductDto.
+        this.resourceConverter = new JsonApiConverter(objectMapper, ProductDto.class, ProductChangeDto.class,
+                InventoryServices.InventoryDetails.class);
+        this.smileResourceConverter = new JsonApiConverter(objectMapper.copyWith(new SmileFactory()), ProductDto.class);
+
+        this.hedgingEnabled = hedging.isEnabled();
+        this.fixedHedgeDelayMs = hedging.getDelayMs();
+        this.minHedgeDelayMs = hedging.getMinDelayMs();
+        this.latencyTracker = new LatencyPercentileTracker(hedging.getWindowSize(), hedging.getPercentile(), hedging.getMinSamples());
+        this.hedgeBudget = new HedgeBudget(hedging.getBudgetRatio(), hedging.getBudgetBurst());
+        this.requestsCounter = Counter.builder("product.client.requests")
+                .description("Peticiones originales al servicio de productos")
+                .register(meterRegistry);
+        this.hedgesSentCounter = Counter.builder("product.client.hedges")
+                .description("Peticiones duplicadas (hedges) al servicio de productos")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.hedgesSuppressedCounter = Counter.builder("product.client.hedges")
+                .description("Peticiones duplicadas (hedges) al servicio de productos")
+                .tag("outcome", "suppressed")
+                .register(meterRegistry);
+        this.hedgeWinsCounter = Counter.builder("product.client.hedge.wins")
+                .description("Respuestas en las que el hedge llegó antes que la petición original")
+                .register(meterRegistry);
+        Gauge.builder("product.client.hedge.delay", this, client -> client.currentHedgeDelayMs())
+                .description("Retardo actual antes de lanzar un hedge (ms, -1 si no se lanza)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
     }
 
     /**
@@ -95,32 +167,13 @@ public class ProductServiceClient {
     public Optional<ProductDto> getProductById(Long productId) {
         logger.info("Intentando obtener producto con ID {} del servicio de productos. Reintentando...", productId);
         try {
-            String responseBody = webClient.get()
-                    .uri("/{id}", productId) // Define la URI para la petición GET
-                    .header("X-API-KEY", apiKey) // Agrega el header de autenticación
-                    .retrieve() // Inicia la recuperación de la respuesta
-                    // Manejo de estados 4xx: Si es un 404, se lanza ProductNotFoundException sin reintentos.
-                    // Otros 4xx se transforman en excepciones para detener la ejecución o permitir manejo superior.
-                    .onStatus(status -> status.is4xxClientError(), clientResponse -> {
-                        if (clientResponse.statusCode() == HttpStatus.NOT_FOUND) {
-                            logger.warn("Producto con ID {} no encontrado en el servicio de productos (HTTP 404).", productId);
-                            // Se lanza una excepción específica para no reintentar en un 404
-                            return Mono.error(new ProductNotFoundException("Producto con ID " + productId + " no encontrado."));
-                        }
-                        logger.error("Error de cliente ({}) al obtener producto {}: {}", clientResponse.statusCode(), productId, clientResponse.headers().asHttpHeaders());
-                        return clientResponse.createException(); // Convertir otros 4xx en excepciones de WebClient
-                    })
-                    // Manejo de estados 5xx: Errores del servidor, se convierten en excepciones para que Spring Retry pueda reintentar.
-                    .onStatus(status -> status.is5xxServerError(), clientResponse -> {
-                        logger.error("Error del servidor ({}) desde el servicio de productos al obtener producto {}: {}", clientResponse.statusCode(), productId, clientResponse.headers().asHttpHeaders());
-                        return clientResponse.createException(); // Convertir 5xx en excepciones de WebClient para reintentos
-                    })
-                    .bodyToMono(String.class) // Convierte el cuerpo de la respuesta a un String
+            ResponseEntity<byte[]> response = (hedgingEnabled ? fetchHedged(productId) : fetchProduct(productId))
                     .block(); // Bloquea de forma reactiva para obtener el resultado (usado en un contexto síncrono aquí)
 
             // Si la respuesta es exitosa y no está vacía, mapea a ProductResponseDto
-            if (responseBody != null && !responseBody.isEmpty()) {
-                JSONAPIDocument<ProductDto> document = resourceConverter.readDocument(responseBody.getBytes(), ProductDto.class);
+            if (response != null && response.getBody() != null && response.getBody().length > 0) {
+                JSONAPIDocument<ProductDto> document = converterFor(response.getHeaders().getContentType())
+                        .readDocument(response.getBody(), ProductDto.class);
                 return Optional.ofNullable(document.get());
             }
             return Optional.empty(); // Si el cuerpo está vacío, retorna Optional.empty()
@@ -140,6 +193,226 @@ public class ProductServiceClient {
         }
     }
 
+    /**
+     * Petición GET al servicio de productos, sin bloquear. Los 404 se traducen en
+     * {@link ProductNotFoundException}; el resto de 4xx y los 5xx en {@link WebClientResponseException}.
+     */
+    private Mono<ResponseEntity<byte[]>> fetchProduct(Long productId) {
+        return webClient.get()
+                .uri("/{id}", productId) // Define la URI para la petición GET
+                .header("X-API-KEY", apiKey) // Agrega el header de autenticación
+                .retrieve() // Inicia la recuperación de la respuesta
+                // Manejo de estados 4xx: Si es un 404, se lanza ProductNotFoundException sin reintentos.
+                // Otros 4xx se transforman en excepciones para detener la ejecución o permitir manejo superior.
+                .onStatus(status -> status.is4xxClientError(), clientResponse -> {
+                    if (clientResponse.statusCode() == HttpStatus.NOT_FOUND) {
+                        logger.warn("Producto con ID {} no encontrado en el servicio de productos (HTTP 404).", productId);
+                        // Se lanza una excepción específica para no reintentar en un 404
+                        return Mono.error(new ProductNotFoundException("Producto con ID " + productId + " no encontrado."));
+                    }
+                    logger.error("Error de cliente ({}) al obtener producto {}: {}", clientResponse.statusCode(), productId, clientResponse.headers().asHttpHeaders());
+                    return clientResponse.createException(); // Convertir otros 4xx en excepciones de WebClient
+                })
+                // Manejo de estados 5xx: Errores del servidor, se convierten en excepciones para que Spring Retry pueda reintentar.
+                .onStatus(status -> status.is5xxServerError(), clientResponse -> {
+                    logger.error("Error del servidor ({}) desde el servicio de productos al obtener producto {}: {}", clientResponse.statusCode(), productId, clientResponse.headers().asHttpHeaders());
+                    return clientResponse.createException(); // Convertir 5xx en excepciones de WebClient para reintentos
+                })
+                .toEntity(byte[].class); // Cuerpo en bytes: puede venir en Smile o en JSON:API según la negociación
+    }
+
+    /**
+     * Lanza la petición original y, si no ha respondido tras {@link #currentHedgeDelayMs()}, un único
+     * duplicado. Gana la primera respuesta correcta y se cancela la otra: si la original falla por un 5xx, un
+     * timeout o la conexión, se espera al hedge. Un 4xx (también el 404) sería igual en el duplicado y se
+     * devuelve sin esperar. Si no hay respuesta correcta, manda el error de la petición original.
+     *
+     * Cada hedge consume una ficha del {@link HedgeBudget} global; sin fichas no se duplica (así el hedging
+     * no amplifica una sobrecarga).
+     */
+    private Mono<ResponseEntity<byte[]>> fetchHedged(Long productId) {
+        requestsCounter.increment();
+        hedgeBudget.onRequest();
+        long start = System.nanoTime();
+        long delayMs = currentHedgeDelayMs();
+
+        if (delayMs < 0) {
+            return fetchProduct(productId).doOnNext(response -> latencyTracker.record(System.nanoTime() - start));
+        }
+
+        AtomicReference<Throwable> primaryError = new AtomicReference<>();
+        Mono<Attempt> primary = fetchProduct(productId)
+                .map(response -> new Attempt(response, false, null))
+                // Un 4xx gana la carrera como resultado: el hedge no lo cambiaría
+                .onErrorResume(ProductServiceClient::isClientError, e -> Mono.just(new Attempt(null, false, e)))
+                .doOnError(primaryError::set);
+
+        Mono<Attempt> hedge = Mono.delay(Duration.ofMillis(delayMs))
+                .flatMap(tick -> {
+                    if (!hedgeBudget.tryAcquire()) {
+                        hedgesSuppressedCounter.increment();
+                        return Mono.empty();
+                    }
+                    hedgesSentCounter.increment();
+                    logger.debug("Producto {} sin respuesta tras {} ms, se envía un hedge.", productId, delayMs);
+                    return fetchProduct(productId).map(response -> new Attempt(response, true, null));
+                });
+
+        return Mono.firstWithValue(primary, hedge)
+                // Ninguna dio un valor: se propaga el error de la original, no el de la carrera
+                .onErrorMap(e -> primaryError.get() != null ? primaryError.get() : e)
+                .flatMap(attempt -> {
+                    if (attempt.error() != null) {
+                        return Mono.error(attempt.error());
+                    }
+                    latencyTracker.record(System.nanoTime() - start);
+                    if (attempt.hedge()) {
+                        hedgeWinsCounter.increment();
+                    }
+                    return Mono.just(attempt.response());
+                });
+    }
+
+    private static boolean isClientError(Throwable e) {
+        return e instanceof ProductNotFoundException
+                || e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError();
+    }
+
+    /**
+     * Retardo antes de lanzar un hedge: el fijo si está configurado; si no, el percentil de las
+     * latencias recientes, acotado entre {@code min-delay-ms} y el timeout. -1 mientras no haya
+     * muestras suficientes.
+     */
+    long currentHedgeDelayMs() {
+        if (!hedgingEnabled) {
+            return -1;
+        }
+        if (fixedHedgeDelayMs > 0) {
+            return fixedHedgeDelayMs;
+        }
+        long percentileNanos = latencyTracker.percentileNanos();
+        if (percentileNanos < 0) {
+            return -1;
+        }
+        long delayMs = TimeUnit.NANOSECONDS.toMillis(percentileNanos);
+        return Math.max(minHedgeDelayMs, Math.min(timeoutMs, delayMs));
+    }
+
+    /** Resultado de la petición original o del hedge; {@code error} si la original acabó en 4xx. */
+    private record Attempt(ResponseEntity<byte[]> response, boolean hedge, Throwable error) {
+    }
+
+    /**
+     * Página del feed de cambios de productos con seq mayor que {@code afterSeq}. Con {@code size} 0 solo
+     * devuelve la posición actual del feed ({@code latestSeq}). Sin reintentos: quien sincroniza vuelve a
+     * pedir la misma página en la siguiente pasada.
+     */
+    public ChangePage fetchChanges(long afterSeq, int size) {
+        byte[] body = webClient.get()
+                .uri(builder -> builder.path("/changes")
+                        .queryParam("after", afterSeq)
+                        .queryParam("size", size)
+                        .build())
+                .header("X-API-KEY", apiKey)
+                .accept(JSON_API_MEDIA_TYPE)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .block(Duration.ofMillis(timeoutMs));
+        JSONAPIDocument<List<ProductChangeDto>> document = resourceConverter.readDocumentCollection(body, ProductChangeDto.class);
+        Map<String, ?> meta = document.getMeta();
+        long latestSeq = meta != null && meta.get("latestSeq") instanceof Number n ? n.longValue() : 0;
+        boolean hasMore = meta != null && Boolean.TRUE.equals(meta.get("hasMore"));
+        return new ChangePage(document.get() == null ? List.of() : document.get(), latestSeq, hasMore);
+    }
+
+    /**
+     * Página del catálogo ordenada por id (paginación por cursor del servicio de productos). Con
+     * {@code nextLink} null pide la primera página; después basta con pasar {@link CatalogPage#next()}.
+     */
+    public CatalogPage fetchCatalogPage(String nextLink, int size) {
+        WebClient.RequestHeadersSpec<?> request = nextLink != null
+                ? webClient.get().uri(URI.create(nextLink))
+                : webClient.get().uri(builder -> builder.queryParam("sort", "id").queryParam("size", size).build());
+        byte[] body = request
+                .header("X-API-KEY", apiKey)
+                .accept(JSON_API_MEDIA_TYPE)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .block(Duration.ofMillis(timeoutMs));
+        JSONAPIDocument<List<ProductDto>> document = resourceConverter.readDocumentCollection(body, ProductDto.class);
+        String next = document.getLinks() != null && document.getLinks().getNext() != null
+                ? document.getLinks().getNext().getHref()
+                : null;
+        return new CatalogPage(document.get() == null ? List.of() : document.get(), next);
+    }
+
+    /**
+     * De entre {@code productIds} (hasta 100), los que existen en el servicio de productos, en una sola
+     * petición ({@code filter[id]}). Sin reintentos ni hedging: es para procesos en segundo plano, que
+     * repiten el lote más tarde si falla. Puede leer de una réplica con retraso: un producto recién creado
+     * puede no aparecer todavía.
+     */
+    public Set<Long> findExistingProductIds(Collection<Long> productIds) {
+        return existingIds(fetchProductsByIds(productIds, false));
+    }
+
+    /**
+     * Como {@link #findExistingProductIds}, pero el servicio de productos lee del primario
+     * ({@code X-Read-Consistency: primary}): para confirmar que un producto no existe antes de borrar datos.
+     */
+    public Set<Long> findExistingProductIdsOnPrimary(Collection<Long> productIds) {
+        return existingIds(fetchProductsByIds(productIds, true));
+    }
+
+    /**
+     * Los productos que existen de entre {@code productIds} (hasta 100), en una sola petición
+     * ({@code filter[id]}) y sin reintentos; los que no existen no aparecen.
+     */
+    public List<ProductDto> findProductsByIds(Collection<Long> productIds) {
+        return fetchProductsByIds(productIds, false);
+    }
+
+    private List<ProductDto> fetchProductsByIds(Collection<Long> productIds, boolean fromPrimary) {
+        String ids = productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        WebClient.RequestHeadersSpec<?> request = webClient.get()
+                .uri(builder -> builder.queryParam("filter[id]", ids).build())
+                .header("X-API-KEY", apiKey);
+        if (fromPrimary) {
+            request = request.header(READ_CONSISTENCY_HEADER, "primary");
+        }
+        byte[] body = request
+                .accept(JSON_API_MEDIA_TYPE)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .block(Duration.ofMillis(timeoutMs)); // Sin esto, una conexión colgada bloquearía al llamante
+        JSONAPIDocument<List<ProductDto>> document = resourceConverter.readDocumentCollection(body, ProductDto.class);
+        return document.get() != null ? document.get() : List.of();
+    }
+
+    private static Set<Long> existingIds(List<ProductDto> products) {
+        Set<Long> existing = new HashSet<>();
+        products.forEach(product -> existing.add(Long.valueOf(product.getId())));
+        return existing;
+    }
+
+    /** Cambios de una página del feed, último seq confirmado y si quedan más cambios tras esta página. */
+    public record ChangePage(List<ProductChangeDto> changes, long latestSeq, boolean hasMore) {
+    }
+
+    /** Productos de una página del catálogo y enlace a la siguiente (null en la última). */
+    public record CatalogPage(List<ProductDto> products, String next) {
+    }
+
+    /**
+     * Elige el convertidor según el Content-Type que devolvió el servicio de productos.
+     */
+    private JsonApiConverter converterFor(MediaType contentType) {
+        if (contentType != null && SMILE_MEDIA_TYPE.isCompatibleWith(contentType)) {
+            return smileResourceConverter;
+        }
+        return resourceConverter;
+    }
+
     /**
      * Método de recuperación para WebClientResponseException después de que todos los reintentos fallaron.
      *
@@ -168,11 +441,11 @@ public class ProductServiceClient {
 
     /**
      * Excepción personalizada para cuando un producto no es encontrado (HTTP 404).
-     * No activa reintentos.
+     * No activa reintentos. Es un resultado esperado: sin traza.
      */
     public static class ProductNotFoundException extends RuntimeException {
         public ProductNotFoundException(String message) {
-            super(message);
+            super(message, null, false, false);
         }
     }
 
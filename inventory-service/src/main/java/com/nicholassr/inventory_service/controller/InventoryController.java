@@ -3,12 +3,20 @@ package com.nicholassr.inventory_service.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.jasminb.jsonapi.JSONAPIDocument;
-import com.github.jasminb.jsonapi.ResourceConverter;
+import com.github.jasminb.jsonapi.Link;
+import com.github.jasminb.jsonapi.Links;
+import com.github.jasminb.jsonapi.SerializationFeature;
 
 import com.github.jasminb.jsonapi.exceptions.DocumentSerializationException;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import com.nicholassr.common.jsonapi.JsonApiException;
 import com.nicholassr.inventory_service.client.ProductServiceClient;
 import com.nicholassr.inventory_service.dtos.InventoryDto;
+import com.nicholassr.inventory_service.dtos.ProductDto;
 import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.models.InventoryMovement;
+import com.nicholassr.inventory_service.models.InventoryMovementBucket;
+import com.nicholassr.inventory_service.models.WarehouseStock;
 import com.nicholassr.inventory_service.services.InventoryServices;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -24,8 +32,17 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -35,57 +52,187 @@ import java.util.Optional;
 public class InventoryController {
 
     private static final Logger logger = LoggerFactory.getLogger(InventoryController.class);
+    // Productos por consulta en GET /api/v1/inventories?filter[productId]=...
+    private static final int MAX_BULK_PRODUCT_IDS = 100;
+    // Único valor admitido en ?include= de la consulta de inventario
+    private static final String INCLUDE_WAREHOUSES = "warehouses";
+    // Único valor admitido en ?include= de las consultas de stock bajo
+    private static final String INCLUDE_PRODUCT = "product";
+    // Registros por página en las consultas de stock bajo
+    private static final int MAX_LOW_STOCK_PAGE = 1000;
+    // Movimientos por página en GET /products/{productId}/movements
+    private static final int MAX_MOVEMENTS_PAGE = 1000;
+    // Rango de movimientos si no se indica from
+    private static final Duration DEFAULT_MOVEMENTS_RANGE = Duration.ofDays(30);
     private final InventoryServices inventoryService;
-    private final ResourceConverter resourceConverter;
+    private final JsonApiConverter resourceConverter;
+    // Escribe además "included" (recursos de las relaciones); solo para respuestas con ?include=
+    private final JsonApiConverter includingConverter;
+    // Como includingConverter, para inventario con ?include=product
+    private final JsonApiConverter productIncludingConverter;
     private final ObjectMapper objectMapper;
 
     public InventoryController(InventoryServices inventoryService, ObjectMapper objectMapper) {
         this.inventoryService = inventoryService;
         this.objectMapper = objectMapper;
-        this.resourceConverter = new ResourceConverter(objectMapper, Inventory.class, InventoryServices.InventoryDetails.class);
+        this.resourceConverter = new JsonApiConverter(objectMapper, Inventory.class, InventoryServices.InventoryDetails.class,
+                WarehouseStock.class, InventoryMovement.class, InventoryMovementBucket.class);
+        this.includingConverter = new JsonApiConverter(objectMapper, InventoryServices.InventoryDetails.class, WarehouseStock.class);
+        this.includingConverter.enableSerializationOption(SerializationFeature.INCLUDE_RELATIONSHIP_ATTRIBUTES);
+        this.productIncludingConverter = new JsonApiConverter(objectMapper, Inventory.class, ProductDto.class);
+        this.productIncludingConverter.enableSerializationOption(SerializationFeature.INCLUDE_RELATIONSHIP_ATTRIBUTES);
     }
 
 
     @Operation(summary = "Consultar cantidad disponible de un producto",
-            description = "Obtiene la cantidad disponible de un producto específico por su ID, incluyendo detalles del producto.")
+            description = "Obtiene la cantidad disponible (total de todos los almacenes) de un producto específico por su ID, "
+                    + "incluyendo detalles del producto. Con include=warehouses añade el stock de cada almacén.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Información de inventario obtenida exitosamente",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = InventoryServices.InventoryDetails.class))),
+            @ApiResponse(responseCode = "400", description = "Valor de include no soportado"),
             @ApiResponse(responseCode = "404", description = "Producto o inventario no encontrado"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor o al comunicarse con el servicio de productos")
     })
     @GetMapping(value = "/products/{productId}", produces = "application/vnd.api+json")
     public ResponseEntity<byte[]> getInventoryByProductId(
-            @Parameter(description = "ID del producto para consultar su inventario") @PathVariable Long productId) {
+            @Parameter(description = "ID del producto para consultar su inventario") @PathVariable Long productId,
+            @Parameter(description = "Relaciones a incluir (solo 'warehouses')") @RequestParam(value = "include", required = false) List<String> include) {
+        boolean includeWarehouses = include != null && !include.isEmpty();
+        if (includeWarehouses && include.stream().anyMatch(value -> !INCLUDE_WAREHOUSES.equals(value))) {
+            throw JsonApiException.badRequest("Unsupported include: only '" + INCLUDE_WAREHOUSES + "' is allowed");
+        }
         try {
             // El servicio devuelve un Optional<InventoryDetails> que combina info de inventario y producto
-            Optional<InventoryServices.InventoryDetails> inventoryDetails = inventoryService.getInventoryDetailsByProductId(productId);
+            Optional<InventoryServices.InventoryDetails> inventoryDetails =
+                    inventoryService.getInventoryDetailsByProductId(productId, includeWarehouses);
 
             if (inventoryDetails.isPresent()) {
 
-                byte[] response = resourceConverter.writeDocument(new JSONAPIDocument<>(inventoryDetails.get()));
+                JsonApiConverter converter = includeWarehouses ? includingConverter : resourceConverter;
+                byte[] response = converter.writeDocument(new JSONAPIDocument<>(inventoryDetails.get()));
                 return ResponseEntity.ok()
                         .contentType(MediaType.parseMediaType("application/vnd.api+json"))
                         .body(response);
             } else {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Inventory or product not found for ID: " + productId);
+                throw JsonApiException.notFound("Inventory or product not found for ID: " + productId);
             }
         } catch (ProductServiceClient.ProductNotFoundException e) {
             logger.warn("Solicitud de inventario para producto ID {} falló: {}", productId, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+            throw JsonApiException.notFound(e.getMessage());
+        } catch (JsonApiException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error al obtener inventario para producto ID {}: {}", productId, e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error getting inventory details: " + e.getMessage(), e);
         }
     }
 
+    @Operation(summary = "Consultar el inventario de varios productos o con stock bajo",
+            description = "Con filter[productId] devuelve los registros de inventario de los productos indicados (máximo 100); "
+                    + "los productos sin inventario no aparecen. Con filter[quantity][lt]=N devuelve los de cantidad menor que N "
+                    + "y con filter[belowReorderThreshold]=true los que están por debajo de su umbral de reposición, en orden de "
+                    + "cantidad y paginados por cursor (page[cursor] del enlace next); include=product añade los productos en "
+                    + "included. Se admite un único filtro por consulta.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Registros de inventario encontrados"),
+            @ApiResponse(responseCode = "400", description = "Sin filtro o con más de uno, lista de productos vacía o con más de 100 IDs, "
+                    + "o tamaño, cursor o include inválidos")
+    })
+    @GetMapping(produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> getInventories(
+            @Parameter(description = "IDs de producto separados por comas") @RequestParam(value = "filter[productId]", required = false) List<Long> productIds,
+            @Parameter(description = "Cantidad máxima (excluida)") @RequestParam(value = "filter[quantity][lt]", required = false) Integer quantityBelow,
+            @Parameter(description = "Solo los que están por debajo de su umbral de reposición") @RequestParam(value = "filter[belowReorderThreshold]", required = false) Boolean belowReorderThreshold,
+            @RequestParam(value = "size", defaultValue = "100") int size,
+            @Parameter(description = "Cursor de continuación (enlace next)") @RequestParam(name = "page[cursor]", required = false) String cursor,
+            @Parameter(description = "Relaciones a incluir (solo 'product')") @RequestParam(value = "include", required = false) List<String> include)
+            throws DocumentSerializationException {
+        boolean threshold = Boolean.TRUE.equals(belowReorderThreshold);
+        int filters = (productIds != null ? 1 : 0) + (quantityBelow != null ? 1 : 0) + (threshold ? 1 : 0);
+        if (filters != 1) {
+            throw JsonApiException.badRequest(
+                    "Exactly one of filter[productId], filter[quantity][lt] or filter[belowReorderThreshold]=true is required");
+        }
+        if (productIds != null) {
+            return getInventoriesByProductIds(productIds);
+        }
+        if (size < 1 || size > MAX_LOW_STOCK_PAGE) {
+            throw JsonApiException.badRequest("size must be between 1 and " + MAX_LOW_STOCK_PAGE);
+        }
+        boolean includeProduct = include != null && !include.isEmpty();
+        if (includeProduct && include.stream().anyMatch(value -> !INCLUDE_PRODUCT.equals(value))) {
+            throw JsonApiException.badRequest("Unsupported include: only '" + INCLUDE_PRODUCT + "' is allowed");
+        }
+
+        Inventory after = decodeStockCursor(cursor);
+        Integer afterQuantity = after != null ? after.getQuantity() : null;
+        Long afterProductId = after != null ? after.getProductId() : null;
+        // Uno de más para saber si hay otra página
+        List<Inventory> inventories = threshold
+                ? inventoryService.getBelowReorderThreshold(afterQuantity, afterProductId, size + 1)
+                : inventoryService.getLowStock(quantityBelow, afterQuantity, afterProductId, size + 1);
+        boolean hasNext = inventories.size() > size;
+        if (hasNext) {
+            inventories = inventories.subList(0, size);
+        }
+        if (includeProduct) {
+            inventoryService.attachProducts(inventories);
+        }
+
+        UriComponentsBuilder base = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .queryParam(threshold ? "filter[belowReorderThreshold]" : "filter[quantity][lt]",
+                        threshold ? "true" : quantityBelow.toString())
+                .queryParam("size", size);
+        if (includeProduct) {
+            base.queryParam("include", INCLUDE_PRODUCT);
+        }
+        Links links = new Links();
+        UriComponentsBuilder self = base.cloneBuilder();
+        if (cursor != null) {
+            self.queryParam("page[cursor]", cursor);
+        }
+        links.addLink("self", new Link(self.encode().toUriString()));
+        if (hasNext) {
+            String next = encodeStockCursor(inventories.get(inventories.size() - 1));
+            links.addLink("next", new Link(base.cloneBuilder().queryParam("page[cursor]", next).encode().toUriString()));
+        }
+
+        JSONAPIDocument<List<Inventory>> document = new JSONAPIDocument<>(inventories);
+        document.setMeta(Map.of("pageSize", size, "hasNext", hasNext));
+        document.setLinks(links);
+        JsonApiConverter converter = includeProduct ? productIncludingConverter : resourceConverter;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/vnd.api+json"))
+                .body(converter.writeDocumentCollection(document));
+    }
+
+    private ResponseEntity<byte[]> getInventoriesByProductIds(List<Long> productIds) {
+        if (productIds.isEmpty() || productIds.size() > MAX_BULK_PRODUCT_IDS) {
+            throw JsonApiException.badRequest(
+                    "filter[productId] must contain between 1 and " + MAX_BULK_PRODUCT_IDS + " product IDs");
+        }
+        try {
+            List<Inventory> inventories = inventoryService.getInventoriesByProductIds(productIds);
+            byte[] response = resourceConverter.writeDocumentCollection(new JSONAPIDocument<>(inventories));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/vnd.api+json"))
+                    .body(response);
+        } catch (DocumentSerializationException e) {
+            logger.error("Error de serialización JSON:API en la consulta de inventario de {} productos: {}", productIds.size(), e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error serializing response: " + e.getMessage(), e);
+        }
+    }
+
     @Operation(summary = "Actualizar la cantidad de inventario de un producto",
-            description = "Actualiza la cantidad disponible de un producto específico en el inventario.")
+            description = "Actualiza la cantidad disponible y/o el umbral de reposición (reorderThreshold; null lo quita) "
+                    + "de un producto específico en el inventario.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Inventario actualizado exitosamente",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Inventory.class))),
-            @ApiResponse(responseCode = "400", description = "Solicitud inválida o cantidad negativa"),
+            @ApiResponse(responseCode = "400", description = "Solicitud inválida o cantidad o umbral negativos"),
             @ApiResponse(responseCode = "404", description = "Producto no encontrado en el servicio de productos (opcional, si se valida)"),
+            @ApiResponse(responseCode = "409", description = "El producto tiene stock por almacén (se actualiza cada almacén) o la cantidad es menor que lo reservado"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PatchMapping(value = "/products/{productId}", consumes = "application/vnd.api+json", produces = "application/vnd.api+json")
@@ -99,11 +246,14 @@ public class InventoryController {
             // Asegúrate que usas el DTO correcto aquí
             InventoryDto updateDto = objectMapper.treeToValue(attributesNode, InventoryDto.class);
 
-            if (updateDto == null || updateDto.getQuantity() == null) {
+            // reorderThreshold: null explícito quita el umbral; si no viene, no se toca
+            boolean updateThreshold = attributesNode.has("reorderThreshold");
+            if (updateDto == null || (updateDto.getQuantity() == null && !updateThreshold)) {
                 throw new IllegalArgumentException("Quantity attribute is missing or invalid in request body.");
             }
 
-            Inventory updatedInventory = inventoryService.updateInventoryQuantity(productId, updateDto.getQuantity());
+            Inventory updatedInventory = inventoryService.updateInventory(productId, updateDto.getQuantity(),
+                    updateThreshold, updateDto.getReorderThreshold());
 
             logger.info("---------- | Inventario del producto ID {} actualizado a cantidad: {} | ----------------", productId, updatedInventory.getQuantity());
 
@@ -113,11 +263,14 @@ public class InventoryController {
                     .body(response);
 
         } catch (IOException e) {
-            logger.error("Error de lectura/parseo JSON al actualizar inventario para producto ID {}: {}", productId, e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid JSON format: " + e.getMessage(), e);
+            logger.warn("JSON inválido al actualizar inventario para producto ID {}: {}", productId, e.getMessage());
+            throw JsonApiException.badRequest("Invalid JSON format: " + e.getMessage());
         } catch (IllegalArgumentException e) {
-            logger.error("Error de validación al actualizar inventario para producto ID {}: {}", productId, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            logger.warn("Error de validación al actualizar inventario para producto ID {}: {}", productId, e.getMessage());
+            throw JsonApiException.badRequest(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.warn("Actualización de inventario rechazada para producto ID {}: {}", productId, e.getMessage());
+            throw JsonApiException.conflict(e.getMessage());
         } catch (DocumentSerializationException e) { // Captura específicamente este error
             logger.error("Error de serialización JSON:API al actualizar inventario para producto ID {}: {}", productId, e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error serializing response: " + e.getMessage(), e);
@@ -126,4 +279,188 @@ public class InventoryController {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error updating inventory: " + e.getMessage(), e);
         }
     }
+
+    @Operation(summary = "Actualizar el stock de un producto en un almacén",
+            description = "Fija la cantidad de un producto en un almacén y ajusta el total del producto en la misma transacción. "
+                    + "Devuelve el stock del almacén con el nuevo total en meta.totalQuantity.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock del almacén actualizado"),
+            @ApiResponse(responseCode = "400", description = "Solicitud inválida, cantidad negativa o código de almacén inválido"),
+            @ApiResponse(responseCode = "409", description = "La cantidad es menor que las unidades reservadas"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PatchMapping(value = "/products/{productId}/warehouses/{warehouseCode}", consumes = "application/vnd.api+json",
+            produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> updateWarehouseQuantity(
+            @Parameter(description = "ID del producto") @PathVariable Long productId,
+            @Parameter(description = "Código del almacén") @PathVariable String warehouseCode,
+            @RequestBody byte[] requestBody) {
+        try {
+            JsonNode quantityNode = objectMapper.readTree(requestBody).path("data").path("attributes").path("quantity");
+            if (!quantityNode.canConvertToInt()) {
+                throw new IllegalArgumentException("Quantity attribute is missing or invalid in request body.");
+            }
+
+            InventoryServices.WarehouseStockUpdate update =
+                    inventoryService.updateWarehouseQuantity(productId, warehouseCode, quantityNode.intValue());
+
+            JSONAPIDocument<WarehouseStock> document = new JSONAPIDocument<>(update.stock());
+            document.setMeta(Map.of("totalQuantity", update.totalQuantity()));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/vnd.api+json"))
+                    .body(resourceConverter.writeDocument(document));
+        } catch (IOException e) {
+            logger.warn("JSON inválido al actualizar el almacén {} del producto ID {}: {}", warehouseCode, productId, e.getMessage());
+            throw JsonApiException.badRequest("Invalid JSON format: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error de validación al actualizar el almacén {} del producto ID {}: {}", warehouseCode, productId, e.getMessage());
+            throw JsonApiException.badRequest(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.warn("Actualización del almacén {} del producto ID {} rechazada: {}", warehouseCode, productId, e.getMessage());
+            throw JsonApiException.conflict(e.getMessage());
+        } catch (DocumentSerializationException e) {
+            logger.error("Error de serialización JSON:API al actualizar el almacén {} del producto ID {}: {}", warehouseCode, productId, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error serializing response: " + e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Consultar los movimientos de stock de un producto",
+            description = "Historial de cambios de cantidad en [from, to) (ISO-8601; por defecto los últimos 30 días), por orden "
+                    + "de fecha y paginado por cursor: page[cursor] del enlace next. Los movimientos se guardan por lotes: "
+                    + "los del último segundo pueden no aparecer todavía.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movimientos del rango"),
+            @ApiResponse(responseCode = "400", description = "Fechas, tamaño o cursor inválidos")
+    })
+    @GetMapping(value = "/products/{productId}/movements", produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> getMovements(
+            @Parameter(description = "ID del producto") @PathVariable Long productId,
+            @Parameter(description = "Inicio del rango (incluido)") @RequestParam(value = "from", required = false) String from,
+            @Parameter(description = "Fin del rango (excluido)") @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "size", defaultValue = "100") int size,
+            @Parameter(description = "Cursor de continuación (enlace next)") @RequestParam(name = "page[cursor]", required = false) String cursor)
+            throws DocumentSerializationException {
+        if (size < 1 || size > MAX_MOVEMENTS_PAGE) {
+            throw JsonApiException.badRequest("size must be between 1 and " + MAX_MOVEMENTS_PAGE);
+        }
+        Instant end = parseInstant("to", to, Instant.now());
+        Instant start = parseInstant("from", from, end.minus(DEFAULT_MOVEMENTS_RANGE));
+        InventoryMovement after = decodeMovementCursor(cursor);
+        List<InventoryMovement> movements;
+        try {
+            // Uno de más para saber si hay otra página
+            movements = inventoryService.getMovements(productId, start, end,
+                    after != null ? after.getOccurredAt() : null, after != null ? after.getId() : null, size + 1);
+        } catch (IllegalArgumentException e) {
+            throw JsonApiException.badRequest(e.getMessage());
+        }
+        boolean hasNext = movements.size() > size;
+        if (hasNext) {
+            movements = movements.subList(0, size);
+        }
+
+        UriComponentsBuilder base = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .queryParam("from", start.toString())
+                .queryParam("to", end.toString())
+                .queryParam("size", size);
+        Links links = new Links();
+        UriComponentsBuilder self = base.cloneBuilder();
+        if (cursor != null) {
+            self.queryParam("page[cursor]", cursor);
+        }
+        links.addLink("self", new Link(self.encode().toUriString()));
+        if (hasNext) {
+            String next = encodeMovementCursor(movements.get(movements.size() - 1));
+            links.addLink("next", new Link(base.cloneBuilder().queryParam("page[cursor]", next).encode().toUriString()));
+        }
+
+        JSONAPIDocument<List<InventoryMovement>> document = new JSONAPIDocument<>(movements);
+        document.setMeta(Map.of("pageSize", size, "hasNext", hasNext));
+        document.setLinks(links);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/vnd.api+json"))
+                .body(resourceConverter.writeDocumentCollection(document));
+    }
+
+    @Operation(summary = "Consultar los movimientos de stock de un producto agrupados por intervalos",
+            description = "Resumen por intervalo (interval en ISO-8601, p. ej. PT1H o P1D; alineado con UTC) de los movimientos en "
+                    + "[from, to): número de movimientos, variación neta y cantidades mínima y máxima. Los intervalos sin "
+                    + "movimientos no aparecen. Máximo 10.000 intervalos por consulta.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Intervalos con movimientos"),
+            @ApiResponse(responseCode = "400", description = "Fechas o intervalo inválidos, o demasiados intervalos")
+    })
+    @GetMapping(value = "/products/{productId}/movements/buckets", produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> getMovementBuckets(
+            @Parameter(description = "ID del producto") @PathVariable Long productId,
+            @Parameter(description = "Inicio del rango (incluido)") @RequestParam(value = "from", required = false) String from,
+            @Parameter(description = "Fin del rango (excluido)") @RequestParam(value = "to", required = false) String to,
+            @Parameter(description = "Tamaño del intervalo (ISO-8601)") @RequestParam(value = "interval", defaultValue = "P1D") String interval)
+            throws DocumentSerializationException {
+        Instant end = parseInstant("to", to, Instant.now());
+        Instant start = parseInstant("from", from, end.minus(DEFAULT_MOVEMENTS_RANGE));
+        List<InventoryMovementBucket> buckets;
+        try {
+            buckets = inventoryService.getMovementBuckets(productId, start, end, Duration.parse(interval));
+        } catch (DateTimeParseException e) {
+            throw JsonApiException.badRequest("Invalid interval: " + interval);
+        } catch (IllegalArgumentException e) {
+            throw JsonApiException.badRequest(e.getMessage());
+        }
+        JSONAPIDocument<List<InventoryMovementBucket>> document = new JSONAPIDocument<>(buckets);
+        document.setMeta(Map.of("from", start.toString(), "to", end.toString(), "interval", interval));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/vnd.api+json"))
+                .body(resourceConverter.writeDocumentCollection(document));
+    }
+
+    private static Instant parseInstant(String name, String value, Instant defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw JsonApiException.badRequest("Invalid " + name + ": expected ISO-8601 instant");
+        }
+    }
+
+    /** Cursor opaco de movimientos: fecha e id del último de la página. */
+    private static String encodeMovementCursor(InventoryMovement last) {
+        String position = last.getOccurredAt() + "," + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Cursor opaco de las consultas de stock bajo: cantidad y producto del último de la página. */
+    private static String encodeStockCursor(Inventory last) {
+        String position = last.getQuantity() + "," + last.getProductId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Inventory decodeStockCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 2);
+            return new Inventory(Long.parseLong(position[1]), Integer.parseInt(position[0]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw JsonApiException.badRequest("Invalid page[cursor]");
+        }
+    }
+
+    private static InventoryMovement decodeMovementCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 2);
+            InventoryMovement after = new InventoryMovement();
+            after.setOccurredAt(Instant.parse(position[0]));
+            after.setId(Long.parseLong(position[1]));
+            return after;
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw JsonApiException.badRequest("Invalid page[cursor]");
+        }
+    }
 }
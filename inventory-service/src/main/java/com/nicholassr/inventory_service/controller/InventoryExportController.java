@@ -0,0 +1,78 @@
+package com.nicholassr.inventory_service.controller;
+
+import com.nicholassr.common.export.ExportFileResponder;
+import com.nicholassr.common.export.ExportFormat;
+import com.nicholassr.common.jsonapi.JsonApiException;
+import com.nicholassr.inventory_service.export.InventoryCatalogExport;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Exportación de todos los productos con su stock en ficheros (ver {@link InventoryCatalogExport}).
+ */
+@RestController
+@RequestMapping("/api/v1/inventories/exports")
+@Tag(name = "Inventario", description = "API para la gestión de inventario de productos")
+public class InventoryExportController {
+
+    private final InventoryCatalogExport catalogExport;
+
+    public InventoryExportController(InventoryCatalogExport catalogExport) {
+        this.catalogExport = catalogExport;
+    }
+
+    @Operation(summary = "Generar una exportación del stock",
+            description = "Lanza en segundo plano la exportación de todos los productos con su stock (ndjson o csv, comprimida con gzip). "
+                    + "Location apunta a la descarga; mientras no termina sigue sirviéndose la anterior.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Exportación lanzada (o ya en curso)"),
+            @ApiResponse(responseCode = "404", description = "Formato desconocido")
+    })
+    @PostMapping("/{format}")
+    public ResponseEntity<Void> requestExport(@Parameter(description = "ndjson o csv") @PathVariable String format) {
+        ExportFormat exportFormat = parse(format);
+        catalogExport.requestExport(exportFormat);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri())
+                .build();
+    }
+
+    @Operation(summary = "Descargar la última exportación del stock",
+            description = "Fichero gzip con un producto por línea (ndjson) o por fila (csv). Admite Range e If-Range para "
+                    + "reanudar descargas, e If-None-Match / If-Modified-Since.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fichero completo"),
+            @ApiResponse(responseCode = "206", description = "Rango pedido"),
+            @ApiResponse(responseCode = "304", description = "El cliente ya tiene esta exportación"),
+            @ApiResponse(responseCode = "404", description = "Formato desconocido o sin exportaciones todavía"),
+            @ApiResponse(responseCode = "416", description = "Rango fuera del fichero")
+    })
+    @GetMapping("/{format}")
+    public void download(@Parameter(description = "ndjson o csv") @PathVariable String format,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = parse(format);
+        ExportFileResponder.serve(catalogExport.latest(exportFormat).orElseThrow(() -> JsonApiException.notFound(
+                catalogExport.isRunning(exportFormat)
+                        ? "Export in progress, try again later"
+                        : "No export available yet; POST to this URL to create one")), request, response);
+    }
+
+    private static ExportFormat parse(String format) {
+        return ExportFormat.fromExtension(format)
+                .orElseThrow(() -> JsonApiException.notFound("Unknown export format: " + format));
+    }
+}
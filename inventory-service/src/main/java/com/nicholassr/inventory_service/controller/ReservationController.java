@@ -0,0 +1,135 @@
+package com.nicholassr.inventory_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.github.jasminb.jsonapi.exceptions.DocumentSerializationException;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import com.nicholassr.common.jsonapi.JsonApiException;
+import com.nicholassr.inventory_service.models.StockReservation;
+import com.nicholassr.inventory_service.services.ReservationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+
+@RestController
+@RequestMapping("/api/v1/inventories/products/{productId}/reservations")
+@Tag(name = "Reservas", description = "Reservas temporales de stock: se confirman, se cancelan o caducan")
+public class ReservationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationController.class);
+    private final ReservationService reservationService;
+    private final JsonApiConverter resourceConverter;
+    private final ObjectMapper objectMapper;
+
+    public ReservationController(ReservationService reservationService, ObjectMapper objectMapper) {
+        this.reservationService = reservationService;
+        this.objectMapper = objectMapper;
+        this.resourceConverter = new JsonApiConverter(objectMapper, StockReservation.class);
+    }
+
+    @Operation(summary = "Reservar stock de un producto",
+            description = "Retiene unidades del producto durante ttlSeconds (por defecto app.reservations.default-ttl-seconds). "
+                    + "Si el producto tiene stock por almacén hay que indicar warehouseCode.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Reserva creada"),
+            @ApiResponse(responseCode = "400", description = "Cantidad, duración o almacén inválidos"),
+            @ApiResponse(responseCode = "409", description = "Stock disponible insuficiente o producto sin inventario")
+    })
+    @PostMapping(consumes = "application/vnd.api+json", produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> createReservation(
+            @Parameter(description = "ID del producto") @PathVariable Long productId,
+            @RequestBody byte[] requestBody) {
+        StockReservation reservation;
+        try {
+            JsonNode attributes = objectMapper.readTree(requestBody).path("data").path("attributes");
+            JsonNode quantity = attributes.path("quantity");
+            JsonNode ttlSeconds = attributes.path("ttlSeconds");
+            JsonNode warehouseCode = attributes.path("warehouseCode");
+            if (!quantity.canConvertToInt() || !(ttlSeconds.isMissingNode() || ttlSeconds.canConvertToLong())) {
+                throw new IllegalArgumentException("quantity (and ttlSeconds if present) must be integers.");
+            }
+            reservation = reservationService.reserve(productId, quantity.intValue(),
+                    ttlSeconds.isMissingNode() ? null : ttlSeconds.longValue(),
+                    warehouseCode.isTextual() ? warehouseCode.textValue() : null);
+        } catch (IOException e) {
+            throw JsonApiException.badRequest("Invalid JSON format: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Reserva rechazada para producto ID {}: {}", productId, e.getMessage());
+            throw JsonApiException.badRequest(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.info("Reserva rechazada para producto ID {}: {}", productId, e.getMessage());
+            throw JsonApiException.conflict(e.getMessage());
+        }
+        return respond(HttpStatus.CREATED, reservation);
+    }
+
+    @Operation(summary = "Consultar una reserva")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reserva encontrada"),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada para el producto")
+    })
+    @GetMapping(value = "/{reservationId}", produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> getReservation(@PathVariable Long productId, @PathVariable Long reservationId) {
+        return respond(productId, reservationId, () -> reservationService.getReservation(productId, reservationId));
+    }
+
+    @Operation(summary = "Confirmar una reserva", description = "Descuenta las unidades reservadas del stock del producto.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reserva confirmada"),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada para el producto"),
+            @ApiResponse(responseCode = "409", description = "La reserva no está activa o ha caducado")
+    })
+    @PostMapping(value = "/{reservationId}/confirm", produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> confirmReservation(@PathVariable Long productId, @PathVariable Long reservationId) {
+        return respond(productId, reservationId, () -> reservationService.confirm(productId, reservationId));
+    }
+
+    @Operation(summary = "Cancelar una reserva", description = "Libera las unidades reservadas. Cancelar dos veces no es un error.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reserva cancelada"),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada para el producto"),
+            @ApiResponse(responseCode = "409", description = "La reserva ya se confirmó o caducó")
+    })
+    @PostMapping(value = "/{reservationId}/cancel", produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> cancelReservation(@PathVariable Long productId, @PathVariable Long reservationId) {
+        return respond(productId, reservationId, () -> reservationService.cancel(productId, reservationId));
+    }
+
+    private ResponseEntity<byte[]> respond(Long productId, Long reservationId, Supplier<Optional<StockReservation>> action) {
+        Optional<StockReservation> reservation;
+        try {
+            reservation = action.get();
+        } catch (IllegalStateException e) {
+            logger.info("Operación rechazada sobre la reserva {} del producto ID {}: {}", reservationId, productId, e.getMessage());
+            throw JsonApiException.conflict(e.getMessage());
+        }
+        return respond(HttpStatus.OK, reservation.orElseThrow(() -> JsonApiException.notFound(
+                "Reservation " + reservationId + " not found for product ID: " + productId)));
+    }
+
+    private ResponseEntity<byte[]> respond(HttpStatus status, StockReservation reservation) {
+        try {
+            return ResponseEntity.status(status)
+                    .contentType(MediaType.parseMediaType("application/vnd.api+json"))
+                    .body(resourceConverter.writeDocument(new JSONAPIDocument<>(reservation)));
+        } catch (DocumentSerializationException e) {
+            logger.error("Error de serialización JSON:API de la reserva {}: {}", reservation.getId(), e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error serializing response: " + e.getMessage(), e);
+        }
+    }
+}
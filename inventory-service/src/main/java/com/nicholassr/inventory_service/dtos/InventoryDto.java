@@ -17,6 +17,7 @@ public class InventoryDto {
 
     private Long productId; // ID del producto al que se refiere este inventario
     private Integer quantity; // Cantidad de stock disponible
+    private Integer reorderThreshold; // Umbral de reposición (null = sin umbral)
 
     // Constructor sin ID para la creación inicial (si el ID lo genera la DB)
     public InventoryDto(Long productId, Integer quantity) {
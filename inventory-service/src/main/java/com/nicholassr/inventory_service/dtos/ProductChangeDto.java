@@ -0,0 +1,29 @@
+package com.nicholassr.inventory_service.dtos;
+
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Entrada del feed {@code GET /api/v1/products/changes} del servicio de productos. El id es el seq del cambio.
+ */
+@Data
+@NoArgsConstructor
+@Type("product-changes")
+public class ProductChangeDto {
+    @Id
+    private String id;
+    private Long productId;
+    private String name;
+    private BigDecimal price;
+    private boolean deleted;
+    private Instant changedAt;
+
+    public long getSeq() {
+        return Long.parseLong(id);
+    }
+}
@@ -7,6 +7,8 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Getter
 @Data
 @NoArgsConstructor
@@ -14,6 +16,7 @@ import lombok.NoArgsConstructor;
 @Type("products")
 public class ProductDto {
     @Id
+    private String id;
     private String name;
-    private Double price;
+    private BigDecimal price; // Igual que en el servicio de productos: sin pasar por Double
 }
@@ -0,0 +1,104 @@
+package com.nicholassr.inventory_service.export;
+
+import com.nicholassr.common.export.ExportFile;
+import com.nicholassr.common.export.ExportFormat;
+import com.nicholassr.common.export.ExportRowWriter;
+import com.nicholassr.common.export.ExportStore;
+import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.models.ProductSnapshot;
+import com.nicholassr.inventory_service.repository.ProductSnapshotRepository;
+import com.nicholassr.inventory_service.sharding.InventoryShards;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Exportación de todos los productos con su stock (copia local de productos + inventario) a ficheros
+ * NDJSON/CSV comprimidos en {@code app.export.directory}, para analítica.
+ *
+ * Se recorre la copia local por páginas de {@code batch-size} en orden de ID y, para cada página, se lee el
+ * inventario de esos productos ({@link InventoryShards#findAllByProductIdIn}, en paralelo si hay shards):
+ * la memoria es la de una página, no la del catálogo.
+ */
+@Component
+public class InventoryCatalogExport implements DisposableBean {
+
+    public static final String DATASET = "inventory";
+    private static final List<String> COLUMNS = List.of("productId", "name", "price", "quantity", "quantityReserved",
+            "quantityAvailable");
+
+    private final ExportStore store;
+    private final ProductSnapshotRepository snapshotRepository;
+    private final InventoryShards inventoryShards;
+    private final int batchSize;
+
+    public InventoryCatalogExport(ProductSnapshotRepository snapshotRepository, InventoryShards inventoryShards,
+                                  @Value("${app.export.directory:./exports}") String directory,
+                                  @Value("${app.export.retain:3}") int retain,
+                                  @Value("${app.export.batch-size:1000}") int batchSize) throws IOException {
+        this.store = new ExportStore(Path.of(directory), retain);
+        this.snapshotRepository = snapshotRepository;
+        this.inventoryShards = inventoryShards;
+        this.batchSize = batchSize;
+    }
+
+    /** Exportación periódica en todos los formatos ({@code app.export.cron}; "-" la desactiva). */
+    @Scheduled(cron = "${app.export.cron:-}")
+    public void exportAll() {
+        for (ExportFormat format : ExportFormat.values()) {
+            store.exportAsync(DATASET, format, COLUMNS, this::writeStock);
+        }
+    }
+
+    /** Lanza una exportación en segundo plano; false si ya hay una en curso en ese formato. */
+    public boolean requestExport(ExportFormat format) {
+        return store.exportAsync(DATASET, format, COLUMNS, this::writeStock);
+    }
+
+    public boolean isRunning(ExportFormat format) {
+        return store.isRunning(DATASET, format);
+    }
+
+    public Optional<ExportFile> latest(ExportFormat format) {
+        return store.latest(DATASET, format);
+    }
+
+    @Override
+    public void destroy() {
+        store.close();
+    }
+
+    private void writeStock(ExportRowWriter writer) throws IOException {
+        long after = 0;
+        while (true) {
+            long cursor = after;
+            List<ProductSnapshot> page = inventoryShards.readMain(() ->
+                    snapshotRepository.findByProductIdGreaterThanOrderByProductId(cursor, Limit.of(batchSize)));
+            if (page.isEmpty()) {
+                return;
+            }
+            Map<Long, Inventory> stock = inventoryShards.findAllByProductIdIn(
+                            page.stream().map(ProductSnapshot::getProductId).toList()).stream()
+                    // Durante un reparto de shards un producto puede leerse en dos; cualquiera de las dos filas vale
+                    .collect(Collectors.toMap(Inventory::getProductId, Function.identity(), (first, second) -> first));
+            for (ProductSnapshot product : page) {
+                Inventory inventory = stock.get(product.getProductId());
+                int quantity = inventory != null && inventory.getQuantity() != null ? inventory.getQuantity() : 0;
+                int reserved = inventory != null && inventory.getReservedQuantity() != null ? inventory.getReservedQuantity() : 0;
+                writer.write(product.getProductId(), product.getName(), product.getPrice(), quantity, reserved,
+                        Math.max(0, quantity - reserved));
+            }
+            after = page.get(page.size() - 1).getProductId();
+        }
+    }
+}
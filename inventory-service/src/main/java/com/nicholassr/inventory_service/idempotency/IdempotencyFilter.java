@@ -0,0 +1,258 @@
+package com.nicholassr.inventory_service.idempotency;
+
+import com.nicholassr.common.jsonapi.JsonApiErrors;
+import com.nicholassr.inventory_service.models.IdempotencyRecord;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Escrituras con cabecera {@code Idempotency-Key}: la primera petición con una clave se ejecuta y su respuesta
+ * se guarda en {@link IdempotencyStore}; un reintento con la misma clave y la misma petición recibe esa
+ * respuesta (con {@code Idempotent-Replayed: true}) sin llegar al controlador, así que no lee ni bloquea el
+ * inventario. Mientras la original está en curso, un reintento recibe 409; la misma clave con otra petición
+ * (método, ruta, query o cuerpo distintos), 422.
+ *
+ * Se guardan las respuestas 2xx y 4xx (salvo 429): son el resultado de la petición. Con un 5xx, una excepción
+ * o una respuesta de más de {@code max-body-bytes} la clave se libera y el reintento vuelve a ejecutarse. Las
+ * peticiones con cuerpo de más de {@code max-request-bytes} se rechazan con 413 sin leerlo entero.
+ *
+ * Las claves son de cada cliente (usuario autenticado o SHA-256 del header {@code client-header}): dos clientes
+ * pueden usar la misma clave sin verse las respuestas.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties) {
+        this.store = store;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!WRITE_METHODS.contains(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = readBody(request);
+        if (body == null) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Requests with " + HEADER + " accept bodies up to " + properties.getMaxRequestBytes() + " bytes");
+            return;
+        }
+        String fingerprint = fingerprint(request, body);
+        String clientId = clientId(request);
+
+        IdempotencyStore.Claim claim;
+        try {
+            claim = store.claim(clientId, key, fingerprint);
+        } catch (DataAccessException e) {
+            // Sin la tabla no se puede saber si es un reintento: mejor no ejecutar que aplicar dos veces
+            logger.error("No se pudo consultar la clave de idempotencia {}: {}", key, e.getMessage(), e);
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Idempotency store unavailable, retry later");
+            return;
+        }
+        switch (claim.outcome()) {
+            case REPLAYED -> replay(response, claim.response());
+            case IN_PROGRESS -> reject(response, HttpStatus.CONFLICT,
+                    "A request with this " + HEADER + " is still being processed");
+            case MISMATCH -> reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for a different request");
+            case ACQUIRED -> execute(clientId, key, fingerprint, new CachedBodyRequest(request, body), response, filterChain);
+        }
+    }
+
+    private void execute(String clientId, String key, String fingerprint, HttpServletRequest request,
+                         HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapped = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, wrapped);
+            int status = wrapped.getStatus();
+            if (status < 500 && status != HttpStatus.TOO_MANY_REQUESTS.value()
+                    && wrapped.getContentSize() <= properties.getMaxBodyBytes()) {
+                // Si la tabla falla, el store conserva la respuesta y la reserva: la clave no se libera
+                store.complete(clientId, key, fingerprint, status, wrapped.getContentType(), wrapped.getContentAsByteArray());
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                store.release(clientId, key);
+            }
+        }
+        wrapped.copyBodyToResponse();
+    }
+
+    /**
+     * El cuerpo completo (hace falta para la huella), o null si pasa de {@code max-request-bytes}: se descarta por
+     * el {@code Content-Length} y, sin él (chunked), leyendo como mucho un byte más del tope.
+     */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        int max = properties.getMaxRequestBytes();
+        if (request.getContentLengthLong() > max) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes((int) Math.min((long) max + 1, Integer.MAX_VALUE));
+        return body.length > max ? null : body;
+    }
+
+    /** Espacio de claves del cliente: el usuario autenticado o la huella de su API key. */
+    private String clientId(HttpServletRequest request) {
+        if (request.getUserPrincipal() != null) {
+            return sha256("user:" + request.getUserPrincipal().getName());
+        }
+        String apiKey = request.getHeader(properties.getClientHeader());
+        return apiKey != null ? sha256("key:" + apiKey) : "anonymous";
+    }
+
+    private static void replay(HttpServletResponse response, IdempotencyRecord stored) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String detail) throws IOException {
+        byte[] document = JsonApiErrors.document(status, detail);
+        response.setStatus(status.value());
+        response.setContentType(JsonApiErrors.MEDIA_TYPE.toString());
+        response.setContentLength(document.length);
+        response.getOutputStream().write(document);
+    }
+
+    /** SHA-256 de método, ruta, query y cuerpo. */
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        MessageDigest digest = sha256();
+        digest.update((request.getMethod() + ' ' + request.getRequestURI() + '?'
+                + (request.getQueryString() != null ? request.getQueryString() : "") + '\n').getBytes(StandardCharsets.UTF_8));
+        digest.update(body);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(String value) {
+        return HexFormat.of().formatHex(sha256().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** La petición con el cuerpo ya leído (para la huella), que el controlador vuelve a leer de memoria. */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /** El cuerpo ya está en memoria: todo está disponible en cuanto se registra el listener. */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
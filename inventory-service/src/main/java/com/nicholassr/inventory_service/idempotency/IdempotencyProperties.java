@@ -0,0 +1,47 @@
+package com.nicholassr.inventory_service.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escrituras con cabecera {@code Idempotency-Key} ({@code app.idempotency.*}): la primera se ejecuta y su
+ * respuesta se guarda; los reintentos con la misma clave reciben esa respuesta sin volver a ejecutarse.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Header que identifica al cliente: cada valor (se guarda su SHA-256) tiene su propio espacio de claves. Con
+     * un usuario autenticado se usa su nombre.
+     */
+    private String clientHeader = "X-API-KEY";
+
+    /** Rutas (patrones Ant) cuyas escrituras (POST, PUT, PATCH, DELETE) admiten la cabecera. */
+    private List<String> paths = new ArrayList<>(List.of("/api/v1/inventories/**"));
+
+    /** Cuánto tiempo se repite una respuesta guardada. */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Cuánto se considera viva una petición en curso sin renovar. La instancia que la ejecuta la renueva cada
+     * {@code renew-interval-ms} (debe ser bastante menor); si cae antes de responder, la clave queda libre
+     * pasado este tiempo.
+     */
+    private Duration inProgressTimeout = Duration.ofSeconds(60);
+
+    /** Bytes de respuestas en memoria (LRU); las que no caben se leen de la tabla. */
+    private long memoryMaxBytes = 16 * 1024 * 1024;
+
+    /** Respuestas más grandes no se guardan: la clave se libera y un reintento vuelve a ejecutarse. */
+    private int maxBodyBytes = 256 * 1024;
+
+    /** Cuerpo máximo de una petición con la cabecera: se lee en memoria para la huella. Las mayores reciben 413. */
+    private int maxRequestBytes = 256 * 1024;
+}
@@ -0,0 +1,290 @@
+package com.nicholassr.inventory_service.idempotency;
+
+import com.nicholassr.inventory_service.models.IdempotencyRecord;
+import com.nicholassr.inventory_service.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claves de idempotencia: las respuestas recientes en memoria (LRU acotada en bytes) y todas, terminadas o en
+ * curso, en {@code idempotency_keys}. Un reintento de una respuesta en memoria no llega a la base; si no está
+ * (otra instancia, reinicio o expulsada de la LRU) se lee de la tabla. Las caducadas se borran cada
+ * {@code app.idempotency.purge-interval-ms}. Cada cliente tiene su propio espacio de claves.
+ *
+ * Mientras una petición sigue en curso, su reserva se alarga cada {@code app.idempotency.renew-interval-ms}
+ * para que no caduque aunque tarde más que {@code in-progress-timeout}; si la instancia cae, la reserva deja
+ * de alargarse y queda libre al caducar. Si no se puede guardar la respuesta, esta instancia la repite desde
+ * memoria, mantiene la reserva y reintenta guardarla en cada renovación: la clave no se libera, porque la
+ * escritura ya está hecha.
+ *
+ * Exporta {@code inventory.idempotency.requests} por resultado: {@code processed} (primera ejecución),
+ * {@code replayed}, {@code in_progress} y {@code mismatch}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.idempotency", name = "enabled", havingValue = "true")
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    public enum Outcome {
+        /** Clave reservada: hay que ejecutar la petición y después llamar a complete o release. */
+        ACQUIRED,
+        /** Petición ya respondida: se repite la respuesta guardada. */
+        REPLAYED,
+        /** La petición original aún no ha respondido. */
+        IN_PROGRESS,
+        /** La clave se usó con otra petición. */
+        MISMATCH
+    }
+
+    public record Claim(Outcome outcome, IdempotencyRecord response) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final IdempotencyProperties properties;
+    private final Counter processedCounter;
+    private final Counter replayedCounter;
+    private final Counter inProgressCounter;
+    private final Counter mismatchCounter;
+
+    // Orden de acceso: el primero es el menos usado. Solo respuestas terminadas.
+    private final LinkedHashMap<String, IdempotencyRecord> recent = new LinkedHashMap<>(256, 0.75f, true);
+    private long recentBytes;
+    // Reservas de esta instancia con la petición en curso, y respuestas que no se pudieron guardar en la tabla
+    private final Map<String, IdempotencyRecord> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, IdempotencyRecord> unsaved = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyRecordRepository repository, IdempotencyProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.processedCounter = requests(meterRegistry, "processed");
+        this.replayedCounter = requests(meterRegistry, "replayed");
+        this.inProgressCounter = requests(meterRegistry, "in_progress");
+        this.mismatchCounter = requests(meterRegistry, "mismatch");
+        Gauge.builder("inventory.idempotency.cached", this, IdempotencyStore::cachedResponses)
+                .description("Respuestas idempotentes en memoria en esta instancia")
+                .register(meterRegistry);
+        Gauge.builder("inventory.idempotency.cached.bytes", this, IdempotencyStore::cachedBytes)
+                .description("Bytes de respuestas idempotentes en memoria en esta instancia")
+                .register(meterRegistry);
+        Gauge.builder("inventory.idempotency.unsaved", unsaved, Map::size)
+                .description("Respuestas idempotentes pendientes de guardar en la tabla")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.idempotency.requests")
+                .description("Escrituras con Idempotency-Key por resultado")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserva la clave de {@code clientId} para {@code fingerprint} o devuelve lo que ya hay. Con la clave
+     * caducada (también una petición en curso cuya instancia dejó de renovarla) se borra y se vuelve a reservar.
+     */
+    public Claim claim(String clientId, String key, String fingerprint) {
+        Instant now = Instant.now();
+        String id = id(clientId, key);
+        IdempotencyRecord cached = cached(id, now);
+        if (cached == null) {
+            cached = unsaved.get(id);
+        }
+        if (cached != null) {
+            return existing(cached, fingerprint);
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Instant leaseEnd = now.plus(properties.getInProgressTimeout());
+            if (repository.insertPending(clientId, key, fingerprint, leaseEnd)) {
+                inFlight.put(id, new IdempotencyRecord(clientId, key, fingerprint, null, null, null, leaseEnd));
+                processedCounter.increment();
+                return new Claim(Outcome.ACQUIRED, null);
+            }
+            Optional<IdempotencyRecord> stored = repository.find(clientId, key);
+            if (stored.isEmpty()) {
+                continue; // Liberada entre el insert y la lectura
+            }
+            if (!stored.get().getExpiresAt().isAfter(now)) {
+                repository.deleteExpired(clientId, key, now);
+                continue;
+            }
+            if (stored.get().isCompleted()) {
+                remember(id, stored.get());
+            }
+            return existing(stored.get(), fingerprint);
+        }
+        // Otra petición ha vuelto a reservar la clave justo después de liberarse
+        inProgressCounter.increment();
+        return new Claim(Outcome.IN_PROGRESS, null);
+    }
+
+    private Claim existing(IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            mismatchCounter.increment();
+            return new Claim(Outcome.MISMATCH, null);
+        }
+        if (!record.isCompleted()) {
+            inProgressCounter.increment();
+            return new Claim(Outcome.IN_PROGRESS, null);
+        }
+        replayedCounter.increment();
+        return new Claim(Outcome.REPLAYED, record);
+    }
+
+    /**
+     * Guarda la respuesta de una clave reservada con {@link #claim}. Si la tabla falla, la respuesta queda en
+     * memoria y se reintenta guardarla en {@link #renewLeases}.
+     */
+    public void complete(String clientId, String key, String fingerprint, int status, String contentType, byte[] body) {
+        String id = id(clientId, key);
+        IdempotencyRecord record = new IdempotencyRecord(clientId, key, fingerprint, status, contentType, body,
+                Instant.now().plus(properties.getTtl()));
+        remember(id, record);
+        try {
+            if (!repository.complete(record)) {
+                logger.warn("La reserva de la clave de idempotencia {} ya no existía al guardar la respuesta.", key);
+            }
+        } catch (RuntimeException e) {
+            unsaved.put(id, record);
+            logger.error("No se pudo guardar la respuesta de la clave de idempotencia {}: {}. Se reintentará.",
+                    key, e.getMessage(), e);
+        } finally {
+            inFlight.remove(id);
+        }
+    }
+
+    /** Libera una clave reservada sin respuesta que guardar: un reintento volverá a ejecutarse. */
+    public void release(String clientId, String key) {
+        inFlight.remove(id(clientId, key));
+        try {
+            repository.deletePending(clientId, key);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo liberar la clave de idempotencia {}: {}. Quedará libre al caducar.", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Alarga las reservas de las peticiones en curso en esta instancia y reintenta guardar las respuestas que
+     * fallaron (alargando también su reserva mientras tanto).
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.renew-interval-ms:15000}")
+    public void renewLeases() {
+        Instant leaseEnd = Instant.now().plus(properties.getInProgressTimeout());
+        for (IdempotencyRecord pending : inFlight.values()) {
+            renew(pending, leaseEnd);
+        }
+        for (Map.Entry<String, IdempotencyRecord> entry : unsaved.entrySet()) {
+            IdempotencyRecord record = entry.getValue();
+            try {
+                boolean saved = repository.complete(record);
+                unsaved.remove(entry.getKey(), record);
+                if (saved) {
+                    logger.info("Respuesta de la clave de idempotencia {} guardada al reintentar.", record.getIdempotencyKey());
+                } else {
+                    logger.warn("La reserva de la clave de idempotencia {} ya no existía al reintentar.", record.getIdempotencyKey());
+                }
+            } catch (RuntimeException e) {
+                renew(record, leaseEnd);
+            }
+        }
+    }
+
+    private void renew(IdempotencyRecord pending, Instant leaseEnd) {
+        try {
+            repository.renewPending(pending.getClientId(), pending.getIdempotencyKey(), leaseEnd);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo renovar la clave de idempotencia {}: {}", pending.getIdempotencyKey(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void purge() {
+        Instant now = Instant.now();
+        try {
+            int deleted = repository.deleteExpired(now);
+            if (deleted > 0) {
+                logger.debug("Claves de idempotencia caducadas borradas: {}", deleted);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error al borrar las claves de idempotencia caducadas: {}", e.getMessage(), e);
+        }
+        unsaved.values().removeIf(record -> !record.getExpiresAt().isAfter(now));
+        synchronized (this) {
+            Iterator<IdempotencyRecord> iterator = recent.values().iterator();
+            while (iterator.hasNext()) {
+                IdempotencyRecord record = iterator.next();
+                if (!record.getExpiresAt().isAfter(now)) {
+                    recentBytes -= weight(record);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static String id(String clientId, String key) {
+        return clientId + ':' + key;
+    }
+
+    private synchronized IdempotencyRecord cached(String id, Instant now) {
+        IdempotencyRecord record = recent.get(id);
+        if (record == null || record.getExpiresAt().isAfter(now)) {
+            return record;
+        }
+        recentBytes -= weight(record);
+        recent.remove(id);
+        return null;
+    }
+
+    private synchronized void remember(String id, IdempotencyRecord record) {
+        if (record.getBody() == null) {
+            record.setBody(new byte[0]);
+        }
+        if (weight(record) > properties.getMemoryMaxBytes()) {
+            return;
+        }
+        IdempotencyRecord previous = recent.put(id, record);
+        recentBytes += weight(record) - (previous == null ? 0 : weight(previous));
+
+        Iterator<Map.Entry<String, IdempotencyRecord>> eldest = recent.entrySet().iterator();
+        while (recentBytes > properties.getMemoryMaxBytes() && eldest.hasNext()) {
+            recentBytes -= weight(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    /** Bytes que ocupa una entrada: el cuerpo más la clave y los campos (aproximado), para acotar también las vacías. */
+    private static long weight(IdempotencyRecord record) {
+        return record.getBody().length + 2L * record.getIdempotencyKey().length() + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private synchronized int cachedResponses() {
+        return recent.size();
+    }
+
+    private synchronized long cachedBytes() {
+        return recentBytes;
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    int unsavedCount() {
+        return unsaved.size();
+    }
+}
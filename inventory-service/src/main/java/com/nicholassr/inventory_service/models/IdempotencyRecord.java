@@ -0,0 +1,33 @@
+package com.nicholassr.inventory_service.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Escritura con {@code Idempotency-Key} (tabla {@code idempotency_keys}): la huella de la petición y, cuando
+ * termina, la respuesta que se devolvió, para repetirla tal cual si el cliente reintenta con la misma clave.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    // Cliente que envió la clave (huella de su API key): cada cliente tiene su propio espacio de claves
+    private String clientId;
+    private String idempotencyKey;
+    // SHA-256 de método, ruta, query y cuerpo: la misma clave con otra petición se rechaza
+    private String fingerprint;
+    // null mientras la petición original está en curso
+    private Integer status;
+    private String contentType;
+    private byte[] body;
+    // En curso: hasta cuándo se considera viva; terminada: hasta cuándo se repite
+    private Instant expiresAt;
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
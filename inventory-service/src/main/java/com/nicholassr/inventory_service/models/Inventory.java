@@ -1,19 +1,34 @@
 package com.nicholassr.inventory_service.models;
 
 import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Relationship;
 import com.github.jasminb.jsonapi.annotations.Type;
+import com.nicholassr.inventory_service.dtos.ProductDto;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.Index;
 import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 @Entity
+// Consultas de stock bajo (quantity < N) por rango del índice, en orden de cantidad; en PostgreSQL además
+// idx_inventory_below_reorder (ver ReorderIndex)
+@Table(name = "inventory", indexes = @Index(name = "idx_inventory_quantity_product", columnList = "quantity, product_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Type("inventories")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "inventories") // Caché L2 (app.jpa.second-level-cache)
+@NaturalIdCache(region = "inventories-by-product") // productId -> id, para findByProductId
 public class Inventory {
 
     @jakarta.persistence.Id
@@ -22,8 +37,18 @@ public class Inventory {
     @Id
     private Long id;
 
+    @NaturalId // Un único registro de inventario por producto; no cambia después del alta
     private Long productId;
     private Integer quantity;
+    // Unidades retenidas por reservas activas (StockReservation); disponibles = quantity - reservedQuantity
+    private Integer reservedQuantity;
+    // Cantidad por debajo de la cual hay que reponer (filter[belowReorderThreshold]); null = sin umbral
+    private Integer reorderThreshold;
+
+    // Solo en las consultas con ?include=product; null no se escribe
+    @Transient
+    @Relationship("product")
+    private ProductDto product;
 
     // Constructor adicional para facilitar la creación de objetos Inventory sin especificar el 'id'
     // El 'id' será generado automáticamente por la base de datos.
@@ -0,0 +1,49 @@
+package com.nicholassr.inventory_service.models;
+
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Movimiento de stock de un producto: cada cambio de {@link Inventory#getQuantity()} deja uno, con la
+ * diferencia y la cantidad resultante. Tabla de solo inserción ({@code inventory_movements}, particionada
+ * por mes en PostgreSQL), escrita por lotes con JDBC; no es una entidad JPA.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Type("inventory-movements")
+public class InventoryMovement {
+
+    @Id
+    private Long id;
+
+    private Long productId;
+    private Integer delta;
+    // Cantidad total del producto tras el movimiento
+    private Integer quantity;
+    private Reason reason;
+    private Instant occurredAt;
+
+    public InventoryMovement(Long productId, Integer delta, Integer quantity, Reason reason, Instant occurredAt) {
+        this.productId = productId;
+        this.delta = delta;
+        this.quantity = quantity;
+        this.reason = reason;
+        this.occurredAt = occurredAt;
+    }
+
+    public enum Reason {
+        // PATCH de la cantidad total
+        ADJUSTMENT,
+        // PATCH del stock de un almacén
+        WAREHOUSE_ADJUSTMENT,
+        RESERVATION_CONFIRMED,
+        // Inventario de un producto que ya no existe, borrado por la conciliación
+        RECONCILIATION
+    }
+}
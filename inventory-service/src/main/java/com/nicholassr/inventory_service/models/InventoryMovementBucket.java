@@ -0,0 +1,33 @@
+package com.nicholassr.inventory_service.models;
+
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Resumen de los movimientos de un producto en un intervalo de tiempo (consulta agregada por la base).
+ * Los intervalos sin movimientos no aparecen.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Type("inventory-movement-buckets")
+public class InventoryMovementBucket {
+
+    // Inicio del intervalo en ISO-8601
+    @Id
+    private String id;
+
+    private Long productId;
+    private Instant bucketStart;
+    private Instant bucketEnd;
+    private Long movements;
+    // Suma de los deltas del intervalo
+    private Long netChange;
+    private Integer minQuantity;
+    private Integer maxQuantity;
+}
@@ -0,0 +1,35 @@
+package com.nicholassr.inventory_service.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Copia local de un producto, mantenida por {@link com.nicholassr.inventory_service.sync.ProductSnapshotSync}
+ * a partir del feed de cambios del servicio de productos. Permite resolver la consulta de inventario con
+ * un join local, sin llamar al servicio de productos.
+ */
+@Entity
+@Table(name = "product_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSnapshot {
+
+    @Id
+    private Long productId;
+    private String name;
+    @Column(precision = 38, scale = 2)
+    private BigDecimal price;
+
+    // seq del último cambio aplicado: un cambio con seq menor o igual ya está reflejado y se ignora
+    private Long sourceSeq;
+    private Instant syncedAt;
+}
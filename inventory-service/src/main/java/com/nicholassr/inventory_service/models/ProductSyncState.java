@@ -0,0 +1,29 @@
+package com.nicholassr.inventory_service.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Posición de la réplica local de productos en el feed de cambios. Si no existe, la sincronización
+ * empieza con una carga completa del catálogo.
+ */
+@Entity
+@Table(name = "product_sync_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSyncState {
+
+    public static final String PRODUCTS_FEED = "products";
+
+    @Id
+    private String feed;
+    private Long lastSeq;
+    private Instant updatedAt;
+}
@@ -0,0 +1,28 @@
+package com.nicholassr.inventory_service.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Último producto revisado por una pasada de la conciliación de inventario ({@code orphans-<nodo>} o
+ * {@code gaps}), o {@code Long.MAX_VALUE} si ya terminó. Si el proceso se corta, la siguiente ejecución
+ * continúa desde aquí; se borran al terminar la conciliación entera.
+ */
+@Entity
+@Table(name = "reconciliation_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationCheckpoint {
+
+    @Id
+    private String pass;
+    private Long lastProductId;
+    private Instant updatedAt;
+}
@@ -0,0 +1,30 @@
+package com.nicholassr.inventory_service.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Número de shards en uso de una tabla repartida (en la base principal). {@code targetShards} solo tiene
+ * valor mientras hay un reparto en curso: al arrancar con él se retoma el reparto.
+ */
+@Entity
+@Table(name = "shard_topology")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardTopology {
+
+    public static final String INVENTORY = "inventory";
+
+    @Id
+    private String name;
+    private Integer activeShards;
+    private Integer targetShards;
+    private Instant updatedAt;
+}
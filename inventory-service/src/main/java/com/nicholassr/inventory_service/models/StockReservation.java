@@ -0,0 +1,63 @@
+package com.nicholassr.inventory_service.models;
+
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Reserva temporal de stock de un producto. Mientras está activa su cantidad cuenta en
+ * {@link Inventory#getReservedQuantity()} y no está disponible para otras reservas; al confirmarla se
+ * descuenta del stock, y al cancelarla o caducar se libera. Con shards vive en el mismo shard que el
+ * inventario del producto.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_status_id", columnList = "status, id"),
+        @Index(name = "idx_stock_reservations_status_expires_at", columnList = "status, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Type("reservations")
+public class StockReservation {
+
+    @jakarta.persistence.Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservation_seq")
+    @SequenceGenerator(name = "stock_reservation_seq", sequenceName = "stock_reservation_seq", allocationSize = 1)
+    @Id
+    private Long id;
+
+    private Long productId;
+    // Solo si el producto tiene stock por almacén: la confirmación descuenta de ese almacén
+    private String warehouseCode;
+    private Integer quantity;
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    private Instant expiresAt;
+    private Instant createdAt;
+
+    public StockReservation(Long productId, String warehouseCode, Integer quantity, Instant expiresAt, Instant createdAt) {
+        this.productId = productId;
+        this.warehouseCode = warehouseCode;
+        this.quantity = quantity;
+        this.status = Status.ACTIVE;
+        this.expiresAt = expiresAt;
+        this.createdAt = createdAt;
+    }
+
+    public enum Status {
+        ACTIVE, CONFIRMED, CANCELLED, EXPIRED
+    }
+}
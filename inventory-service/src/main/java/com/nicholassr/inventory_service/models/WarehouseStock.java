@@ -0,0 +1,45 @@
+package com.nicholassr.inventory_service.models;
+
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock de un producto en un almacén. La suma de los almacenes de un producto se guarda en
+ * {@link Inventory#getQuantity()} y se actualiza en la misma transacción que cada fila, así la consulta
+ * del total no tiene que sumar. Con shards vive en el mismo shard que el inventario del producto.
+ */
+@Entity
+@Table(name = "warehouse_stock", uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "warehouse_code"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Type("warehouse-stocks")
+public class WarehouseStock {
+
+    @jakarta.persistence.Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warehouse_stock_seq")
+    @SequenceGenerator(name = "warehouse_stock_seq", sequenceName = "warehouse_stock_seq", allocationSize = 1)
+    @Id
+    private Long id;
+
+    private Long productId;
+    private String warehouseCode;
+    private Integer quantity;
+    // Unidades de este almacén retenidas por reservas activas
+    private Integer reservedQuantity;
+
+    public WarehouseStock(Long productId, String warehouseCode, Integer quantity) {
+        this.productId = productId;
+        this.warehouseCode = warehouseCode;
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,140 @@
+package com.nicholassr.inventory_service.movements;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Esquema y retención de {@code inventory_movements}. En PostgreSQL la tabla está particionada por mes de
+ * {@code occurred_at}: las particiones se crean con {@code premake-months} de antelación y la retención borra
+ * particiones enteras ({@code drop table}), sin {@code delete} ni vacuum. En otras bases (H2 en desarrollo)
+ * es una tabla normal y la retención borra filas.
+ *
+ * Crea también la bandeja de salida de la base principal ({@code inventory_movement_outbox}, ver
+ * {@link InventoryMovementRecorder}); la de cada shard la crea el esquema de los shards.
+ *
+ * Se ejecuta al arrancar el contexto (fase 0, antes que el servidor web; no al crear el bean, para que el
+ * entrenamiento CDS no necesite base de datos) y cada día ({@code app.movements.maintenance-cron}).
+ */
+@Component
+public class InventoryMovementPartitions implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryMovementPartitions.class);
+    private static final String TABLE = "inventory_movements";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION = Pattern.compile(TABLE + "_p(\\d{6})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionMonths;
+    private final int premakeMonths;
+    private boolean partitioned;
+    private volatile boolean running;
+
+    public InventoryMovementPartitions(JdbcTemplate jdbcTemplate,
+                                       @Value("${app.movements.retention-months:24}") int retentionMonths,
+                                       @Value("${app.movements.premake-months:3}") int premakeMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionMonths = retentionMonths;
+        this.premakeMonths = premakeMonths;
+    }
+
+    @Override
+    public void start() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        partitioned = "PostgreSQL".equals(product);
+        jdbcTemplate.execute("create sequence if not exists inventory_movement_seq");
+        // Sin clave primaria: en una tabla particionada tendría que incluir occurred_at, y las filas no se actualizan
+        jdbcTemplate.execute("create table if not exists " + TABLE + " ("
+                + "id bigint not null default nextval('inventory_movement_seq'), "
+                + "product_id bigint not null, "
+                + "delta integer not null, "
+                + "quantity integer not null, "
+                + "reason varchar(32) not null, "
+                + "occurred_at timestamp(6) with time zone not null)"
+                + (partitioned ? " partition by range (occurred_at)" : ""));
+        jdbcTemplate.execute("create index if not exists idx_inventory_movements_product_time on " + TABLE
+                + " (product_id, occurred_at, id)" + (partitioned ? " include (delta, quantity)" : ""));
+        // Mismo esquema que en los shards (db/sharding/inventory-shard.sql)
+        jdbcTemplate.execute("create table if not exists inventory_movement_outbox ("
+                + "id bigint not null default nextval('inventory_movement_seq') primary key, "
+                + "product_id bigint not null, "
+                + "delta integer not null, "
+                + "quantity integer not null, "
+                + "reason varchar(32) not null, "
+                + "occurred_at timestamp(6) with time zone not null, "
+                + "attempts integer not null default 0, "
+                + "last_error varchar(512))");
+        maintain();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Crea las particiones que faltan y aplica la retención. */
+    @Scheduled(cron = "${app.movements.maintenance-cron:0 30 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        try {
+            if (partitioned) {
+                for (int i = 0; i <= premakeMonths; i++) {
+                    createPartition(current.plusMonths(i));
+                }
+                dropPartitionsBefore(oldestKept);
+            } else {
+                int deleted = jdbcTemplate.update("delete from " + TABLE + " where occurred_at < ?",
+                        monthStart(oldestKept));
+                if (deleted > 0) {
+                    logger.info("Retención de movimientos de inventario: {} filas anteriores a {} borradas.", deleted, oldestKept);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error en el mantenimiento de {}: {}", TABLE, e.getMessage(), e);
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("create table if not exists " + TABLE + "_p" + month.format(SUFFIX)
+                + " partition of " + TABLE + " for values from ('" + monthStart(month) + "') to ('"
+                + monthStart(month.plusMonths(1)) + "')");
+    }
+
+    private void dropPartitionsBefore(YearMonth oldestKept) {
+        List<String> partitions = jdbcTemplate.queryForList("select child.relname from pg_inherits i "
+                + "join pg_class child on child.oid = i.inhrelid join pg_class parent on parent.oid = i.inhparent "
+                + "where parent.relname = ?", String.class, TABLE);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION.matcher(partition);
+            if (matcher.matches() && YearMonth.parse(matcher.group(1), SUFFIX).isBefore(oldestKept)) {
+                jdbcTemplate.execute("drop table " + partition);
+                logger.info("Retención de movimientos de inventario: partición {} borrada.", partition);
+            }
+        }
+    }
+
+    private static OffsetDateTime monthStart(YearMonth month) {
+        return LocalDate.of(month.getYear(), month.getMonth(), 1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,201 @@
+package com.nicholassr.inventory_service.movements;
+
+import com.nicholassr.common.sharding.ShardRoutingDataSource;
+import com.nicholassr.inventory_service.models.InventoryMovement;
+import com.nicholassr.inventory_service.repository.InventoryMovementRepository;
+import com.nicholassr.inventory_service.repository.InventoryMovementRepository.OutboxEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Historial de movimientos con bandeja de salida: {@link #record} inserta el movimiento en
+ * {@code inventory_movement_outbox} dentro de la transacción que cambia el stock (en el shard del producto),
+ * así que no se pierde aunque la instancia caiga justo después del commit. Cada
+ * {@code app.movements.flush-interval-ms} se pasan a {@code inventory_movements} por lotes de
+ * {@code batch-size}, base a base (la principal y cada shard).
+ *
+ * Si un lote falla por la conexión o un error transitorio, se deja para la siguiente pasada. Si falla por
+ * los datos, sus movimientos se reintentan de uno en uno para aislar el que no entra: ese se salta en esta
+ * pasada y, tras {@code max-attempts} intentos, queda apartado en la bandeja (métrica
+ * {@code inventory.movements.dead_lettered}) sin frenar a los demás. Se vuelve a intentar poniendo su
+ * {@code attempts} a 0.
+ */
+@Component
+public class InventoryMovementRecorder implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryMovementRecorder.class);
+
+    /** Base con bandeja de salida: la transacción del traspaso y un punto de guardado para el insert. */
+    record OutboxNode(String name, JdbcTemplate jdbc, TransactionTemplate transaction, TransactionTemplate savepoint) {
+
+        static OutboxNode of(String name, DataSource dataSource) {
+            return of(name, new JdbcTemplate(dataSource), new DataSourceTransactionManager(dataSource));
+        }
+
+        static OutboxNode of(String name, JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+            TransactionTemplate savepoint = new TransactionTemplate(transactionManager);
+            savepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+            return new OutboxNode(name, jdbc, new TransactionTemplate(transactionManager), savepoint);
+        }
+    }
+
+    private final InventoryMovementRepository movementRepository;
+    private final List<OutboxNode> nodes;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Counter writtenCounter;
+    private final Counter deadLetteredCounter;
+
+    @Autowired
+    public InventoryMovementRecorder(InventoryMovementRepository movementRepository, DataSource dataSource,
+                                     @Value("${app.movements.batch-size:1000}") int batchSize,
+                                     @Value("${app.movements.max-attempts:5}") int maxAttempts,
+                                     MeterRegistry meterRegistry) throws SQLException {
+        this(movementRepository, outboxNodes(dataSource), batchSize, maxAttempts, meterRegistry);
+    }
+
+    InventoryMovementRecorder(InventoryMovementRepository movementRepository, List<OutboxNode> nodes,
+                              int batchSize, int maxAttempts, MeterRegistry meterRegistry) {
+        this.movementRepository = movementRepository;
+        this.nodes = List.copyOf(nodes);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.writtenCounter = Counter.builder("inventory.movements.written")
+                .description("Movimientos de inventario guardados en el historial")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("inventory.movements.dead_lettered")
+                .description("Movimientos de inventario apartados en la bandeja de salida tras agotar los intentos")
+                .register(meterRegistry);
+    }
+
+    /** La base principal y, con shards, cada shard. */
+    private static List<OutboxNode> outboxNodes(DataSource dataSource) throws SQLException {
+        if (!dataSource.isWrapperFor(ShardRoutingDataSource.class)) {
+            return List.of(OutboxNode.of("main", dataSource));
+        }
+        ShardRoutingDataSource routing = dataSource.unwrap(ShardRoutingDataSource.class);
+        List<OutboxNode> nodes = new ArrayList<>();
+        nodes.add(OutboxNode.of("main", routing.getMain()));
+        for (int i = 0; i < routing.getShardCount(); i++) {
+            nodes.add(OutboxNode.of("shard-" + i, routing.getShard(i)));
+        }
+        return nodes;
+    }
+
+    /**
+     * Registra un cambio de stock en la bandeja de salida, dentro de la transacción en curso: un rollback no
+     * deja movimiento. Un delta 0 no es un movimiento.
+     *
+     * @param quantity Cantidad total del producto tras el cambio.
+     */
+    public void record(Long productId, int delta, int quantity, InventoryMovement.Reason reason) {
+        if (delta == 0) {
+            return;
+        }
+        movementRepository.enqueue(new InventoryMovement(productId, delta, quantity, reason, Instant.now()));
+    }
+
+    /** Pasa al historial lo pendiente en cada base, lote a lote. */
+    @Scheduled(fixedDelayString = "${app.movements.flush-interval-ms:500}")
+    public synchronized void flush() {
+        for (OutboxNode node : nodes) {
+            try {
+                relay(node);
+            } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+                logger.warn("No se pudieron pasar al historial los movimientos de inventario de {}: {}. Se reintenta en la siguiente pasada.",
+                        node.name(), e.getMessage());
+            } catch (RuntimeException e) {
+                logger.error("Error al pasar al historial los movimientos de inventario de {}: {}", node.name(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void relay(OutboxNode node) {
+        long afterId = 0;
+        // Movimientos de un lote fallido que quedan por reintentar de uno en uno
+        int isolating = 0;
+        while (true) {
+            int limit = isolating > 0 ? 1 : batchSize;
+            long from = afterId;
+            Step step = node.transaction().execute(status -> step(node, from, limit));
+            if (step == null || step.locked() == 0) {
+                return;
+            }
+            if (step.failedBatch()) {
+                isolating = step.locked();
+                continue;
+            }
+            afterId = step.lastId();
+            isolating = Math.max(0, isolating - step.locked());
+            if (isolating == 0 && step.locked() < limit) {
+                return;
+            }
+        }
+    }
+
+    /** Resultado de un lote: filas bloqueadas, id de la última y si el lote entero hay que repetirlo fila a fila. */
+    private record Step(int locked, long lastId, boolean failedBatch) {
+    }
+
+    private Step step(OutboxNode node, long afterId, int limit) {
+        List<OutboxEntry> entries = movementRepository.lockOutbox(node.jdbc(), afterId, maxAttempts, limit);
+        if (entries.isEmpty()) {
+            return new Step(0, afterId, false);
+        }
+        List<InventoryMovement> batch = entries.stream().map(OutboxEntry::movement).toList();
+        long lastId = batch.get(batch.size() - 1).getId();
+        try {
+            // Sin shards el historial está en la misma base: un insert fallido no debe abortar la transacción
+            Integer inserted = node.savepoint().execute(status -> movementRepository.insertAll(batch));
+            movementRepository.deleteFromOutbox(node.jdbc(), batch);
+            writtenCounter.increment(inserted != null ? inserted : 0);
+            return new Step(entries.size(), lastId, false);
+        } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+            throw e;
+        } catch (DataAccessException e) {
+            if (entries.size() > 1) {
+                logger.warn("No se pudo guardar un lote de {} movimientos de inventario de {}: {}. Se reintentan de uno en uno.",
+                        entries.size(), node.name(), e.getMessage());
+                return new Step(entries.size(), afterId, true);
+            }
+            OutboxEntry entry = entries.get(0);
+            movementRepository.markFailed(node.jdbc(), entry.movement().getId(), e.getMessage());
+            if (entry.attempts() + 1 >= maxAttempts) {
+                deadLetteredCounter.increment();
+                logger.error("Movimiento {} de inventario de {} (producto ID {}) apartado tras {} intentos: {}",
+                        entry.movement().getId(), node.name(), entry.movement().getProductId(), maxAttempts, e.getMessage());
+            } else {
+                logger.warn("No se pudo guardar el movimiento {} de inventario de {}: {}. Intento {} de {}.",
+                        entry.movement().getId(), node.name(), e.getMessage(), entry.attempts() + 1, maxAttempts);
+            }
+            return new Step(1, lastId, false);
+        }
+    }
+
+    /** Al parar el servicio se pasa al historial lo que quede. */
+    @Override
+    public void destroy() {
+        flush();
+    }
+}
@@ -0,0 +1,391 @@
+package com.nicholassr.inventory_service.reconciliation;
+
+import com.nicholassr.inventory_service.client.ProductServiceClient;
+import com.nicholassr.inventory_service.models.ProductSnapshot;
+import com.nicholassr.inventory_service.models.ReconciliationCheckpoint;
+import com.nicholassr.inventory_service.repository.InventoryRepository;
+import com.nicholassr.inventory_service.repository.ProductSnapshotRepository;
+import com.nicholassr.inventory_service.repository.ReconciliationCheckpointRepository;
+import com.nicholassr.inventory_service.services.InventoryServices;
+import com.nicholassr.inventory_service.sharding.InventoryShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conciliación del inventario con el catálogo del servicio de productos, en segundo plano:
+ * <ul>
+ *   <li>Huérfanos: registros de {@code inventory} de productos que ya no existen (p. ej. borrados con
+ *   {@code ProductService.deleteProduct}). Se recorre cada nodo por product_id en trozos de {@code chunk-size}
+ *   y se pregunta al servicio de productos por lotes de {@code batch-size} ({@code filter[id]}). Esa consulta
+ *   puede ir a una réplica con retraso, así que los candidatos se vuelven a consultar contra el primario
+ *   ({@code X-Read-Consistency: primary}) y solo cuentan (y se borran) los que tampoco están ahí.</li>
+ *   <li>Huecos: productos sin registro de inventario. Se recorre la copia local de productos
+ *   ({@code product_snapshots}, requiere {@code product-sync.enabled}) y los candidatos se confirman contra el
+ *   servicio de productos, por si la copia va retrasada.</li>
+ * </ul>
+ * Las consultas al servicio de productos van como mucho de {@code parallelism} en {@code parallelism} y a
+ * {@code requests-per-second}, para no competir con el tráfico real. Sin {@code repair-orphans} /
+ * {@code repair-gaps} solo se informa (log y métricas {@code inventory.reconciliation.*}).
+ *
+ * Tras cada trozo se guarda la posición en {@code reconciliation_checkpoints}: si el servicio se para o el
+ * servicio de productos falla, la siguiente ejecución sigue desde ahí (sin repetir las pasadas ya terminadas).
+ * Las posiciones se borran cuando la conciliación termina entera.
+ */
+@Component
+public class InventoryReconciliation implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReconciliation.class);
+
+    public enum State { IDLE, RUNNING, COMPLETED, STOPPED, FAILED }
+
+    static final String ORPHANS = "orphans";
+    static final String GAPS = "gaps";
+    private static final long PASS_DONE = Long.MAX_VALUE;
+
+    private final ProductServiceClient productServiceClient;
+    private final InventoryServices inventoryServices;
+    private final InventoryShards inventoryShards;
+    private final InventoryRepository inventoryRepository;
+    private final ProductSnapshotRepository snapshotRepository;
+    private final ReconciliationCheckpointRepository checkpointRepository;
+    private final int chunkSize;
+    private final int batchSize;
+    private final long requestIntervalNanos;
+    private final boolean repairOrphans;
+    private final boolean repairGaps;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(daemon("inventory-reconciliation"));
+    private final ExecutorService lookups;
+    private final Object pacing = new Object();
+    private long nextRequestNanos;
+
+    private final Counter orphansChecked;
+    private final Counter gapsChecked;
+    private final Counter orphansFound;
+    private final Counter gapsFound;
+    private final Counter orphansRepaired;
+    private final Counter gapsRepaired;
+    private final AtomicLong position = new AtomicLong();
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong orphans = new AtomicLong();
+    private final AtomicLong gaps = new AtomicLong();
+    private final AtomicLong repaired = new AtomicLong();
+    private volatile State state = State.IDLE;
+    private volatile String pass;
+    private volatile boolean stopRequested;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public InventoryReconciliation(ProductServiceClient productServiceClient, InventoryServices inventoryServices,
+                                   InventoryShards inventoryShards, InventoryRepository inventoryRepository,
+                                   ProductSnapshotRepository snapshotRepository,
+                                   ReconciliationCheckpointRepository checkpointRepository,
+                                   @Value("${app.reconciliation.chunk-size:1000}") int chunkSize,
+                                   @Value("${app.reconciliation.batch-size:100}") int batchSize,
+                                   @Value("${app.reconciliation.parallelism:4}") int parallelism,
+                                   @Value("${app.reconciliation.requests-per-second:20}") double requestsPerSecond,
+                                   @Value("${app.reconciliation.repair-orphans:false}") boolean repairOrphans,
+                                   @Value("${app.reconciliation.repair-gaps:false}") boolean repairGaps,
+                                   MeterRegistry meterRegistry) {
+        this.productServiceClient = productServiceClient;
+        this.inventoryServices = inventoryServices;
+        this.inventoryShards = inventoryShards;
+        this.inventoryRepository = inventoryRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.requestIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        this.repairOrphans = repairOrphans;
+        this.repairGaps = repairGaps;
+        this.lookups = Executors.newFixedThreadPool(parallelism, daemon("inventory-reconciliation-lookup"));
+
+        this.orphansChecked = counter(meterRegistry, "inventory.reconciliation.checked", "pass", ORPHANS,
+                "Productos revisados por la conciliación de inventario");
+        this.gapsChecked = counter(meterRegistry, "inventory.reconciliation.checked", "pass", GAPS,
+                "Productos revisados por la conciliación de inventario");
+        this.orphansFound = counter(meterRegistry, "inventory.reconciliation.found", "kind", "orphan",
+                "Diferencias encontradas entre inventario y catálogo");
+        this.gapsFound = counter(meterRegistry, "inventory.reconciliation.found", "kind", "gap",
+                "Diferencias encontradas entre inventario y catálogo");
+        this.orphansRepaired = counter(meterRegistry, "inventory.reconciliation.repaired", "kind", "orphan",
+                "Diferencias corregidas por la conciliación de inventario");
+        this.gapsRepaired = counter(meterRegistry, "inventory.reconciliation.repaired", "kind", "gap",
+                "Diferencias corregidas por la conciliación de inventario");
+        Gauge.builder("inventory.reconciliation.position", position, AtomicLong::get)
+                .description("Último product_id revisado en la pasada en curso")
+                .register(meterRegistry);
+        Gauge.builder("inventory.reconciliation.running", this, reconciliation -> reconciliation.state == State.RUNNING ? 1 : 0)
+                .description("1 mientras hay una conciliación de inventario en curso")
+                .register(meterRegistry);
+    }
+
+    /** Conciliación periódica ({@code app.reconciliation.cron}; "-" la desactiva). */
+    @Scheduled(cron = "${app.reconciliation.cron:-}")
+    public void scheduled() {
+        start();
+    }
+
+    /** Lanza la conciliación en segundo plano, o devuelve el estado de la que ya está en curso. */
+    public synchronized Map<String, Object> start() {
+        if (state != State.RUNNING) {
+            state = State.RUNNING;
+            stopRequested = false;
+            startedAt = Instant.now();
+            finishedAt = null;
+            error = null;
+            checked.set(0);
+            orphans.set(0);
+            gaps.set(0);
+            repaired.set(0);
+            runner.execute(this::run);
+        }
+        return status();
+    }
+
+    /** Para la conciliación al terminar el trozo en curso; la siguiente ejecución sigue desde ahí. */
+    public Map<String, Object> stop() {
+        stopRequested = true;
+        return status();
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("pass", pass);
+        status.put("position", position.get());
+        status.put("checkedProducts", checked.get());
+        status.put("orphans", orphans.get());
+        status.put("gaps", gaps.get());
+        status.put("repaired", repaired.get());
+        status.put("repairOrphans", repairOrphans);
+        status.put("repairGaps", repairGaps);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("error", error);
+        return status;
+    }
+
+    /** La conciliación completa en el hilo actual; {@link #start} la lanza en segundo plano. */
+    void run() {
+        logger.info("Conciliación de inventario: inicio ({} nodos, reparar huérfanos: {}, reparar huecos: {}).",
+                inventoryShards.nodeCount(), repairOrphans, repairGaps);
+        try {
+            for (int node = 0; node < inventoryShards.nodeCount() && !stopRequested; node++) {
+                reconcileOrphans(node);
+            }
+            if (!stopRequested) {
+                reconcileGaps();
+            }
+            if (!stopRequested) {
+                checkpointRepository.deleteAll();
+            }
+            state = stopRequested ? State.STOPPED : State.COMPLETED;
+            logger.info("Conciliación de inventario {}: {} productos revisados, {} huérfanos, {} huecos, {} corregidos.",
+                    stopRequested ? "parada" : "terminada", checked.get(), orphans.get(), gaps.get(), repaired.get());
+        } catch (RuntimeException e) {
+            state = State.FAILED;
+            error = e.getMessage();
+            logger.error("Conciliación de inventario interrumpida en {} (product_id {}); la siguiente ejecución sigue desde ahí: {}",
+                    pass, position.get(), e.getMessage(), e);
+        } finally {
+            pass = null;
+            finishedAt = Instant.now();
+        }
+    }
+
+    /** Inventario del nodo cuyos productos no existen en el servicio de productos. */
+    private void reconcileOrphans(int node) {
+        String name = ORPHANS + "-" + node;
+        long after = startPass(name);
+        while (after != PASS_DONE && !stopRequested) {
+            long cursor = after;
+            List<Long> productIds = inventoryShards.readNode(node,
+                    () -> inventoryRepository.findProductIdsAfter(cursor, Limit.of(chunkSize)));
+            if (productIds.isEmpty()) {
+                finishPass(name);
+                return;
+            }
+            List<Long> candidates = missingInCatalog(productIds, false);
+            // Un producto recién creado puede no haber llegado a la réplica: antes de darlo por huérfano
+            List<Long> missing = candidates.isEmpty() ? candidates : missingInCatalog(candidates, true);
+            if (missing.size() < candidates.size()) {
+                logger.debug("Conciliación: {} candidatos a huérfano existen en el primario del servicio de productos.",
+                        candidates.size() - missing.size());
+            }
+            if (!missing.isEmpty()) {
+                orphansFound.increment(missing.size());
+                orphans.addAndGet(missing.size());
+                logger.info("Conciliación: inventario de productos inexistentes en el nodo {}: {}", node, missing);
+                if (repairOrphans) {
+                    missing.forEach(productId -> {
+                        if (inventoryServices.removeOrphanInventory(productId)) {
+                            orphansRepaired.increment();
+                            repaired.incrementAndGet();
+                        }
+                    });
+                }
+            }
+            orphansChecked.increment(productIds.size());
+            after = advance(name, productIds);
+        }
+    }
+
+    /** Productos de la copia local sin registro de inventario (confirmados contra el servicio de productos). */
+    private void reconcileGaps() {
+        long after = startPass(GAPS);
+        while (after != PASS_DONE && !stopRequested) {
+            long cursor = after;
+            List<Long> productIds = inventoryShards.readMain(() ->
+                            snapshotRepository.findByProductIdGreaterThanOrderByProductId(cursor, Limit.of(chunkSize)))
+                    .stream().map(ProductSnapshot::getProductId).toList();
+            if (productIds.isEmpty()) {
+                finishPass(GAPS);
+                return;
+            }
+            Set<Long> withInventory = new HashSet<>();
+            inventoryShards.findAllByProductIdIn(productIds).forEach(inventory -> withInventory.add(inventory.getProductId()));
+            List<Long> candidates = productIds.stream().filter(productId -> !withInventory.contains(productId)).toList();
+            if (!candidates.isEmpty()) {
+                // Los que ya no están en el catálogo son borrados que la copia local aún no ha aplicado
+                Set<Long> deleted = new HashSet<>(missingInCatalog(candidates, false));
+                List<Long> missing = candidates.stream().filter(productId -> !deleted.contains(productId)).toList();
+                if (!missing.isEmpty()) {
+                    gapsFound.increment(missing.size());
+                    gaps.addAndGet(missing.size());
+                    logger.info("Conciliación: productos sin inventario: {}", missing);
+                    if (repairGaps) {
+                        missing.forEach(productId -> {
+                            if (inventoryServices.createMissingInventory(productId)) {
+                                gapsRepaired.increment();
+                                repaired.incrementAndGet();
+                            }
+                        });
+                    }
+                }
+            }
+            gapsChecked.increment(productIds.size());
+            after = advance(GAPS, productIds);
+        }
+    }
+
+    /**
+     * Los productos de {@code productIds} que no existen en el servicio de productos. Los lotes se consultan
+     * en paralelo (como mucho {@code parallelism}) y al ritmo de {@code requests-per-second}.
+     *
+     * @param onPrimary Si el servicio de productos debe leer de su primario en lugar de una réplica.
+     */
+    private List<Long> missingInCatalog(List<Long> productIds, boolean onPrimary) {
+        List<Future<List<Long>>> batches = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += batchSize) {
+            List<Long> batch = productIds.subList(from, Math.min(from + batchSize, productIds.size()));
+            batches.add(lookups.submit(() -> {
+                pace();
+                Set<Long> existing = onPrimary
+                        ? productServiceClient.findExistingProductIdsOnPrimary(batch)
+                        : productServiceClient.findExistingProductIds(batch);
+                return batch.stream().filter(productId -> !existing.contains(productId)).toList();
+            }));
+        }
+        List<Long> missing = new ArrayList<>();
+        try {
+            for (Future<List<Long>> batch : batches) {
+                missing.addAll(batch.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batches.forEach(batch -> batch.cancel(true));
+            throw new IllegalStateException("Conciliación interrumpida", e);
+        } catch (ExecutionException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            throw new IllegalStateException("Error consultando el servicio de productos: " + e.getCause().getMessage(), e.getCause());
+        }
+        return missing;
+    }
+
+    /** Espera el turno de la siguiente petición: como mucho una cada {@code 1 / requests-per-second}. */
+    private void pace() throws InterruptedException {
+        long waitNanos;
+        synchronized (pacing) {
+            long now = System.nanoTime();
+            long slot = Math.max(nextRequestNanos, now);
+            nextRequestNanos = slot + requestIntervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /** Posición desde la que empezar la pasada; {@link #PASS_DONE} si ya terminó en una ejecución anterior. */
+    private long startPass(String name) {
+        pass = name;
+        long after = checkpointRepository.findById(name)
+                .map(ReconciliationCheckpoint::getLastProductId)
+                .orElse(0L);
+        if (after == PASS_DONE) {
+            logger.info("Conciliación de inventario: {} ya terminada en la ejecución anterior, se salta.", name);
+        } else if (after > 0) {
+            logger.info("Conciliación de inventario: {} se retoma tras el producto ID {}.", name, after);
+        }
+        position.set(after);
+        return after;
+    }
+
+    private long advance(String name, List<Long> productIds) {
+        long last = productIds.get(productIds.size() - 1);
+        checkpointRepository.save(new ReconciliationCheckpoint(name, last, Instant.now()));
+        checked.addAndGet(productIds.size());
+        position.set(last);
+        return last;
+    }
+
+    /** La pasada queda marcada como hecha hasta que termina toda la conciliación (si se para, no se repite). */
+    private void finishPass(String name) {
+        checkpointRepository.save(new ReconciliationCheckpoint(name, PASS_DONE, Instant.now()));
+    }
+
+    @Override
+    public void destroy() {
+        stopRequested = true;
+        runner.shutdownNow();
+        lookups.shutdownNow();
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String tag, String value, String description) {
+        return Counter.builder(name).description(description).tag(tag, value).register(registry);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
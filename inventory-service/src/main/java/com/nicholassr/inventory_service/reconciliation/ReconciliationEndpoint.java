@@ -0,0 +1,39 @@
+package com.nicholassr.inventory_service.reconciliation;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/reconciliation}: progreso de la conciliación de inventario. {@code POST} la lanza y
+ * {@code DELETE} la para tras el trozo en curso (se retoma en la siguiente ejecución).
+ */
+@Component
+@Endpoint(id = "reconciliation")
+public class ReconciliationEndpoint {
+
+    private final InventoryReconciliation reconciliation;
+
+    public ReconciliationEndpoint(InventoryReconciliation reconciliation) {
+        this.reconciliation = reconciliation;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return reconciliation.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> start() {
+        return reconciliation.start();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        return reconciliation.stop();
+    }
+}
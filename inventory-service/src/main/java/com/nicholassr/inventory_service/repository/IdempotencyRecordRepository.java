@@ -0,0 +1,124 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.IdempotencyRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Acceso por JDBC a {@code idempotency_keys}, en la base principal (también con shards). La clave primaria
+ * es el cliente más la propia {@code Idempotency-Key}: reservar una clave es un insert, y si otra petición
+ * del mismo cliente ya la tiene el insert falla sin necesidad de bloqueos.
+ *
+ * La tabla se crea al arrancar el contexto (fase 0, antes que el servidor web) y no al crear el bean: así el
+ * entrenamiento CDS, que termina al refrescar el contexto, no necesita base de datos.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "app.idempotency", name = "enabled", havingValue = "true")
+public class IdempotencyRecordRepository implements SmartLifecycle {
+
+    private static final RowMapper<IdempotencyRecord> RECORD = (rs, row) -> new IdempotencyRecord(
+            rs.getString("client_id"), rs.getString("idempotency_key"), rs.getString("fingerprint"),
+            (Integer) rs.getObject("status"), rs.getString("content_type"), rs.getBytes("body"),
+            rs.getObject("expires_at", OffsetDateTime.class).toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean running;
+
+    public IdempotencyRecordRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void start() {
+        // Las claves duran horas: la tabla de antes de separarlas por cliente se descarta en lugar de migrarla
+        Integer legacy = jdbcTemplate.queryForObject("select count(*) from information_schema.tables t "
+                + "where t.table_schema = current_schema() and t.table_name = 'idempotency_keys' and not exists ("
+                + "select 1 from information_schema.columns c where c.table_schema = t.table_schema "
+                + "and c.table_name = t.table_name and c.column_name = 'client_id')", Integer.class);
+        if (legacy != null && legacy > 0) {
+            jdbcTemplate.execute("drop table idempotency_keys");
+        }
+        jdbcTemplate.execute("create table if not exists idempotency_keys ("
+                + "client_id varchar(64) not null, "
+                + "idempotency_key varchar(255) not null, "
+                + "fingerprint varchar(64) not null, "
+                + "status integer, "
+                + "content_type varchar(255), "
+                + "body bytea, "
+                + "expires_at timestamp(6) with time zone not null, "
+                + "primary key (client_id, idempotency_key))");
+        jdbcTemplate.execute("create index if not exists idx_idempotency_keys_expires_at on idempotency_keys (expires_at)");
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Reserva la clave para una petición en curso; false si ya existe. */
+    public boolean insertPending(String clientId, String key, String fingerprint, Instant expiresAt) {
+        try {
+            jdbcTemplate.update("insert into idempotency_keys (client_id, idempotency_key, fingerprint, expires_at) "
+                    + "values (?, ?, ?, ?)", clientId, key, fingerprint, utc(expiresAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public Optional<IdempotencyRecord> find(String clientId, String key) {
+        List<IdempotencyRecord> records = jdbcTemplate.query("select client_id, idempotency_key, fingerprint, status, "
+                + "content_type, body, expires_at from idempotency_keys where client_id = ? and idempotency_key = ?",
+                RECORD, clientId, key);
+        return records.stream().findFirst();
+    }
+
+    /** Guarda la respuesta de una petición en curso; false si la reserva ya no existe. */
+    public boolean complete(IdempotencyRecord record) {
+        return jdbcTemplate.update("update idempotency_keys set status = ?, content_type = ?, body = ?, expires_at = ? "
+                        + "where client_id = ? and idempotency_key = ? and status is null",
+                record.getStatus(), record.getContentType(), record.getBody(), utc(record.getExpiresAt()),
+                record.getClientId(), record.getIdempotencyKey()) > 0;
+    }
+
+    /** Alarga la reserva de una petición que sigue en curso. */
+    public void renewPending(String clientId, String key, Instant expiresAt) {
+        jdbcTemplate.update("update idempotency_keys set expires_at = ? "
+                + "where client_id = ? and idempotency_key = ? and status is null", utc(expiresAt), clientId, key);
+    }
+
+    /** Libera la clave de una petición que no llegó a tener respuesta que repetir. */
+    public void deletePending(String clientId, String key) {
+        jdbcTemplate.update("delete from idempotency_keys where client_id = ? and idempotency_key = ? and status is null",
+                clientId, key);
+    }
+
+    public void deleteExpired(String clientId, String key, Instant now) {
+        jdbcTemplate.update("delete from idempotency_keys where client_id = ? and idempotency_key = ? and expires_at <= ?",
+                clientId, key, utc(now));
+    }
+
+    public int deleteExpired(Instant now) {
+        return jdbcTemplate.update("delete from idempotency_keys where expires_at <= ?", utc(now));
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,179 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.InventoryMovement;
+import com.nicholassr.inventory_service.models.InventoryMovementBucket;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Acceso por JDBC a {@code inventory_movements} (la tabla la crea {@code InventoryMovementPartitions}). Todas
+ * las consultas filtran por producto y rango de fechas: en PostgreSQL solo se leen las particiones del
+ * rango, y dentro de cada una el índice (product_id, occurred_at, id) con delta y quantity incluidos.
+ *
+ * También la bandeja de salida {@code inventory_movement_outbox}, que existe en cada base con tablas por
+ * producto (la principal y cada shard): el movimiento se inserta allí en la misma transacción que cambia el
+ * stock y {@code InventoryMovementRecorder} lo pasa después al historial conservando su id.
+ */
+@Repository
+public class InventoryMovementRepository {
+
+    private static final String COLUMNS = "id, product_id, delta, quantity, reason, occurred_at";
+    private static final String OUTBOX = "inventory_movement_outbox";
+    private static final RowMapper<InventoryMovement> MOVEMENT = (rs, row) -> new InventoryMovement(
+            rs.getLong("id"), rs.getLong("product_id"), rs.getInt("delta"), rs.getInt("quantity"),
+            InventoryMovement.Reason.valueOf(rs.getString("reason")),
+            rs.getObject("occurred_at", OffsetDateTime.class).toInstant());
+
+    /** Movimiento pendiente en la bandeja de salida y los intentos fallidos de pasarlo al historial. */
+    public record OutboxEntry(InventoryMovement movement, int attempts) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryMovementRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Deja el movimiento en la bandeja de salida de la base de la transacción en curso (el shard del producto
+     * dentro de {@code InventoryShards.write}): se confirma o se deshace con el cambio de stock.
+     */
+    public void enqueue(InventoryMovement movement) {
+        jdbcTemplate.update("insert into " + OUTBOX + " (product_id, delta, quantity, reason, occurred_at) values (?, ?, ?, ?, ?)",
+                movement.getProductId(), movement.getDelta(), movement.getQuantity(), movement.getReason().name(),
+                utc(movement.getOccurredAt()));
+    }
+
+    /**
+     * Bloquea hasta {@code limit} movimientos pendientes de {@code node} con id mayor que {@code afterId} y menos
+     * de {@code maxAttempts} intentos, por orden de id. Las filas bloqueadas por otra instancia se saltan.
+     */
+    public List<OutboxEntry> lockOutbox(JdbcTemplate node, long afterId, int maxAttempts, int limit) {
+        return node.query("select " + COLUMNS + ", attempts from " + OUTBOX + " where id > ? and attempts < ? "
+                        + "order by id limit ? for update skip locked",
+                (rs, row) -> new OutboxEntry(MOVEMENT.mapRow(rs, row), rs.getInt("attempts")),
+                afterId, maxAttempts, limit);
+    }
+
+    public void deleteFromOutbox(JdbcTemplate node, List<InventoryMovement> movements) {
+        node.batchUpdate("delete from " + OUTBOX + " where id = ?", movements, movements.size(),
+                (statement, movement) -> statement.setLong(1, movement.getId()));
+    }
+
+    /** Apunta un intento fallido de pasar el movimiento al historial. */
+    public void markFailed(JdbcTemplate node, Long id, String error) {
+        node.update("update " + OUTBOX + " set attempts = attempts + 1, last_error = ? where id = ?",
+                error != null && error.length() > 512 ? error.substring(0, 512) : error, id);
+    }
+
+    /**
+     * Inserta en el historial, en un solo lote JDBC y con el id de la bandeja de salida, los movimientos que
+     * aún no estén: si se cae la instancia entre el insert y el borrado de la bandeja, el reintento no los
+     * duplica.
+     *
+     * @return Movimientos insertados.
+     */
+    public int insertAll(List<InventoryMovement> movements) {
+        List<InventoryMovement> missing = withoutRecorded(movements);
+        jdbcTemplate.batchUpdate("insert into inventory_movements (id, product_id, delta, quantity, reason, occurred_at) "
+                        + "values (?, ?, ?, ?, ?, ?)", missing, missing.size(), (statement, movement) -> {
+            statement.setLong(1, movement.getId());
+            statement.setLong(2, movement.getProductId());
+            statement.setInt(3, movement.getDelta());
+            statement.setInt(4, movement.getQuantity());
+            statement.setString(5, movement.getReason().name());
+            statement.setObject(6, utc(movement.getOccurredAt()));
+        });
+        return missing.size();
+    }
+
+    private List<InventoryMovement> withoutRecorded(List<InventoryMovement> movements) {
+        if (movements.isEmpty()) {
+            return movements;
+        }
+        // Por producto y rango de fechas, para usar el índice; las secuencias de cada shard pueden repetir ids
+        Set<Long> productIds = new LinkedHashSet<>();
+        Instant first = movements.get(0).getOccurredAt();
+        Instant last = first;
+        for (InventoryMovement movement : movements) {
+            productIds.add(movement.getProductId());
+            first = movement.getOccurredAt().isBefore(first) ? movement.getOccurredAt() : first;
+            last = movement.getOccurredAt().isAfter(last) ? movement.getOccurredAt() : last;
+        }
+        List<Object> args = new ArrayList<>(productIds);
+        args.add(utc(first));
+        args.add(utc(last));
+        movements.forEach(movement -> args.add(movement.getId()));
+        Set<String> recorded = new HashSet<>(jdbcTemplate.query("select id, product_id, occurred_at from inventory_movements "
+                        + "where product_id in (" + placeholders(productIds.size()) + ") and occurred_at >= ? and occurred_at <= ? "
+                        + "and id in (" + placeholders(movements.size()) + ")",
+                (rs, row) -> key(rs.getLong("id"), rs.getLong("product_id"), rs.getObject("occurred_at", OffsetDateTime.class).toInstant()),
+                args.toArray()));
+        if (recorded.isEmpty()) {
+            return movements;
+        }
+        return movements.stream()
+                .filter(movement -> !recorded.contains(key(movement.getId(), movement.getProductId(), movement.getOccurredAt())))
+                .toList();
+    }
+
+    private static String key(Long id, Long productId, Instant occurredAt) {
+        return id + ":" + productId + ":" + occurredAt;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Movimientos del producto en [from, to) por orden de fecha, a partir de la posición (afterOccurredAt,
+     * afterId) si se indica.
+     */
+    public List<InventoryMovement> findByProduct(Long productId, Instant from, Instant to,
+                                                 Instant afterOccurredAt, Long afterId, int limit) {
+        if (afterOccurredAt == null) {
+            return jdbcTemplate.query("select " + COLUMNS + " from inventory_movements "
+                            + "where product_id = ? and occurred_at >= ? and occurred_at < ? order by occurred_at, id limit ?",
+                    MOVEMENT, productId, utc(from), utc(to), limit);
+        }
+        return jdbcTemplate.query("select " + COLUMNS + " from inventory_movements "
+                        + "where product_id = ? and occurred_at >= ? and occurred_at < ? and (occurred_at, id) > (?, ?) "
+                        + "order by occurred_at, id limit ?",
+                MOVEMENT, productId, utc(from), utc(to), utc(afterOccurredAt), afterId, limit);
+    }
+
+    /**
+     * Movimientos del producto en [from, to) agrupados en intervalos de {@code bucket} alineados con el
+     * epoch (UTC). La agregación la hace la base: solo viajan las filas resumen.
+     */
+    public List<InventoryMovementBucket> findBuckets(Long productId, Instant from, Instant to, Duration bucket) {
+        long seconds = bucket.toSeconds();
+        return jdbcTemplate.query("select bucket, count(*) as movements, sum(delta) as net_change, "
+                        + "min(quantity) as min_quantity, max(quantity) as max_quantity "
+                        + "from (select floor(extract(epoch from occurred_at) / ?) as bucket, delta, quantity "
+                        + "from inventory_movements where product_id = ? and occurred_at >= ? and occurred_at < ?) m "
+                        + "group by bucket order by bucket",
+                (rs, row) -> {
+                    Instant start = Instant.ofEpochSecond(rs.getLong("bucket") * seconds);
+                    return new InventoryMovementBucket(start.toString(), productId, start, start.plusSeconds(seconds),
+                            rs.getLong("movements"), rs.getLong("net_change"), rs.getInt("min_quantity"), rs.getInt("max_quantity"));
+                },
+                seconds, productId, utc(from), utc(to));
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,23 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.Inventory;
+
+import java.util.Optional;
+
+/**
+ * Fragmento de {@link InventoryRepository}: resuelve {@code findByProductId} por clave natural en vez
+ * de con una consulta derivada, así pasa por la caché de claves naturales y la de entidades.
+ */
+public interface InventoryNaturalIdRepository {
+
+    Optional<Inventory> findByProductId(Long productId);
+
+    /**
+     * Crea el registro del producto con cantidad 0 si no existe ({@code insert ... on conflict do nothing}),
+     * para poder bloquearlo después con {@code findForUpdateByProductId} aunque sea su primer cambio de stock:
+     * dos altas simultáneas no chocan con la restricción única, la segunda espera al bloqueo de la primera.
+     *
+     * @return true si lo ha creado esta llamada.
+     */
+    boolean insertIfAbsent(Long productId);
+}
@@ -0,0 +1,39 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.Inventory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.util.Optional;
+
+public class InventoryNaturalIdRepositoryImpl implements InventoryNaturalIdRepository {
+
+    private static final String INSERT_IF_ABSENT = "insert into inventory (id, product_id, quantity, reserved_quantity) "
+            + "values (nextval('inventory_seq'), ?, 0, 0) on conflict do nothing";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Inventory> findByProductId(Long productId) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Inventory.class)
+                .loadOptional(productId);
+    }
+
+    /**
+     * Por JDBC sobre la conexión de la sesión y no como consulta nativa: Hibernate vaciaría la región de
+     * inventario de la caché L2 en cada llamada, aunque no inserte nada.
+     */
+    @Override
+    public boolean insertIfAbsent(Long productId) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_IF_ABSENT)) {
+                statement.setLong(1, productId);
+                return statement.executeUpdate() > 0;
+            }
+        });
+    }
+}
@@ -2,17 +2,72 @@ package com.nicholassr.inventory_service.repository;
 
 import com.nicholassr.inventory_service.models.Inventory;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-public interface InventoryRepository extends JpaRepository <Inventory, Long>{
+public interface InventoryRepository extends JpaRepository <Inventory, Long>, InventoryNaturalIdRepository {
     /**
      * Busca un registro de inventario por el ID del producto asociado.
      * Este método es crucial para la lógica de negocio, ya que el inventario
      * se gestiona a nivel de 'producto_id'.
+     * Lo implementa {@link InventoryNaturalIdRepositoryImpl} (búsqueda por clave natural, cacheable).
      *
      * @param productId El ID del producto.
      * @return Un Optional que contiene el registro de Inventory si se encuentra, o vacío si no.
      */
     Optional<Inventory> findByProductId(Long productId);
+
+    /**
+     * Registros de inventario de varios productos (los que no tienen registro no aparecen).
+     * Con shards, {@code InventoryShards} lo lanza en paralelo en cada shard con sus productos.
+     */
+    List<Inventory> findAllByProductIdIn(Collection<Long> productIds);
+
+    /**
+     * IDs de producto con inventario mayores que {@code afterProductId}, en orden (recorridos por clave de
+     * toda la tabla). Solo lee el índice único de product_id.
+     */
+    @Query("select i.productId from Inventory i where i.productId > :afterProductId order by i.productId")
+    List<Long> findProductIdsAfter(@Param("afterProductId") Long afterProductId, Limit limit);
+
+    /**
+     * Inventario con cantidad menor que {@code below}, en orden de cantidad y producto, desde el principio.
+     * Recorre un rango de idx_inventory_quantity_product: el coste depende de la página, no del tamaño de la tabla.
+     */
+    @Query("select i from Inventory i where i.quantity < :below order by i.quantity, i.productId")
+    List<Inventory> findByQuantityBelow(@Param("below") int below, Limit limit);
+
+    /** Como {@link #findByQuantityBelow}, a continuación de ({@code afterQuantity}, {@code afterProductId}). */
+    @Query("select i from Inventory i where i.quantity < :below "
+            + "and (i.quantity, i.productId) > (:afterQuantity, :afterProductId) order by i.quantity, i.productId")
+    List<Inventory> findByQuantityBelowAfter(@Param("below") int below, @Param("afterQuantity") int afterQuantity,
+                                             @Param("afterProductId") Long afterProductId, Limit limit);
+
+    /**
+     * Inventario por debajo de su umbral de reposición, en orden de cantidad y producto. En PostgreSQL lo
+     * resuelve el índice parcial idx_inventory_below_reorder, que solo contiene esas filas.
+     */
+    @Query("select i from Inventory i where i.quantity < i.reorderThreshold order by i.quantity, i.productId")
+    List<Inventory> findBelowReorderThreshold(Limit limit);
+
+    /** Como {@link #findBelowReorderThreshold}, a continuación de ({@code afterQuantity}, {@code afterProductId}). */
+    @Query("select i from Inventory i where i.quantity < i.reorderThreshold "
+            + "and (i.quantity, i.productId) > (:afterQuantity, :afterProductId) order by i.quantity, i.productId")
+    List<Inventory> findBelowReorderThresholdAfter(@Param("afterQuantity") int afterQuantity,
+                                                   @Param("afterProductId") Long afterProductId, Limit limit);
+
+    /**
+     * Registro de inventario bloqueado hasta el fin de la transacción ({@code select ... for update}).
+     * Serializa los cambios de stock por almacén de un mismo producto, que ajustan su total.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Inventory i where i.productId = :productId")
+    Optional<Inventory> findForUpdateByProductId(@Param("productId") Long productId);
 }
@@ -0,0 +1,44 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.ProductSnapshot;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductSnapshotRepository extends JpaRepository<ProductSnapshot, Long> {
+
+    /**
+     * Producto de la copia local junto con su inventario, en una sola consulta. Si el producto no tiene
+     * registro de inventario, {@code inventoryId}, {@code quantity} y {@code reservedQuantity} vienen a null.
+     *
+     * @param productId El ID del producto.
+     * @return Vacío si el producto no está (todavía) en la copia local.
+     */
+    @Query("select p.productId as productId, p.name as name, p.price as price, "
+            + "i.id as inventoryId, i.quantity as quantity, i.reservedQuantity as reservedQuantity "
+            + "from ProductSnapshot p left join Inventory i on i.productId = p.productId "
+            + "where p.productId = :productId")
+    Optional<ProductStock> findStockByProductId(@Param("productId") Long productId);
+
+    /** Recorrido por páginas de la copia local, en orden de ID (exportación del catálogo). */
+    List<ProductSnapshot> findByProductIdGreaterThanOrderByProductId(Long afterProductId, Limit limit);
+
+    interface ProductStock {
+        Long getProductId();
+
+        String getName();
+
+        BigDecimal getPrice();
+
+        Long getInventoryId();
+
+        Integer getQuantity();
+
+        Integer getReservedQuantity();
+    }
+}
@@ -0,0 +1,7 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.ProductSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProductSyncStateRepository extends JpaRepository<ProductSyncState, String> {
+}
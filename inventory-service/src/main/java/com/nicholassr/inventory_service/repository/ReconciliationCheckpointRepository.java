@@ -0,0 +1,7 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.ReconciliationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, String> {
+}
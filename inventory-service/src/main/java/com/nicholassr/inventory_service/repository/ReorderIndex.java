@@ -0,0 +1,95 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.sharding.InventoryShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Índice parcial de {@code inventory} con solo los productos por debajo de su umbral de reposición
+ * ({@code quantity < reorder_threshold}), en cada base con inventario. PostgreSQL lo mantiene en cada
+ * escritura: una fila entra al bajar del umbral y sale al reponerse, así que su tamaño es el de la lista
+ * de reposición y no el del catálogo. Otras bases (H2 en desarrollo) no tienen índices parciales y la
+ * consulta recorre la tabla.
+ *
+ * Se construye en segundo plano una vez arrancado el servicio (con millones de filas tarda): mientras tanto
+ * la consulta recorre la tabla. Un {@code create index concurrently} interrumpido deja el índice marcado como
+ * no válido ({@code pg_index.indisvalid}); PostgreSQL lo mantiene en cada escritura pero no lo usa, y
+ * {@code if not exists} no lo repara, así que se borra y se vuelve a crear.
+ */
+@Component
+public class ReorderIndex implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReorderIndex.class);
+
+    static final String INDEX_NAME = "idx_inventory_below_reorder";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryShards inventoryShards;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reorder-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReorderIndex(JdbcTemplate jdbcTemplate, InventoryShards inventoryShards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryShards = inventoryShards;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        executor.execute(this::build);
+    }
+
+    /** Crea (o repara) el índice en cada nodo, uno tras otro. */
+    void build() {
+        for (int node = 0; node < inventoryShards.nodeCount(); node++) {
+            int current = node;
+            inventoryShards.onNode(node, () -> {
+                createIndex(current);
+                return null;
+            });
+        }
+    }
+
+    private void createIndex(int node) {
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(product)) {
+                return;
+            }
+            List<Boolean> valid = jdbcTemplate.queryForList("select i.indisvalid from pg_index i "
+                    + "join pg_class c on c.oid = i.indexrelid "
+                    + "where c.relname = ? and pg_table_is_visible(c.oid)", Boolean.class, INDEX_NAME);
+            if (!valid.isEmpty() && Boolean.TRUE.equals(valid.get(0))) {
+                return;
+            }
+            if (!valid.isEmpty()) {
+                logger.warn("{} no es válido en el nodo {} (construcción interrumpida); se vuelve a crear", INDEX_NAME, node);
+                jdbcTemplate.execute("drop index concurrently if exists " + INDEX_NAME);
+            }
+            long start = System.nanoTime();
+            // concurrently: con millones de filas no bloquea las escrituras mientras se construye
+            jdbcTemplate.execute("create index concurrently if not exists " + INDEX_NAME + " "
+                    + "on inventory (quantity, product_id) where quantity < reorder_threshold");
+            logger.info("{} creado en el nodo {} en {} ms", INDEX_NAME, node, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("No se ha podido crear {} en el nodo {}: {}", INDEX_NAME, node, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
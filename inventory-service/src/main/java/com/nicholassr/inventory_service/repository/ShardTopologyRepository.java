@@ -0,0 +1,7 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.ShardTopology;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ShardTopologyRepository extends JpaRepository<ShardTopology, String> {
+}
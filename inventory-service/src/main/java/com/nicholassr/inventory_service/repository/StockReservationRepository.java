@@ -0,0 +1,20 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.StockReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    Optional<StockReservation> findByIdAndProductId(Long id, Long productId);
+
+    /** Reservas en un estado por orden de id, a partir de {@code afterId} (recorrido por páginas con el índice status, id). */
+    List<StockReservation> findByStatusAndIdGreaterThanOrderById(StockReservation.Status status, Long afterId, Limit limit);
+
+    /** Reservas en un estado que vencieron antes de {@code before}, las más antiguas primero (índice status, expires_at). */
+    List<StockReservation> findByStatusAndExpiresAtBeforeOrderByExpiresAt(StockReservation.Status status, Instant before, Limit limit);
+}
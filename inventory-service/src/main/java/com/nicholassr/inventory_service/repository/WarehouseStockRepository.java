@@ -0,0 +1,19 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.models.WarehouseStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface WarehouseStockRepository extends JpaRepository<WarehouseStock, Long> {
+
+    Optional<WarehouseStock> findByProductIdAndWarehouseCode(Long productId, String warehouseCode);
+
+    /** Desglose por almacén (usa el índice único product_id, warehouse_code). */
+    List<WarehouseStock> findAllByProductIdOrderByWarehouseCode(Long productId);
+
+    boolean existsByProductId(Long productId);
+
+    void deleteByProductId(Long productId);
+}
@@ -0,0 +1,151 @@
+package com.nicholassr.inventory_service.reservations;
+
+import com.nicholassr.common.timer.HierarchicalTimingWheel;
+import com.nicholassr.inventory_service.models.StockReservation;
+import com.nicholassr.inventory_service.services.ReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Caduca las reservas de stock a su hora. Cada reserva activa es una entrada en una
+ * {@link HierarchicalTimingWheel} en memoria: no hay una tarea por reserva ni consultas periódicas de las
+ * caducadas. Cada {@code app.reservations.tick-ms} se avanza la rueda y se liberan las que han vencido.
+ *
+ * La rueda no sobrevive a un reinicio: al arrancar se reconstruye recorriendo las reservas activas de cada
+ * nodo (las ya vencidas caducan en el primer tick). Con varias instancias, cada una programa las reservas
+ * que conoce; {@link ReservationService#expire} es idempotente. Confirmar o cancelar no quita la entrada:
+ * al vencer se comprueba el estado y no se hace nada.
+ *
+ * Una reserva creada por una instancia que se cae antes de que venza no está en ninguna rueda hasta que otra
+ * arranca. Por eso, cada {@code app.reservations.sweep-interval-ms}, se buscan en la base las reservas activas
+ * vencidas hace más de {@code app.reservations.sweep-grace-ms} (las demás las lleva la rueda) y se caducan.
+ */
+@Component
+public class ReservationExpiry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationExpiry.class);
+    // Reintento si la base no responde al caducar una reserva
+    private static final long RETRY_DELAY_MS = 5_000;
+
+    private final ReservationService reservationService;
+    private final HierarchicalTimingWheel<ReservationKey> wheel;
+    private final int recoveryBatchSize;
+    private final long sweepGraceMs;
+    private final Counter expiredCounter;
+    private final Counter sweptCounter;
+
+    public ReservationExpiry(ReservationService reservationService,
+                             @Value("${app.reservations.tick-ms:100}") long tickMs,
+                             @Value("${app.reservations.wheel-size:512}") int wheelSize,
+                             @Value("${app.reservations.recovery-batch-size:1000}") int recoveryBatchSize,
+                             @Value("${app.reservations.sweep-grace-ms:30000}") long sweepGraceMs,
+                             MeterRegistry meterRegistry) {
+        this.reservationService = reservationService;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        this.recoveryBatchSize = recoveryBatchSize;
+        this.sweepGraceMs = sweepGraceMs;
+        this.expiredCounter = Counter.builder("inventory.reservations.expired")
+                .description("Reservas de stock caducadas y liberadas por esta instancia")
+                .register(meterRegistry);
+        this.sweptCounter = Counter.builder("inventory.reservations.swept")
+                .description("Reservas vencidas sin temporizador caducadas por el barrido de la base")
+                .register(meterRegistry);
+        Gauge.builder("inventory.reservations.pending", wheel, HierarchicalTimingWheel::size)
+                .description("Reservas con temporizador pendiente en esta instancia")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onReservationHeld(ReservationService.ReservationHeld held) {
+        wheel.schedule(new ReservationKey(held.productId(), held.reservationId()), held.expiresAt().toEpochMilli());
+    }
+
+    /** Reconstruye la rueda con las reservas activas de todos los nodos, por páginas de id. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        long recovered = 0;
+        try {
+            for (int node = 0; node < reservationService.nodeCount(); node++) {
+                long afterId = 0;
+                List<StockReservation> page;
+                do {
+                    page = reservationService.findActive(node, afterId, recoveryBatchSize);
+                    for (StockReservation reservation : page) {
+                        wheel.schedule(new ReservationKey(reservation.getProductId(), reservation.getId()),
+                                reservation.getExpiresAt().toEpochMilli());
+                        afterId = reservation.getId();
+                    }
+                    recovered += page.size();
+                } while (page.size() == recoveryBatchSize);
+            }
+            logger.info("Temporizadores de reservas reconstruidos: {} reservas activas.", recovered);
+        } catch (RuntimeException e) {
+            logger.error("No se pudieron reconstruir los temporizadores de reservas ({} cargadas): {}", recovered, e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.tick-ms:100}")
+    public void tick() {
+        wheel.advance(System.currentTimeMillis(), this::expire);
+    }
+
+    /** Caduca las reservas vencidas que no tenía ninguna rueda, por páginas de {@code recovery-batch-size}. */
+    @Scheduled(fixedDelayString = "${app.reservations.sweep-interval-ms:60000}",
+            initialDelayString = "${app.reservations.sweep-interval-ms:60000}")
+    public void sweep() {
+        Instant before = Instant.now().minusMillis(sweepGraceMs);
+        long swept = 0;
+        try {
+            for (int node = 0; node < reservationService.nodeCount(); node++) {
+                List<StockReservation> page;
+                do {
+                    page = reservationService.findOverdue(node, before, recoveryBatchSize);
+                    int expired = 0;
+                    for (StockReservation reservation : page) {
+                        if (reservationService.expire(reservation.getProductId(), reservation.getId())) {
+                            expired++;
+                        }
+                    }
+                    swept += expired;
+                    // Si ninguna cambió (otra instancia las está caducando), la siguiente página sería la misma
+                    if (expired == 0) {
+                        break;
+                    }
+                } while (page.size() == recoveryBatchSize);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Barrido de reservas vencidas interrumpido: {}", e.getMessage());
+        }
+        if (swept > 0) {
+            sweptCounter.increment(swept);
+            expiredCounter.increment(swept);
+            logger.info("Barrido de reservas: {} reservas vencidas sin temporizador caducadas.", swept);
+        }
+    }
+
+    private void expire(ReservationKey key) {
+        try {
+            if (reservationService.expire(key.productId(), key.reservationId())) {
+                expiredCounter.increment();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo caducar la reserva {} del producto ID {}: {}. Se reintenta en {} ms.",
+                    key.reservationId(), key.productId(), e.getMessage(), RETRY_DELAY_MS);
+            wheel.schedule(key, System.currentTimeMillis() + RETRY_DELAY_MS);
+        }
+    }
+
+    private record ReservationKey(Long productId, Long reservationId) {
+    }
+}
@@ -2,45 +2,107 @@ package com.nicholassr.inventory_service.services;
 
 
 import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Relationship;
 import com.github.jasminb.jsonapi.annotations.Type;
+import com.nicholassr.inventory_service.models.InventoryMovement;
+import com.nicholassr.inventory_service.models.InventoryMovementBucket;
+import com.nicholassr.inventory_service.models.WarehouseStock;
+import com.nicholassr.inventory_service.movements.InventoryMovementRecorder;
+import com.nicholassr.inventory_service.repository.InventoryMovementRepository;
 import com.nicholassr.inventory_service.repository.InventoryRepository;
+import com.nicholassr.inventory_service.repository.ProductSnapshotRepository;
 import com.nicholassr.inventory_service.client.ProductServiceClient;
 import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.repository.WarehouseStockRepository;
 import com.nicholassr.inventory_service.dtos.ProductDto;
+import com.nicholassr.inventory_service.sharding.InventoryShards;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 public class InventoryServices {
     private static final Logger logger = LoggerFactory.getLogger(InventoryServices.class);
+    private static final Pattern WAREHOUSE_CODE = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    // Intervalos por consulta agregada de movimientos (p. ej. un año por horas son 8760)
+    private static final long MAX_MOVEMENT_BUCKETS = 10_000;
+    // IDs por petición filter[id] al servicio de productos (su máximo)
+    private static final int PRODUCT_LOOKUP_BATCH = 100;
+    // Orden de las consultas de stock bajo: el del índice (quantity, product_id)
+    private static final Comparator<Inventory> STOCK_ORDER =
+            Comparator.comparing(Inventory::getQuantity).thenComparing(Inventory::getProductId);
     private final InventoryRepository inventoryRepository;
+    private final WarehouseStockRepository warehouseStockRepository;
     private final ProductServiceClient productServiceClient;
+    private final ProductSnapshotRepository productSnapshotRepository;
+    // Abre las transacciones de inventario en el shard del producto (o en la base única si no hay shards)
+    private final InventoryShards inventoryShards;
+    private final InventoryMovementRecorder movementRecorder;
+    private final InventoryMovementRepository movementRepository;
 
 
 
-    public InventoryServices(InventoryRepository inventoryRepository, ProductServiceClient productServiceClient) {
+    public InventoryServices(InventoryRepository inventoryRepository, ProductServiceClient productServiceClient,
+                             ProductSnapshotRepository productSnapshotRepository, InventoryShards inventoryShards,
+                             WarehouseStockRepository warehouseStockRepository, InventoryMovementRecorder movementRecorder,
+                             InventoryMovementRepository movementRepository) {
         this.inventoryRepository = inventoryRepository;
+        this.warehouseStockRepository = warehouseStockRepository;
         this.productServiceClient = productServiceClient;
+        this.productSnapshotRepository = productSnapshotRepository;
+        this.inventoryShards = inventoryShards;
+        this.movementRecorder = movementRecorder;
+        this.movementRepository = movementRepository;
     }
 
     /**
      * Consulta la cantidad disponible de un producto específico por su ID.
-     * Llama al microservicio de productos para obtener la información del producto.
+     * Resuelve producto e inventario con un join sobre la copia local de productos; solo si el producto
+     * no está en la copia (p. ej. todavía no sincronizado) llama al microservicio de productos.
+     * Con shards el inventario está en otra base que la copia: se leen por separado.
+     * La cantidad es el total de todos los almacenes (ya sumado en {@link Inventory}) menos lo retenido por
+     * reservas activas; el desglose solo se consulta si se pide.
      *
      * @param productId El ID del producto.
+     * @param includeWarehouses Si se añade el stock de cada almacén (relación {@code warehouses}).
      * @return Un Optional que contiene la información combinada del inventario y el producto, o vacío si no se encuentra.
      */
-    @Transactional(readOnly = true)
-    public Optional<InventoryDetails> getInventoryDetailsByProductId(Long productId) {
+    public Optional<InventoryDetails> getInventoryDetailsByProductId(Long productId, boolean includeWarehouses) {
+        Optional<InventoryDetails> details = findInventoryDetails(productId);
+        if (includeWarehouses) {
+            details.ifPresent(found -> found.setWarehouses(inventoryShards.readByProduct(productId,
+                    () -> warehouseStockRepository.findAllByProductIdOrderByWarehouseCode(productId), List::isEmpty)));
+        }
+        return details;
+    }
+
+    private Optional<InventoryDetails> findInventoryDetails(Long productId) {
+        Optional<InventoryDetails> local = inventoryShards.isSharded()
+                ? findLocalDetailsSharded(productId)
+                : inventoryShards.readMain(() -> productSnapshotRepository.findStockByProductId(productId))
+                        .map(stock -> new InventoryDetails(stock.getInventoryId(), productId, stock.getName(), stock.getPrice(),
+                                stock.getQuantity(), stock.getReservedQuantity()));
+        if (local.isPresent()) {
+            logger.debug("Consulta de inventario para producto ID {} resuelta con la copia local: Cantidad {}",
+                    productId, local.get().getQuantityAvailable());
+            return local;
+        }
+
         // 1. Obtener la información del producto desde el microservicio de productos
         Optional<ProductDto> productDto = productServiceClient.getProductById(productId);
 
@@ -50,7 +112,7 @@ public class InventoryServices {
         }
 
         // 2. Obtener la información de inventario desde la base de datos local
-        Optional<Inventory> inventory = inventoryRepository.findByProductId(productId);
+        Optional<Inventory> inventory = inventoryShards.findByProductId(productId);
 
         // Si no existe un registro de inventario para este producto, puedes devolverlo con cantidad 0
         // o considerarlo como no encontrado. Aquí, lo devolvemos con 0.
@@ -68,8 +130,9 @@ public class InventoryServices {
                 currentInventory.getId(),
                 productId,
                 productDto.get().getName(),
-                BigDecimal.valueOf(productDto.get().getPrice()),
-                currentInventory.getQuantity()
+                productDto.get().getPrice(),
+                currentInventory.getQuantity(),
+                currentInventory.getReservedQuantity()
         ));
     }
 
@@ -81,38 +144,295 @@ public class InventoryServices {
      * @param productId El ID del producto.
      * @param newQuantity La nueva cantidad a establecer (no es un delta, es la cantidad final).
      * @return El objeto Inventory actualizado.
+     * @throws IllegalStateException Si la cantidad es menor que las unidades reservadas.
      */
-    @Transactional
     public Inventory updateInventoryQuantity(Long productId, Integer newQuantity) {
         if (newQuantity < 0) {
             throw new IllegalArgumentException("La cantidad no puede ser negativa.");
         }
-        Optional<Inventory> existingInventory = inventoryRepository.findByProductId(productId);
-        Inventory inventoryToSave;
+        return inventoryShards.write(productId, () -> saveQuantity(productId, newQuantity));
+    }
 
-        if (existingInventory.isPresent()) {
-            inventoryToSave = existingInventory.get();
-            logger.info("Actualizando inventario para producto ID {}. Cantidad anterior: {}, Cantidad nueva: {}",
-                    productId, inventoryToSave.getQuantity(), newQuantity);
-            inventoryToSave.setQuantity(newQuantity);
+    /**
+     * Cambia la cantidad y/o el umbral de reposición de un producto en una sola transacción. Si el producto no
+     * tiene inventario, lo crea (con cantidad 0 si solo se fija el umbral).
+     *
+     * @param newQuantity La nueva cantidad, o null para no cambiarla.
+     * @param updateThreshold Si se cambia el umbral.
+     * @param reorderThreshold El nuevo umbral; null lo quita.
+     * @return El objeto Inventory actualizado.
+     */
+    public Inventory updateInventory(Long productId, Integer newQuantity, boolean updateThreshold, Integer reorderThreshold) {
+        if (newQuantity != null && newQuantity < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa.");
+        }
+        if (reorderThreshold != null && reorderThreshold < 0) {
+            throw new IllegalArgumentException("El umbral de reposición no puede ser negativo.");
+        }
+        if (!updateThreshold) {
+            return updateInventoryQuantity(productId, newQuantity);
+        }
+        return inventoryShards.write(productId, () -> {
+            Inventory inventory = newQuantity != null ? saveQuantity(productId, newQuantity) : lockOrCreate(productId);
+            logger.info("Umbral de reposición del producto ID {}: {} -> {}", productId, inventory.getReorderThreshold(), reorderThreshold);
+            inventory.setReorderThreshold(reorderThreshold);
+            return inventoryRepository.save(inventory);
+        });
+    }
+
+    /**
+     * Fija el stock de un producto en un almacén y ajusta el total del producto con la diferencia, en la
+     * misma transacción. El registro de inventario se bloquea mientras tanto, así dos almacenes del mismo
+     * producto no pisan el total.
+     *
+     * @param productId El ID del producto.
+     * @param warehouseCode Código del almacén (letras, dígitos, '-' y '_', hasta 32).
+     * @param newQuantity La nueva cantidad en ese almacén.
+     * @return El stock del almacén y el nuevo total del producto.
+     * @throws IllegalStateException Si el almacén o el total quedarían por debajo de lo reservado.
+     */
+    public WarehouseStockUpdate updateWarehouseQuantity(Long productId, String warehouseCode, Integer newQuantity) {
+        if (newQuantity == null || newQuantity < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa.");
+        }
+        if (warehouseCode == null || !WAREHOUSE_CODE.matcher(warehouseCode).matches()) {
+            throw new IllegalArgumentException("Código de almacén inválido: " + warehouseCode);
+        }
+        return inventoryShards.write(productId, () -> saveWarehouseQuantity(productId, warehouseCode, newQuantity));
+    }
+
+    /**
+     * El registro de inventario del producto, bloqueado hasta el fin de la transacción. Si no existía se crea
+     * antes con cantidad 0: así también el primer cambio de stock tiene una fila que bloquear y dos altas
+     * simultáneas se serializan en vez de chocar con la restricción única de product_id.
+     */
+    private Inventory lockOrCreate(Long productId) {
+        if (inventoryRepository.insertIfAbsent(productId)) {
+            logger.info("Creado el registro de inventario del producto ID {}.", productId);
+        }
+        return inventoryRepository.findForUpdateByProductId(productId)
+                .orElseThrow(() -> new IllegalStateException("El registro de inventario del producto " + productId
+                        + " se ha borrado durante la actualización."));
+    }
+
+    private WarehouseStockUpdate saveWarehouseQuantity(Long productId, String warehouseCode, Integer newQuantity) {
+        Inventory total = lockOrCreate(productId);
+        int previousTotal = total.getQuantity() != null ? total.getQuantity() : 0;
+        Optional<WarehouseStock> existing = warehouseStockRepository.findByProductIdAndWarehouseCode(productId, warehouseCode);
+        int previous = existing.map(WarehouseStock::getQuantity).orElse(0);
+        int reservedInWarehouse = existing.map(WarehouseStock::getReservedQuantity).orElse(0);
+        if (newQuantity < reservedInWarehouse) {
+            throw new IllegalStateException("El almacén " + warehouseCode + " tiene " + reservedInWarehouse
+                    + " unidades reservadas del producto " + productId + "; la cantidad no puede ser menor.");
+        }
+        if (existing.isEmpty() && !warehouseStockRepository.existsByProductId(productId)) {
+            // Primer almacén del producto: la cantidad que hubiera sin desglose deja de contar
+            total.setQuantity(newQuantity);
         } else {
-            logger.info("Creando nuevo registro de inventario para producto ID {}. Cantidad inicial: {}",
-                    productId, newQuantity);
-            inventoryToSave = new Inventory(productId, newQuantity);
+            int current = total.getQuantity() != null ? total.getQuantity() : 0;
+            total.setQuantity(current + newQuantity - previous);
+        }
+        requireReservedCovered(total);
+        WarehouseStock stock = existing.orElseGet(() -> new WarehouseStock(productId, warehouseCode, 0));
+        stock.setQuantity(newQuantity);
+        WarehouseStock savedStock = warehouseStockRepository.save(stock);
+        Inventory savedTotal = inventoryRepository.save(total);
+
+        logger.info("Stock del producto ID {} en el almacén {}: {} -> {} (total {})",
+                productId, warehouseCode, previous, newQuantity, savedTotal.getQuantity());
+        emitInventoryChangeEvent(productId, savedTotal.getQuantity() - previousTotal, savedTotal.getQuantity(),
+                InventoryMovement.Reason.WAREHOUSE_ADJUSTMENT);
+        return new WarehouseStockUpdate(savedStock, savedTotal.getQuantity());
+    }
+
+    private Inventory saveQuantity(Long productId, Integer newQuantity) {
+        if (warehouseStockRepository.existsByProductId(productId)) {
+            // El total es la suma de los almacenes: fijarlo a mano lo desincronizaría
+            throw new IllegalStateException("El producto " + productId
+                    + " tiene stock por almacén; la cantidad se actualiza en cada almacén.");
+        }
+        // Bloqueado: el delta del movimiento tiene que ser respecto a la cantidad que se sustituye
+        Inventory inventoryToSave = lockOrCreate(productId);
+        int previousQuantity = inventoryToSave.getQuantity() != null ? inventoryToSave.getQuantity() : 0;
+        int reserved = inventoryToSave.getReservedQuantity() != null ? inventoryToSave.getReservedQuantity() : 0;
+        if (newQuantity < reserved) {
+            throw new IllegalStateException("El producto " + productId + " tiene " + reserved
+                    + " unidades reservadas; la cantidad no puede ser menor.");
         }
+        logger.info("Actualizando inventario para producto ID {}. Cantidad anterior: {}, Cantidad nueva: {}",
+                productId, previousQuantity, newQuantity);
+        inventoryToSave.setQuantity(newQuantity);
 
         Inventory savedInventory = inventoryRepository.save(inventoryToSave);
 
         // Emitir un evento simple (mensaje en consola)
-        emitInventoryChangeEvent(savedInventory.getProductId(), savedInventory.getQuantity());
+        emitInventoryChangeEvent(savedInventory.getProductId(), newQuantity - previousQuantity, savedInventory.getQuantity(),
+                InventoryMovement.Reason.ADJUSTMENT);
 
         return savedInventory;
     }
 
+    /** Las reservas activas tienen que poder confirmarse: el stock no baja de lo reservado. */
+    private static void requireReservedCovered(Inventory inventory) {
+        int reserved = inventory.getReservedQuantity() != null ? inventory.getReservedQuantity() : 0;
+        if (inventory.getQuantity() < reserved) {
+            throw new IllegalStateException("El producto " + inventory.getProductId() + " tiene " + reserved
+                    + " unidades reservadas; la cantidad total no puede ser menor.");
+        }
+    }
+
+    /**
+     * Crea el registro de inventario (cantidad 0) de un producto que no lo tiene. Lo usa la conciliación
+     * para los productos del catálogo sin inventario.
+     *
+     * @return false si el producto ya tenía registro.
+     */
+    public boolean createMissingInventory(Long productId) {
+        return inventoryShards.write(productId, () -> inventoryRepository.insertIfAbsent(productId));
+    }
+
+    /**
+     * Borra el inventario (total y desglose por almacén) de un producto que ya no existe en el servicio de
+     * productos. Con unidades reservadas no se borra: las reservas activas siguen apuntando al registro.
+     *
+     * @return false si no había registro o tenía reservas activas.
+     */
+    public boolean removeOrphanInventory(Long productId) {
+        return inventoryShards.write(productId, () -> {
+            Optional<Inventory> existing = inventoryRepository.findForUpdateByProductId(productId);
+            if (existing.isEmpty()) {
+                return false;
+            }
+            Inventory inventory = existing.get();
+            if (inventory.getReservedQuantity() != null && inventory.getReservedQuantity() > 0) {
+                logger.warn("Inventario huérfano del producto ID {} con {} unidades reservadas: no se borra.",
+                        productId, inventory.getReservedQuantity());
+                return false;
+            }
+            int quantity = inventory.getQuantity() != null ? inventory.getQuantity() : 0;
+            warehouseStockRepository.deleteByProductId(productId);
+            inventoryRepository.delete(inventory);
+            logger.info("Inventario huérfano del producto ID {} borrado (cantidad {}).", productId, quantity);
+            emitInventoryChangeEvent(productId, -quantity, 0, InventoryMovement.Reason.RECONCILIATION);
+            return true;
+        });
+    }
+
+    /**
+     * Inventario de varios productos a la vez. Con shards se consulta cada shard en paralelo.
+     *
+     * @param productIds IDs de producto.
+     * @return Los registros existentes; los productos sin inventario no aparecen.
+     */
+    public List<Inventory> getInventoriesByProductIds(Collection<Long> productIds) {
+        return inventoryShards.findAllByProductIdIn(productIds);
+    }
+
+    /**
+     * Inventario con cantidad menor que {@code below}, en orden de cantidad y producto y paginado por clave.
+     * Con shards cada nodo devuelve su primera página desde la misma posición y se mezclan.
+     *
+     * @param afterQuantity Con {@code afterProductId}, posición del último de la página anterior (null en la primera).
+     */
+    public List<Inventory> getLowStock(int below, Integer afterQuantity, Long afterProductId, int limit) {
+        Limit max = Limit.of(limit);
+        return inventoryShards.findAllOrdered(afterProductId == null
+                        ? () -> inventoryRepository.findByQuantityBelow(below, max)
+                        : () -> inventoryRepository.findByQuantityBelowAfter(below, afterQuantity, afterProductId, max),
+                STOCK_ORDER, limit);
+    }
+
+    /**
+     * Inventario por debajo de su propio umbral de reposición, en orden de cantidad y producto y paginado
+     * por clave, como {@link #getLowStock}.
+     */
+    public List<Inventory> getBelowReorderThreshold(Integer afterQuantity, Long afterProductId, int limit) {
+        Limit max = Limit.of(limit);
+        return inventoryShards.findAllOrdered(afterProductId == null
+                        ? () -> inventoryRepository.findBelowReorderThreshold(max)
+                        : () -> inventoryRepository.findBelowReorderThresholdAfter(afterQuantity, afterProductId, max),
+                STOCK_ORDER, limit);
+    }
+
+    /**
+     * Rellena la relación {@code product} de cada registro: primero con la copia local de productos, en una
+     * consulta, y los que falten con el servicio de productos, en bloques de {@code filter[id]}. Si el servicio
+     * falla, esos registros se quedan sin producto.
+     */
+    public void attachProducts(List<Inventory> inventories) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = inventories.stream().map(Inventory::getProductId).toList();
+        Map<Long, ProductDto> products = new HashMap<>();
+        inventoryShards.readMain(() -> productSnapshotRepository.findAllById(productIds)).forEach(snapshot ->
+                products.put(snapshot.getProductId(),
+                        new ProductDto(snapshot.getProductId().toString(), snapshot.getName(), snapshot.getPrice())));
 
-    private void emitInventoryChangeEvent(Long productId, Integer newQuantity) {
+        List<Long> missing = productIds.stream().filter(productId -> !products.containsKey(productId)).toList();
+        for (int from = 0; from < missing.size(); from += PRODUCT_LOOKUP_BATCH) {
+            List<Long> batch = missing.subList(from, Math.min(from + PRODUCT_LOOKUP_BATCH, missing.size()));
+            try {
+                productServiceClient.findProductsByIds(batch).forEach(product -> products.put(Long.valueOf(product.getId()), product));
+            } catch (RuntimeException e) {
+                logger.warn("No se han podido obtener {} productos del servicio de productos: {}", batch.size(), e.getMessage());
+            }
+        }
+        inventories.forEach(inventory -> inventory.setProduct(products.get(inventory.getProductId())));
+    }
+
+    private Optional<InventoryDetails> findLocalDetailsSharded(Long productId) {
+        return inventoryShards.readMain(() -> productSnapshotRepository.findById(productId))
+                .map(snapshot -> {
+                    Optional<Inventory> inventory = inventoryShards.findByProductId(productId);
+                    return new InventoryDetails(inventory.map(Inventory::getId).orElse(null), productId,
+                            snapshot.getName(), snapshot.getPrice(), inventory.map(Inventory::getQuantity).orElse(0),
+                            inventory.map(Inventory::getReservedQuantity).orElse(0));
+                });
+    }
+
+    private void emitInventoryChangeEvent(Long productId, int delta, Integer newQuantity, InventoryMovement.Reason reason) {
         logger.info("EVENTO DE INVENTARIO: La cantidad del producto {} ha cambiado a {}.", productId, newQuantity);
-        // Aquí podrías publicar a un topic de Kafka, una cola de RabbitMQ, etc.
+        // Historial de movimientos (bandeja de salida en esta misma transacción; pasa al historial por lotes)
+        movementRecorder.record(productId, delta, newQuantity, reason);
+    }
+
+    /**
+     * Movimientos de stock de un producto en [from, to), por orden de fecha. Los movimientos se guardan por
+     * lotes cada pocos cientos de ms: los más recientes pueden no aparecer todavía.
+     *
+     * @param afterOccurredAt Con {@code afterId}, posición del último movimiento de la página anterior (null en la primera).
+     */
+    public List<InventoryMovement> getMovements(Long productId, Instant from, Instant to, Instant afterOccurredAt,
+                                                Long afterId, int limit) {
+        requireRange(from, to);
+        return movementRepository.findByProduct(productId, from, to, afterOccurredAt, afterId, limit);
+    }
+
+    /**
+     * Movimientos de un producto en [from, to) resumidos por intervalos de {@code bucket}.
+     *
+     * @throws IllegalArgumentException Si el rango es inválido o da más de 10.000 intervalos.
+     */
+    public List<InventoryMovementBucket> getMovementBuckets(Long productId, Instant from, Instant to, Duration bucket) {
+        requireRange(from, to);
+        if (bucket.toSeconds() < 1) {
+            throw new IllegalArgumentException("El intervalo debe ser de al menos un segundo.");
+        }
+        if (Duration.between(from, to).toSeconds() / bucket.toSeconds() > MAX_MOVEMENT_BUCKETS) {
+            throw new IllegalArgumentException("El rango da más de " + MAX_MOVEMENT_BUCKETS + " intervalos: usa un intervalo mayor.");
+        }
+        return movementRepository.findBuckets(productId, from, to, bucket);
+    }
+
+    private static void requireRange(Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from debe ser anterior a to.");
+        }
+    }
+
+    /** Resultado de {@link #updateWarehouseQuantity}: el almacén actualizado y el nuevo total del producto. */
+    public record WarehouseStockUpdate(WarehouseStock stock, Integer totalQuantity) {
     }
 
     // Clase auxiliar para combinar la información del inventario y el producto para la respuesta
@@ -128,14 +448,21 @@ public class InventoryServices {
         private Long productId;
         private String productName;
         private java.math.BigDecimal productPrice;
+        // Stock menos lo retenido por reservas activas
         private Integer quantityAvailable;
+        private Integer quantityReserved;
+        // Solo si se pide el desglose (?include=warehouses); null no se escribe
+        @Relationship("warehouses")
+        private List<WarehouseStock> warehouses;
 
-        public InventoryDetails(Long inventoryId, Long productId, String productName, java.math.BigDecimal productPrice, Integer quantityAvailable) {
+        public InventoryDetails(Long inventoryId, Long productId, String productName, java.math.BigDecimal productPrice,
+                                Integer quantity, Integer quantityReserved) {
             this.resourceId = (inventoryId != null) ? inventoryId.toString() : "product-" + productId.toString();
             this.productId = productId;
             this.productName = productName;
             this.productPrice = productPrice;
-            this.quantityAvailable = quantityAvailable;
+            this.quantityReserved = quantityReserved != null ? quantityReserved : 0;
+            this.quantityAvailable = Math.max(0, (quantity != null ? quantity : 0) - this.quantityReserved);
         }
     }
 }
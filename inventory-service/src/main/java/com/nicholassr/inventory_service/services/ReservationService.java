@@ -0,0 +1,270 @@
+package com.nicholassr.inventory_service.services;
+
+import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.models.InventoryMovement;
+import com.nicholassr.inventory_service.models.StockReservation;
+import com.nicholassr.inventory_service.models.WarehouseStock;
+import com.nicholassr.inventory_service.movements.InventoryMovementRecorder;
+import com.nicholassr.inventory_service.repository.InventoryRepository;
+import com.nicholassr.inventory_service.repository.StockReservationRepository;
+import com.nicholassr.inventory_service.repository.WarehouseStockRepository;
+import com.nicholassr.inventory_service.sharding.InventoryShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reservas temporales de stock. Una reserva activa retiene unidades del producto (y del almacén, si se
+ * indica) en {@code reservedQuantity}, así lo disponible es {@code quantity - reservedQuantity} sin sumar
+ * reservas. Todas las operaciones bloquean el registro de inventario del producto, igual que los cambios
+ * de stock por almacén, y se ejecutan en su shard.
+ *
+ * La caducidad la aplica {@code ReservationExpiry} con {@link #expire}; este servicio solo publica
+ * {@link ReservationHeld} al crear cada reserva.
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
+    private final InventoryRepository inventoryRepository;
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final StockReservationRepository reservationRepository;
+    private final InventoryShards inventoryShards;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryMovementRecorder movementRecorder;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+
+    public ReservationService(InventoryRepository inventoryRepository, WarehouseStockRepository warehouseStockRepository,
+                              StockReservationRepository reservationRepository, InventoryShards inventoryShards,
+                              ApplicationEventPublisher eventPublisher, InventoryMovementRecorder movementRecorder,
+                              @Value("${app.reservations.default-ttl-seconds:900}") long defaultTtlSeconds,
+                              @Value("${app.reservations.max-ttl-seconds:3600}") long maxTtlSeconds) {
+        this.inventoryRepository = inventoryRepository;
+        this.warehouseStockRepository = warehouseStockRepository;
+        this.reservationRepository = reservationRepository;
+        this.inventoryShards = inventoryShards;
+        this.eventPublisher = eventPublisher;
+        this.movementRecorder = movementRecorder;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+
+    /**
+     * Reserva unidades de un producto durante {@code ttlSeconds}.
+     *
+     * @param warehouseCode Obligatorio si el producto tiene stock por almacén; null si no lo tiene.
+     * @param ttlSeconds Null para usar {@code app.reservations.default-ttl-seconds}.
+     * @throws IllegalArgumentException Si la cantidad, la duración o el almacén no son válidos.
+     * @throws IllegalStateException Si no hay suficiente stock disponible.
+     */
+    public StockReservation reserve(Long productId, Integer quantity, Long ttlSeconds, String warehouseCode) {
+        if (quantity == null || quantity < 1) {
+            throw new IllegalArgumentException("La cantidad a reservar debe ser positiva.");
+        }
+        long ttl = ttlSeconds != null ? ttlSeconds : defaultTtlSeconds;
+        if (ttl < 1 || ttl > maxTtlSeconds) {
+            throw new IllegalArgumentException("ttlSeconds debe estar entre 1 y " + maxTtlSeconds + ".");
+        }
+        StockReservation reservation = inventoryShards.write(productId, () -> hold(productId, quantity, ttl, warehouseCode));
+        // Ya confirmada la transacción: si falla, no queda un temporizador de una reserva que no existe
+        eventPublisher.publishEvent(new ReservationHeld(productId, reservation.getId(), reservation.getExpiresAt()));
+        return reservation;
+    }
+
+    public Optional<StockReservation> getReservation(Long productId, Long reservationId) {
+        return inventoryShards.readByProduct(productId,
+                () -> reservationRepository.findByIdAndProductId(reservationId, productId), Optional::isEmpty);
+    }
+
+    /**
+     * Confirma la reserva: descuenta las unidades del stock (y del almacén) y deja de retenerlas.
+     *
+     * @return Vacío si la reserva no existe.
+     * @throws IllegalStateException Si la reserva no está activa, ya ha caducado o el stock ha bajado por
+     *                               debajo de lo reservado.
+     */
+    public Optional<StockReservation> confirm(Long productId, Long reservationId) {
+        return inventoryShards.write(productId, () -> {
+            Optional<Inventory> locked = inventoryRepository.findForUpdateByProductId(productId);
+            Optional<StockReservation> found = locked.flatMap(inventory -> reservationRepository.findByIdAndProductId(reservationId, productId));
+            found.ifPresent(reservation -> {
+                Inventory inventory = locked.get();
+                requireActive(reservation);
+                if (!reservation.getExpiresAt().isAfter(Instant.now())) {
+                    // La libera ReservationExpiry en su próximo tick
+                    throw new IllegalStateException("La reserva " + reservationId + " ha caducado.");
+                }
+                int quantity = reservation.getQuantity();
+                if (orZero(inventory.getQuantity()) < quantity) {
+                    throw new IllegalStateException("El stock del producto " + productId + " es menor que la reserva.");
+                }
+                if (reservation.getWarehouseCode() != null) {
+                    WarehouseStock stock = warehouseOf(reservation);
+                    if (orZero(stock.getQuantity()) < quantity) {
+                        throw new IllegalStateException("El stock del almacén " + stock.getWarehouseCode() + " es menor que la reserva.");
+                    }
+                    stock.setQuantity(stock.getQuantity() - quantity);
+                    stock.setReservedQuantity(orZero(stock.getReservedQuantity()) - quantity);
+                    warehouseStockRepository.save(stock);
+                }
+                inventory.setQuantity(inventory.getQuantity() - quantity);
+                inventory.setReservedQuantity(orZero(inventory.getReservedQuantity()) - quantity);
+                inventoryRepository.save(inventory);
+                movementRecorder.record(productId, -quantity, inventory.getQuantity(), InventoryMovement.Reason.RESERVATION_CONFIRMED);
+                reservation.setStatus(StockReservation.Status.CONFIRMED);
+                reservationRepository.save(reservation);
+                logger.info("Reserva {} del producto ID {} confirmada: {} unidades (stock {})",
+                        reservationId, productId, quantity, inventory.getQuantity());
+            });
+            return found;
+        });
+    }
+
+    /**
+     * Cancela la reserva y libera sus unidades. Cancelar una reserva ya cancelada no hace nada.
+     *
+     * @return Vacío si la reserva no existe.
+     * @throws IllegalStateException Si la reserva ya se confirmó o caducó.
+     */
+    public Optional<StockReservation> cancel(Long productId, Long reservationId) {
+        return inventoryShards.write(productId, () -> {
+            Optional<Inventory> locked = inventoryRepository.findForUpdateByProductId(productId);
+            Optional<StockReservation> found = locked.flatMap(inventory -> reservationRepository.findByIdAndProductId(reservationId, productId));
+            found.filter(reservation -> reservation.getStatus() != StockReservation.Status.CANCELLED)
+                    .ifPresent(reservation -> {
+                        requireActive(reservation);
+                        release(locked.get(), reservation, StockReservation.Status.CANCELLED);
+                        logger.info("Reserva {} del producto ID {} cancelada", reservationId, productId);
+                    });
+            return found;
+        });
+    }
+
+    /**
+     * Caduca la reserva si sigue activa y ha pasado su {@code expiresAt}. Idempotente: con varias
+     * instancias del servicio, cada una lo intenta y solo la primera cambia algo.
+     *
+     * @return true si se ha liberado.
+     */
+    public boolean expire(Long productId, Long reservationId) {
+        return inventoryShards.write(productId, () -> {
+            Inventory inventory = inventoryRepository.findForUpdateByProductId(productId).orElse(null);
+            Optional<StockReservation> found = reservationRepository.findByIdAndProductId(reservationId, productId);
+            if (inventory == null || found.isEmpty()) {
+                return false;
+            }
+            StockReservation reservation = found.get();
+            if (reservation.getStatus() != StockReservation.Status.ACTIVE || reservation.getExpiresAt().isAfter(Instant.now())) {
+                return false;
+            }
+            release(inventory, reservation, StockReservation.Status.EXPIRED);
+            logger.debug("Reserva {} del producto ID {} caducada: {} unidades liberadas",
+                    reservationId, productId, reservation.getQuantity());
+            return true;
+        });
+    }
+
+    /** Nodos en los que buscar reservas (ver {@link InventoryShards#nodeCount()}). */
+    public int nodeCount() {
+        return inventoryShards.nodeCount();
+    }
+
+    /**
+     * Reservas activas de un nodo (la base principal o un shard) con id mayor que {@code afterId}, en orden
+     * de id. Para reconstruir los temporizadores al arrancar.
+     */
+    public List<StockReservation> findActive(int node, long afterId, int limit) {
+        return inventoryShards.readNode(node, () -> reservationRepository.findByStatusAndIdGreaterThanOrderById(
+                StockReservation.Status.ACTIVE, afterId, Limit.of(limit)));
+    }
+
+    /**
+     * Reservas activas de un nodo que vencieron antes de {@code before}, las más antiguas primero. Para el
+     * barrido que recoge las que ninguna rueda tiene programadas.
+     */
+    public List<StockReservation> findOverdue(int node, Instant before, int limit) {
+        return inventoryShards.readNode(node, () -> reservationRepository.findByStatusAndExpiresAtBeforeOrderByExpiresAt(
+                StockReservation.Status.ACTIVE, before, Limit.of(limit)));
+    }
+
+    private StockReservation hold(Long productId, Integer quantity, long ttlSeconds, String warehouseCode) {
+        Inventory inventory = lockInventory(productId);
+        if (warehouseCode != null) {
+            WarehouseStock stock = warehouseStockRepository.findByProductIdAndWarehouseCode(productId, warehouseCode)
+                    .orElseThrow(() -> new IllegalArgumentException("El producto " + productId
+                            + " no tiene stock en el almacén " + warehouseCode + "."));
+            int available = orZero(stock.getQuantity()) - orZero(stock.getReservedQuantity());
+            if (available < quantity) {
+                throw new IllegalStateException("Stock insuficiente en el almacén " + warehouseCode
+                        + ": disponibles " + Math.max(0, available) + ".");
+            }
+            stock.setReservedQuantity(orZero(stock.getReservedQuantity()) + quantity);
+            warehouseStockRepository.save(stock);
+        } else if (warehouseStockRepository.existsByProductId(productId)) {
+            throw new IllegalArgumentException("El producto " + productId + " tiene stock por almacén: indica warehouseCode.");
+        }
+        int available = orZero(inventory.getQuantity()) - orZero(inventory.getReservedQuantity());
+        if (available < quantity) {
+            throw new IllegalStateException("Stock insuficiente para el producto " + productId
+                    + ": disponibles " + Math.max(0, available) + ".");
+        }
+        inventory.setReservedQuantity(orZero(inventory.getReservedQuantity()) + quantity);
+        inventoryRepository.save(inventory);
+
+        Instant now = Instant.now();
+        StockReservation reservation = reservationRepository.save(
+                new StockReservation(productId, warehouseCode, quantity, now.plusSeconds(ttlSeconds), now));
+        logger.info("Reserva {} del producto ID {}: {} unidades hasta {}", reservation.getId(), productId, quantity,
+                reservation.getExpiresAt());
+        return reservation;
+    }
+
+    /** Devuelve las unidades retenidas y deja la reserva en {@code status}. */
+    private void release(Inventory inventory, StockReservation reservation, StockReservation.Status status) {
+        int quantity = reservation.getQuantity();
+        if (reservation.getWarehouseCode() != null) {
+            warehouseStockRepository.findByProductIdAndWarehouseCode(reservation.getProductId(), reservation.getWarehouseCode())
+                    .ifPresent(stock -> {
+                        stock.setReservedQuantity(Math.max(0, orZero(stock.getReservedQuantity()) - quantity));
+                        warehouseStockRepository.save(stock);
+                    });
+        }
+        inventory.setReservedQuantity(Math.max(0, orZero(inventory.getReservedQuantity()) - quantity));
+        inventoryRepository.save(inventory);
+        reservation.setStatus(status);
+        reservationRepository.save(reservation);
+    }
+
+    private Inventory lockInventory(Long productId) {
+        return inventoryRepository.findForUpdateByProductId(productId)
+                .orElseThrow(() -> new IllegalStateException("El producto " + productId + " no tiene inventario."));
+    }
+
+    private WarehouseStock warehouseOf(StockReservation reservation) {
+        return warehouseStockRepository.findByProductIdAndWarehouseCode(reservation.getProductId(), reservation.getWarehouseCode())
+                .orElseThrow(() -> new IllegalStateException("El almacén " + reservation.getWarehouseCode() + " ya no tiene stock del producto."));
+    }
+
+    private static void requireActive(StockReservation reservation) {
+        if (reservation.getStatus() != StockReservation.Status.ACTIVE) {
+            throw new IllegalStateException("La reserva " + reservation.getId() + " está " + reservation.getStatus() + ".");
+        }
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /** Publicado tras crear una reserva, ya confirmada la transacción. */
+    public record ReservationHeld(Long productId, Long reservationId, Instant expiresAt) {
+    }
+}
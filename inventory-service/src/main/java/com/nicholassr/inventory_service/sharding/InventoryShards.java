@@ -0,0 +1,480 @@
+package com.nicholassr.inventory_service.sharding;
+
+import com.nicholassr.common.sharding.ConsistentHashRing;
+import com.nicholassr.common.sharding.ShardRoutingDataSource;
+import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.repository.InventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Punto único de acceso a las tablas por producto ({@code inventory}, {@code warehouse_stock} y
+ * {@code stock_reservations}): decide en qué shard se ejecuta cada operación de
+ * {@link InventoryRepository} y abre allí la transacción. Sin shards ({@code app.sharding.enabled=false})
+ * se limita a abrir la transacción, como hacía {@code @Transactional}.
+ *
+ * Con shards, el dueño de un producto lo da el {@link ConsistentHashRing}. Durante un reparto
+ * ({@link ShardRebalancer}) conviven dos anillos: las escrituras mueven antes la fila al shard nuevo (con
+ * un cerrojo por producto que comparte con el reparto) y las lecturas buscan en el shard nuevo y, si no
+ * está, en el antiguo.
+ *
+ * Los cerrojos por producto y la topología en uso viven en memoria de esta instancia: con shards, solo una
+ * instancia de inventory-service puede escribir en el inventario. Con varias, dos escrituras del mismo producto
+ * no se serializarían durante un reparto y las demás no verían el anillo nuevo hasta reiniciarse.
+ */
+public class InventoryShards implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryShards.class);
+
+    /** Cerrojos por producto (a rayas): serializan escrituras y movimientos del mismo producto en esta instancia. */
+    private static final int LOCK_STRIPES = 1024;
+
+    /** Tablas con las filas de un producto; se mueven juntas de shard. */
+    private static final List<String> PRODUCT_TABLES = List.of("inventory", "warehouse_stock", "stock_reservations");
+
+    /** Secuencia de ids de cada tabla por producto. */
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "inventory", "inventory_seq",
+            "warehouse_stock", "warehouse_stock_seq",
+            "stock_reservations", "stock_reservation_seq");
+
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final ShardRoutingDataSource routing;
+    private final int virtualNodes;
+    private final ExecutorService scatterExecutor;
+    private final ReentrantLock[] locks;
+    private volatile Topology topology;
+
+    /** Sin shards. */
+    public InventoryShards(InventoryRepository inventoryRepository, PlatformTransactionManager transactionManager) {
+        this(inventoryRepository, transactionManager, null, 0, 0, null);
+    }
+
+    public InventoryShards(InventoryRepository inventoryRepository, PlatformTransactionManager transactionManager,
+                           ShardRoutingDataSource routing, int virtualNodes, int activeShards, Integer targetShards) {
+        this.inventoryRepository = inventoryRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.routing = routing;
+        this.virtualNodes = virtualNodes;
+        if (routing != null) {
+            this.topology = new Topology(new ConsistentHashRing(activeShards, virtualNodes),
+                    targetShards != null ? new ConsistentHashRing(targetShards, virtualNodes) : null);
+            AtomicInteger threads = new AtomicInteger();
+            this.scatterExecutor = Executors.newFixedThreadPool(routing.getShardCount(), runnable -> {
+                Thread thread = new Thread(runnable, "inventory-shard-" + threads.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.locks = new ReentrantLock[LOCK_STRIPES];
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                locks[i] = new ReentrantLock();
+            }
+        } else {
+            this.scatterExecutor = null;
+            this.locks = null;
+        }
+    }
+
+    public boolean isSharded() {
+        return routing != null;
+    }
+
+    /** Lectura en la base principal (tablas no repartidas). */
+    public <T> T readMain(Supplier<T> work) {
+        return readTransaction.execute(status -> work.get());
+    }
+
+    /** Bases con tablas por producto: los shards configurados, o 1 (la principal) sin shards. */
+    public int nodeCount() {
+        return isSharded() ? routing.getShardCount() : 1;
+    }
+
+    /**
+     * Lectura en una base concreta, sin pasar por el anillo (recorridos de todas las filas, p. ej. las
+     * reservas activas al arrancar). Durante un reparto una fila puede leerse en dos nodos.
+     */
+    public <T> T readNode(int node, Supplier<T> work) {
+        if (!isSharded()) {
+            return readTransaction.execute(status -> work.get());
+        }
+        return readOnShard(node, work);
+    }
+
+    public Optional<Inventory> findByProductId(Long productId) {
+        return readByProduct(productId, () -> inventoryRepository.findByProductId(productId), Optional::isEmpty);
+    }
+
+    /**
+     * Lectura de filas de un producto en su shard (p. ej. el desglose por almacén).
+     *
+     * @param isEmpty Si el resultado indica que no hay nada: durante un reparto se busca entonces en el shard antiguo.
+     */
+    public <T> T readByProduct(Long productId, Supplier<T> work, Predicate<T> isEmpty) {
+        if (!isSharded()) {
+            return readTransaction.execute(status -> work.get());
+        }
+        Topology current = topology;
+        int owner = current.ownerOf(productId);
+        T result = readOnShard(owner, work);
+        int previousOwner = current.previousOwnerOf(productId);
+        if (isEmpty.test(result) && previousOwner != owner) {
+            // Reparto en curso: las filas pueden no haberse movido todavía
+            result = readOnShard(previousOwner, work);
+            if (isEmpty.test(result)) {
+                // ...o haberse movido entre las dos lecturas
+                result = readOnShard(owner, work);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Inventario de varios productos. Con shards agrupa los productos por dueño y consulta los shards en
+     * paralelo; el tiempo total es el del shard más lento, no la suma.
+     */
+    public List<Inventory> findAllByProductIdIn(Collection<Long> productIds) {
+        if (!isSharded()) {
+            return readTransaction.execute(status -> inventoryRepository.findAllByProductIdIn(productIds));
+        }
+        Topology current = topology;
+        List<Inventory> found = scatterGather(groupBy(productIds, current::ownerOf));
+        if (current.isMigrating()) {
+            Set<Long> missing = new HashSet<>(productIds);
+            found.forEach(inventory -> missing.remove(inventory.getProductId()));
+            List<Long> pending = new ArrayList<>();
+            for (Long productId : missing) {
+                if (current.previousOwnerOf(productId) != current.ownerOf(productId)) {
+                    pending.add(productId);
+                }
+            }
+            found.addAll(scatterGather(groupBy(pending, current::previousOwnerOf)));
+        }
+        return found;
+    }
+
+    /**
+     * Primeras {@code limit} filas de una consulta ordenada sobre todo el inventario (p. ej. el stock por
+     * debajo de una cantidad). Con shards la consulta se lanza en paralelo en cada nodo con el mismo límite y
+     * los resultados se mezclan en {@code order}; durante un reparto una fila puede verse en dos nodos y se
+     * queda una por producto.
+     */
+    public List<Inventory> findAllOrdered(Supplier<List<Inventory>> query, Comparator<Inventory> order, int limit) {
+        if (!isSharded()) {
+            return readTransaction.execute(status -> query.get());
+        }
+        List<CompletableFuture<List<Inventory>>> futures = new ArrayList<>();
+        for (int node = 0; node < nodeCount(); node++) {
+            int shard = node;
+            futures.add(CompletableFuture.supplyAsync(() -> readOnShard(shard, query), scatterExecutor));
+        }
+        List<Inventory> merged = joinAll(futures);
+        merged.sort(order);
+        Set<Long> seen = new HashSet<>();
+        List<Inventory> result = new ArrayList<>(Math.min(limit, merged.size()));
+        for (Inventory inventory : merged) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (seen.add(inventory.getProductId())) {
+                result.add(inventory);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@code work} fuera de transacción con las conexiones de una base concreta (p. ej. DDL de mantenimiento
+     * en cada nodo). Sin shards, en la base única.
+     */
+    public <T> T onNode(int node, Supplier<T> work) {
+        return isSharded() ? ShardRoutingDataSource.onShard(node, work) : work.get();
+    }
+
+    /**
+     * Ejecuta {@code work} en una transacción en el shard del producto. Se usa para toda escritura de
+     * {@code inventory}, {@code warehouse_stock} y {@code stock_reservations}, que debe tocar un solo producto.
+     */
+    public <T> T write(Long productId, Supplier<T> work) {
+        if (!isSharded()) {
+            return writeTransaction.execute(status -> work.get());
+        }
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            Topology current = topology;
+            int owner = current.ownerOf(productId);
+            int previousOwner = current.previousOwnerOf(productId);
+            if (previousOwner != owner) {
+                move(productId, previousOwner, owner);
+            }
+            return ShardRoutingDataSource.onShard(owner, () -> writeTransaction.execute(status -> work.get()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- Reparto (ShardRebalancer) ----
+
+    Topology getTopology() {
+        return topology;
+    }
+
+    int getConfiguredShards() {
+        return routing.getShardCount();
+    }
+
+    void startMigration(int targetShards) {
+        Topology current = topology;
+        topology = new Topology(current.current(), new ConsistentHashRing(targetShards, virtualNodes));
+    }
+
+    void finishMigration() {
+        Topology current = topology;
+        if (current.isMigrating()) {
+            topology = new Topology(current.next(), null);
+        }
+    }
+
+    /**
+     * Mueve el producto al shard que le corresponde en el anillo nuevo si sigue en {@code shard}.
+     *
+     * @return true si se ha movido.
+     */
+    boolean relocate(long productId, int shard) {
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            int owner = topology.ownerOf(productId);
+            return owner != shard && move(productId, shard, owner);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    JdbcTemplate shardJdbc(int shard) {
+        return new JdbcTemplate(routing.getShard(shard));
+    }
+
+    /**
+     * Si la base principal guarda todavía filas de las tablas por producto (inventario de antes de activar
+     * los shards). Con shards no se leerían.
+     */
+    boolean hasRowsInMain() {
+        JdbcTemplate main = new JdbcTemplate(routing.getMain());
+        for (String table : PRODUCT_TABLES) {
+            if (!main.queryForList("select product_id from " + table + " where product_id is not null limit 1", Long.class).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mueve a su shard las filas por producto que sigan en la base principal. Se llama al arrancar, antes de
+     * servir peticiones, y conserva los ids: antes se adelantan las secuencias de cada shard por encima del
+     * mayor id existente para que no vuelvan a generarlos.
+     *
+     * @return productos movidos.
+     */
+    long importFromMain(int batchSize) {
+        JdbcTemplate main = new JdbcTemplate(routing.getMain());
+        restartSequencesAbove(main);
+        long imported = 0;
+        for (String table : PRODUCT_TABLES) {
+            long after = Long.MIN_VALUE;
+            while (true) {
+                List<Long> productIds = main.queryForList(
+                        "select distinct product_id from " + table + " where product_id > ? order by product_id limit ?",
+                        Long.class, after, batchSize);
+                for (Long productId : productIds) {
+                    ReentrantLock lock = lockFor(productId);
+                    lock.lock();
+                    try {
+                        if (copy(productId, main, shardJdbc(topology.ownerOf(productId)))) {
+                            imported++;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                if (productIds.size() < batchSize) {
+                    break;
+                }
+                after = productIds.get(productIds.size() - 1);
+            }
+        }
+        return imported;
+    }
+
+    /**
+     * Reinicia la secuencia de cada tabla en cada shard en el primer valor de su serie (k+1, k+1+STRIDE...)
+     * mayor que cualquier id de esa tabla en la base principal o en los shards.
+     */
+    private void restartSequencesAbove(JdbcTemplate main) {
+        for (String table : PRODUCT_TABLES) {
+            long maxId = maxId(main, table);
+            for (int shard = 0; shard < routing.getShardCount(); shard++) {
+                maxId = Math.max(maxId, maxId(shardJdbc(shard), table));
+            }
+            for (int shard = 0; shard < routing.getShardCount(); shard++) {
+                long start = shard + 1;
+                long next = maxId < start ? start
+                        : start + (long) ShardingConfiguration.MAX_SHARDS * ((maxId - start) / ShardingConfiguration.MAX_SHARDS + 1);
+                shardJdbc(shard).execute("alter sequence " + SEQUENCES.get(table) + " restart with " + next);
+            }
+        }
+    }
+
+    private static long maxId(JdbcTemplate jdbc, String table) {
+        Long max = jdbc.queryForObject("select max(id) from " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    private boolean move(long productId, int from, int to) {
+        boolean moved = copy(productId, shardJdbc(from), shardJdbc(to));
+        if (moved) {
+            logger.debug("Inventario del producto {} movido del shard {} al {}", productId, from, to);
+        }
+        return moved;
+    }
+
+    /**
+     * Copia las filas del producto (todas sus columnas, conservando el id) al destino si allí no existen y
+     * las borra del origen. Se hace por JDBC directo, fuera de JPA y de su caché: los datos no cambian. En
+     * ningún momento dejan de estar en al menos una de las dos bases.
+     *
+     * @throws IllegalStateException Si en el destino ya hay una fila con el mismo id de otro producto.
+     */
+    private boolean copy(long productId, JdbcTemplate source, JdbcTemplate target) {
+        boolean moved = false;
+        for (String table : PRODUCT_TABLES) {
+            List<Map<String, Object>> rows = source.queryForList("select * from " + table + " where product_id = ?", productId);
+            for (Map<String, Object> row : rows) {
+                StringJoiner columns = new StringJoiner(", ");
+                StringJoiner placeholders = new StringJoiner(", ");
+                List<Object> values = new ArrayList<>();
+                for (Map.Entry<String, Object> column : row.entrySet()) {
+                    columns.add(column.getKey());
+                    placeholders.add("?");
+                    values.add(column.getValue());
+                }
+                values.add(row.get("id"));
+                int inserted = target.update("insert into " + table + " (" + columns + ") select " + placeholders
+                        + " where not exists (select 1 from " + table + " where id = ?)", values.toArray());
+                if (inserted == 0) {
+                    // Ya copiada en un intento anterior, salvo que el id lo use otro producto
+                    Long owner = target.queryForObject("select product_id from " + table + " where id = ?", Long.class, row.get("id"));
+                    if (owner == null || owner != productId) {
+                        throw new IllegalStateException("El id " + row.get("id") + " de " + table + " del producto " + productId
+                                + " ya lo usa el producto " + owner + " en el destino");
+                    }
+                }
+            }
+            if (!rows.isEmpty()) {
+                source.update("delete from " + table + " where product_id = ?", productId);
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    private <T> T readOnShard(int shard, Supplier<T> work) {
+        return ShardRoutingDataSource.onShard(shard, () -> readTransaction.execute(status -> work.get()));
+    }
+
+    private List<Inventory> scatterGather(Map<Integer, List<Long>> byShard) {
+        if (byShard.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (byShard.size() == 1) {
+            Map.Entry<Integer, List<Long>> only = byShard.entrySet().iterator().next();
+            return new ArrayList<>(readOnShard(only.getKey(), () -> inventoryRepository.findAllByProductIdIn(only.getValue())));
+        }
+        List<CompletableFuture<List<Inventory>>> futures = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> entry : byShard.entrySet()) {
+            futures.add(CompletableFuture.supplyAsync(() ->
+                    readOnShard(entry.getKey(), () -> inventoryRepository.findAllByProductIdIn(entry.getValue())), scatterExecutor));
+        }
+        return joinAll(futures);
+    }
+
+    private static List<Inventory> joinAll(List<CompletableFuture<List<Inventory>>> futures) {
+        List<Inventory> result = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<Inventory>> future : futures) {
+                result.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    private static Map<Integer, List<Long>> groupBy(Collection<Long> productIds, ToIntFunction<Long> owner) {
+        Map<Integer, List<Long>> groups = new HashMap<>();
+        for (Long productId : productIds) {
+            groups.computeIfAbsent(owner.applyAsInt(productId), shard -> new ArrayList<>()).add(productId);
+        }
+        return groups;
+    }
+
+    private ReentrantLock lockFor(long productId) {
+        return locks[Math.floorMod(Long.hashCode(productId * 0x9E3779B97F4A7C15L), LOCK_STRIPES)];
+    }
+
+    @Override
+    public void close() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+    }
+
+    /** Anillo en uso y, durante un reparto, el anillo destino. */
+    record Topology(ConsistentHashRing current, ConsistentHashRing next) {
+
+        boolean isMigrating() {
+            return next != null;
+        }
+
+        /** Dueño actual: el del anillo destino si hay un reparto en curso. */
+        int ownerOf(long productId) {
+            return (next != null ? next : current).shardFor(productId);
+        }
+
+        /** Dónde puede seguir la fila si el reparto aún no la ha movido (igual a {@link #ownerOf} si no hay reparto). */
+        int previousOwnerOf(long productId) {
+            return current.shardFor(productId);
+        }
+    }
+}
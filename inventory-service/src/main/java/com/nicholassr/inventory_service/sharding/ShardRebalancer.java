@@ -0,0 +1,181 @@
+package com.nicholassr.inventory_service.sharding;
+
+import com.nicholassr.inventory_service.models.ShardTopology;
+import com.nicholassr.inventory_service.repository.ShardTopologyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cambia el número de shards sin parar el servicio. Guarda el destino en {@code shard_topology} (si el
+ * servicio se reinicia a mitad, el reparto se retoma al arrancar), activa el anillo destino en
+ * {@link InventoryShards} y recorre todos los shards por {@code product_id} moviendo las filas cuyo dueño ha
+ * cambiado. Al terminar, el anillo destino pasa a ser el único.
+ *
+ * Los cerrojos por producto y el anillo destino son locales: el reparto supone una sola instancia de
+ * inventory-service (ver {@link InventoryShards}).
+ */
+public class ShardRebalancer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    public enum State { IDLE, RUNNING, COMPLETED, FAILED }
+
+    private final InventoryShards shards;
+    private final ShardTopologyRepository topologyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shard-rebalancer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong moved = new AtomicLong();
+    private volatile State state = State.IDLE;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public ShardRebalancer(InventoryShards shards, ShardTopologyRepository topologyRepository,
+                           PlatformTransactionManager transactionManager, int batchSize) {
+        this.shards = shards;
+        this.topologyRepository = topologyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /** Retoma el reparto que quedó a medias en una ejecución anterior. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingRebalance() {
+        InventoryShards.Topology topology = shards.getTopology();
+        if (topology.isMigrating()) {
+            logger.info("Reparto de inventario pendiente ({} -> {} shards), se retoma.",
+                    topology.current().getShardCount(), topology.next().getShardCount());
+            submit();
+        }
+    }
+
+    /**
+     * Empieza a repartir el inventario en {@code targetShards} shards (los primeros de {@code app.sharding.nodes}).
+     *
+     * @throws IllegalArgumentException Si no hay tantos nodos configurados.
+     * @throws IllegalStateException Si ya hay un reparto en curso hacia otro número de shards.
+     */
+    public synchronized Map<String, Object> rebalance(int targetShards) {
+        if (targetShards < 1 || targetShards > shards.getConfiguredShards()) {
+            throw new IllegalArgumentException("El número de shards debe estar entre 1 y " + shards.getConfiguredShards()
+                    + " (nodos configurados en app.sharding.nodes)");
+        }
+        InventoryShards.Topology topology = shards.getTopology();
+        if (state == State.RUNNING) {
+            if (topology.next().getShardCount() != targetShards) {
+                throw new IllegalStateException("Ya hay un reparto en curso hacia " + topology.next().getShardCount() + " shards");
+            }
+            return status();
+        }
+        if (topology.isMigrating() && topology.next().getShardCount() != targetShards) {
+            throw new IllegalStateException("Hay un reparto sin terminar hacia " + topology.next().getShardCount()
+                    + " shards; hay que completarlo antes de pedir otro");
+        }
+        if (!topology.isMigrating()) {
+            if (topology.current().getShardCount() == targetShards) {
+                return status();
+            }
+            saveTopology(topology.current().getShardCount(), targetShards);
+            shards.startMigration(targetShards);
+        }
+        submit();
+        return status();
+    }
+
+    private synchronized void submit() {
+        state = State.RUNNING;
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+        scanned.set(0);
+        moved.set(0);
+        executor.execute(this::run);
+    }
+
+    private void run() {
+        InventoryShards.Topology topology = shards.getTopology();
+        int from = topology.current().getShardCount();
+        int to = topology.next().getShardCount();
+        logger.info("Reparto de inventario: {} -> {} shards", from, to);
+        try {
+            for (int shard = 0; shard < Math.max(from, to); shard++) {
+                relocateShard(shard);
+            }
+            saveTopology(to, null);
+            shards.finishMigration();
+            state = State.COMPLETED;
+            logger.info("Reparto de inventario terminado: {} shards, {} filas revisadas, {} movidas", to, scanned.get(), moved.get());
+        } catch (RuntimeException e) {
+            state = State.FAILED;
+            error = e.getMessage();
+            logger.error("Reparto de inventario interrumpido ({} filas movidas); se puede relanzar: {}", moved.get(), e.getMessage(), e);
+        } finally {
+            finishedAt = Instant.now();
+        }
+    }
+
+    /** Recorre el shard por product_id (keyset) y mueve las filas que ya no le corresponden. */
+    private void relocateShard(int shard) {
+        JdbcTemplate jdbc = shards.shardJdbc(shard);
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<Long> productIds = jdbc.queryForList(
+                    "select product_id from inventory where product_id > ? order by product_id limit ?",
+                    Long.class, after, batchSize);
+            for (Long productId : productIds) {
+                scanned.incrementAndGet();
+                if (shards.relocate(productId, shard)) {
+                    moved.incrementAndGet();
+                }
+            }
+            if (productIds.size() < batchSize) {
+                return;
+            }
+            after = productIds.get(productIds.size() - 1);
+        }
+    }
+
+    private void saveTopology(int activeShards, Integer targetShards) {
+        transactionTemplate.executeWithoutResult(status -> topologyRepository.save(
+                new ShardTopology(ShardTopology.INVENTORY, activeShards, targetShards, Instant.now())));
+    }
+
+    public Map<String, Object> status() {
+        InventoryShards.Topology topology = shards.getTopology();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("activeShards", topology.current().getShardCount());
+        status.put("targetShards", topology.isMigrating() ? topology.next().getShardCount() : null);
+        status.put("scannedRows", scanned.get());
+        status.put("movedRows", moved.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("error", error);
+        return status;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,148 @@
+package com.nicholassr.inventory_service.sharding;
+
+import com.nicholassr.common.jdbc.QueryInstrumentation;
+import com.nicholassr.common.sharding.ShardRoutingDataSource;
+import com.nicholassr.inventory_service.models.ShardTopology;
+import com.nicholassr.inventory_service.repository.InventoryRepository;
+import com.nicholassr.inventory_service.repository.ShardTopologyRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shards de inventario ({@code app.sharding.*}). Siempre registra {@link InventoryShards}; con
+ * {@code app.sharding.enabled=true} además sustituye el DataSource de Spring Boot por un
+ * {@link ShardRoutingDataSource} (base principal + un pool por nodo), prepara el esquema de cada nodo y, antes
+ * de servir peticiones, mueve a los shards el inventario que siga en la base principal.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties({DataSourceProperties.class, ShardingProperties.class})
+public class ShardingConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfiguration.class);
+
+    /** Separación entre los ids generados por cada shard; acota el número máximo de nodos. */
+    static final int MAX_SHARDS = 1024;
+
+    private static final String SHARD_SCHEMA = "db/sharding/inventory-shard.sql";
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    public ShardRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, ShardingProperties properties,
+                                             ObjectProvider<QueryInstrumentation> queryInstrumentation,
+                                             Environment environment) {
+        if (properties.getNodes().isEmpty() || properties.getNodes().size() > MAX_SHARDS) {
+            throw new IllegalStateException("app.sharding.nodes debe tener entre 1 y " + MAX_SHARDS + " nodos");
+        }
+        HikariDataSource main = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(main));
+        if (!StringUtils.hasText(main.getPoolName())) {
+            main.setPoolName("main");
+        }
+        // Los pools no son beans: se instrumentan aquí (antes de arrancarlos), no delante del enrutamiento
+        queryInstrumentation.ifAvailable(instrumentation -> instrumentation.instrument(main));
+
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            ShardingProperties.Node node = properties.getNodes().get(i);
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + i);
+            shard.setJdbcUrl(node.getUrl());
+            shard.setUsername(node.getUsername() != null ? node.getUsername() : dataSourceProperties.determineUsername());
+            shard.setPassword(node.getPassword() != null ? node.getPassword() : dataSourceProperties.determinePassword());
+            shard.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            shard.setMaximumPoolSize(properties.getMaximumPoolSize());
+            queryInstrumentation.ifAvailable(instrumentation -> instrumentation.instrument(shard));
+            initializeSchema(shard, i);
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(main, shards);
+    }
+
+    @Bean(destroyMethod = "close")
+    public InventoryShards inventoryShards(ShardingProperties properties, DataSource dataSource,
+                                           InventoryRepository inventoryRepository,
+                                           ShardTopologyRepository topologyRepository,
+                                           PlatformTransactionManager transactionManager) throws SQLException {
+        if (!properties.isEnabled()) {
+            return new InventoryShards(inventoryRepository, transactionManager);
+        }
+        ShardRoutingDataSource routing = dataSource.unwrap(ShardRoutingDataSource.class);
+        int configured = routing.getShardCount();
+        ShardTopology topology = new TransactionTemplate(transactionManager)
+                .execute(status -> topologyRepository.findById(ShardTopology.INVENTORY).orElse(null));
+        int active = topology != null ? topology.getActiveShards()
+                : properties.getActiveShards() != null ? properties.getActiveShards() : configured;
+        Integer target = topology != null ? topology.getTargetShards() : null;
+        if (active < 1 || active > configured || (target != null && target > configured)) {
+            throw new IllegalStateException("La topología de shards (" + active + (target != null ? " -> " + target : "")
+                    + ") no cabe en los " + configured + " nodos de app.sharding.nodes");
+        }
+        InventoryShards shards = new InventoryShards(inventoryRepository, transactionManager, routing,
+                properties.getVirtualNodes(), active, target);
+        if (shards.hasRowsInMain()) {
+            if (!properties.isImportMain()) {
+                shards.close();
+                throw new IllegalStateException("La base principal tiene inventario que con shards no se leería: hay que"
+                        + " moverlo a los shards (app.sharding.import-main=true) o vaciar inventory, warehouse_stock y"
+                        + " stock_reservations en spring.datasource.url");
+            }
+            logger.info("Moviendo a los shards el inventario de la base principal...");
+            long imported = shards.importFromMain(properties.getRebalanceBatchSize());
+            logger.info("Inventario de {} productos movido de la base principal a los shards", imported);
+        }
+        return shards;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    public ShardRebalancer shardRebalancer(InventoryShards inventoryShards, ShardTopologyRepository topologyRepository,
+                                           PlatformTransactionManager transactionManager, ShardingProperties properties) {
+        return new ShardRebalancer(inventoryShards, topologyRepository, transactionManager, properties.getRebalanceBatchSize());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    public ShardsEndpoint shardsEndpoint(InventoryShards inventoryShards, ShardRebalancer shardRebalancer) {
+        return new ShardsEndpoint(inventoryShards, shardRebalancer);
+    }
+
+    static void initializeSchema(DataSource shard, int index) {
+        String script;
+        try {
+            script = new ClassPathResource(SHARD_SCHEMA).getContentAsString(StandardCharsets.UTF_8)
+                    .replace("${sequenceStart}", Integer.toString(index + 1))
+                    .replace("${sequenceIncrement}", Integer.toString(MAX_SHARDS));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ByteArrayResource(script.getBytes(StandardCharsets.UTF_8)));
+        populator.setSqlScriptEncoding(StandardCharsets.UTF_8.name());
+        populator.execute(shard);
+    }
+}
@@ -0,0 +1,59 @@
+package com.nicholassr.inventory_service.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reparto de la tabla {@code inventory} entre varias bases por {@code productId} (hash consistente).
+ * El resto de tablas (copia de productos, estado de sincronización, topología) sigue en
+ * {@code spring.datasource.*}.
+ *
+ * Requiere una sola instancia de inventory-service: los cerrojos por producto y el anillo en uso durante un
+ * reparto están en memoria ({@link InventoryShards}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    /** Desactivado, el inventario vive en {@code spring.datasource.url} como hasta ahora. */
+    private boolean enabled = false;
+
+    /**
+     * Bases disponibles como shards, por índice. Se usan las {@link #activeShards} primeras; las demás
+     * quedan preparadas para un reparto posterior desde {@code /actuator/shards}.
+     */
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Shards en uso la primera vez. Después manda la topología guardada en la tabla {@code shard_topology},
+     * que actualiza cada reparto. Sin valor se usan todos los {@link #nodes}.
+     */
+    private Integer activeShards;
+
+    /** Nodos virtuales por shard en el anillo: más nodos, reparto más uniforme. */
+    private int virtualNodes = 128;
+
+    /** Tamaño máximo del pool de cada shard. */
+    private int maximumPoolSize = 10;
+
+    /**
+     * Al arrancar, mueve a su shard el inventario que siga en la base principal (el de antes de activar los
+     * shards), por lotes de {@link #rebalanceBatchSize} productos. Desactivado, el servicio no arranca si lo hay.
+     */
+    private boolean importMain = true;
+
+    /** Filas por lote al recorrer un shard durante un reparto. */
+    private int rebalanceBatchSize = 500;
+
+    @Data
+    public static class Node {
+        private String url;
+        /** Si se omite se usa {@code spring.datasource.username}. */
+        private String username;
+        /** Si se omite se usa {@code spring.datasource.password}. */
+        private String password;
+    }
+}
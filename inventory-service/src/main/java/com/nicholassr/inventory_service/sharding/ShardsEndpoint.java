@@ -0,0 +1,44 @@
+package com.nicholassr.inventory_service.sharding;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/shards}: shards en uso, filas de inventario en cada nodo configurado y estado del
+ * último reparto. {@code POST /actuator/shards} con {@code {"shards": N}} reparte el inventario en N shards.
+ */
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final InventoryShards shards;
+    private final ShardRebalancer rebalancer;
+
+    public ShardsEndpoint(InventoryShards shards, ShardRebalancer rebalancer) {
+        this.shards = shards;
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("configuredShards", shards.getConfiguredShards());
+        List<Long> rows = new ArrayList<>();
+        for (int shard = 0; shard < shards.getConfiguredShards(); shard++) {
+            rows.add(shards.shardJdbc(shard).queryForObject("select count(*) from inventory", Long.class));
+        }
+        result.put("rowsPerShard", rows);
+        result.put("rebalance", rebalancer.status());
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebalance(int shards) {
+        return rebalancer.rebalance(shards);
+    }
+}
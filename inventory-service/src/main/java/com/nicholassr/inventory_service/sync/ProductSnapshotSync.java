@@ -0,0 +1,167 @@
+package com.nicholassr.inventory_service.sync;
+
+import com.nicholassr.inventory_service.client.ProductServiceClient;
+import com.nicholassr.inventory_service.dtos.ProductChangeDto;
+import com.nicholassr.inventory_service.dtos.ProductDto;
+import com.nicholassr.inventory_service.models.ProductSnapshot;
+import com.nicholassr.inventory_service.models.ProductSyncState;
+import com.nicholassr.inventory_service.repository.ProductSnapshotRepository;
+import com.nicholassr.inventory_service.repository.ProductSyncStateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantiene la tabla {@code product_snapshots} al día con el feed de cambios del servicio de productos.
+ *
+ * La primera vez (sin fila en {@code product_sync_state}) hace una carga completa: lee la posición actual
+ * del feed, recorre el catálogo por cursor y guarda esa posición. Después, cada {@code product-sync.interval-ms}
+ * aplica los cambios posteriores en orden de seq. Un cambio solo se aplica si su seq es mayor que el
+ * {@code sourceSeq} de la fila, así los cambios anteriores a la carga completa no la pisan.
+ */
+@Component
+public class ProductSnapshotSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSnapshotSync.class);
+
+    private final ProductServiceClient productServiceClient;
+    private final ProductSnapshotRepository snapshotRepository;
+    private final ProductSyncStateRepository stateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final AtomicLong lastSeq = new AtomicLong(-1);
+    private final AtomicLong latestSeq = new AtomicLong(-1);
+    private final Counter appliedCounter;
+
+    public ProductSnapshotSync(ProductServiceClient productServiceClient,
+                               ProductSnapshotRepository snapshotRepository,
+                               ProductSyncStateRepository stateRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${product-sync.enabled:false}") boolean enabled,
+                               @Value("${product-sync.batch-size:500}") int batchSize,
+                               MeterRegistry meterRegistry) {
+        this.productServiceClient = productServiceClient;
+        this.snapshotRepository = snapshotRepository;
+        this.stateRepository = stateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.appliedCounter = Counter.builder("product.snapshot.changes.applied")
+                .description("Cambios del feed de productos aplicados a la copia local")
+                .register(meterRegistry);
+        Gauge.builder("product.snapshot.lag", this, ProductSnapshotSync::lag)
+                .description("Cambios del feed de productos pendientes de aplicar (-1 si aún no se ha sincronizado)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Una pasada de sincronización. Los errores (servicio de productos caído, etc.) solo se registran:
+     * la siguiente pasada continúa desde el último seq guardado.
+     */
+    @Scheduled(initialDelayString = "${product-sync.initial-delay-ms:0}", fixedDelayString = "${product-sync.interval-ms:5000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Long stored = stateRepository.findById(ProductSyncState.PRODUCTS_FEED)
+                    .map(ProductSyncState::getLastSeq)
+                    .orElse(null);
+            catchUp(stored != null ? stored : bulkSync());
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo sincronizar la copia local de productos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Carga completa del catálogo. La posición del feed se lee antes que el catálogo: los cambios que
+     * lleguen mientras tanto tienen seq mayor y se aplican en la siguiente fase.
+     *
+     * @return El seq desde el que continuar con los cambios incrementales.
+     */
+    long bulkSync() {
+        long head = productServiceClient.fetchChanges(0, 0).latestSeq();
+        logger.info("Carga completa de la copia local de productos (feed en seq {}).", head);
+
+        long loaded = 0;
+        String next = null;
+        do {
+            ProductServiceClient.CatalogPage page = productServiceClient.fetchCatalogPage(next, batchSize);
+            Instant now = Instant.now();
+            List<ProductSnapshot> snapshots = page.products().stream()
+                    .map(product -> toSnapshot(product, head, now))
+                    .toList();
+            transactionTemplate.executeWithoutResult(status -> snapshotRepository.saveAll(snapshots));
+            loaded += snapshots.size();
+            next = page.next();
+        } while (next != null);
+
+        transactionTemplate.executeWithoutResult(status ->
+                stateRepository.save(new ProductSyncState(ProductSyncState.PRODUCTS_FEED, head, Instant.now())));
+        lastSeq.set(head);
+        logger.info("Carga completa terminada: {} productos.", loaded);
+        return head;
+    }
+
+    /**
+     * Aplica los cambios posteriores a {@code fromSeq}, página a página. Cada página y su nueva posición
+     * se guardan en la misma transacción.
+     */
+    void catchUp(long fromSeq) {
+        long after = fromSeq;
+        ProductServiceClient.ChangePage page;
+        do {
+            page = productServiceClient.fetchChanges(after, batchSize);
+            latestSeq.set(page.latestSeq());
+            if (page.changes().isEmpty()) {
+                break;
+            }
+            List<ProductChangeDto> changes = page.changes();
+            long pageLastSeq = changes.get(changes.size() - 1).getSeq();
+            transactionTemplate.executeWithoutResult(status -> {
+                changes.forEach(this::apply);
+                stateRepository.save(new ProductSyncState(ProductSyncState.PRODUCTS_FEED, pageLastSeq, Instant.now()));
+            });
+            appliedCounter.increment(changes.size());
+            after = pageLastSeq;
+        } while (page.hasMore());
+        lastSeq.set(after);
+    }
+
+    private void apply(ProductChangeDto change) {
+        ProductSnapshot current = snapshotRepository.findById(change.getProductId()).orElse(null);
+        if (current != null && current.getSourceSeq() != null && current.getSourceSeq() >= change.getSeq()) {
+            return;
+        }
+        if (change.isDeleted()) {
+            if (current != null) {
+                snapshotRepository.delete(current);
+            }
+            return;
+        }
+        snapshotRepository.save(new ProductSnapshot(change.getProductId(), change.getName(), change.getPrice(),
+                change.getSeq(), Instant.now()));
+    }
+
+    private static ProductSnapshot toSnapshot(ProductDto product, long sourceSeq, Instant syncedAt) {
+        return new ProductSnapshot(Long.valueOf(product.getId()), product.getName(), product.getPrice(), sourceSeq, syncedAt);
+    }
+
+    private double lag() {
+        long applied = lastSeq.get();
+        long latest = latestSeq.get();
+        return applied < 0 || latest < 0 ? -1 : Math.max(0, latest - applied);
+    }
+}
@@ -0,0 +1,46 @@
+package com.nicholassr.inventory_service.warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import com.nicholassr.common.warmup.WarmupTask;
+import com.nicholassr.inventory_service.dtos.InventoryDto;
+import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.services.InventoryServices;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Calentamiento de la serialización: lo mismo que hace {@code InventoryController} con datos sintéticos
+ * (parseo del cuerpo de un PATCH, detalle de inventario y consulta masiva), sin tocar la base.
+ */
+@Component
+public class JsonApiWarmupTask implements WarmupTask {
+
+    private final ObjectMapper objectMapper;
+    private final JsonApiConverter resourceConverter;
+
+    public JsonApiWarmupTask(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.resourceConverter = new JsonApiConverter(objectMapper, Inventory.class, InventoryServices.InventoryDetails.class);
+    }
+
+    @Override
+    public void run(int iteration) throws Exception {
+        long productId = iteration + 1L;
+        byte[] requestBody = ("{\"data\":{\"type\":\"inventories\",\"attributes\":{\"productId\":" + productId
+                + ",\"quantity\":" + (iteration % 100) + "}}}").getBytes(StandardCharsets.UTF_8);
+        JsonNode attributes = objectMapper.readTree(requestBody).path("data").path("attributes");
+        InventoryDto dto = objectMapper.treeToValue(attributes, InventoryDto.class);
+
+        InventoryServices.InventoryDetails details = new InventoryServices.InventoryDetails(productId, productId,
+                "Warmup " + iteration, BigDecimal.TEN, dto.getQuantity(), 0);
+        resourceConverter.writeDocument(new JSONAPIDocument<>(details));
+        resourceConverter.writeDocumentCollection(new JSONAPIDocument<>(List.of(details,
+                new InventoryServices.InventoryDetails(null, productId + 1, "Warmup", BigDecimal.ONE, 5, 1))));
+    }
+}
@@ -0,0 +1,35 @@
+package com.nicholassr.inventory_service.warmup;
+
+import com.nicholassr.common.warmup.WarmupTask;
+import com.nicholassr.inventory_service.client.ProductServiceClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calentamiento del {@code WebClient} hacia el servicio de productos: abre conexiones del pool de Reactor
+ * Netty y pasa por la lectura de JSON:API con la petición más barata del feed de cambios (solo la posición).
+ * Limitado a {@code app.warmup.product-client-iterations} para no cargar al otro servicio; si no está
+ * disponible, el primer error desactiva la tarea y el arranque sigue.
+ */
+@Component
+public class ProductClientWarmupTask implements WarmupTask {
+
+    private final ProductServiceClient productServiceClient;
+    private final int maxIterations;
+
+    public ProductClientWarmupTask(ProductServiceClient productServiceClient,
+                                   @Value("${app.warmup.product-client-iterations:50}") int maxIterations) {
+        this.productServiceClient = productServiceClient;
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public void run(int iteration) {
+        productServiceClient.fetchChanges(0, 0);
+    }
+
+    @Override
+    public int maxIterations() {
+        return maxIterations;
+    }
+}
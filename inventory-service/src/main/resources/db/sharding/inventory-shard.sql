@@ -0,0 +1,49 @@
+-- Esquema de cada shard de inventario (lo aplica ShardingConfiguration al arrancar, en todos los nodos).
+-- Mismo esquema que genera Hibernate para Inventory, WarehouseStock y StockReservation en la base principal.
+create table if not exists inventory (
+    id bigint not null primary key,
+    product_id bigint unique,
+    quantity integer,
+    reserved_quantity integer
+);
+create table if not exists warehouse_stock (
+    id bigint not null primary key,
+    product_id bigint,
+    warehouse_code varchar(255),
+    quantity integer,
+    reserved_quantity integer,
+    unique (product_id, warehouse_code)
+);
+-- Shards creados antes de las reservas
+alter table inventory add column if not exists reserved_quantity integer;
+alter table warehouse_stock add column if not exists reserved_quantity integer;
+create table if not exists stock_reservations (
+    id bigint not null primary key,
+    product_id bigint,
+    warehouse_code varchar(255),
+    quantity integer,
+    status varchar(255),
+    expires_at timestamp(6) with time zone,
+    created_at timestamp(6) with time zone
+);
+create index if not exists idx_stock_reservations_status_id on stock_reservations (status, id);
+-- Umbrales de reposición y consultas de stock bajo (el índice parcial de PostgreSQL lo crea ReorderIndex)
+alter table inventory add column if not exists reorder_threshold integer;
+create index if not exists idx_inventory_quantity_product on inventory (quantity, product_id);
+-- Ids únicos entre shards: el shard k genera k+1, k+1+STRIDE, ... (las filas conservan el id al moverse)
+create sequence if not exists inventory_seq start with ${sequenceStart} increment by ${sequenceIncrement};
+create sequence if not exists warehouse_stock_seq start with ${sequenceStart} increment by ${sequenceIncrement};
+create sequence if not exists stock_reservation_seq start with ${sequenceStart} increment by ${sequenceIncrement};
+-- Bandeja de salida del historial de movimientos (InventoryMovementRecorder la vacía en inventory_movements,
+-- en la base principal). Ids intercalados como los de arriba.
+create sequence if not exists inventory_movement_seq start with ${sequenceStart} increment by ${sequenceIncrement};
+create table if not exists inventory_movement_outbox (
+    id bigint not null default nextval('inventory_movement_seq') primary key,
+    product_id bigint not null,
+    delta integer not null,
+    quantity integer not null,
+    reason varchar(32) not null,
+    occurred_at timestamp(6) with time zone not null,
+    attempts integer not null default 0,
+    last_error varchar(512)
+);
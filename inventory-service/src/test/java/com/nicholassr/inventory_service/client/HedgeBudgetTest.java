@@ -0,0 +1,46 @@
+package com.nicholassr.inventory_service.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgeBudgetTest {
+
+    @Test
+    void startsFull_AndRunsOutAfterTheBurst() {
+        HedgeBudget budget = new HedgeBudget(0.1, 2);
+
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void requests_RefillAtTheConfiguredRatio() {
+        HedgeBudget budget = new HedgeBudget(0.25, 1);
+        budget.tryAcquire();
+
+        for (int i = 0; i < 3; i++) {
+            budget.onRequest();
+        }
+        assertFalse(budget.tryAcquire());
+
+        budget.onRequest();
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void tokens_NeverExceedTheBurst() {
+        HedgeBudget budget = new HedgeBudget(1.0, 2);
+
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+}
@@ -0,0 +1,37 @@
+package com.nicholassr.inventory_service.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyPercentileTrackerTest {
+
+    @Test
+    void withoutEnoughSamples_ReturnsMinusOne() {
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(100, 0.95, 10);
+
+        for (int i = 1; i < 10; i++) {
+            tracker.record(i);
+        }
+        assertEquals(-1, tracker.percentileNanos());
+
+        tracker.record(10);
+        assertEquals(10, tracker.percentileNanos());
+    }
+
+    @Test
+    void percentile_IsTakenFromTheMostRecentWindow() {
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(100, 0.95, 10);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+        // Recalculado en la muestra 74: p95 de 1..74
+        assertEquals(71, tracker.percentileNanos());
+
+        for (int i = 0; i < 128; i++) {
+            tracker.record(1_000);
+        }
+        // Las 100 últimas son todas de 1000: las anteriores han salido de la ventana
+        assertEquals(1_000, tracker.percentileNanos());
+    }
+}
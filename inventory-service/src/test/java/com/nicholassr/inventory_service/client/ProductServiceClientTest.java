@@ -0,0 +1,152 @@
+package com.nicholassr.inventory_service.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicholassr.inventory_service.dtos.ProductDto;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductServiceClientTest {
+
+    private static final String PRODUCT = "{\"data\":{\"type\":\"products\",\"id\":\"1\",\"attributes\":{\"name\":\"Mesa\",\"price\":10}}}";
+
+    /** Respuesta del servidor de prueba a la llamada n (0 = la original, 1 = el hedge). */
+    private record Reply(int status, long delayMs) {
+    }
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile List<Reply> replies;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+        // Arranca los recursos de Reactor Netty: si no, la original puede llegar al servidor después del hedge
+        replies = List.of(new Reply(200, 0));
+        new ProductServiceClient(baseUrl(), "key", 5_000, false, new HedgingProperties(), new ObjectMapper(),
+                new SimpleMeterRegistry()).getProductById(1L);
+        calls.set(0);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/api/v1/products";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int call = calls.getAndIncrement();
+        Reply reply = replies.get(Math.min(call, replies.size() - 1));
+        try {
+            Thread.sleep(reply.delayMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = reply.status() == 200 ? PRODUCT.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        exchange.getResponseHeaders().add("Content-Type", "application/vnd.api+json");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(reply.status(), body.length > 0 ? body.length : -1);
+            out.write(body);
+        } catch (IOException ignored) {
+            // El cliente canceló la petición perdedora
+        }
+    }
+
+    private ProductServiceClient client(long hedgeDelayMs, int budgetBurst) {
+        HedgingProperties hedging = new HedgingProperties();
+        hedging.setEnabled(true);
+        hedging.setDelayMs(hedgeDelayMs);
+        hedging.setBudgetBurst(budgetBurst);
+        return new ProductServiceClient(baseUrl(), "key", 5_000, false, hedging, new ObjectMapper(), meterRegistry);
+    }
+
+    private double hedges(String outcome) {
+        return meterRegistry.get("product.client.hedges").tag("outcome", outcome).counter().count();
+    }
+
+    private double hedgeWins() {
+        return meterRegistry.get("product.client.hedge.wins").counter().count();
+    }
+
+    @Test
+    void fastPrimaryError_WaitsForTheHedge() {
+        replies = List.of(new Reply(503, 0), new Reply(200, 0));
+
+        Optional<ProductDto> product = client(50, 10).getProductById(1L);
+
+        assertEquals("Mesa", product.orElseThrow().getName());
+        assertEquals(1, hedges("sent"));
+        assertEquals(1, hedgeWins());
+    }
+
+    @Test
+    void slowPrimary_TheHedgeWins() {
+        replies = List.of(new Reply(200, 2_000), new Reply(200, 0));
+
+        long start = System.nanoTime();
+        Optional<ProductDto> product = client(50, 10).getProductById(1L);
+
+        assertTrue(product.isPresent());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1_500);
+        assertEquals(1, hedgeWins());
+    }
+
+    @Test
+    void notFound_IsReturnedWithoutWaitingForTheHedge() {
+        replies = List.of(new Reply(404, 0));
+
+        assertTrue(client(1_000, 10).getProductById(1L).isEmpty());
+
+        assertEquals(0, hedges("sent"));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void bothFail_ThePrimaryErrorIsPropagated() {
+        replies = List.of(new Reply(503, 0), new Reply(500, 0));
+
+        WebClientResponseException error = assertThrows(WebClientResponseException.class,
+                () -> client(20, 10).getProductById(1L));
+
+        assertEquals(503, error.getStatusCode().value());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void noBudget_PrimaryErrorIsPropagatedWithoutHedge() {
+        replies = List.of(new Reply(503, 0));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(WebClientResponseException.class, () -> client(20, 0).getProductById(1L)));
+
+        assertEquals(1, hedges("suppressed"));
+        assertEquals(1, calls.get());
+    }
+}
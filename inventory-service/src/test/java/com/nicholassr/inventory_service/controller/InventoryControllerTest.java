@@ -0,0 +1,122 @@
+package com.nicholassr.inventory_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicholassr.common.jsonapi.GlobalExceptionHandler;
+import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.services.InventoryServices;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class InventoryControllerTest {
+
+    private static final String JSON_API = "application/vnd.api+json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private InventoryServices inventoryService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = mock(InventoryServices.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new InventoryController(inventoryService, objectMapper))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private static Inventory inventory(long productId, int quantity) {
+        Inventory inventory = new Inventory(productId, quantity);
+        inventory.setId(productId);
+        inventory.setReservedQuantity(0);
+        return inventory;
+    }
+
+    private JsonNode getJson(URI uri) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get(uri).accept(JSON_API))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    @Test
+    void lowStock_NextLinkContinuesAfterTheLastOfThePage() throws Exception {
+        // size + 1 filas: hay otra página
+        when(inventoryService.getLowStock(eq(10), isNull(), isNull(), eq(3)))
+                .thenReturn(new ArrayList<>(List.of(inventory(4, 1), inventory(2, 3), inventory(9, 3))));
+        when(inventoryService.getLowStock(eq(10), eq(3), eq(2L), eq(3)))
+                .thenReturn(new ArrayList<>(List.of(inventory(9, 3))));
+
+        JsonNode first = getJson(UriComponentsBuilder.fromPath("/api/v1/inventories")
+                .queryParam("filter[quantity][lt]", 10).queryParam("size", 2).encode().build().toUri());
+
+        assertEquals(2, first.path("data").size());
+        assertEquals("2", first.path("data").path(1).path("attributes").path("productId").asText());
+        assertTrue(first.path("meta").path("hasNext").asBoolean());
+        JsonNode second = getJson(URI.create(first.path("links").path("next").asText()));
+
+        assertEquals(1, second.path("data").size());
+        assertEquals("9", second.path("data").path(0).path("attributes").path("productId").asText());
+        assertFalse(second.path("meta").path("hasNext").asBoolean());
+        assertTrue(second.path("links").path("next").isMissingNode());
+    }
+
+    @Test
+    void lowStock_InvalidCursor_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/inventories?filter[belowReorderThreshold]=true&page[cursor]=bm9wZQ").accept(JSON_API))
+                .andExpect(status().isBadRequest());
+        verify(inventoryService, never()).getBelowReorderThreshold(any(), any(), anyInt());
+    }
+
+    @Test
+    void patch_ExplicitNullThreshold_ClearsIt() throws Exception {
+        when(inventoryService.updateInventory(eq(7L), any(), anyBoolean(), any())).thenReturn(inventory(7, 5));
+
+        mockMvc.perform(patch("/api/v1/inventories/products/7").contentType(JSON_API).accept(JSON_API)
+                        .content("{\"data\":{\"type\":\"inventories\",\"attributes\":{\"reorderThreshold\":null}}}"))
+                .andExpect(status().isOk());
+
+        verify(inventoryService).updateInventory(7L, null, true, null);
+    }
+
+    @Test
+    void patch_WithoutThreshold_LeavesItUntouched() throws Exception {
+        when(inventoryService.updateInventory(eq(7L), any(), anyBoolean(), any())).thenReturn(inventory(7, 5));
+
+        mockMvc.perform(patch("/api/v1/inventories/products/7").contentType(JSON_API).accept(JSON_API)
+                        .content("{\"data\":{\"type\":\"inventories\",\"attributes\":{\"quantity\":5}}}"))
+                .andExpect(status().isOk());
+
+        verify(inventoryService).updateInventory(7L, 5, false, null);
+    }
+
+    @Test
+    void patch_WithoutQuantityOrThreshold_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(patch("/api/v1/inventories/products/7").contentType(JSON_API).accept(JSON_API)
+                        .content("{\"data\":{\"type\":\"inventories\",\"attributes\":{}}}"))
+                .andExpect(status().isBadRequest());
+
+        verify(inventoryService, never()).updateInventory(any(), any(), anyBoolean(), any());
+    }
+}
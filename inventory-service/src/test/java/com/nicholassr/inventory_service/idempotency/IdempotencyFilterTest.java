@@ -0,0 +1,226 @@
+package com.nicholassr.inventory_service.idempotency;
+
+import com.nicholassr.inventory_service.models.IdempotencyRecord;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyFilterTest {
+
+    private static final String BODY = "{\"data\":{\"attributes\":{\"quantity\":5}}}";
+
+    private IdempotencyStore store;
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(IdempotencyStore.class);
+        filter = new IdempotencyFilter(store, new IdempotencyProperties());
+    }
+
+    private static MockHttpServletRequest request(String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/inventories/1");
+        request.addHeader(IdempotencyFilter.HEADER, "key-1");
+        request.addHeader("X-API-KEY", apiKey);
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static FilterChain respondWith(int status, String body) {
+        return (request, response) -> {
+            // El controlador vuelve a leer el cuerpo que el filtro ya consumió para la huella
+            assertEquals(BODY, new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            ((HttpServletResponse) response).setStatus(status);
+            response.setContentType("application/vnd.api+json");
+            response.getWriter().write(body);
+        };
+    }
+
+    @Test
+    void acquiredKey_ExecutesAndStoresTheResponse() throws Exception {
+        when(store.claim(anyString(), eq("key-1"), anyString()))
+                .thenReturn(new IdempotencyStore.Claim(IdempotencyStore.Outcome.ACQUIRED, null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("secret"), response, respondWith(200, "{\"ok\":true}"));
+
+        assertEquals("{\"ok\":true}", response.getContentAsString());
+        ArgumentCaptor<byte[]> stored = ArgumentCaptor.forClass(byte[].class);
+        verify(store).complete(anyString(), eq("key-1"), anyString(), eq(200), eq("application/vnd.api+json"), stored.capture());
+        assertEquals("{\"ok\":true}", new String(stored.getValue(), StandardCharsets.UTF_8));
+        verify(store, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void serverError_ReleasesTheKey() throws Exception {
+        when(store.claim(anyString(), anyString(), anyString()))
+                .thenReturn(new IdempotencyStore.Claim(IdempotencyStore.Outcome.ACQUIRED, null));
+
+        filter.doFilter(request("secret"), new MockHttpServletResponse(), respondWith(503, "{}"));
+
+        verify(store, never()).complete(anyString(), anyString(), anyString(), anyInt(), any(), any());
+        verify(store).release(anyString(), eq("key-1"));
+    }
+
+    @Test
+    void failingCompletion_ReleasesTheKey() throws Exception {
+        when(store.claim(anyString(), anyString(), anyString()))
+                .thenReturn(new IdempotencyStore.Claim(IdempotencyStore.Outcome.ACQUIRED, null));
+        doAnswer(invocation -> {
+            throw new IllegalStateException("boom");
+        }).when(store).complete(anyString(), anyString(), anyString(), anyInt(), any(), any());
+
+        assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request("secret"), new MockHttpServletResponse(), respondWith(200, "{}")));
+
+        verify(store).release(anyString(), eq("key-1"));
+    }
+
+    @Test
+    void replayedKey_ReturnsTheStoredResponseWithoutExecuting() throws Exception {
+        IdempotencyRecord stored = new IdempotencyRecord("client", "key-1", "fp", 201, "application/vnd.api+json",
+                "{\"stored\":true}".getBytes(StandardCharsets.UTF_8), Instant.now().plusSeconds(60));
+        when(store.claim(anyString(), anyString(), anyString()))
+                .thenReturn(new IdempotencyStore.Claim(IdempotencyStore.Outcome.REPLAYED, stored));
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("secret"), response, chain);
+
+        verify(chain, never()).doFilter(any(), any());
+        assertEquals(201, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("{\"stored\":true}", response.getContentAsString());
+    }
+
+    @Test
+    void inProgressAndMismatch_AreRejected() throws Exception {
+        when(store.claim(anyString(), anyString(), anyString()))
+                .thenReturn(new IdempotencyStore.Claim(IdempotencyStore.Outcome.IN_PROGRESS, null),
+                        new IdempotencyStore.Claim(IdempotencyStore.Outcome.MISMATCH, null));
+        MockHttpServletResponse inProgress = new MockHttpServletResponse();
+        MockHttpServletResponse mismatch = new MockHttpServletResponse();
+
+        filter.doFilter(request("secret"), inProgress, mock(FilterChain.class));
+        filter.doFilter(request("secret"), mismatch, mock(FilterChain.class));
+
+        assertEquals(409, inProgress.getStatus());
+        assertEquals(422, mismatch.getStatus());
+    }
+
+    @Test
+    void oversizedBody_IsRejectedWithoutClaimingTheKey() throws Exception {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setMaxRequestBytes(BODY.length() - 1);
+        filter = new IdempotencyFilter(store, properties);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("secret"), response, mock(FilterChain.class));
+
+        assertEquals(413, response.getStatus());
+        assertEquals("application/vnd.api+json", response.getContentType());
+        assertTrue(response.getContentAsString().contains("\"status\":\"413\""));
+        verify(store, never()).claim(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void oversizedBodyWithoutContentLength_IsReadOnlyUpToTheLimit() throws Exception {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setMaxRequestBytes(8);
+        filter = new IdempotencyFilter(store, properties);
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/inventories/1") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.addHeader(IdempotencyFilter.HEADER, "key-1");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, mock(FilterChain.class));
+
+        assertEquals(413, response.getStatus());
+        assertEquals(BODY.length() - 9, request.getInputStream().available());
+        verify(store, never()).claim(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void keys_AreScopedByApiKey() throws Exception {
+        List<String> clients = new ArrayList<>();
+        when(store.claim(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            clients.add(invocation.getArgument(0));
+            return new IdempotencyStore.Claim(IdempotencyStore.Outcome.IN_PROGRESS, null);
+        });
+
+        filter.doFilter(request("secret-a"), new MockHttpServletResponse(), mock(FilterChain.class));
+        filter.doFilter(request("secret-a"), new MockHttpServletResponse(), mock(FilterChain.class));
+        filter.doFilter(request("secret-b"), new MockHttpServletResponse(), mock(FilterChain.class));
+
+        assertEquals(clients.get(0), clients.get(1));
+        assertNotEquals(clients.get(0), clients.get(2));
+        // No se guarda la API key en claro
+        assertNotEquals("secret-a", clients.get(0));
+    }
+
+    @Test
+    void cachedBody_SupportsNonBlockingReads() throws Exception {
+        when(store.claim(anyString(), anyString(), anyString()))
+                .thenReturn(new IdempotencyStore.Claim(IdempotencyStore.Outcome.ACQUIRED, null));
+        StringBuilder read = new StringBuilder();
+        List<String> events = new ArrayList<>();
+
+        filter.doFilter(request("secret"), new MockHttpServletResponse(), (request, response) -> {
+            ServletInputStream input = request.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    events.add("data");
+                    int b;
+                    while (input.isReady() && (b = input.read()) != -1) {
+                        read.append((char) b);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.add("done");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.add("error");
+                }
+            });
+        });
+
+        assertEquals(BODY, read.toString());
+        assertEquals(List.of("data", "done"), events);
+    }
+}
@@ -0,0 +1,167 @@
+package com.nicholassr.inventory_service.idempotency;
+
+import com.nicholassr.inventory_service.models.IdempotencyRecord;
+import com.nicholassr.inventory_service.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+
+    private static final String CLIENT = "client-a";
+    private static final byte[] BODY = "{\"data\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    private IdempotencyRecordRepository repository;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.complete(any())).thenReturn(true);
+        store = new IdempotencyStore(repository, new IdempotencyProperties(), new SimpleMeterRegistry());
+    }
+
+    private static IdempotencyRecord stored(String fingerprint, Integer status, Instant expiresAt) {
+        return new IdempotencyRecord(CLIENT, "key-1", fingerprint, status, "application/vnd.api+json",
+                status == null ? null : BODY, expiresAt);
+    }
+
+    @Test
+    void firstClaim_IsAcquired() {
+        when(repository.insertPending(eq(CLIENT), eq("key-1"), eq("fp"), any())).thenReturn(true);
+
+        assertEquals(IdempotencyStore.Outcome.ACQUIRED, store.claim(CLIENT, "key-1", "fp").outcome());
+        assertEquals(1, store.inFlightCount());
+    }
+
+    @Test
+    void completedResponse_IsReplayedFromMemoryWithoutTheTable() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(true);
+        store.claim(CLIENT, "key-1", "fp");
+        store.complete(CLIENT, "key-1", "fp", 201, "application/vnd.api+json", BODY);
+
+        IdempotencyStore.Claim replay = store.claim(CLIENT, "key-1", "fp");
+
+        assertEquals(IdempotencyStore.Outcome.REPLAYED, replay.outcome());
+        assertEquals(201, replay.response().getStatus());
+        assertArrayEquals(BODY, replay.response().getBody());
+        verify(repository, times(1)).insertPending(any(), any(), any(), any());
+        assertEquals(0, store.inFlightCount());
+    }
+
+    @Test
+    void completedResponse_IsReplayedFromTheTable() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(false);
+        when(repository.find(CLIENT, "key-1")).thenReturn(Optional.of(stored("fp", 200, Instant.now().plusSeconds(60))));
+
+        IdempotencyStore.Claim replay = store.claim(CLIENT, "key-1", "fp");
+
+        assertEquals(IdempotencyStore.Outcome.REPLAYED, replay.outcome());
+        assertEquals(200, replay.response().getStatus());
+    }
+
+    @Test
+    void sameKeyWithAnotherRequest_IsMismatch() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(false);
+        when(repository.find(CLIENT, "key-1")).thenReturn(Optional.of(stored("fp", 200, Instant.now().plusSeconds(60))));
+
+        assertEquals(IdempotencyStore.Outcome.MISMATCH, store.claim(CLIENT, "key-1", "other").outcome());
+    }
+
+    @Test
+    void pendingClaim_IsInProgress() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(false);
+        when(repository.find(CLIENT, "key-1")).thenReturn(Optional.of(stored("fp", null, Instant.now().plusSeconds(60))));
+
+        assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, store.claim(CLIENT, "key-1", "fp").outcome());
+    }
+
+    @Test
+    void expiredPendingClaim_IsTakenOver() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(false, true);
+        when(repository.find(CLIENT, "key-1")).thenReturn(Optional.of(stored("fp", null, Instant.now().minusSeconds(1))));
+
+        assertEquals(IdempotencyStore.Outcome.ACQUIRED, store.claim(CLIENT, "key-1", "fp").outcome());
+        verify(repository).deleteExpired(eq(CLIENT), eq("key-1"), any());
+    }
+
+    @Test
+    void release_DeletesThePendingClaim() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(true);
+        store.claim(CLIENT, "key-1", "fp");
+
+        store.release(CLIENT, "key-1");
+
+        verify(repository).deletePending(CLIENT, "key-1");
+        assertEquals(0, store.inFlightCount());
+        store.renewLeases();
+        verify(repository, never()).renewPending(anyString(), anyString(), any());
+    }
+
+    @Test
+    void runningRequests_RenewTheirClaim() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(true);
+        store.claim(CLIENT, "key-1", "fp");
+
+        store.renewLeases();
+
+        verify(repository).renewPending(eq(CLIENT), eq("key-1"), any());
+    }
+
+    @Test
+    void failedCompletion_KeepsTheResponseAndRetries() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(true);
+        when(repository.complete(any())).thenThrow(new DataAccessResourceFailureException("down")).thenReturn(true);
+        store.claim(CLIENT, "key-1", "fp");
+
+        store.complete(CLIENT, "key-1", "fp", 201, "application/vnd.api+json", BODY);
+
+        assertEquals(1, store.unsavedCount());
+        assertEquals(IdempotencyStore.Outcome.REPLAYED, store.claim(CLIENT, "key-1", "fp").outcome());
+        verify(repository, never()).deletePending(any(), any());
+
+        store.renewLeases();
+
+        assertEquals(0, store.unsavedCount());
+        verify(repository, times(2)).complete(any());
+    }
+
+    @Test
+    void failedRetry_RenewsTheClaim() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(true);
+        when(repository.complete(any())).thenThrow(new DataAccessResourceFailureException("down"));
+        store.claim(CLIENT, "key-1", "fp");
+        store.complete(CLIENT, "key-1", "fp", 201, "application/vnd.api+json", BODY);
+
+        store.renewLeases();
+
+        assertEquals(1, store.unsavedCount());
+        verify(repository).renewPending(eq(CLIENT), eq("key-1"), any());
+    }
+
+    @Test
+    void keys_AreScopedPerClient() {
+        when(repository.insertPending(any(), any(), any(), any())).thenReturn(true);
+        store.claim(CLIENT, "key-1", "fp");
+        store.complete(CLIENT, "key-1", "fp", 201, "application/vnd.api+json", BODY);
+
+        assertEquals(IdempotencyStore.Outcome.ACQUIRED, store.claim("client-b", "key-1", "fp").outcome());
+        verify(repository).insertPending(eq("client-b"), eq("key-1"), eq("fp"), any());
+    }
+}
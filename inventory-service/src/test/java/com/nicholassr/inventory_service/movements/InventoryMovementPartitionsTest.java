@@ -0,0 +1,94 @@
+package com.nicholassr.inventory_service.movements;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryMovementPartitionsTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void database(String product) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(product);
+    }
+
+    private static String partition(YearMonth month) {
+        return "inventory_movements_p" + month.format(SUFFIX);
+    }
+
+    @Test
+    void postgres_PremakesPartitionsAndDropsExpiredOnes() {
+        database("PostgreSQL");
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("inventory_movements"))).thenReturn(List.of(
+                partition(current.minusMonths(13)), partition(current.minusMonths(12)), partition(current)));
+
+        new InventoryMovementPartitions(jdbcTemplate, 12, 2).start();
+
+        verify(jdbcTemplate).execute(argThat((String sql) -> sql.startsWith("create table if not exists inventory_movements (")
+                && sql.endsWith("partition by range (occurred_at)")));
+        for (int i = 0; i <= 2; i++) {
+            verify(jdbcTemplate).execute(startsWith("create table if not exists " + partition(current.plusMonths(i))
+                    + " partition of inventory_movements"));
+        }
+        verify(jdbcTemplate).execute("drop table " + partition(current.minusMonths(13)));
+        verify(jdbcTemplate, never()).execute("drop table " + partition(current.minusMonths(12)));
+        verify(jdbcTemplate, never()).execute("drop table " + partition(current));
+    }
+
+    @Test
+    void otherDatabases_DeleteExpiredRows() {
+        database("H2");
+
+        new InventoryMovementPartitions(jdbcTemplate, 12, 2).start();
+
+        ArgumentCaptor<Object> cutoff = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(eq("delete from inventory_movements where occurred_at < ?"), cutoff.capture());
+        YearMonth oldestKept = YearMonth.now(ZoneOffset.UTC).minusMonths(12);
+        assertEquals(LocalDate.of(oldestKept.getYear(), oldestKept.getMonth(), 1).atStartOfDay().atOffset(ZoneOffset.UTC),
+                (OffsetDateTime) cutoff.getValue());
+        verify(jdbcTemplate, never()).execute(startsWith("create table if not exists inventory_movements_p"));
+        verify(jdbcTemplate).execute(startsWith("create table if not exists inventory_movement_outbox"));
+    }
+
+    @Test
+    void maintenanceErrors_AreNotPropagated() {
+        database("PostgreSQL");
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("inventory_movements")))
+                .thenThrow(new IllegalStateException("down"));
+
+        InventoryMovementPartitions partitions = new InventoryMovementPartitions(jdbcTemplate, 12, 2);
+        partitions.start();
+        partitions.maintain();
+
+        verify(jdbcTemplate, never()).execute(startsWith("drop table"));
+    }
+}
@@ -0,0 +1,160 @@
+package com.nicholassr.inventory_service.movements;
+
+import com.nicholassr.inventory_service.models.InventoryMovement;
+import com.nicholassr.inventory_service.repository.InventoryMovementRepository;
+import com.nicholassr.inventory_service.repository.InventoryMovementRepository.OutboxEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class InventoryMovementRecorderTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private InventoryMovementRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryMovementRecorder recorder;
+    // Bandeja de salida simulada: id -> intentos
+    private final Map<Long, OutboxEntry> outbox = new TreeMap<>();
+    private final List<Long> history = new ArrayList<>();
+    private Long poisoned;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(InventoryMovementRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        InventoryMovementRecorder.OutboxNode node = InventoryMovementRecorder.OutboxNode.of("main",
+                mock(JdbcTemplate.class), mock(PlatformTransactionManager.class));
+        recorder = new InventoryMovementRecorder(repository, List.of(node), 2, MAX_ATTEMPTS, meterRegistry);
+
+        doAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            int maxAttempts = invocation.getArgument(2);
+            int limit = invocation.getArgument(3);
+            return outbox.values().stream()
+                    .filter(entry -> entry.movement().getId() > afterId && entry.attempts() < maxAttempts)
+                    .limit(limit)
+                    .toList();
+        }).when(repository).lockOutbox(any(), anyLong(), anyInt(), anyInt());
+        doAnswer(invocation -> {
+            List<InventoryMovement> movements = invocation.getArgument(0);
+            if (movements.stream().anyMatch(movement -> movement.getId().equals(poisoned))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            movements.forEach(movement -> history.add(movement.getId()));
+            return movements.size();
+        }).when(repository).insertAll(anyList());
+        doAnswer(invocation -> {
+            List<InventoryMovement> movements = invocation.getArgument(1);
+            movements.forEach(movement -> outbox.remove(movement.getId()));
+            return null;
+        }).when(repository).deleteFromOutbox(any(), anyList());
+        doAnswer(invocation -> {
+            Long id = invocation.getArgument(1);
+            OutboxEntry entry = outbox.get(id);
+            outbox.put(id, new OutboxEntry(entry.movement(), entry.attempts() + 1));
+            return null;
+        }).when(repository).markFailed(any(), anyLong(), any());
+    }
+
+    private void pending(long... ids) {
+        for (long id : ids) {
+            outbox.put(id, new OutboxEntry(new InventoryMovement(id, 7L, -1, 10, InventoryMovement.Reason.ADJUSTMENT,
+                    Instant.now()), 0));
+        }
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    @Test
+    void record_WritesToTheOutboxInTheCurrentTransaction() {
+        recorder.record(7L, -3, 5, InventoryMovement.Reason.ADJUSTMENT);
+        recorder.record(7L, 0, 5, InventoryMovement.Reason.ADJUSTMENT);
+
+        ArgumentCaptor<InventoryMovement> enqueued = ArgumentCaptor.forClass(InventoryMovement.class);
+        verify(repository).enqueue(enqueued.capture());
+        assertEquals(-3, enqueued.getValue().getDelta());
+        assertEquals(5, enqueued.getValue().getQuantity());
+    }
+
+    @Test
+    void flush_MovesEveryPendingMovementToTheHistory() {
+        pending(1, 2, 3, 4, 5);
+
+        recorder.flush();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), history);
+        assertTrue(outbox.isEmpty());
+        assertEquals(5, counter("inventory.movements.written"));
+    }
+
+    @Test
+    void unavailableDatabase_LeavesTheOutboxForTheNextPass() {
+        pending(1, 2);
+        doAnswer(invocation -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        }).when(repository).insertAll(anyList());
+
+        recorder.flush();
+
+        assertEquals(2, outbox.size());
+        verify(repository, never()).markFailed(any(), anyLong(), anyString());
+        verify(repository, never()).deleteFromOutbox(any(), anyList());
+    }
+
+    @Test
+    void failingMovement_DoesNotBlockTheOthers() {
+        pending(1, 2, 3, 4);
+        poisoned = 2L;
+
+        recorder.flush();
+
+        assertEquals(List.of(1L, 3L, 4L), history);
+        assertEquals(List.of(2L), List.copyOf(outbox.keySet()));
+        assertEquals(1, outbox.get(2L).attempts());
+    }
+
+    @Test
+    void failingMovement_IsSetAsideAfterMaxAttempts() {
+        pending(1);
+        poisoned = 1L;
+
+        for (int pass = 0; pass < MAX_ATTEMPTS + 2; pass++) {
+            recorder.flush();
+        }
+
+        assertEquals(MAX_ATTEMPTS, outbox.get(1L).attempts());
+        assertEquals(1, counter("inventory.movements.dead_lettered"));
+        assertTrue(history.isEmpty());
+
+        // Los nuevos siguen pasando al historial
+        pending(2);
+        recorder.flush();
+        assertEquals(List.of(2L), history);
+    }
+}
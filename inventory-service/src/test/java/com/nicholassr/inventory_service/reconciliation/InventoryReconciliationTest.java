@@ -0,0 +1,191 @@
+package com.nicholassr.inventory_service.reconciliation;
+
+import com.nicholassr.inventory_service.client.ProductServiceClient;
+import com.nicholassr.inventory_service.models.ReconciliationCheckpoint;
+import com.nicholassr.inventory_service.repository.InventoryRepository;
+import com.nicholassr.inventory_service.repository.ProductSnapshotRepository;
+import com.nicholassr.inventory_service.repository.ReconciliationCheckpointRepository;
+import com.nicholassr.inventory_service.services.InventoryServices;
+import com.nicholassr.inventory_service.sharding.InventoryShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryReconciliationTest {
+
+    private ProductServiceClient productServiceClient;
+    private InventoryServices inventoryServices;
+    private InventoryShards inventoryShards;
+    private InventoryRepository inventoryRepository;
+    private ProductSnapshotRepository snapshotRepository;
+    private ReconciliationCheckpointRepository checkpointRepository;
+    private InventoryReconciliation reconciliation;
+
+    // Estado simulado: inventario del único nodo, catálogo visto por la réplica y por el primario
+    private final List<Long> inventory = new ArrayList<>();
+    private final Set<Long> catalogOnReplica = new HashSet<>();
+    private final Set<Long> catalogOnPrimary = new HashSet<>();
+    private final Map<String, ReconciliationCheckpoint> checkpoints = new HashMap<>();
+    private final List<Long> inventoryQueries = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        productServiceClient = mock(ProductServiceClient.class);
+        inventoryServices = mock(InventoryServices.class);
+        inventoryShards = mock(InventoryShards.class);
+        inventoryRepository = mock(InventoryRepository.class);
+        snapshotRepository = mock(ProductSnapshotRepository.class);
+        checkpointRepository = mock(ReconciliationCheckpointRepository.class);
+
+        when(inventoryShards.nodeCount()).thenReturn(1);
+        when(inventoryShards.readNode(anyInt(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        when(inventoryShards.readMain(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        when(inventoryRepository.findProductIdsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            int limit = ((Limit) invocation.getArgument(1)).max();
+            inventoryQueries.add(after);
+            return inventory.stream().filter(productId -> productId > after).sorted().limit(limit).toList();
+        });
+        when(snapshotRepository.findByProductIdGreaterThanOrderByProductId(anyLong(), any())).thenReturn(List.of());
+        when(productServiceClient.findExistingProductIds(any())).thenAnswer(invocation ->
+                existing(invocation.getArgument(0), catalogOnReplica));
+        when(productServiceClient.findExistingProductIdsOnPrimary(any())).thenAnswer(invocation ->
+                existing(invocation.getArgument(0), catalogOnPrimary));
+        when(checkpointRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(checkpoints.get((String) invocation.getArgument(0))));
+        when(checkpointRepository.save(any())).thenAnswer(invocation -> {
+            ReconciliationCheckpoint checkpoint = invocation.getArgument(0);
+            checkpoints.put(checkpoint.getPass(), checkpoint);
+            return checkpoint;
+        });
+        when(inventoryServices.removeOrphanInventory(any())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (reconciliation != null) {
+            reconciliation.destroy();
+        }
+    }
+
+    private InventoryReconciliation reconciliation(int chunkSize, double requestsPerSecond, boolean repairOrphans) {
+        reconciliation = new InventoryReconciliation(productServiceClient, inventoryServices, inventoryShards,
+                inventoryRepository, snapshotRepository, checkpointRepository, chunkSize, 1, 2, requestsPerSecond,
+                repairOrphans, false, new SimpleMeterRegistry());
+        return reconciliation;
+    }
+
+    private static Set<Long> existing(Collection<Long> productIds, Set<Long> catalog) {
+        Set<Long> existing = new HashSet<>(productIds);
+        existing.retainAll(catalog);
+        return existing;
+    }
+
+    @Test
+    void orphans_AreRepairedOnlyWhenThePrimaryConfirmsThem() {
+        inventory.addAll(List.of(1L, 2L, 3L));
+        catalogOnPrimary.addAll(List.of(1L, 2L));
+        catalogOnReplica.add(1L); // La réplica aún no tiene el producto 2
+
+        InventoryReconciliation reconciliation = reconciliation(10, 1000, true);
+        reconciliation.run();
+
+        verify(inventoryServices).removeOrphanInventory(3L);
+        verify(inventoryServices, never()).removeOrphanInventory(2L);
+        assertEquals(1L, reconciliation.status().get("orphans"));
+        assertEquals(1L, reconciliation.status().get("repaired"));
+        assertEquals(InventoryReconciliation.State.COMPLETED, reconciliation.status().get("state"));
+    }
+
+    @Test
+    void orphans_AreOnlyReportedWithoutRepair() {
+        inventory.addAll(List.of(1L, 2L));
+        catalogOnReplica.add(1L);
+        catalogOnPrimary.add(1L);
+
+        InventoryReconciliation reconciliation = reconciliation(10, 1000, false);
+        reconciliation.run();
+
+        verify(inventoryServices, never()).removeOrphanInventory(any());
+        assertEquals(1L, reconciliation.status().get("orphans"));
+    }
+
+    @Test
+    void failedRun_ResumesFromTheLastCheckpoint() {
+        inventory.addAll(List.of(1L, 2L, 3L, 4L, 5L));
+        catalogOnReplica.addAll(inventory);
+        catalogOnPrimary.addAll(inventory);
+        // El producto 3 (segundo trozo) falla una vez, como una consulta que agota product-service.timeout-ms
+        AtomicBoolean failed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Collection<Long> batch = invocation.getArgument(0);
+            if (batch.contains(3L) && failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Timeout on blocking read");
+            }
+            return existing(batch, catalogOnReplica);
+        }).when(productServiceClient).findExistingProductIds(any());
+
+        InventoryReconciliation reconciliation = reconciliation(2, 1000, false);
+        reconciliation.run();
+
+        assertEquals(InventoryReconciliation.State.FAILED, reconciliation.status().get("state"));
+        assertEquals(2L, checkpoints.get(InventoryReconciliation.ORPHANS + "-0").getLastProductId());
+
+        inventoryQueries.clear();
+        reconciliation.run();
+
+        assertEquals(InventoryReconciliation.State.COMPLETED, reconciliation.status().get("state"));
+        assertEquals(List.of(2L, 4L, 5L), inventoryQueries);
+        verify(checkpointRepository).deleteAll();
+    }
+
+    @Test
+    void finishedPass_IsSkippedOnTheNextRun() {
+        inventory.addAll(List.of(1L, 2L));
+        checkpoints.put(InventoryReconciliation.ORPHANS + "-0",
+                new ReconciliationCheckpoint(InventoryReconciliation.ORPHANS + "-0", Long.MAX_VALUE, null));
+
+        reconciliation(10, 1000, false).run();
+
+        assertTrue(inventoryQueries.isEmpty());
+        verify(productServiceClient, never()).findExistingProductIds(any());
+    }
+
+    @Test
+    void lookups_AreSpacedByRequestsPerSecond() {
+        inventory.addAll(List.of(1L, 2L, 3L, 4L, 5L));
+        catalogOnReplica.addAll(inventory);
+
+        // Un lote por producto, 10 peticiones por segundo: la quinta sale como pronto 400 ms después de la primera
+        long start = System.nanoTime();
+        reconciliation(10, 10, false).run();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs >= 380, "Conciliación demasiado rápida: " + elapsedMs + " ms");
+    }
+}
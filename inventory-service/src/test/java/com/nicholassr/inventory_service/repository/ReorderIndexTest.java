@@ -0,0 +1,81 @@
+package com.nicholassr.inventory_service.repository;
+
+import com.nicholassr.inventory_service.sharding.InventoryShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReorderIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ReorderIndex reorderIndex;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        InventoryShards inventoryShards = mock(InventoryShards.class);
+        when(inventoryShards.nodeCount()).thenReturn(1);
+        when(inventoryShards.onNode(anyInt(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        reorderIndex = new ReorderIndex(jdbcTemplate, inventoryShards);
+    }
+
+    private void indexState(List<Boolean> valid) {
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), eq(ReorderIndex.INDEX_NAME))).thenReturn(valid);
+    }
+
+    @Test
+    void missingIndex_IsCreatedConcurrently() {
+        indexState(List.of());
+
+        reorderIndex.build();
+
+        verify(jdbcTemplate).execute(startsWith("create index concurrently if not exists " + ReorderIndex.INDEX_NAME));
+        verify(jdbcTemplate, never()).execute(startsWith("drop index"));
+    }
+
+    @Test
+    void validIndex_IsLeftAlone() {
+        indexState(List.of(true));
+
+        reorderIndex.build();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void invalidIndex_IsDroppedAndRebuilt() {
+        indexState(List.of(false));
+
+        reorderIndex.build();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("drop index concurrently if exists " + ReorderIndex.INDEX_NAME);
+        order.verify(jdbcTemplate).execute(startsWith("create index concurrently if not exists " + ReorderIndex.INDEX_NAME));
+    }
+
+    @Test
+    void otherDatabases_AreSkipped() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        reorderIndex.build();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -0,0 +1,125 @@
+package com.nicholassr.inventory_service.services;
+
+import com.nicholassr.inventory_service.client.ProductServiceClient;
+import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.models.WarehouseStock;
+import com.nicholassr.inventory_service.movements.InventoryMovementRecorder;
+import com.nicholassr.inventory_service.repository.InventoryMovementRepository;
+import com.nicholassr.inventory_service.repository.InventoryRepository;
+import com.nicholassr.inventory_service.repository.ProductSnapshotRepository;
+import com.nicholassr.inventory_service.repository.WarehouseStockRepository;
+import com.nicholassr.inventory_service.sharding.InventoryShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServicesTest {
+
+    private static final Long PRODUCT = 7L;
+
+    private InventoryRepository inventoryRepository;
+    private WarehouseStockRepository warehouseStockRepository;
+    private InventoryServices service;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository = mock(InventoryRepository.class);
+        warehouseStockRepository = mock(WarehouseStockRepository.class);
+        InventoryShards inventoryShards = mock(InventoryShards.class);
+        when(inventoryShards.write(anyLong(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+
+        inventory = new Inventory(PRODUCT, 10);
+        inventory.setReservedQuantity(4);
+        when(inventoryRepository.findForUpdateByProductId(PRODUCT)).thenReturn(Optional.of(inventory));
+        when(inventoryRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(warehouseStockRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service = new InventoryServices(inventoryRepository, mock(ProductServiceClient.class),
+                mock(ProductSnapshotRepository.class), inventoryShards, warehouseStockRepository,
+                mock(InventoryMovementRecorder.class), mock(InventoryMovementRepository.class));
+    }
+
+    @Test
+    void quantityBelowReserved_IsRejected() {
+        assertThrows(IllegalStateException.class, () -> service.updateInventoryQuantity(PRODUCT, 3));
+        assertEquals(10, inventory.getQuantity());
+        verify(inventoryRepository, never()).save(any());
+
+        assertEquals(4, service.updateInventoryQuantity(PRODUCT, 4).getQuantity());
+    }
+
+    @Test
+    void warehouseQuantityBelowItsReserved_IsRejected() {
+        WarehouseStock stock = new WarehouseStock(PRODUCT, "MAD-1", 6);
+        stock.setReservedQuantity(4);
+        when(warehouseStockRepository.findByProductIdAndWarehouseCode(PRODUCT, "MAD-1")).thenReturn(Optional.of(stock));
+        when(warehouseStockRepository.existsByProductId(PRODUCT)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> service.updateWarehouseQuantity(PRODUCT, "MAD-1", 3));
+        assertEquals(6, stock.getQuantity());
+
+        assertEquals(8, service.updateWarehouseQuantity(PRODUCT, "MAD-1", 4).totalQuantity());
+    }
+
+    @Test
+    void firstWarehouseBelowProductReserved_IsRejected() {
+        when(warehouseStockRepository.findByProductIdAndWarehouseCode(PRODUCT, "MAD-1")).thenReturn(Optional.empty());
+        when(warehouseStockRepository.existsByProductId(PRODUCT)).thenReturn(false);
+
+        // El primer almacén sustituye al total: 2 unidades no cubren las 4 reservadas
+        assertThrows(IllegalStateException.class, () -> service.updateWarehouseQuantity(PRODUCT, "MAD-1", 2));
+        verify(warehouseStockRepository, never()).save(any());
+    }
+
+    @Test
+    void firstWarehouse_CreatesTheInventoryRowBeforeLockingIt() {
+        Inventory created = new Inventory(PRODUCT, 0);
+        created.setReservedQuantity(0);
+        when(inventoryRepository.insertIfAbsent(PRODUCT)).thenReturn(true);
+        when(inventoryRepository.findForUpdateByProductId(PRODUCT)).thenReturn(Optional.of(created));
+        when(warehouseStockRepository.findByProductIdAndWarehouseCode(PRODUCT, "MAD-1")).thenReturn(Optional.empty());
+
+        assertEquals(5, service.updateWarehouseQuantity(PRODUCT, "MAD-1", 5).totalQuantity());
+
+        InOrder order = inOrder(inventoryRepository);
+        order.verify(inventoryRepository).insertIfAbsent(PRODUCT);
+        order.verify(inventoryRepository).findForUpdateByProductId(PRODUCT);
+        order.verify(inventoryRepository).save(created);
+    }
+
+    @Test
+    void explicitNullThreshold_ClearsItAndKeepsTheQuantity() {
+        inventory.setReorderThreshold(3);
+        when(inventoryRepository.insertIfAbsent(PRODUCT)).thenReturn(false);
+
+        Inventory updated = service.updateInventory(PRODUCT, null, true, null);
+
+        assertNull(updated.getReorderThreshold());
+        assertEquals(10, updated.getQuantity());
+    }
+
+    @Test
+    void absentThreshold_IsLeftUntouched() {
+        inventory.setReorderThreshold(3);
+
+        Inventory updated = service.updateInventory(PRODUCT, 6, false, null);
+
+        assertEquals(3, updated.getReorderThreshold());
+        assertEquals(6, updated.getQuantity());
+    }
+}
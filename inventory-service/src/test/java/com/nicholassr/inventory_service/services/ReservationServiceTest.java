@@ -0,0 +1,173 @@
+package com.nicholassr.inventory_service.services;
+
+import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.models.InventoryMovement;
+import com.nicholassr.inventory_service.models.StockReservation;
+import com.nicholassr.inventory_service.models.WarehouseStock;
+import com.nicholassr.inventory_service.movements.InventoryMovementRecorder;
+import com.nicholassr.inventory_service.repository.InventoryRepository;
+import com.nicholassr.inventory_service.repository.StockReservationRepository;
+import com.nicholassr.inventory_service.repository.WarehouseStockRepository;
+import com.nicholassr.inventory_service.sharding.InventoryShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationServiceTest {
+
+    private static final Long PRODUCT = 7L;
+
+    private InventoryRepository inventoryRepository;
+    private WarehouseStockRepository warehouseStockRepository;
+    private StockReservationRepository reservationRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private InventoryMovementRecorder movementRecorder;
+    private ReservationService service;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository = mock(InventoryRepository.class);
+        warehouseStockRepository = mock(WarehouseStockRepository.class);
+        reservationRepository = mock(StockReservationRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        movementRecorder = mock(InventoryMovementRecorder.class);
+        InventoryShards inventoryShards = mock(InventoryShards.class);
+        when(inventoryShards.write(anyLong(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+
+        inventory = new Inventory(PRODUCT, 10);
+        inventory.setReservedQuantity(0);
+        when(inventoryRepository.findForUpdateByProductId(PRODUCT)).thenReturn(Optional.of(inventory));
+        when(inventoryRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(warehouseStockRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reservationRepository.save(any())).thenAnswer(invocation -> {
+            StockReservation reservation = invocation.getArgument(0);
+            if (reservation.getId() == null) {
+                reservation.setId(100L);
+            }
+            return reservation;
+        });
+
+        service = new ReservationService(inventoryRepository, warehouseStockRepository, reservationRepository,
+                inventoryShards, eventPublisher, movementRecorder, 900, 3600);
+    }
+
+    private StockReservation stored(int quantity, String warehouseCode, Instant expiresAt) {
+        StockReservation reservation = new StockReservation(PRODUCT, warehouseCode, quantity, expiresAt, Instant.now());
+        reservation.setId(100L);
+        when(reservationRepository.findByIdAndProductId(100L, PRODUCT)).thenReturn(Optional.of(reservation));
+        return reservation;
+    }
+
+    @Test
+    void reserve_HoldsUnitsAndSchedulesExpiry() {
+        StockReservation reservation = service.reserve(PRODUCT, 4, 60L, null);
+
+        assertEquals(4, inventory.getReservedQuantity());
+        assertEquals(10, inventory.getQuantity());
+        assertEquals(StockReservation.Status.ACTIVE, reservation.getStatus());
+        verify(eventPublisher).publishEvent(new ReservationService.ReservationHeld(PRODUCT, 100L, reservation.getExpiresAt()));
+    }
+
+    @Test
+    void reserve_RejectsMoreThanAvailable() {
+        inventory.setReservedQuantity(8);
+
+        assertThrows(IllegalStateException.class, () -> service.reserve(PRODUCT, 3, 60L, null));
+        assertEquals(8, inventory.getReservedQuantity());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void reserve_RejectsInvalidTtl() {
+        assertThrows(IllegalArgumentException.class, () -> service.reserve(PRODUCT, 1, 7200L, null));
+    }
+
+    @Test
+    void reserve_InWarehouse_HoldsUnitsInBoth() {
+        WarehouseStock stock = new WarehouseStock(PRODUCT, "MAD-1", 6);
+        stock.setReservedQuantity(0);
+        when(warehouseStockRepository.findByProductIdAndWarehouseCode(PRODUCT, "MAD-1")).thenReturn(Optional.of(stock));
+
+        service.reserve(PRODUCT, 5, null, "MAD-1");
+
+        assertEquals(5, stock.getReservedQuantity());
+        assertEquals(5, inventory.getReservedQuantity());
+        assertThrows(IllegalStateException.class, () -> service.reserve(PRODUCT, 2, null, "MAD-1"));
+    }
+
+    @Test
+    void confirm_DeductsStockAndReleasesTheHold() {
+        inventory.setReservedQuantity(4);
+        StockReservation reservation = stored(4, null, Instant.now().plusSeconds(60));
+
+        service.confirm(PRODUCT, 100L);
+
+        assertEquals(6, inventory.getQuantity());
+        assertEquals(0, inventory.getReservedQuantity());
+        assertEquals(StockReservation.Status.CONFIRMED, reservation.getStatus());
+        verify(movementRecorder).record(PRODUCT, -4, 6, InventoryMovement.Reason.RESERVATION_CONFIRMED);
+    }
+
+    @Test
+    void confirm_RejectsExpiredReservation() {
+        inventory.setReservedQuantity(4);
+        stored(4, null, Instant.now().minusSeconds(1));
+
+        assertThrows(IllegalStateException.class, () -> service.confirm(PRODUCT, 100L));
+        assertEquals(10, inventory.getQuantity());
+    }
+
+    @Test
+    void cancel_ReleasesUnitsAndIsIdempotent() {
+        inventory.setReservedQuantity(4);
+        StockReservation reservation = stored(4, null, Instant.now().plusSeconds(60));
+
+        service.cancel(PRODUCT, 100L);
+        service.cancel(PRODUCT, 100L);
+
+        assertEquals(0, inventory.getReservedQuantity());
+        assertEquals(10, inventory.getQuantity());
+        assertEquals(StockReservation.Status.CANCELLED, reservation.getStatus());
+    }
+
+    @Test
+    void cancel_RejectsConfirmedReservation() {
+        StockReservation reservation = stored(4, null, Instant.now().plusSeconds(60));
+        reservation.setStatus(StockReservation.Status.CONFIRMED);
+
+        assertThrows(IllegalStateException.class, () -> service.cancel(PRODUCT, 100L));
+    }
+
+    @Test
+    void expire_ReleasesOnlyOverdueActiveReservations() {
+        inventory.setReservedQuantity(4);
+        StockReservation reservation = stored(4, null, Instant.now().plusSeconds(60));
+
+        assertFalse(service.expire(PRODUCT, 100L));
+        assertEquals(4, inventory.getReservedQuantity());
+
+        reservation.setExpiresAt(Instant.now().minusSeconds(1));
+        assertTrue(service.expire(PRODUCT, 100L));
+        assertEquals(0, inventory.getReservedQuantity());
+        assertEquals(StockReservation.Status.EXPIRED, reservation.getStatus());
+
+        // Otra instancia que lo intenta después no cambia nada
+        assertFalse(service.expire(PRODUCT, 100L));
+    }
+}
@@ -0,0 +1,278 @@
+package com.nicholassr.inventory_service.sharding;
+
+import com.nicholassr.common.sharding.ConsistentHashRing;
+import com.nicholassr.common.sharding.ShardRoutingDataSource;
+import com.nicholassr.inventory_service.models.Inventory;
+import com.nicholassr.inventory_service.repository.InventoryRepository;
+import com.nicholassr.inventory_service.repository.ShardTopologyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryShardsTest {
+
+    private static final int NODES = 3;
+    private static final int VIRTUAL_NODES = 16;
+    private static final int PRODUCTS = 100;
+
+    private DataSource main;
+    private final List<DataSource> nodes = new ArrayList<>();
+    private ShardRoutingDataSource routing;
+    private DataSourceTransactionManager transactionManager;
+    private final List<InventoryShards> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        main = database("main-" + run);
+        ShardingConfiguration.initializeSchema(main, 0);
+        for (int i = 0; i < NODES; i++) {
+            DataSource node = database("shard-" + i + "-" + run);
+            ShardingConfiguration.initializeSchema(node, i);
+            nodes.add(node);
+        }
+        routing = new ShardRoutingDataSource(main, nodes);
+        transactionManager = new DataSourceTransactionManager(routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(InventoryShards::close);
+        new JdbcTemplate(main).execute("shutdown");
+        nodes.forEach(node -> new JdbcTemplate(node).execute("shutdown"));
+    }
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    }
+
+    private InventoryShards shards(int activeShards, Integer targetShards) {
+        InventoryShards shards = new InventoryShards(mock(InventoryRepository.class), transactionManager, routing,
+                VIRTUAL_NODES, activeShards, targetShards);
+        opened.add(shards);
+        return shards;
+    }
+
+    /** Alta del producto con una fila de almacén, como la haría InventoryServices, en el shard que elija write. */
+    private void create(InventoryShards shards, long productId) {
+        create(shards, productId, 5);
+    }
+
+    private void create(InventoryShards shards, long productId, int quantity) {
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+        shards.write(productId, () -> {
+            jdbc.update("insert into inventory (id, product_id, quantity, reserved_quantity) values (nextval('inventory_seq'), ?, ?, 0)",
+                    productId, quantity);
+            return jdbc.update("insert into warehouse_stock (id, product_id, warehouse_code, quantity, reserved_quantity)"
+                    + " values (nextval('warehouse_stock_seq'), ?, 'MAD', ?, 0)", productId, quantity);
+        });
+    }
+
+    private int rows(DataSource dataSource, String table, long productId) {
+        Integer count = new JdbcTemplate(dataSource).queryForObject(
+                "select count(*) from " + table + " where product_id = ?", Integer.class, productId);
+        return count != null ? count : 0;
+    }
+
+    /** Nodo con las filas del producto; falla si están en varios o en ninguno. */
+    private int nodeOf(long productId) {
+        int found = -1;
+        for (int i = 0; i < NODES; i++) {
+            if (rows(nodes.get(i), "inventory", productId) > 0) {
+                assertEquals(-1, found, "producto " + productId + " en dos shards");
+                found = i;
+                assertEquals(1, rows(nodes.get(i), "warehouse_stock", productId));
+            }
+        }
+        assertNotEquals(-1, found, "producto " + productId + " sin shard");
+        return found;
+    }
+
+    @Test
+    void write_RunsInTheShardThatOwnsTheProduct() {
+        InventoryShards shards = shards(NODES, null);
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, VIRTUAL_NODES);
+
+        int[] perNode = new int[NODES];
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            create(shards, productId);
+            int node = nodeOf(productId);
+            assertEquals(ring.shardFor(productId), node);
+            perNode[node]++;
+            // Cada shard genera su propia serie de ids
+            Long id = new JdbcTemplate(nodes.get(node)).queryForObject(
+                    "select id from inventory where product_id = ?", Long.class, productId);
+            assertEquals(node + 1, id % ShardingConfiguration.MAX_SHARDS);
+        }
+        for (int count : perNode) {
+            assertTrue(count > 0);
+        }
+        assertEquals(0, rows(main, "inventory", 1L));
+    }
+
+    @Test
+    void findAllOrdered_MergesTheFirstPageOfEveryShard() {
+        InventoryShards shards = shards(NODES, null);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            create(shards, productId, (int) (productId % 7));
+        }
+        Comparator<Inventory> order = Comparator.comparing(Inventory::getQuantity).thenComparing(Inventory::getProductId);
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+        Supplier<List<Inventory>> lowStock = () -> jdbc.query(
+                "select product_id, quantity from inventory where quantity < 3 order by quantity, product_id limit 10",
+                (row, index) -> new Inventory(row.getLong(1), row.getInt(2)));
+        List<Long> expected = LongStream.rangeClosed(1, PRODUCTS)
+                .filter(productId -> productId % 7 < 3)
+                .boxed()
+                .sorted(Comparator.comparing((Long productId) -> productId % 7).thenComparing(productId -> productId))
+                .limit(10)
+                .toList();
+
+        assertEquals(expected, shards.findAllOrdered(lowStock, order, 10).stream().map(Inventory::getProductId).toList());
+
+        // Una fila a medio mover está en dos shards: sale una vez
+        long first = expected.get(0);
+        int other = (nodeOf(first) + 1) % NODES;
+        new JdbcTemplate(nodes.get(other)).update(
+                "insert into inventory (id, product_id, quantity, reserved_quantity) values (999999, ?, 0, 0)", first);
+        assertEquals(expected, shards.findAllOrdered(lowStock, order, 10).stream().map(Inventory::getProductId).toList());
+    }
+
+    @Test
+    void duringMigration_ReadsFallBackToTheOldShardAndWritesMoveTheProduct() {
+        InventoryShards shards = shards(2, null);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            create(shards, productId);
+        }
+        shards.startMigration(3);
+        InventoryShards.Topology topology = shards.getTopology();
+        long moving = 1;
+        while (topology.ownerOf(moving) == topology.previousOwnerOf(moving)) {
+            moving++;
+        }
+        long productId = moving;
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+        List<Integer> quantity = shards.readByProduct(productId, () -> jdbc.queryForList(
+                "select quantity from inventory where product_id = ?", Integer.class, productId), List::isEmpty);
+        assertEquals(List.of(5), quantity);
+        assertEquals(topology.previousOwnerOf(productId), nodeOf(productId));
+
+        shards.write(productId, () -> jdbc.update("update inventory set quantity = 7 where product_id = ?", productId));
+
+        assertEquals(topology.ownerOf(productId), nodeOf(productId));
+        assertEquals(7, new JdbcTemplate(nodes.get(topology.ownerOf(productId))).queryForObject(
+                "select quantity from inventory where product_id = ?", Integer.class, productId));
+    }
+
+    @Test
+    void rebalance_MovesEveryProductToItsOwnerInTheNewRing() throws InterruptedException {
+        InventoryShards shards = shards(2, null);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            create(shards, productId);
+        }
+        ShardTopologyRepository topologyRepository = mock(ShardTopologyRepository.class);
+        ShardRebalancer rebalancer = new ShardRebalancer(shards, topologyRepository, transactionManager, 7);
+        try {
+            rebalancer.rebalance(3);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (rebalancer.status().get("state") == ShardRebalancer.State.RUNNING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            rebalancer.close();
+        }
+
+        assertEquals(ShardRebalancer.State.COMPLETED, rebalancer.status().get("state"));
+        assertFalse(shards.getTopology().isMigrating());
+        ConsistentHashRing ring = new ConsistentHashRing(3, VIRTUAL_NODES);
+        long moved = 0;
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            assertEquals(ring.shardFor(productId), nodeOf(productId));
+            if (ring.shardFor(productId) != new ConsistentHashRing(2, VIRTUAL_NODES).shardFor(productId)) {
+                moved++;
+            }
+        }
+        assertEquals(moved, rebalancer.status().get("movedRows"));
+        // Destino al empezar y topología final al terminar
+        verify(topologyRepository, times(2)).save(any());
+    }
+
+    @Test
+    void importFromMain_MovesTheRowsToTheirShardsAndKeepsNewIdsAboveThem() {
+        JdbcTemplate mainJdbc = new JdbcTemplate(main);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            mainJdbc.update("insert into inventory (id, product_id, quantity, reserved_quantity) values (?, ?, 5, 0)", productId, productId);
+            mainJdbc.update("insert into warehouse_stock (id, product_id, warehouse_code, quantity, reserved_quantity)"
+                    + " values (?, ?, 'MAD', 5, 0)", productId, productId);
+        }
+        InventoryShards shards = shards(NODES, null);
+        assertTrue(shards.hasRowsInMain());
+
+        assertEquals(PRODUCTS, shards.importFromMain(7));
+
+        assertFalse(shards.hasRowsInMain());
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, VIRTUAL_NODES);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            assertEquals(ring.shardFor(productId), nodeOf(productId));
+        }
+        // Los ids conservados no se vuelven a generar
+        create(shards, PRODUCTS + 1);
+        int node = nodeOf(PRODUCTS + 1);
+        Long id = new JdbcTemplate(nodes.get(node)).queryForObject(
+                "select id from inventory where product_id = ?", Long.class, (long) PRODUCTS + 1);
+        assertTrue(id > PRODUCTS);
+        assertEquals(node + 1, id % ShardingConfiguration.MAX_SHARDS);
+    }
+
+    @Test
+    void importFromMain_IdUsedByAnotherProduct_FailsAndKeepsTheRow() {
+        InventoryShards shards = shards(NODES, null);
+        int owner = shards.getTopology().ownerOf(1L);
+        new JdbcTemplate(nodes.get(owner)).update(
+                "insert into inventory (id, product_id, quantity, reserved_quantity) values (1, 999, 3, 0)");
+        new JdbcTemplate(main).update("insert into inventory (id, product_id, quantity, reserved_quantity) values (1, 1, 5, 0)");
+
+        assertThrows(IllegalStateException.class, () -> shards.importFromMain(10));
+
+        assertEquals(1, rows(main, "inventory", 1L));
+    }
+
+    @Test
+    void inventoryInMain_WithoutImport_RefusesToStart() {
+        new JdbcTemplate(main).update("insert into inventory (id, product_id, quantity, reserved_quantity) values (1, 1, 5, 0)");
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.setImportMain(false);
+        ShardTopologyRepository topologyRepository = mock(ShardTopologyRepository.class);
+        when(topologyRepository.findById(any())).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> new ShardingConfiguration().inventoryShards(properties, routing,
+                mock(InventoryRepository.class), topologyRepository, transactionManager));
+
+        assertEquals(1, rows(main, "inventory", 1L));
+    }
+}
@@ -0,0 +1,154 @@
+package com.nicholassr.inventory_service.sync;
+
+import com.nicholassr.inventory_service.client.ProductServiceClient;
+import com.nicholassr.inventory_service.dtos.ProductChangeDto;
+import com.nicholassr.inventory_service.dtos.ProductDto;
+import com.nicholassr.inventory_service.models.ProductSnapshot;
+import com.nicholassr.inventory_service.models.ProductSyncState;
+import com.nicholassr.inventory_service.repository.ProductSnapshotRepository;
+import com.nicholassr.inventory_service.repository.ProductSyncStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductSnapshotSyncTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    private ProductServiceClient productServiceClient;
+    private ProductSyncStateRepository stateRepository;
+    private final Map<Long, ProductSnapshot> snapshots = new HashMap<>();
+    private ProductSyncState state;
+    private ProductSnapshotSync sync;
+
+    @BeforeEach
+    void setUp() {
+        productServiceClient = mock(ProductServiceClient.class);
+        stateRepository = mock(ProductSyncStateRepository.class);
+        when(stateRepository.findById(ProductSyncState.PRODUCTS_FEED)).thenAnswer(invocation -> Optional.ofNullable(state));
+        when(stateRepository.save(any())).thenAnswer(invocation -> state = invocation.getArgument(0));
+
+        // La copia local en un mapa, para ver el resultado de aplicar los cambios
+        ProductSnapshotRepository snapshotRepository = mock(ProductSnapshotRepository.class);
+        when(snapshotRepository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(snapshots.get(invocation.<Long>getArgument(0))));
+        when(snapshotRepository.save(any())).thenAnswer(invocation -> {
+            ProductSnapshot snapshot = invocation.getArgument(0);
+            snapshots.put(snapshot.getProductId(), snapshot);
+            return snapshot;
+        });
+        when(snapshotRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<ProductSnapshot> saved = invocation.getArgument(0);
+            saved.forEach(snapshot -> snapshots.put(snapshot.getProductId(), snapshot));
+            return saved;
+        });
+        doAnswer(invocation -> snapshots.remove(invocation.<ProductSnapshot>getArgument(0).getProductId()))
+                .when(snapshotRepository).delete(any());
+
+        sync = new ProductSnapshotSync(productServiceClient, snapshotRepository, stateRepository,
+                mock(PlatformTransactionManager.class), true, BATCH_SIZE, new SimpleMeterRegistry());
+    }
+
+    private static ProductDto product(long id, String name) {
+        return new ProductDto(String.valueOf(id), name, BigDecimal.TEN);
+    }
+
+    private static ProductChangeDto change(long seq, long productId, String name, boolean deleted) {
+        ProductChangeDto change = new ProductChangeDto();
+        change.setId(String.valueOf(seq));
+        change.setProductId(productId);
+        change.setName(name);
+        change.setPrice(BigDecimal.ONE);
+        change.setDeleted(deleted);
+        change.setChangedAt(Instant.EPOCH);
+        return change;
+    }
+
+    private void snapshot(long productId, String name, long sourceSeq) {
+        snapshots.put(productId, new ProductSnapshot(productId, name, BigDecimal.TEN, sourceSeq, Instant.EPOCH));
+    }
+
+    @Test
+    void firstRun_LoadsTheWholeCatalogAndStoresTheFeedHead() {
+        when(productServiceClient.fetchChanges(0, 0)).thenReturn(new ProductServiceClient.ChangePage(List.of(), 7, false));
+        when(productServiceClient.fetchCatalogPage(isNull(), any(Integer.class)))
+                .thenReturn(new ProductServiceClient.CatalogPage(List.of(product(1, "Mesa"), product(2, "Silla")), "next"));
+        when(productServiceClient.fetchCatalogPage("next", BATCH_SIZE))
+                .thenReturn(new ProductServiceClient.CatalogPage(List.of(product(3, "Lámpara")), null));
+        when(productServiceClient.fetchChanges(7, BATCH_SIZE)).thenReturn(new ProductServiceClient.ChangePage(List.of(), 7, false));
+
+        sync.sync();
+
+        assertEquals(3, snapshots.size());
+        assertEquals("Lámpara", snapshots.get(3L).getName());
+        assertEquals(7L, snapshots.get(1L).getSourceSeq());
+        assertEquals(7L, state.getLastSeq());
+    }
+
+    @Test
+    void incremental_AppliesNewerChangesPageByPageAndSkipsOlderOnes() {
+        state = new ProductSyncState(ProductSyncState.PRODUCTS_FEED, 5L, Instant.EPOCH);
+        // Cargado en la carga completa con el feed ya en el seq 7
+        snapshot(1, "Mesa", 7);
+        when(productServiceClient.fetchChanges(5, BATCH_SIZE)).thenReturn(new ProductServiceClient.ChangePage(
+                List.of(change(6, 1, "Anterior", false), change(8, 2, "Silla", false)), 9, true));
+        when(productServiceClient.fetchChanges(8, BATCH_SIZE)).thenReturn(new ProductServiceClient.ChangePage(
+                List.of(change(9, 1, "Mesa plegable", false)), 9, false));
+
+        sync.sync();
+
+        assertEquals("Mesa plegable", snapshots.get(1L).getName());
+        assertEquals(9L, snapshots.get(1L).getSourceSeq());
+        assertEquals("Silla", snapshots.get(2L).getName());
+        assertEquals(9L, state.getLastSeq());
+        verify(productServiceClient, never()).fetchCatalogPage(any(), any(Integer.class));
+    }
+
+    @Test
+    void deletes_RemoveTheSnapshotUnlessItIsNewer() {
+        state = new ProductSyncState(ProductSyncState.PRODUCTS_FEED, 3L, Instant.EPOCH);
+        snapshot(1, "Mesa", 2);
+        snapshot(2, "Silla", 10);
+        when(productServiceClient.fetchChanges(3, BATCH_SIZE)).thenReturn(new ProductServiceClient.ChangePage(
+                List.of(change(4, 1, null, true), change(5, 2, null, true)), 6, true));
+        // Borrado de un producto que nunca llegó a la copia local
+        when(productServiceClient.fetchChanges(5, BATCH_SIZE)).thenReturn(new ProductServiceClient.ChangePage(
+                List.of(change(6, 3, null, true)), 6, false));
+
+        sync.sync();
+
+        assertFalse(snapshots.containsKey(1L));
+        assertEquals("Silla", snapshots.get(2L).getName());
+        assertFalse(snapshots.containsKey(3L));
+        assertEquals(6L, state.getLastSeq());
+    }
+
+    @Test
+    void serviceDown_KeepsThePosition() {
+        state = new ProductSyncState(ProductSyncState.PRODUCTS_FEED, 3L, Instant.EPOCH);
+        when(productServiceClient.fetchChanges(3, BATCH_SIZE)).thenThrow(new IllegalStateException("down"));
+
+        sync.sync();
+
+        assertEquals(3L, state.getLastSeq());
+        verify(stateRepository, never()).save(any());
+    }
+}
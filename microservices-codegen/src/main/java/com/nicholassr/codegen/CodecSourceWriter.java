@@ -0,0 +1,254 @@
+package com.nicholassr.codegen;
+
+import java.util.List;
+
+/**
+ * Fuente Java del codec de un recurso. El código generado no usa reflexión: los nombres de campo van
+ * precodificados en constantes {@code SerializedString} y los valores se leen y escriben con los getters
+ * y setters de la clase.
+ */
+class CodecSourceWriter {
+
+    private final ResourceModel model;
+    private final StringBuilder out = new StringBuilder(4096);
+
+    CodecSourceWriter(ResourceModel model) {
+        this.model = model;
+    }
+
+    String write() {
+        String resource = model.resourceClass();
+        List<Property> attributes = model.attributes();
+
+        if (!model.packageName().isEmpty()) {
+            line("package " + model.packageName() + ";");
+            line("");
+        }
+        line("import com.fasterxml.jackson.core.JsonGenerator;");
+        line("import com.fasterxml.jackson.core.JsonParser;");
+        line("import com.fasterxml.jackson.core.JsonToken;");
+        line("import com.fasterxml.jackson.core.io.SerializedString;");
+        line("import com.nicholassr.common.jsonapi.JsonApiCodec;");
+        line("import com.nicholassr.common.jsonapi.JsonApiValues;");
+        line("");
+        line("import java.io.IOException;");
+        line("import java.util.function.Consumer;");
+        line("");
+        line("/**");
+        line(" * Codec JSON:API de {@link " + resource + "} (tipo \"" + escape(model.resourceType()) + "\").");
+        line(" * Generado por {@code JsonApiCodecProcessor}: no editar.");
+        line(" */");
+        line("@javax.annotation.processing.Generated(\"com.nicholassr.codegen.JsonApiCodecProcessor\")");
+        line("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        line("public final class " + model.codecName() + " implements JsonApiCodec<" + resource + "> {");
+        line("");
+        line("    private static final String TYPE_NAME = \"" + escape(model.resourceType()) + "\";");
+        line("    private static final SerializedString TYPE_VALUE = new SerializedString(TYPE_NAME);");
+        for (int i = 0; i < attributes.size(); i++) {
+            line("    private static final SerializedString ATTRIBUTE_" + i + " = new SerializedString(\""
+                    + escape(attributes.get(i).jsonName()) + "\");");
+        }
+        List<Relationship> relationships = model.relationships();
+        for (int i = 0; i < relationships.size(); i++) {
+            line("    private static final SerializedString RELATIONSHIP_" + i + " = new SerializedString(\""
+                    + escape(relationships.get(i).name()) + "\");");
+            line("    private static final SerializedString RELATED_TYPE_" + i + " = new SerializedString(\""
+                    + escape(relationships.get(i).relatedType()) + "\");");
+        }
+        line("");
+        line("    @Override");
+        line("    public Class<" + resource + "> javaType() {");
+        line("        return " + resource + ".class;");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public String resourceType() {");
+        line("        return TYPE_NAME;");
+        line("    }");
+        line("");
+        idOfMethod(resource);
+        line("");
+        writeMethod(resource, attributes);
+        line("");
+        collectRelatedMethod(resource, relationships);
+        line("");
+        readMethod(resource);
+        line("");
+        readAttributesMethod(resource, attributes);
+        line("}");
+        return out.toString();
+    }
+
+    private void writeMethod(String resource, List<Property> attributes) {
+        line("    @Override");
+        line("    public void write(JsonGenerator generator, " + resource + " resource, boolean includeNulls) throws IOException {");
+        line("        generator.writeStartObject();");
+        line("        generator.writeFieldName(JsonApiValues.TYPE);");
+        line("        generator.writeString(TYPE_VALUE);");
+        Property id = model.id();
+        if (id != null) {
+            line("        var id = resource." + id.getter() + "();");
+            line("        if (id != null) {");
+            line("            generator.writeFieldName(JsonApiValues.ID);");
+            line("            generator.writeString(" + (id.kind() == ValueKind.STRING ? "id" : "id.toString()") + ");");
+            line("        }");
+        }
+        line("        generator.writeFieldName(JsonApiValues.ATTRIBUTES);");
+        line("        generator.writeStartObject();");
+        for (int i = 0; i < attributes.size(); i++) {
+            Property attribute = attributes.get(i);
+            String value = "value" + i;
+            line("        var " + value + " = resource." + attribute.getter() + "();");
+            if (attribute.kind().isPrimitive()) {
+                line("        generator.writeFieldName(ATTRIBUTE_" + i + ");");
+                line("        " + attribute.kind().writeExpression(value) + ";");
+            } else {
+                line("        if (" + value + " != null || includeNulls) {");
+                line("            generator.writeFieldName(ATTRIBUTE_" + i + ");");
+                line("            " + attribute.kind().writeExpression(value) + ";");
+                line("        }");
+            }
+        }
+        line("        generator.writeEndObject();");
+        writeRelationships(model.relationships());
+        line("        generator.writeEndObject();");
+        line("    }");
+    }
+
+    private void idOfMethod(String resource) {
+        line("    @Override");
+        line("    public String idOf(" + resource + " resource) {");
+        Property id = model.id();
+        if (id == null) {
+            line("        return null;");
+        } else if (id.kind() == ValueKind.STRING) {
+            line("        return resource." + id.getter() + "();");
+        } else {
+            line("        var id = resource." + id.getter() + "();");
+            line("        return id == null ? null : id.toString();");
+        }
+        line("    }");
+    }
+
+    /** {@code "relationships"} con los identificadores de las relaciones no nulas (se omite si todas lo son). */
+    private void writeRelationships(List<Relationship> relationships) {
+        if (relationships.isEmpty()) {
+            return;
+        }
+        StringBuilder anyPresent = new StringBuilder();
+        for (int i = 0; i < relationships.size(); i++) {
+            line("        var relationship" + i + " = resource." + relationships.get(i).getter() + "();");
+            anyPresent.append(i == 0 ? "" : " || ").append("relationship").append(i).append(" != null");
+        }
+        line("        if (" + anyPresent + ") {");
+        line("            generator.writeFieldName(JsonApiValues.RELATIONSHIPS);");
+        line("            generator.writeStartObject();");
+        for (int i = 0; i < relationships.size(); i++) {
+            Relationship relationship = relationships.get(i);
+            String value = "relationship" + i;
+            line("            if (" + value + " != null) {");
+            line("                generator.writeFieldName(RELATIONSHIP_" + i + ");");
+            line("                generator.writeStartObject();");
+            line("                generator.writeFieldName(JsonApiValues.DATA);");
+            if (relationship.toMany()) {
+                line("                generator.writeStartArray();");
+                line("                for (Object item : " + value + ") {");
+                line("                    if (item != null) {");
+                line("                        " + identifier(relationship, i, "item"));
+                line("                    }");
+                line("                }");
+                line("                generator.writeEndArray();");
+            } else {
+                line("                " + identifier(relationship, i, value));
+            }
+            line("                generator.writeEndObject();");
+            line("            }");
+        }
+        line("            generator.writeEndObject();");
+        line("        }");
+    }
+
+    private static String identifier(Relationship relationship, int index, String value) {
+        String id = "((" + relationship.relatedClass() + ") " + value + ")." + relationship.relatedId().getter() + "()";
+        return "JsonApiValues.writeIdentifier(generator, RELATED_TYPE_" + index + ", " + id + ");";
+    }
+
+    private void collectRelatedMethod(String resource, List<Relationship> relationships) {
+        line("    @Override");
+        line("    public void collectRelated(" + resource + " resource, Consumer<Object> related) {");
+        for (int i = 0; i < relationships.size(); i++) {
+            Relationship relationship = relationships.get(i);
+            String value = "relationship" + i;
+            line("        var " + value + " = resource." + relationship.getter() + "();");
+            if (relationship.toMany()) {
+                line("        if (" + value + " != null) {");
+                line("            for (Object item : " + value + ") {");
+                line("                if (item != null) {");
+                line("                    related.accept(item);");
+                line("                }");
+                line("            }");
+                line("        }");
+            } else {
+                line("        if (" + value + " != null) {");
+                line("            related.accept(" + value + ");");
+                line("        }");
+            }
+        }
+        line("    }");
+    }
+
+    private void readMethod(String resource) {
+        line("    @Override");
+        line("    public " + resource + " read(JsonParser parser, boolean failOnUnknown) throws IOException {");
+        line("        JsonApiValues.expectObject(parser, TYPE_NAME);");
+        line("        " + resource + " resource = new " + resource + "();");
+        line("        while (parser.nextToken() == JsonToken.FIELD_NAME) {");
+        line("            String field = parser.currentName();");
+        line("            parser.nextToken();");
+        line("            switch (field) {");
+        line("                case \"type\" -> JsonApiValues.checkType(parser, TYPE_NAME);");
+        Property id = model.id();
+        if (id != null) {
+            String read = switch (id.kind()) {
+                case LONG -> "JsonApiValues.readLongId(parser)";
+                case INTEGER -> "JsonApiValues.readIntegerId(parser)";
+                default -> "parser.getValueAsString()";
+            };
+            line("                case \"id\" -> resource." + id.setter() + "(" + read + ");");
+        }
+        line("                case \"attributes\" -> readAttributes(parser, resource, failOnUnknown);");
+        line("                default -> parser.skipChildren();");
+        line("            }");
+        line("        }");
+        line("        return resource;");
+        line("    }");
+    }
+
+    private void readAttributesMethod(String resource, List<Property> attributes) {
+        line("    private static void readAttributes(JsonParser parser, " + resource + " resource, boolean failOnUnknown) throws IOException {");
+        line("        if (parser.currentToken() == JsonToken.VALUE_NULL) {");
+        line("            return;");
+        line("        }");
+        line("        JsonApiValues.expectObject(parser, TYPE_NAME);");
+        line("        while (parser.nextToken() == JsonToken.FIELD_NAME) {");
+        line("            String field = parser.currentName();");
+        line("            parser.nextToken();");
+        line("            switch (field) {");
+        for (Property attribute : attributes) {
+            line("                case \"" + escape(attribute.jsonName()) + "\" -> resource." + attribute.setter() + "("
+                    + attribute.kind().readExpression(attribute.erasure()) + ");");
+        }
+        line("                default -> JsonApiValues.unknownAttribute(parser, TYPE_NAME, field, failOnUnknown);");
+        line("            }");
+        line("        }");
+        line("    }");
+    }
+
+    private void line(String text) {
+        out.append(text).append('\n');
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,391 @@
+package com.nicholassr.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Genera, para cada clase anotada con {@code @Type} de jsonapi-converter, un {@code JsonApiCodec} que
+ * escribe y lee el recurso con el API de streaming de Jackson (nombres de campo precodificados, getters y
+ * setters llamados directamente), y lo registra en
+ * {@code META-INF/services/com.nicholassr.common.jsonapi.JsonApiCodec}.
+ *
+ * Reglas, equivalentes a las de {@code ResourceConverter}:
+ * <ul>
+ *     <li>El campo con {@code @Id} es el id del recurso (String, Long o Integer; en el documento siempre texto).</li>
+ *     <li>El resto de campos de instancia son atributos, salvo los {@code static}, {@code transient} y los
+ *     marcados con {@code @JsonIgnore}. {@code @JsonProperty("x")} cambia el nombre del atributo; si no, el
+ *     nombre del campo pasa por la estrategia de {@code @JsonNaming} de la clase (o de una superclase), que
+ *     debe ser una de las de {@code PropertyNamingStrategies}.</li>
+ *     <li>Los accesores se llaman por convención ({@code getX}/{@code isX} y {@code setX}), como los que
+ *     genera Lombok; la clase necesita además un constructor sin argumentos visible desde su paquete.</li>
+ *     <li>Un campo {@code @Relationship} de una clase {@code @Type} (o de una colección de ellas) se escribe en
+ *     {@code relationships} como identificadores; al leer se ignora. Un valor null se omite.</li>
+ * </ul>
+ * {@code @RelationshipMeta}, {@code @RelationshipLinks}, {@code @Meta} y {@code @Links} por recurso no están
+ * soportadas y producen un error de compilación, igual que las anotaciones de Jackson que cambian cómo se
+ * escribe un campo ({@code @JsonFormat}, {@code @JsonSerialize}, {@code @JsonDeserialize}...): el codec no
+ * las aplicaría y el documento dejaría de coincidir con el de {@code ResourceConverter}.
+ */
+public class JsonApiCodecProcessor extends AbstractProcessor {
+
+    static final String TYPE_ANNOTATION = "com.github.jasminb.jsonapi.annotations.Type";
+    static final String ID_ANNOTATION = "com.github.jasminb.jsonapi.annotations.Id";
+    static final String RELATIONSHIP_ANNOTATION = "com.github.jasminb.jsonapi.annotations.Relationship";
+    static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+    static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+    static final String JSON_NAMING = "com.fasterxml.jackson.databind.annotation.JsonNaming";
+    static final String SERVICE_FILE = "META-INF/services/com.nicholassr.common.jsonapi.JsonApiCodec";
+
+    private static final Set<String> UNSUPPORTED_ANNOTATIONS = Set.of(
+            "com.github.jasminb.jsonapi.annotations.RelationshipMeta",
+            "com.github.jasminb.jsonapi.annotations.RelationshipLinks",
+            "com.github.jasminb.jsonapi.annotations.Meta",
+            "com.github.jasminb.jsonapi.annotations.Links",
+            "com.github.jasminb.jsonapi.annotations.LocalId",
+            "com.fasterxml.jackson.annotation.JsonFormat",
+            "com.fasterxml.jackson.annotation.JsonRawValue",
+            "com.fasterxml.jackson.annotation.JsonUnwrapped",
+            "com.fasterxml.jackson.databind.annotation.JsonSerialize",
+            "com.fasterxml.jackson.databind.annotation.JsonDeserialize");
+
+    private final Set<String> generatedCodecs = new TreeSet<>();
+    private Filer filer;
+    private Messager messager;
+    private Elements elements;
+    private Types types;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(TYPE_ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        TypeElement typeAnnotation = elements.getTypeElement(TYPE_ANNOTATION);
+        if (typeAnnotation == null) {
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(typeAnnotation)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            ResourceModel model = buildModel((TypeElement) element);
+            if (model != null) {
+                writeCodec(model, element);
+            }
+        }
+        return false;
+    }
+
+    private ResourceModel buildModel(TypeElement resource) {
+        if (resource.getNestingKind() == NestingKind.MEMBER && !resource.getModifiers().contains(Modifier.STATIC)) {
+            error(resource, "La clase @Type debe ser estática para generar su codec JSON:API.");
+            return null;
+        }
+        if (resource.getModifiers().contains(Modifier.PRIVATE) || resource.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(resource, "La clase @Type no puede ser privada ni abstracta para generar su codec JSON:API.");
+            return null;
+        }
+
+        PackageElement pkg = elements.getPackageOf(resource);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String resourceType = (String) annotationValue(annotation(resource, TYPE_ANNOTATION), "value");
+        NamingStrategy naming = namingStrategy(resource);
+        if (naming == null) {
+            return null;
+        }
+
+        Property id = null;
+        List<Property> attributes = new ArrayList<>();
+        List<Relationship> relationships = new ArrayList<>();
+        boolean valid = true;
+        for (VariableElement field : instanceFields(resource)) {
+            for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+                String name = qualifiedName(mirror);
+                if (UNSUPPORTED_ANNOTATIONS.contains(name)) {
+                    error(field, "@" + name.substring(name.lastIndexOf('.') + 1)
+                            + " no está soportada por los codecs JSON:API generados.");
+                    valid = false;
+                }
+            }
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            if (annotation(field, ID_ANNOTATION) != null) {
+                Property property = property(field, field.getSimpleName().toString());
+                if (!property.kind().isIdKind()) {
+                    error(field, "El @Id de un recurso JSON:API debe ser String, Long o Integer.");
+                    valid = false;
+                }
+                id = property;
+                continue;
+            }
+            AnnotationMirror relationship = annotation(field, RELATIONSHIP_ANNOTATION);
+            if (relationship != null) {
+                Relationship model = relationship(field, (String) annotationValue(relationship, "value"));
+                if (model == null) {
+                    valid = false;
+                } else {
+                    relationships.add(model);
+                }
+                continue;
+            }
+            AnnotationMirror ignore = annotation(field, JSON_IGNORE);
+            if (ignore != null && !Boolean.FALSE.equals(annotationValue(ignore, "value"))) {
+                continue;
+            }
+            String jsonName = naming.translate(field.getSimpleName().toString());
+            AnnotationMirror jsonProperty = annotation(field, JSON_PROPERTY);
+            if (jsonProperty != null) {
+                Object value = annotationValue(jsonProperty, "value");
+                if (value instanceof String renamed && !renamed.isEmpty()) {
+                    jsonName = renamed;
+                }
+            }
+            attributes.add(property(field, jsonName));
+        }
+        if (!valid) {
+            return null;
+        }
+
+        String binaryName = elements.getBinaryName(resource).toString();
+        String simpleBinaryName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        String codecName = simpleBinaryName.replace('$', '_') + "JsonApiCodec";
+        return new ResourceModel(packageName, codecName, resource.getQualifiedName().toString(), resourceType, id, attributes, relationships);
+    }
+
+    /**
+     * Estrategia de {@code @JsonNaming} de la clase o de la superclase más cercana que la tenga;
+     * {@link NamingStrategy#IDENTITY} si ninguna. Devuelve null (y deja un error) si no es una estrategia
+     * estándar de Jackson, que el procesador no puede ejecutar.
+     */
+    private NamingStrategy namingStrategy(TypeElement resource) {
+        for (TypeElement type = resource; type != null; type = superclass(type)) {
+            AnnotationMirror naming = annotation(type, JSON_NAMING);
+            if (naming == null) {
+                continue;
+            }
+            Object value = annotationValue(naming, "value");
+            String strategyName = value instanceof TypeMirror mirror ? types.erasure(mirror).toString() : String.valueOf(value);
+            NamingStrategy strategy = NamingStrategy.of(strategyName);
+            if (strategy == null) {
+                error(resource, "@JsonNaming(" + strategyName + ") no está soportada por los codecs JSON:API generados: "
+                        + "solo las estrategias de PropertyNamingStrategies.");
+            }
+            return strategy;
+        }
+        return NamingStrategy.IDENTITY;
+    }
+
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    /** Campos de instancia de la clase y de sus superclases (las de la superclase primero). */
+    private List<VariableElement> instanceFields(TypeElement resource) {
+        Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        TypeElement current = resource;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            hierarchy.push(current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement type : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Relación hacia una clase {@code @Type} con {@code @Id}, directa o como elemento de una colección.
+     * Devuelve null (y deja un error) si el tipo no es un recurso.
+     */
+    private Relationship relationship(VariableElement field, String name) {
+        TypeMirror type = field.asType();
+        boolean toMany = false;
+        TypeElement collection = elements.getTypeElement("java.util.Collection");
+        if (type.getKind() == TypeKind.DECLARED
+                && types.isAssignable(types.erasure(type), types.erasure(collection.asType()))) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+            if (arguments.size() != 1) {
+                error(field, "La colección de una @Relationship debe indicar el tipo de sus elementos.");
+                return null;
+            }
+            type = arguments.get(0);
+            toMany = true;
+        }
+        TypeElement related = type.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) type).asElement() : null;
+        AnnotationMirror relatedType = related != null ? annotation(related, TYPE_ANNOTATION) : null;
+        if (relatedType == null) {
+            error(field, "Una @Relationship debe apuntar a una clase @Type o a una colección de ellas.");
+            return null;
+        }
+        Property relatedId = null;
+        for (VariableElement relatedField : instanceFields(related)) {
+            if (annotation(relatedField, ID_ANNOTATION) != null) {
+                relatedId = property(relatedField, relatedField.getSimpleName().toString());
+            }
+        }
+        if (relatedId == null || !relatedId.kind().isIdKind()) {
+            error(field, "El recurso de una @Relationship necesita un @Id String, Long o Integer.");
+            return null;
+        }
+        String fieldName = field.getSimpleName().toString();
+        String getter = "get" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        return new Relationship(name, getter, toMany, related.getQualifiedName().toString(),
+                (String) annotationValue(relatedType, "value"), relatedId);
+    }
+
+    private Property property(VariableElement field, String jsonName) {
+        String fieldName = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        TypeMirror type = field.asType();
+        ValueKind kind = ValueKind.of(type, types);
+        String getter = (kind == ValueKind.BOOLEAN_PRIMITIVE ? "is" : "get") + capitalized;
+        return new Property(jsonName, getter, "set" + capitalized, kind, types.erasure(type).toString());
+    }
+
+    private void writeCodec(ResourceModel model, Element origin) {
+        String qualifiedCodec = model.packageName().isEmpty()
+                ? model.codecName()
+                : model.packageName() + "." + model.codecName();
+        try {
+            JavaFileObject file = filer.createSourceFile(qualifiedCodec, origin);
+            try (Writer writer = file.openWriter()) {
+                writer.write(new CodecSourceWriter(model).write());
+            }
+            generatedCodecs.add(qualifiedCodec);
+        } catch (IOException e) {
+            error(origin, "No se pudo generar " + qualifiedCodec + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe el registro de ServiceLoader conservando las entradas de una compilación anterior
+     * (compilación incremental de solo parte de las fuentes).
+     */
+    private void writeServiceFile() {
+        if (generatedCodecs.isEmpty()) {
+            return;
+        }
+        Set<String> entries = new TreeSet<>(generatedCodecs);
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank() && !line.startsWith("#")) {
+                        entries.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Primera compilación: todavía no existe
+        }
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "No se pudo escribir " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private AnnotationMirror annotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (qualifiedName(mirror).equals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String qualifiedName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private Object annotationValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,98 @@
+package com.nicholassr.codegen;
+
+/**
+ * Las estrategias de nombres de {@code PropertyNamingStrategies} de Jackson, aplicadas en compilación al
+ * nombre de los atributos que no tienen {@code @JsonProperty}. Reproducen el {@code translate} de cada una,
+ * acrónimos incluidos ({@code "productURL"} es {@code "product_url"}).
+ */
+enum NamingStrategy {
+    IDENTITY,
+    LOWER_CAMEL_CASE,
+    UPPER_CAMEL_CASE,
+    SNAKE_CASE,
+    UPPER_SNAKE_CASE,
+    LOWER_CASE,
+    KEBAB_CASE,
+    LOWER_DOT_CASE;
+
+    /**
+     * @param strategyClass Nombre canónico de la clase de la estrategia.
+     * @return null si no es una estrategia estándar.
+     */
+    static NamingStrategy of(String strategyClass) {
+        int dot = strategyClass.lastIndexOf('.');
+        String outer = dot < 0 ? "" : strategyClass.substring(0, dot);
+        if (!outer.equals("com.fasterxml.jackson.databind.PropertyNamingStrategies")
+                && !outer.equals("com.fasterxml.jackson.databind.PropertyNamingStrategy")) {
+            return null;
+        }
+        return switch (strategyClass.substring(dot + 1)) {
+            case "LowerCamelCaseStrategy" -> LOWER_CAMEL_CASE;
+            case "UpperCamelCaseStrategy", "PascalCaseStrategy" -> UPPER_CAMEL_CASE;
+            case "SnakeCaseStrategy" -> SNAKE_CASE;
+            case "UpperSnakeCaseStrategy" -> UPPER_SNAKE_CASE;
+            case "LowerCaseStrategy" -> LOWER_CASE;
+            case "KebabCaseStrategy" -> KEBAB_CASE;
+            case "LowerDotCaseStrategy" -> LOWER_DOT_CASE;
+            default -> null;
+        };
+    }
+
+    String translate(String name) {
+        return switch (this) {
+            case IDENTITY, LOWER_CAMEL_CASE -> name;
+            case UPPER_CAMEL_CASE -> name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            case SNAKE_CASE -> snakeCase(name);
+            case UPPER_SNAKE_CASE -> snakeCase(name).toUpperCase();
+            case LOWER_CASE -> name.toLowerCase();
+            case KEBAB_CASE -> lowerCaseWithSeparator(name, '-');
+            case LOWER_DOT_CASE -> lowerCaseWithSeparator(name, '.');
+        };
+    }
+
+    private static String snakeCase(String name) {
+        StringBuilder result = new StringBuilder(name.length() * 2);
+        boolean previousUpper = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (i == 0 && c == '_') {
+                continue;
+            }
+            if (Character.isUpperCase(c)) {
+                // Mayúsculas seguidas (un acrónimo) son una sola palabra
+                if (!previousUpper && result.length() > 0 && result.charAt(result.length() - 1) != '_') {
+                    result.append('_');
+                }
+                c = Character.toLowerCase(c);
+                previousUpper = true;
+            } else {
+                previousUpper = false;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    private static String lowerCaseWithSeparator(String name, char separator) {
+        StringBuilder result = new StringBuilder(name.length() * 2);
+        int upperCount = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            char lower = Character.toLowerCase(c);
+            if (lower == c) {
+                // La última mayúscula de un acrónimo empieza la palabra siguiente
+                if (upperCount > 1) {
+                    result.insert(result.length() - 1, separator);
+                }
+                upperCount = 0;
+            } else {
+                if (upperCount == 0 && i > 0) {
+                    result.append(separator);
+                }
+                upperCount++;
+            }
+            result.append(lower);
+        }
+        return result.toString();
+    }
+}
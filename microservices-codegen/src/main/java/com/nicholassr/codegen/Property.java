@@ -0,0 +1,7 @@
+package com.nicholassr.codegen;
+
+/**
+ * Campo de un recurso: nombre en el documento, accesores, tipo de valor y tipo borrado (para {@code .class}).
+ */
+record Property(String jsonName, String getter, String setter, ValueKind kind, String erasure) {
+}
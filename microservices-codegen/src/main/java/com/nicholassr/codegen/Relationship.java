@@ -0,0 +1,9 @@
+package com.nicholassr.codegen;
+
+/**
+ * Campo {@code @Relationship} de un recurso: nombre de la relación, getter, si es a-muchos (colección) y
+ * el recurso relacionado (clase, tipo JSON:API y getter/tipo de su {@code @Id}).
+ */
+record Relationship(String name, String getter, boolean toMany, String relatedClass, String relatedType,
+                    Property relatedId) {
+}
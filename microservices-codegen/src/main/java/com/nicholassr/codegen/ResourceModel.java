@@ -0,0 +1,11 @@
+package com.nicholassr.codegen;
+
+import java.util.List;
+
+/**
+ * Lo que el procesador sabe de una clase {@code @Type}: dónde generar el codec, el tipo JSON:API, el id
+ * (null si la clase no tiene {@code @Id}), los atributos y las relaciones en orden de declaración.
+ */
+record ResourceModel(String packageName, String codecName, String resourceClass, String resourceType,
+                     Property id, List<Property> attributes, List<Relationship> relationships) {
+}
@@ -0,0 +1,74 @@
+package com.nicholassr.codegen;
+
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * Tipos de valor que el codec generado escribe y lee directamente con el API de streaming. El resto
+ * ({@link #OBJECT}) se delega en el ObjectMapper (fechas, enums, colecciones...).
+ */
+enum ValueKind {
+    STRING("JsonApiValues.writeString(generator, %s)", "JsonApiValues.readString(parser)"),
+    LONG("JsonApiValues.writeLong(generator, %s)", "JsonApiValues.readLong(parser)"),
+    LONG_PRIMITIVE("generator.writeNumber(%s)", "parser.getValueAsLong()"),
+    INTEGER("JsonApiValues.writeInteger(generator, %s)", "JsonApiValues.readInteger(parser)"),
+    INT_PRIMITIVE("generator.writeNumber(%s)", "parser.getValueAsInt()"),
+    BIG_DECIMAL("JsonApiValues.writeBigDecimal(generator, %s)", "JsonApiValues.readBigDecimal(parser)"),
+    DOUBLE("JsonApiValues.writeDouble(generator, %s)", "JsonApiValues.readDouble(parser)"),
+    DOUBLE_PRIMITIVE("generator.writeNumber(%s)", "parser.getValueAsDouble()"),
+    BOOLEAN("JsonApiValues.writeBoolean(generator, %s)", "JsonApiValues.readBoolean(parser)"),
+    BOOLEAN_PRIMITIVE("generator.writeBoolean(%s)", "parser.getValueAsBoolean()"),
+    OBJECT("generator.writeObject(%s)", null);
+
+    private final String writeTemplate;
+    private final String readExpression;
+
+    ValueKind(String writeTemplate, String readExpression) {
+        this.writeTemplate = writeTemplate;
+        this.readExpression = readExpression;
+    }
+
+    static ValueKind of(TypeMirror type, Types types) {
+        switch (type.getKind()) {
+            case LONG:
+                return LONG_PRIMITIVE;
+            case INT:
+                return INT_PRIMITIVE;
+            case DOUBLE:
+                return DOUBLE_PRIMITIVE;
+            case BOOLEAN:
+                return BOOLEAN_PRIMITIVE;
+            default:
+                break;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return OBJECT;
+        }
+        return switch (types.erasure(type).toString()) {
+            case "java.lang.String" -> STRING;
+            case "java.lang.Long" -> LONG;
+            case "java.lang.Integer" -> INTEGER;
+            case "java.math.BigDecimal" -> BIG_DECIMAL;
+            case "java.lang.Double" -> DOUBLE;
+            case "java.lang.Boolean" -> BOOLEAN;
+            default -> OBJECT;
+        };
+    }
+
+    boolean isIdKind() {
+        return this == STRING || this == LONG || this == INTEGER;
+    }
+
+    boolean isPrimitive() {
+        return this == LONG_PRIMITIVE || this == INT_PRIMITIVE || this == DOUBLE_PRIMITIVE || this == BOOLEAN_PRIMITIVE;
+    }
+
+    String writeExpression(String value) {
+        return String.format(writeTemplate, value);
+    }
+
+    String readExpression(String erasure) {
+        return readExpression != null ? readExpression : "parser.readValueAs(" + erasure + ".class)";
+    }
+}
@@ -0,0 +1,120 @@
+package com.nicholassr.codegen;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonApiCodecProcessorTest {
+
+    @TempDir
+    Path output;
+
+    /**
+     * Pasa el procesador sobre la clase y devuelve los errores que deja en ella (los del codec generado, que
+     * necesitaría microservices-common en el classpath, no cuentan).
+     */
+    private List<String> process(String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                List.of("-proc:only", "-classpath", System.getProperty("java.class.path"),
+                        "-s", output.toString(), "-d", output.toString()),
+                null, List.of(file));
+        task.setProcessors(List.of(new JsonApiCodecProcessor()));
+        task.call();
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getSource() == file)
+                .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+                .toList();
+    }
+
+    @Test
+    void snakeCaseNaming_RenamesAttributesWithoutJsonProperty() throws Exception {
+        List<String> errors = process("demo.Label", """
+                package demo;
+
+                @com.github.jasminb.jsonapi.annotations.Type("labels")
+                @com.fasterxml.jackson.databind.annotation.JsonNaming(com.fasterxml.jackson.databind.PropertyNamingStrategies.SnakeCaseStrategy.class)
+                public class Label {
+                    @com.github.jasminb.jsonapi.annotations.Id
+                    private String id;
+                    private String productURL;
+                    @com.fasterxml.jackson.annotation.JsonProperty("short")
+                    private String shortName;
+                }
+                """);
+
+        assertEquals(List.of(), errors);
+        String codec = Files.readString(output.resolve("demo/LabelJsonApiCodec.java"));
+        assertTrue(codec.contains("\"product_url\""), codec);
+        assertTrue(codec.contains("\"short\""), codec);
+        assertFalse(codec.contains("\"short_name\""), codec);
+    }
+
+    @Test
+    void fieldFormatAnnotations_FailTheBuild() {
+        List<String> errors = process("demo.Event", """
+                package demo;
+
+                @com.github.jasminb.jsonapi.annotations.Type("events")
+                public class Event {
+                    @com.github.jasminb.jsonapi.annotations.Id
+                    private String id;
+                    @com.fasterxml.jackson.annotation.JsonFormat(pattern = "dd/MM/yyyy")
+                    private java.time.LocalDate day;
+                    @com.fasterxml.jackson.databind.annotation.JsonSerialize(using = com.fasterxml.jackson.databind.ser.std.ToStringSerializer.class)
+                    private Long total;
+                }
+                """);
+
+        assertEquals(2, errors.size(), errors.toString());
+        assertTrue(errors.get(0).contains("@JsonFormat"), errors.toString());
+        assertTrue(errors.get(1).contains("@JsonSerialize"), errors.toString());
+    }
+
+    @Test
+    void customNamingStrategy_FailsTheBuild() {
+        List<String> errors = process("demo.Custom", """
+                package demo;
+
+                @com.github.jasminb.jsonapi.annotations.Type("customs")
+                @com.fasterxml.jackson.databind.annotation.JsonNaming(Custom.Naming.class)
+                public class Custom {
+                    @com.github.jasminb.jsonapi.annotations.Id
+                    private String id;
+
+                    public static class Naming extends com.fasterxml.jackson.databind.PropertyNamingStrategies.NamingBase {
+                        @Override
+                        public String translate(String name) {
+                            return name;
+                        }
+                    }
+                }
+                """);
+
+        assertEquals(1, errors.size(), errors.toString());
+        assertTrue(errors.get(0).contains("@JsonNaming(demo.Custom.Naming)"), errors.toString());
+    }
+}
@@ -0,0 +1,48 @@
+package com.nicholassr.common.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.Map;
+
+/**
+ * Factoría de regiones JCache que usa el CacheManager de la auto-configuración y, para las regiones que
+ * no están configuradas, crea cachés acotadas con los valores por defecto. La de Hibernate las crearía
+ * con una {@code MutableConfiguration} vacía, que en Ehcache es un heap sin límite.
+ */
+class BoundedJCacheRegionFactory extends JCacheRegionFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedJCacheRegionFactory.class);
+
+    private final CacheManager cacheManager;
+    private final int defaultMaxEntries;
+    private final long defaultTtlSeconds;
+
+    BoundedJCacheRegionFactory(CacheManager cacheManager, int defaultMaxEntries, long defaultTtlSeconds) {
+        this.cacheManager = cacheManager;
+        this.defaultMaxEntries = defaultMaxEntries;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+    }
+
+    @Override
+    protected CacheManager resolveCacheManager(SessionFactoryOptions settings, Map<String, Object> properties) {
+        return cacheManager;
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(String regionName) {
+        logger.info("Región de caché L2 '{}' sin configurar: {} entradas, TTL {} s.",
+                regionName, defaultMaxEntries, defaultTtlSeconds);
+        return cacheManager.createCache(regionName,
+                SecondLevelCacheAutoConfiguration.regionConfiguration(defaultMaxEntries, defaultTtlSeconds));
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        // El CacheManager es un bean de Spring: lo cierra el contexto, no Hibernate.
+    }
+}
@@ -0,0 +1,87 @@
+package com.nicholassr.common.cache;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Caché de segundo nivel de Hibernate: se activa con {@code app.jpa.second-level-cache.enabled=true}.
+ *
+ * Las regiones de {@code regions} se crean aquí, con su límite de entradas y TTL, antes de que Hibernate
+ * arranque; el resto las crea {@link BoundedJCacheRegionFactory} con los valores por defecto. Las entidades
+ * eligen su región con {@code @Cache(region = ...)} y la estrategia READ_WRITE invalida la entrada al
+ * guardar o borrar.
+ *
+ * Las estadísticas se publican en {@code /actuator/l2cache} ({@link SecondLevelCacheEndpointAutoConfiguration}).
+ */
+@AutoConfiguration(before = HibernateJpaAutoConfiguration.class)
+@ConditionalOnClass({SessionFactory.class, HibernatePropertiesCustomizer.class})
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheAutoConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCacheAutoConfiguration.class);
+
+    static javax.cache.configuration.Configuration<Object, Object> regionConfiguration(int maxEntries, long ttlSeconds) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(maxEntries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds))));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({EhcacheCachingProvider.class, JCacheRegionFactory.class})
+    @ConditionalOnProperty(prefix = "app.jpa.second-level-cache", name = "enabled", havingValue = "true")
+    static class CacheConfiguration {
+
+        @Bean(destroyMethod = "close")
+        public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+            EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+            // URI propio y configuración programática: no comparte el CacheManager por defecto con otras
+            // cachés JCache de la aplicación ni busca un ehcache.xml
+            CacheManager cacheManager = provider.getCacheManager(URI.create("urn:hibernate-second-level-cache"),
+                    new DefaultConfiguration(getClass().getClassLoader()));
+            for (Map.Entry<String, SecondLevelCacheProperties.Region> entry : properties.getRegions().entrySet()) {
+                SecondLevelCacheProperties.Region region = entry.getValue();
+                int maxEntries = region.getMaxEntries() != null ? region.getMaxEntries() : properties.getDefaultMaxEntries();
+                long ttlSeconds = region.getTtlSeconds() != null ? region.getTtlSeconds() : properties.getDefaultTtlSeconds();
+                if (cacheManager.getCache(entry.getKey()) == null) {
+                    cacheManager.createCache(entry.getKey(), regionConfiguration(maxEntries, ttlSeconds));
+                }
+                logger.info("Región de caché L2 '{}': {} entradas, TTL {} s.", entry.getKey(), maxEntries, ttlSeconds);
+            }
+            return cacheManager;
+        }
+
+        @Bean
+        public HibernatePropertiesCustomizer secondLevelCacheHibernateProperties(CacheManager hibernateCacheManager,
+                                                                                 SecondLevelCacheProperties properties) {
+            return hibernateProperties -> {
+                hibernateProperties.put("hibernate.cache.use_second_level_cache", "true");
+                hibernateProperties.put("hibernate.cache.region.factory_class", new BoundedJCacheRegionFactory(
+                        hibernateCacheManager, properties.getDefaultMaxEntries(), properties.getDefaultTtlSeconds()));
+                hibernateProperties.put("hibernate.generate_statistics", Boolean.toString(properties.isStatistics()));
+            };
+        }
+    }
+}
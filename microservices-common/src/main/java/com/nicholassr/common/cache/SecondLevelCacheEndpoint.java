@@ -0,0 +1,66 @@
+package com.nicholassr.common.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code /actuator/l2cache}: aciertos, fallos y escrituras por región de la caché de segundo nivel,
+ * más los contadores de sentencias JDBC para comparar con la caché desactivada.
+ * {@code DELETE /actuator/l2cache} vacía todas las regiones.
+ */
+@Endpoint(id = "l2cache")
+public class SecondLevelCacheEndpoint {
+
+    private final SessionFactory sessionFactory;
+
+    public SecondLevelCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("hits", statistics.getSecondLevelCacheHitCount());
+        result.put("misses", statistics.getSecondLevelCacheMissCount());
+        result.put("puts", statistics.getSecondLevelCachePutCount());
+        result.put("naturalIdHits", statistics.getNaturalIdCacheHitCount());
+        result.put("naturalIdMisses", statistics.getNaturalIdCacheMissCount());
+        result.put("naturalIdQueries", statistics.getNaturalIdQueryExecutionCount());
+        result.put("entityLoads", statistics.getEntityLoadCount());
+        result.put("preparedStatements", statistics.getPrepareStatementCount());
+
+        Map<String, Object> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            long lookups = region.getHitCount() + region.getMissCount();
+            regionStats.put("hits", region.getHitCount());
+            regionStats.put("misses", region.getMissCount());
+            regionStats.put("puts", region.getPutCount());
+            regionStats.put("hitRatio", lookups == 0 ? 0.0 : (double) region.getHitCount() / lookups);
+            regions.put(regionName, regionStats);
+        }
+        result.put("regions", regions);
+        return result;
+    }
+
+    @DeleteOperation
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getStatistics().clear();
+    }
+}
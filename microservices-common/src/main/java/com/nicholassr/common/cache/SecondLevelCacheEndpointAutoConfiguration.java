@@ -0,0 +1,25 @@
+package com.nicholassr.common.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Endpoint {@code /actuator/l2cache}. Existe aunque la caché esté desactivada, para poder comparar el
+ * número de sentencias JDBC con y sin ella.
+ */
+@AutoConfiguration(after = HibernateJpaAutoConfiguration.class)
+@ConditionalOnClass({SessionFactory.class, Endpoint.class})
+public class SecondLevelCacheEndpointAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean(EntityManagerFactory.class)
+    public SecondLevelCacheEndpoint secondLevelCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        return new SecondLevelCacheEndpoint(entityManagerFactory);
+    }
+}
@@ -0,0 +1,35 @@
+package com.nicholassr.common.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché de segundo nivel de Hibernate (JCache sobre Ehcache, solo en heap).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.jpa.second-level-cache")
+public class SecondLevelCacheProperties {
+
+    private boolean enabled = false;
+
+    /** Publica las estadísticas de Hibernate (las lee el endpoint /actuator/l2cache). */
+    private boolean statistics = true;
+
+    /** Tamaño y TTL de las regiones que no aparecen en {@link #regions}. */
+    private int defaultMaxEntries = 10_000;
+    private long defaultTtlSeconds = 600;
+
+    /**
+     * Regiones por nombre (el {@code region} de {@code @Cache} / {@code @NaturalIdCache} de cada entidad).
+     */
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Data
+    public static class Region {
+        private Integer maxEntries;
+        private Long ttlSeconds;
+    }
+}
@@ -0,0 +1,54 @@
+package com.nicholassr.common.compression;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cuerpos ya comprimidos por (ETag, codificación), LRU y acotada en bytes. Un ETag fuerte identifica los
+ * bytes exactos de la respuesta, así que la versión comprimida es válida mientras el ETag coincida: al
+ * cambiar el recurso cambia el ETag y la entrada vieja acaba saliendo por LRU.
+ */
+public class CompressedResponseCache {
+
+    private record Key(String etag, ContentEncoding encoding) {
+    }
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+
+    // Orden de acceso: el primero es el menos usado
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    public CompressedResponseCache(long maxBytes, int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    public synchronized byte[] get(String etag, ContentEncoding encoding) {
+        return entries.get(new Key(etag, encoding));
+    }
+
+    public synchronized void put(String etag, ContentEncoding encoding, byte[] compressed) {
+        if (compressed.length > maxEntryBytes || compressed.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(new Key(etag, encoding), compressed);
+        bytes += compressed.length - (previous == null ? 0 : previous.length);
+
+        Iterator<Map.Entry<Key, byte[]>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,48 @@
+package com.nicholassr.common.compression;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+/**
+ * Compresión de respuestas: se activa con {@code app.compression.enabled=true}. Exporta
+ * {@code http.server.compression.responses} (por codificación y resultado de la caché),
+ * {@code http.server.compression.ratio} y el tamaño de la caché de variantes comprimidas.
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "app.compression", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(CompressionProperties.class)
+public class CompressionAutoConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<ResponseCompressionFilter> responseCompressionFilter(CompressionProperties properties,
+                                                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        CompressedResponseCache cache = null;
+        if (properties.getCacheMaxBytes() > 0) {
+            cache = new CompressedResponseCache(properties.getCacheMaxBytes(), properties.getCacheMaxEntryBytes());
+            Gauge.builder("http.server.compression.cache.bytes", cache, CompressedResponseCache::bytes)
+                    .description("Bytes de respuestas comprimidas en caché")
+                    .register(registry);
+            Gauge.builder("http.server.compression.cache.entries", cache, CompressedResponseCache::size)
+                    .description("Respuestas comprimidas en caché")
+                    .register(registry);
+        }
+
+        FilterRegistrationBean<ResponseCompressionFilter> registration = new FilterRegistrationBean<>(
+                new ResponseCompressionFilter(properties, cache, registry));
+        // Tras el límite de concurrencia y la medida de latencia y antes del filtro de lecturas tras escrituras
+        // (+10) y del resto: ve el cuerpo final, con ETag
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+}
@@ -0,0 +1,47 @@
+package com.nicholassr.common.compression;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compresión de las respuestas de la API según el Accept-Encoding del cliente (zstd o gzip).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.compression")
+public class CompressionProperties {
+
+    private boolean enabled = false;
+
+    /** Rutas comprimidas (patrones Ant). */
+    private List<String> paths = new ArrayList<>(List.of("/api/v1/**"));
+
+    /**
+     * Content-Types que se comprimen (sin parámetros). Cualquier otro, p. ej. las exportaciones que ya
+     * van en gzip, pasa sin tocar y sin copiarse a memoria.
+     */
+    private List<String> mimeTypes = new ArrayList<>(List.of("application/vnd.api+json", "application/json"));
+
+    /** Tamaño mínimo del cuerpo en bytes; por debajo la cabecera de gzip/zstd se come lo que se ahorra. */
+    private int minSize = 1024;
+
+    /** Nivel de gzip (1-9): 1 es el más rápido, 9 el que más reduce. */
+    private int gzipLevel = 6;
+
+    /** Ofrecer zstd a los clientes que lo aceptan (si la librería nativa está disponible). */
+    private boolean zstdEnabled = true;
+
+    /** Nivel de zstd (1-22; 3 es el nivel por defecto de la librería). */
+    private int zstdLevel = 3;
+
+    /**
+     * Bytes comprimidos que se guardan de las respuestas con ETag fuerte (páginas del catálogo): la
+     * siguiente petición con el mismo ETag y la misma codificación no vuelve a comprimir. 0 la desactiva.
+     */
+    private long cacheMaxBytes = 32L * 1024 * 1024;
+
+    /** Respuestas comprimidas mayores que esto no entran en la caché. */
+    private int cacheMaxEntryBytes = 1024 * 1024;
+}
@@ -0,0 +1,103 @@
+package com.nicholassr.common.compression;
+
+import com.github.luben.zstd.Zstd;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codificaciones de contenido que sabe producir {@link ResponseCompressionFilter}.
+ */
+public enum ContentEncoding {
+
+    ZSTD("zstd") {
+        @Override
+        public byte[] compress(byte[] body, int level) {
+            return Zstd.compress(body, level);
+        }
+    },
+
+    GZIP("gzip") {
+        @Override
+        public byte[] compress(byte[] body, int level) {
+            // El JSON de la API suele quedar entre un 10 y un 25 % del original
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+            try (GZIPOutputStream gzip = new LeveledGzipOutputStream(out, level)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    };
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    /** Valor de Content-Encoding. */
+    public String token() {
+        return token;
+    }
+
+    public abstract byte[] compress(byte[] body, int level);
+
+    /**
+     * La codificación a usar según el header Accept-Encoding, o null si el cliente no acepta ninguna:
+     * zstd si la acepta y está disponible, si no gzip. Las que vienen con {@code q=0} cuentan como rechazadas.
+     */
+    public static ContentEncoding negotiate(String acceptEncoding, boolean zstdAvailable) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        boolean gzip = false;
+        boolean zstd = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!accepted(parts)) {
+                continue;
+            }
+            switch (parts[0].trim().toLowerCase(Locale.ROOT)) {
+                case "zstd" -> zstd = true;
+                case "gzip", "x-gzip" -> gzip = true;
+                case "*" -> {
+                    gzip = true;
+                    zstd = true;
+                }
+                default -> {
+                }
+            }
+        }
+        if (zstd && zstdAvailable) {
+            return ZSTD;
+        }
+        return gzip ? GZIP : null;
+    }
+
+    private static boolean accepted(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** GZIPOutputStream no expone el nivel; el Deflater heredado sí. */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(ByteArrayOutputStream out, int level) throws IOException {
+            super(out, 8192);
+            def.setLevel(level);
+        }
+    }
+}
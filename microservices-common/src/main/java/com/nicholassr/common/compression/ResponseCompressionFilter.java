@@ -0,0 +1,366 @@
+package com.nicholassr.common.compression;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Comprime con zstd o gzip (lo que acepte el cliente) las respuestas de la API de los Content-Types
+ * configurados a partir de {@code min-size} bytes. El cuerpo se decide al pedir el stream de salida: si el
+ * Content-Type no es comprimible o ya trae Content-Encoding, la respuesta pasa directa (las descargas de
+ * exportaciones siguen yendo por sendfile y sin copiarse a memoria); si lo es, se acumula y se comprime al
+ * terminar la cadena.
+ *
+ * Si la respuesta lleva un ETag fuerte la versión comprimida se guarda en {@link CompressedResponseCache} y
+ * se sirve de ahí mientras el ETag no cambie; el ETag se reenvía débil ({@code W/"..."}) porque los bytes
+ * enviados ya no son los de la representación original, y las peticiones condicionales siguen funcionando
+ * porque If-None-Match compara en débil.
+ */
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCompressionFilter.class);
+
+    private final CompressionProperties properties;
+    private final CompressedResponseCache cache;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Set<String> mimeTypes;
+    private final boolean zstdAvailable;
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCompressionFilter(CompressionProperties properties, CompressedResponseCache cache,
+                                     MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+        this.mimeTypes = properties.getMimeTypes().stream()
+                .map(type -> type.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.zstdAvailable = properties.isZstdEnabled() && zstdLoads();
+    }
+
+    /** Si la librería nativa de zstd no existe para esta plataforma se sigue solo con gzip. */
+    private static boolean zstdLoads() {
+        if (!ClassUtils.isPresent("com.github.luben.zstd.Zstd", ResponseCompressionFilter.class.getClassLoader())) {
+            return false;
+        }
+        try {
+            Zstd.compress(new byte[1], 1);
+            return true;
+        } catch (LinkageError e) {
+            logger.warn("zstd no disponible en esta plataforma, las respuestas solo se comprimirán con gzip: {}",
+                    e.toString());
+            return false;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // HEAD no tiene cuerpo y un Range pide bytes de la representación sin comprimir
+        if (HttpMethod.HEAD.matches(request.getMethod()) || request.getHeader(HttpHeaders.RANGE) != null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CompressibleResponse wrapped = new CompressibleResponse(response);
+        filterChain.doFilter(request, wrapped);
+
+        byte[] body = wrapped.finish();
+        if (body == null) {
+            return;
+        }
+        addVary(response);
+
+        ContentEncoding encoding = compressible(response.getStatus(), body.length)
+                ? ContentEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING), zstdAvailable)
+                : null;
+        byte[] compressed = encoding == null ? null : compress(response, body, encoding);
+        if (compressed == null) {
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.token());
+        response.setContentLength(compressed.length);
+        response.getOutputStream().write(compressed);
+    }
+
+    private boolean compressible(int status, int length) {
+        return length >= properties.getMinSize() && status >= 200 && status < 300
+                && status != HttpServletResponse.SC_NO_CONTENT && status != HttpServletResponse.SC_PARTIAL_CONTENT;
+    }
+
+    /** El cuerpo comprimido (de la caché si el ETag ya se comprimió antes), o null si no compensa. */
+    private byte[] compress(HttpServletResponse response, byte[] body, ContentEncoding encoding) {
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        boolean cacheable = cache != null && etag != null && !etag.startsWith("W/");
+
+        byte[] compressed = cacheable ? cache.get(etag, encoding) : null;
+        String result = compressed != null ? "hit" : cacheable ? "miss" : "none";
+        if (compressed == null) {
+            compressed = encoding.compress(body, encoding == ContentEncoding.ZSTD
+                    ? properties.getZstdLevel() : properties.getGzipLevel());
+            if (compressed.length >= body.length) {
+                return null;
+            }
+            if (cacheable) {
+                cache.put(etag, encoding, compressed);
+            }
+        }
+        if (etag != null && !etag.startsWith("W/")) {
+            response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+        }
+
+        Counter.builder("http.server.compression.responses")
+                .description("Respuestas comprimidas por codificación y resultado de la caché de variantes comprimidas")
+                .tag("encoding", encoding.token())
+                .tag("cache", result)
+                .register(meterRegistry)
+                .increment();
+        DistributionSummary.builder("http.server.compression.ratio")
+                .description("Bytes enviados respecto al cuerpo original")
+                .tag("encoding", encoding.token())
+                .register(meterRegistry)
+                .record((double) compressed.length / body.length);
+        return compressed;
+    }
+
+    private static void addVary(HttpServletResponse response) {
+        for (String vary : response.getHeaders(HttpHeaders.VARY)) {
+            if (vary.toLowerCase(Locale.ROOT).contains("accept-encoding")) {
+                return;
+            }
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private boolean compressibleType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int parameters = contentType.indexOf(';');
+        String mimeType = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim();
+        return mimeTypes.contains(mimeType.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Decide en el primer getOutputStream/getWriter si acumular el cuerpo o dejarlo pasar. Hasta entonces
+     * retiene Content-Length, que al comprimir deja de ser válido.
+     */
+    private final class CompressibleResponse extends HttpServletResponseWrapper {
+
+        private Boolean buffering;
+        private ByteArrayOutputStream buffer;
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+        private long declaredLength = -1;
+
+        CompressibleResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        private boolean decide() {
+            if (buffering == null) {
+                buffering = compressibleType(getContentType()) && !containsHeader(HttpHeaders.CONTENT_ENCODING)
+                        && !isCommitted();
+                if (buffering) {
+                    buffer = new ByteArrayOutputStream(8192);
+                } else if (declaredLength >= 0) {
+                    super.setContentLengthLong(declaredLength);
+                }
+            }
+            return buffering;
+        }
+
+        /** El cuerpo acumulado, o null si la respuesta ya se escribió directamente. */
+        byte[] finish() throws IOException {
+            if (buffering == null) {
+                // Sin cuerpo escrito (o enviado por sendfile): se respeta lo declarado
+                if (declaredLength >= 0) {
+                    super.setContentLengthLong(declaredLength);
+                }
+                return null;
+            }
+            if (!buffering) {
+                return null;
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+            return buffer.toByteArray();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called on this response");
+            }
+            if (!decide()) {
+                return super.getOutputStream();
+            }
+            if (stream == null) {
+                stream = new BufferStream(buffer);
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (stream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called on this response");
+            }
+            if (!decide()) {
+                return super.getWriter();
+            }
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(buffer, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (Boolean.FALSE.equals(buffering)) {
+                super.setContentLengthLong(len);
+            } else {
+                declaredLength = len;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (isContentLength(name) && value != null) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (isContentLength(name) && value != null) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (isContentLength(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (isContentLength(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        private boolean isContentLength(String name) {
+            return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && !Boolean.FALSE.equals(buffering);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            // Mientras se acumula no se confirma la respuesta: los headers aún pueden cambiar
+            if (Boolean.TRUE.equals(buffering)) {
+                if (writer != null) {
+                    writer.flush();
+                }
+                return;
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (buffer != null) {
+                buffer.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (buffer != null) {
+                buffer.reset();
+            }
+            declaredLength = -1;
+        }
+    }
+
+    private static final class BufferStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream buffer;
+
+        BufferStream(ByteArrayOutputStream buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        /** El buffer en memoria siempre admite escrituras: se avisa al listener en el momento. */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                writeListener.onWritePossible();
+            } catch (IOException e) {
+                writeListener.onError(e);
+            }
+        }
+    }
+}
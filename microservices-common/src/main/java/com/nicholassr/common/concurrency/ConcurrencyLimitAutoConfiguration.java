@@ -0,0 +1,51 @@
+package com.nicholassr.common.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+/**
+ * Límite de concurrencia adaptativo: se activa con {@code app.concurrency-limit.enabled=true}.
+ * Exporta {@code http.server.concurrency.limit}, {@code http.server.concurrency.in_flight} y
+ * {@code http.server.concurrency.rejected} (por prioridad).
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "app.concurrency-limit", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitAutoConfiguration {
+
+    @Bean
+    public GradientConcurrencyLimiter gradientConcurrencyLimiter(ConcurrencyLimitProperties properties,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(properties);
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("http.server.concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                    .description("Límite de concurrencia adaptativo actual")
+                    .register(registry);
+            Gauge.builder("http.server.concurrency.in_flight", limiter, GradientConcurrencyLimiter::getInFlight)
+                    .description("Peticiones en curso bajo el límite de concurrencia")
+                    .register(registry);
+        });
+        return limiter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(GradientConcurrencyLimiter limiter,
+                                                                                ConcurrencyLimitProperties properties,
+                                                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limiter, properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new)));
+        // Antes que cualquier otro filtro: una petición rechazada no debe costar nada más.
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,100 @@
+package com.nicholassr.common.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Aplica el {@link GradientConcurrencyLimiter} a las rutas de la API: por encima del límite responde
+ * 503 con Retry-After sin llegar al controlador, en vez de encolar la petición en Tomcat y en Hikari.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private static final byte[] REJECTED_BODY = ("{\"errors\":[{\"status\":\"503\",\"title\":\"Service Unavailable\","
+            + "\"detail\":\"The service is over its concurrency limit, retry later.\"}]}").getBytes(StandardCharsets.UTF_8);
+
+    private final GradientConcurrencyLimiter limiter;
+    private final ConcurrencyLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Counter rejectedPublic;
+    private final Counter rejectedPriority;
+
+    public ConcurrencyLimitFilter(GradientConcurrencyLimiter limiter, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.properties = properties;
+        this.rejectedPublic = Counter.builder("http.server.concurrency.rejected")
+                .description("Peticiones rechazadas con 503 por el límite de concurrencia")
+                .tag("priority", "public")
+                .register(meterRegistry);
+        this.rejectedPriority = Counter.builder("http.server.concurrency.rejected")
+                .description("Peticiones rechazadas con 503 por el límite de concurrencia")
+                .tag("priority", "internal")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean priority = isPriority(request);
+        GradientConcurrencyLimiter.Permit permit = limiter.tryAcquire(priority);
+        if (permit == null) {
+            reject(response, priority);
+            return;
+        }
+
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && response.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                permit.onSuccess();
+            } else {
+                permit.onDropped();
+            }
+        }
+    }
+
+    /** Sin API key prioritaria configurada no hay tráfico prioritario: un header cualquiera no basta. */
+    private boolean isPriority(HttpServletRequest request) {
+        String priorityApiKey = properties.getPriorityApiKey();
+        String apiKey = request.getHeader(properties.getApiKeyHeader());
+        if (!StringUtils.hasText(priorityApiKey) || !StringUtils.hasText(apiKey)) {
+            return false;
+        }
+        return MessageDigest.isEqual(priorityApiKey.getBytes(StandardCharsets.UTF_8), apiKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void reject(HttpServletResponse response, boolean priority) throws IOException {
+        (priority ? rejectedPriority : rejectedPublic).increment();
+        logger.debug("Petición rechazada por límite de concurrencia (límite {}, en curso {}, prioritaria {}).",
+                limiter.getLimit(), limiter.getInFlight(), priority);
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(properties.getRetryAfterSeconds()));
+        response.setContentType("application/vnd.api+json");
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nicholassr.common.concurrency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Límite adaptativo de peticiones concurrentes delante de los endpoints de la API.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = false;
+
+    /** Rutas protegidas (patrones Ant). */
+    private List<String> paths = new ArrayList<>(List.of("/api/v1/**"));
+
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+
+    /**
+     * Cuánto puede crecer la latencia reciente respecto a la de referencia antes de que el límite baje
+     * (2.0 = se tolera el doble).
+     */
+    private double tolerance = 2.0;
+
+    /** Peso de cada nueva estimación sobre el límite actual (0-1). */
+    private double smoothing = 0.2;
+
+    /** Duración de la ventana en la que se promedian las latencias antes de recalcular el límite. */
+    private long windowMs = 100;
+
+    /** Muestras mínimas por ventana para recalcular. */
+    private int minWindowSamples = 10;
+
+    /**
+     * Fracción del límite disponible para tráfico público; el resto queda reservado para las llamadas
+     * entre servicios que traen la API key.
+     */
+    private double publicShare = 0.8;
+
+    private String apiKeyHeader = "X-API-KEY";
+
+    /** API key que identifica el tráfico prioritario. Vacía: ninguna petición es prioritaria. */
+    private String priorityApiKey = "";
+
+    /** Valor del header Retry-After (segundos) en las respuestas 503. */
+    private int retryAfterSeconds = 1;
+}
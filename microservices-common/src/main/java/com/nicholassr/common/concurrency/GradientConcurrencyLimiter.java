@@ -0,0 +1,167 @@
+package com.nicholassr.common.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Límite de concurrencia adaptativo basado en el gradiente de latencia.
+ *
+ * Mantiene una latencia de referencia (media exponencial lenta) y la compara con la media de cada
+ * ventana corta. Mientras la latencia reciente no supere {@code tolerance} veces la de referencia, el
+ * límite crece en {@code sqrt(limite)}; cuando la supera, se reduce en proporción al gradiente. Las
+ * peticiones fallidas (excepción o 5xx) aplican una reducción multiplicativa (AIMD).
+ *
+ * Una parte del límite ({@code 1 - publicShare}) queda reservada para el tráfico prioritario.
+ */
+public class GradientConcurrencyLimiter {
+
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double publicShare;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double estimatedLimit;
+
+    // Estado de la ventana actual y latencia de referencia, protegidos por "this"
+    private double longRttNanos;
+    private long windowStart;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public GradientConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    GradientConcurrencyLimiter(ConcurrencyLimitProperties properties, LongSupplier nanoClock) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.tolerance = properties.getTolerance();
+        this.smoothing = properties.getSmoothing();
+        this.publicShare = properties.getPublicShare();
+        this.windowNanos = properties.getWindowMs() * 1_000_000L;
+        this.minWindowSamples = properties.getMinWindowSamples();
+        this.nanoClock = nanoClock;
+        this.initialLimit = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+        this.estimatedLimit = initialLimit;
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * @param priority true para tráfico entre servicios (puede usar todo el límite).
+     * @return el permiso a liberar cuando termine la petición, o null si hay que rechazarla.
+     */
+    public Permit tryAcquire(boolean priority) {
+        int limit = getLimit();
+        int allowed = priority ? limit : Math.max(1, (int) (limit * publicShare));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(nanoClock.getAsLong(), current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Vuelve al límite inicial y olvida la latencia de referencia y la ventana en curso. Las peticiones en
+     * curso conservan su permiso.
+     */
+    public synchronized void reset() {
+        estimatedLimit = initialLimit;
+        longRttNanos = 0;
+        windowStart = nanoClock.getAsLong();
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        windowDropped |= dropped;
+
+        long now = nanoClock.getAsLong();
+        if (now - windowStart < windowNanos || windowSamples < minWindowSamples) {
+            return;
+        }
+        updateLimit((double) windowRttSum / windowSamples, windowMaxInFlight, windowDropped);
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    private void updateLimit(double shortRtt, int maxInFlight, boolean dropped) {
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos = longRttNanos * 0.95 + shortRtt * 0.05;
+        }
+        // Tras una sobrecarga la referencia queda inflada; se acerca rápido a la latencia actual.
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double limit = estimatedLimit;
+        // Si la demanda no llegó ni a la mitad del límite no hay información para hacerlo crecer.
+        if (!dropped && maxInFlight < limit / 2) {
+            return;
+        }
+
+        double newLimit;
+        if (dropped) {
+            newLimit = limit * DROP_BACKOFF;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+            newLimit = limit * gradient + Math.sqrt(limit);
+        }
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public final class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /** La petición terminó bien: su latencia alimenta el cálculo del límite. */
+        public void onSuccess() {
+            inFlight.decrementAndGet();
+            sample(nanoClock.getAsLong() - startNanos, inFlightAtStart, false);
+        }
+
+        /** La petición falló por sobrecarga o error del servidor: el límite retrocede. */
+        public void onDropped() {
+            inFlight.decrementAndGet();
+            sample(nanoClock.getAsLong() - startNanos, inFlightAtStart, true);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.nicholassr.common.datasource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataSource expuesto a JPA: las transacciones de escritura usan el primario y las
+ * {@code readOnly = true} el {@link ReplicaPoolDataSource}.
+ *
+ * Se apoya en {@link LazyConnectionDataSourceProxy}: la conexión física se pide en la primera
+ * sentencia, cuando Spring ya marcó la transacción como de solo lectura.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final DataSource primary;
+    private final ReplicaPoolDataSource replicaPool;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaPoolDataSource replicaPool, ReadYourWritesTracker tracker) {
+        super(tracker != null ? new WriteTrackingDataSource(primary, tracker) : primary);
+        this.primary = primary;
+        this.replicaPool = replicaPool;
+        setReadOnlyDataSource(replicaPool);
+    }
+
+    @Override
+    public void close() {
+        replicaPool.close();
+        if (primary instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+                // El pool del primario se cierra con el contexto; un fallo aquí no debe impedir el apagado.
+            }
+        }
+    }
+
+    /**
+     * Avisa al {@link ReadYourWritesTracker} cada vez que se entrega una conexión de escritura.
+     */
+    private static final class WriteTrackingDataSource extends org.springframework.jdbc.datasource.DelegatingDataSource {
+
+        private final ReadYourWritesTracker tracker;
+
+        private WriteTrackingDataSource(DataSource target, ReadYourWritesTracker tracker) {
+            super(target);
+            this.tracker = tracker;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            tracker.recordWrite();
+            return super.getConnection();
+        }
+    }
+}
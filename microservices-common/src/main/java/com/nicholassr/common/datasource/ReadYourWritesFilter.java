@@ -0,0 +1,49 @@
+package com.nicholassr.common.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Asocia cada petición a la sesión del cliente para {@link ReadYourWritesTracker}. Con el header de
+ * consistencia a {@code primary} todas las lecturas de la petición van al primario.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReadYourWritesTracker tracker;
+    private final String sessionHeader;
+    private final String consistencyHeader;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker, String sessionHeader, String consistencyHeader) {
+        this.tracker = tracker;
+        this.sessionHeader = sessionHeader;
+        this.consistencyHeader = consistencyHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        tracker.beginRequest(resolveSession(request), PRIMARY.equalsIgnoreCase(request.getHeader(consistencyHeader)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tracker.endRequest();
+        }
+    }
+
+    private String resolveSession(HttpServletRequest request) {
+        String session = request.getHeader(sessionHeader);
+        if (session != null && !session.isBlank()) {
+            return session;
+        }
+        HttpSession httpSession = request.getSession(false);
+        return httpSession != null ? httpSession.getId() : null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.nicholassr.common.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recuerda qué sesiones escribieron recientemente para que sus lecturas vayan al primario
+ * durante una ventana corta y no lean datos que la réplica todavía no ha recibido.
+ *
+ * La sesión del hilo actual la fija {@link ReadYourWritesFilter} al inicio de cada petición.
+ * Dentro de la misma petición, una escritura fija las lecturas siguientes aunque no haya sesión, y una
+ * petición que pide consistencia fuerte lee siempre del primario.
+ * Fuera de una petición (tareas programadas, ejecutores) no se registra nada: esos hilos se reutilizan
+ * y quedarían fijados al primario para siempre tras su primera escritura.
+ */
+public class ReadYourWritesTracker {
+
+    private final long windowNanos;
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+    // Petición en curso en este hilo; null fuera de una petición
+    private final ThreadLocal<RequestState> currentRequest = new ThreadLocal<>();
+
+    public ReadYourWritesTracker(long windowMs) {
+        this.windowNanos = windowMs * 1_000_000L;
+    }
+
+    public void beginRequest(String sessionKey) {
+        beginRequest(sessionKey, false);
+    }
+
+    /**
+     * @param primaryRequired Si todas las lecturas de la petición deben ir al primario.
+     */
+    public void beginRequest(String sessionKey, boolean primaryRequired) {
+        currentRequest.set(new RequestState(sessionKey, primaryRequired));
+    }
+
+    public void endRequest() {
+        currentRequest.remove();
+    }
+
+    /**
+     * Se llama cada vez que se obtiene una conexión del primario para una transacción de escritura.
+     */
+    public void recordWrite() {
+        RequestState request = currentRequest.get();
+        if (request == null) {
+            return;
+        }
+        request.wrote = true;
+        if (request.session != null) {
+            pinnedUntil.put(request.session, System.nanoTime() + windowNanos);
+        }
+    }
+
+    /**
+     * @return true si la lectura actual debe ir al primario.
+     */
+    public boolean isPinnedToPrimary() {
+        RequestState request = currentRequest.get();
+        if (request == null) {
+            return false;
+        }
+        if (request.primaryRequired || request.wrote) {
+            return true;
+        }
+        String session = request.session;
+        if (session == null) {
+            return false;
+        }
+        Long until = pinnedUntil.get(session);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        pinnedUntil.remove(session, until);
+        return false;
+    }
+
+    /**
+     * Elimina las sesiones cuya ventana ya expiró para que el mapa no crezca sin límite.
+     */
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        pinnedUntil.entrySet().removeIf(entry -> entry.getValue() - now <= 0);
+    }
+
+    int trackedSessions() {
+        return pinnedUntil.size();
+    }
+
+    private static final class RequestState {
+
+        private final String session;
+        private final boolean primaryRequired;
+        private boolean wrote;
+
+        private RequestState(String session, boolean primaryRequired) {
+            this.session = session;
+            this.primaryRequired = primaryRequired;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.nicholassr.common.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource de lectura: reparte las conexiones entre las réplicas en round-robin saltando las
+ * que están marcadas como caídas. Si no queda ninguna sana, o si la sesión acaba de escribir
+ * (read-your-writes), la conexión sale del primario.
+ *
+ * Una réplica se marca como caída cuando falla al entregar una conexión; una tarea periódica
+ * la vuelve a validar y la reincorpora cuando responde.
+ */
+public class ReplicaPoolDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaPoolDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaPoolDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                 ReadYourWritesTracker readYourWritesTracker,
+                                 long healthCheckIntervalMs, int validationTimeoutSeconds) {
+        this.primary = primary;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.replicas = new ArrayList<>();
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            replicas.add(new Replica("replica-" + i, replicaDataSources.get(i)));
+        }
+        if (healthCheckIntervalMs > 0) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas, healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.healthChecker = null;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWritesTracker != null && readYourWritesTracker.isPinnedToPrimary()) {
+            return primary.getConnection();
+        }
+        int size = replicas.size();
+        if (size > 0) {
+            int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    logger.warn("Réplica {} no disponible, se excluye de las lecturas: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+        logger.debug("Sin réplicas sanas, la lectura se sirve desde el primario.");
+        return primary.getConnection();
+    }
+
+    /**
+     * Con credenciales explícitas no se puede elegir réplica (cada una tiene las suyas en su pool): la
+     * conexión sale del primario con esas credenciales.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                continue;
+            }
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(validationTimeoutSeconds)) {
+                    replica.healthy = true;
+                    logger.info("Réplica {} disponible de nuevo.", replica.name);
+                }
+            } catch (SQLException e) {
+                logger.debug("Réplica {} sigue sin responder: {}", replica.name, e.getMessage());
+            }
+        }
+        if (readYourWritesTracker != null) {
+            readYourWritesTracker.purgeExpired();
+        }
+    }
+
+    int healthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Error cerrando el pool de la réplica: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.nicholassr.common.datasource;
+
+import com.nicholassr.common.jdbc.QueryInstrumentation;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enrutamiento lectura/escritura: se activa con {@code app.datasource.replicas.enabled=true}
+ * y sustituye al DataSource que crearía Spring Boot a partir de {@code spring.datasource.*}.
+ */
+@AutoConfiguration(before = DataSourceAutoConfiguration.class)
+@ConditionalOnClass(HikariDataSource.class)
+@ConditionalOnProperty(prefix = "app.datasource.replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties({DataSourceProperties.class, ReplicaRoutingProperties.class})
+public class ReplicaRoutingAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ReadYourWritesTracker readYourWritesTracker(ReplicaRoutingProperties properties) {
+        return new ReadYourWritesTracker(properties.getReadYourWrites().getWindowMs());
+    }
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    @ConditionalOnMissingBean(DataSource.class)
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                                 ReplicaRoutingProperties properties,
+                                                 ReadYourWritesTracker tracker,
+                                                 ObjectProvider<QueryInstrumentation> queryInstrumentation,
+                                                 Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (!StringUtils.hasText(primary.getPoolName())) {
+            primary.setPoolName("primary");
+        }
+        // Los pools no son beans: se instrumentan aquí, no delante del enrutamiento
+        queryInstrumentation.ifAvailable(instrumentation -> instrumentation.instrument(primary));
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            ReplicaRoutingProperties.Node node = properties.getNodes().get(i);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(node.getUrl());
+            replica.setUsername(node.getUsername() != null ? node.getUsername() : dataSourceProperties.determineUsername());
+            replica.setPassword(node.getPassword() != null ? node.getPassword() : dataSourceProperties.determinePassword());
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setMaximumPoolSize(properties.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            // Que una réplica caída al arrancar no impida levantar el servicio; el health check la reincorpora.
+            replica.setInitializationFailTimeout(-1);
+            queryInstrumentation.ifAvailable(instrumentation -> instrumentation.instrument(replica));
+            replicas.add(replica);
+        }
+
+        ReadYourWritesTracker readYourWrites = properties.getReadYourWrites().isEnabled() ? tracker : null;
+        ReplicaPoolDataSource replicaPool = new ReplicaPoolDataSource(primary, replicas, readYourWrites,
+                properties.getHealthCheckIntervalMs(), properties.getValidationTimeoutSeconds());
+        return new ReadWriteRoutingDataSource(primary, replicaPool, readYourWrites);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(prefix = "app.datasource.replicas.read-your-writes", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class ReadYourWritesFilterConfiguration {
+
+        @Bean
+        public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadYourWritesTracker tracker,
+                                                                                 ReplicaRoutingProperties properties) {
+            FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                    new ReadYourWritesFilter(tracker, properties.getReadYourWrites().getSessionHeader(),
+                            properties.getReadYourWrites().getConsistencyHeader()));
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+            return registration;
+        }
+    }
+}
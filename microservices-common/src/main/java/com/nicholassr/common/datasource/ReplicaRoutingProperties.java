@@ -0,0 +1,57 @@
+package com.nicholassr.common.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración del enrutamiento lectura/escritura.
+ * Las transacciones {@code @Transactional(readOnly = true)} van a las réplicas; el resto al primario
+ * definido en {@code spring.datasource.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.replicas")
+public class ReplicaRoutingProperties {
+
+    /** Activa el enrutamiento. Desactivado, todo sigue yendo a {@code spring.datasource.url}. */
+    private boolean enabled = false;
+
+    /** Réplicas de solo lectura, en el orden en que se reparten las lecturas. */
+    private List<Node> nodes = new ArrayList<>();
+
+    /** Cada cuánto se comprueba si una réplica marcada como caída vuelve a responder. */
+    private long healthCheckIntervalMs = 5000;
+
+    /** Tiempo máximo de la validación de conexión en cada comprobación. */
+    private int validationTimeoutSeconds = 1;
+
+    /** Tamaño máximo del pool de cada réplica. */
+    private int maximumPoolSize = 10;
+
+    private ReadYourWrites readYourWrites = new ReadYourWrites();
+
+    @Data
+    public static class Node {
+        private String url;
+        /** Si se omite se usa {@code spring.datasource.username}. */
+        private String username;
+        /** Si se omite se usa {@code spring.datasource.password}. */
+        private String password;
+    }
+
+    @Data
+    public static class ReadYourWrites {
+        /** Fija las lecturas al primario durante {@link #windowMs} tras una escritura de la misma sesión. */
+        private boolean enabled = true;
+        private long windowMs = 2000;
+        /** Header que identifica la sesión del cliente; si falta se usa la sesión HTTP, si existe. */
+        private String sessionHeader = "X-Session-Id";
+        /**
+         * Header con el que un cliente exige leer del primario en toda la petición ({@code primary}), p. ej.
+         * para confirmar que algo no existe antes de borrar datos que dependen de ello.
+         */
+        private String consistencyHeader = "X-Read-Consistency";
+    }
+}
@@ -0,0 +1,19 @@
+package com.nicholassr.common.export;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Fichero de exportación terminado. No cambia nunca: una exportación nueva es otro fichero, así que el
+ * nombre sirve de ETag fuerte.
+ */
+public record ExportFile(Path path, long size, Instant lastModified) {
+
+    public String fileName() {
+        return path.getFileName().toString();
+    }
+
+    public String etag() {
+        return "\"" + fileName() + "\"";
+    }
+}
@@ -0,0 +1,141 @@
+package com.nicholassr.common.export;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Descarga de un {@link ExportFile} con peticiones condicionales (If-None-Match, If-Modified-Since...) y un
+ * único rango de bytes (Range, If-Range), para reanudar descargas grandes.
+ *
+ * El contenido no pasa por el heap: con Tomcat (conector NIO) se le delega el envío con sendfile y, si no
+ * está disponible, se copia con {@link FileChannel#transferTo}.
+ */
+public final class ExportFileResponder {
+
+    public static final String CONTENT_TYPE = "application/gzip";
+
+    // Atributos de petición con los que Tomcat envía un fichero con sendfile al terminar la petición
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Resultado de {@link #parseRange} para un rango fuera del fichero (416). */
+    static final long[] UNSATISFIABLE = new long[0];
+
+    private ExportFileResponder() {
+    }
+
+    public static void serve(ExportFile file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long size = file.size();
+        // Last-Modified con precisión de segundos, como la comparación de If-Modified-Since
+        long lastModified = file.lastModified().toEpochMilli() / 1000 * 1000;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Fija ETag y Last-Modified y, si el cliente ya tiene esta versión, responde 304 (o 412)
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = size;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && HttpMethod.GET.matches(request.getMethod()) && ifRangeMatches(request, file.etag(), lastModified)) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == UNSATISFIABLE) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+            }
+        }
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.fileName() + "\"");
+        response.setContentLengthLong(end - start);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || end == start) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    /**
+     * Un solo rango: {@code bytes=a-b}, {@code bytes=a-} o {@code bytes=-n}, con fin exclusivo en el
+     * resultado. null si la cabecera no es válida o pide varios rangos: entonces se envía el fichero
+     * entero (RFC 9110 permite ignorar Range).
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[]{Math.max(0, size - suffix), size};
+            }
+            long start = Long.parseLong(first);
+            Long lastByte = last.isEmpty() ? null : Long.parseLong(last);
+            if (start < 0 || (lastByte != null && lastByte < start)) {
+                return null;
+            }
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            return new long[]{start, lastByte == null ? size : Math.min(size, lastByte + 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Sin If-Range se atiende el rango; con If-Range, solo si el ETag (o la fecha) sigue siendo el mismo. */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range exige comparación fuerte
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.nicholassr.common.export;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/** Formatos de exportación. Los ficheros se guardan siempre comprimidos con gzip. */
+public enum ExportFormat {
+
+    /** Un objeto JSON por línea. */
+    NDJSON("ndjson"),
+    /** RFC 4180, con cabecera. */
+    CSV("csv");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /** Sufijo del fichero: {@code .ndjson.gz} o {@code .csv.gz}. */
+    public String fileSuffix() {
+        return "." + extension + ".gz";
+    }
+
+    /** @param extension {@code ndjson} o {@code csv}, sin distinguir mayúsculas. */
+    public static Optional<ExportFormat> fromExtension(String extension) {
+        String value = extension.toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (format.extension.equals(value)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
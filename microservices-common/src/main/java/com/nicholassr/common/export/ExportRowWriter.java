@@ -0,0 +1,134 @@
+package com.nicholassr.common.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Escribe filas de una exportación, una a una, sin acumularlas. Los valores van en el orden de las columnas
+ * y pueden ser números, textos, booleanos o null (el resto se escribe con {@code toString()}).
+ */
+public abstract class ExportRowWriter implements Closeable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    protected final List<String> columns;
+    private long rows;
+
+    protected ExportRowWriter(List<String> columns) {
+        this.columns = columns;
+    }
+
+    /** El writer es dueño de {@code out} y lo cierra en {@link #close()}. */
+    public static ExportRowWriter open(ExportFormat format, List<String> columns, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonRowWriter(columns, out);
+            case CSV -> new CsvRowWriter(columns, out);
+        };
+    }
+
+    public final void write(Object... values) throws IOException {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + values.length);
+        }
+        writeRow(values);
+        rows++;
+    }
+
+    /** Filas escritas hasta ahora. */
+    public long rows() {
+        return rows;
+    }
+
+    protected abstract void writeRow(Object[] values) throws IOException;
+
+    private static final class NdjsonRowWriter extends ExportRowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(List<String> columns, OutputStream out) throws IOException {
+            super(columns);
+            this.generator = JSON_FACTORY.createGenerator(out);
+            // Sin el espacio que Jackson pone entre valores raíz: el separador es el salto de línea
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        protected void writeRow(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(columns.get(i));
+                Object value = values[i];
+                if (value == null || value instanceof Number || value instanceof Boolean || value instanceof String) {
+                    generator.writeObject(value);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvRowWriter extends ExportRowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(List<String> columns, OutputStream out) throws IOException {
+            super(columns);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writeLine(columns.toArray());
+        }
+
+        @Override
+        protected void writeRow(Object[] values) throws IOException {
+            writeLine(values);
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(values[i] instanceof BigDecimal decimal ? decimal.toPlainString() : values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.nicholassr.common.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ficheros de exportación en un directorio local: {@code <dataset>-<instante UTC><.ndjson.gz|.csv.gz>}.
+ * Cada exportación se escribe en un temporal y se renombra al terminar, así que un fichero visible siempre
+ * está completo; se conservan los {@code retain} más recientes de cada dataset y formato.
+ *
+ * Las filas se escriben según se leen ({@link RowSource}) a través de gzip: la memoria no depende del
+ * tamaño del catálogo.
+ */
+public class ExportStore implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportStore.class);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int retain;
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+
+    public ExportStore(Path directory, int retain) throws IOException {
+        this.directory = Files.createDirectories(directory.toAbsolutePath());
+        this.retain = Math.max(1, retain);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "export-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Origen de las filas: las escribe en orden con {@link ExportRowWriter#write}. */
+    @FunctionalInterface
+    public interface RowSource {
+        void writeTo(ExportRowWriter writer) throws IOException;
+    }
+
+    /** Exporta en este hilo. Si ya hay una exportación en curso del mismo dataset y formato, espera a que termine. */
+    public ExportFile export(String dataset, ExportFormat format, List<String> columns, RowSource source) throws IOException {
+        String key = dataset + format.fileSuffix();
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            long start = System.nanoTime();
+            Path target = directory.resolve(dataset + "-" + TIMESTAMP.format(Instant.now()) + format.fileSuffix());
+            Path temp = directory.resolve("." + target.getFileName() + ".tmp");
+            long rows;
+            try {
+                OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE), BUFFER_SIZE);
+                try (ExportRowWriter writer = ExportRowWriter.open(format, columns, out)) {
+                    source.writeTo(writer);
+                    rows = writer.rows();
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            ExportFile file = describe(target);
+            logger.info("Exportación {} completada: {} filas, {} bytes en {} ms.", file.fileName(), rows, file.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            deleteOlder(dataset, format);
+            return file;
+        }
+    }
+
+    /**
+     * Lanza la exportación en segundo plano (un hilo por store). Devuelve false si ya hay una en curso o
+     * pendiente del mismo dataset y formato: no tiene sentido encolar otra igual.
+     */
+    public boolean exportAsync(String dataset, ExportFormat format, List<String> columns, RowSource source) {
+        String key = dataset + format.fileSuffix();
+        if (!running.add(key)) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                export(dataset, format, columns, source);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error en la exportación {}: {}", key, e.getMessage(), e);
+            } finally {
+                running.remove(key);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRunning(String dataset, ExportFormat format) {
+        return running.contains(dataset + format.fileSuffix());
+    }
+
+    /** La exportación más reciente del dataset en ese formato. */
+    public Optional<ExportFile> latest(String dataset, ExportFormat format) {
+        try {
+            List<Path> files = list(dataset, format);
+            return files.isEmpty() ? Optional.empty() : Optional.of(describe(files.get(files.size() - 1)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** Ficheros del dataset y formato, del más antiguo al más reciente (el nombre lleva el instante). */
+    private List<Path> list(String dataset, ExportFormat format) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(dataset + "-") && name.endsWith(format.fileSuffix());
+                    })
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    private void deleteOlder(String dataset, ExportFormat format) {
+        try {
+            List<Path> files = list(dataset, format);
+            for (Path path : files.subList(0, Math.max(0, files.size() - retain))) {
+                // Una descarga en curso sigue leyendo el fichero abierto aunque se borre
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudieron borrar exportaciones antiguas de {}: {}", dataset, e.getMessage());
+        }
+    }
+
+    private static ExportFile describe(Path path) throws IOException {
+        return new ExportFile(path, Files.size(path), Files.getLastModifiedTime(path).toInstant());
+    }
+}
@@ -0,0 +1,243 @@
+package com.nicholassr.common.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource físico de un pool instrumentado ({@link QueryInstrumentation#instrument}): el pool le pide
+ * las conexiones reales y las guarda envueltas, así que sus sentencias registran en
+ * {@link QueryInstrumentation} el tiempo de ejecución, las filas y, en las preparadas, los parámetros. Son
+ * proxies dinámicos que delegan todo lo demás en el driver. La espera para obtener conexión del pool la mide
+ * el propio pool.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final QueryInstrumentation instrumentation;
+
+    public InstrumentedDataSource(DataSource targetDataSource, QueryInstrumentation instrumentation) {
+        super(targetDataSource);
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, instrumentation));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private final QueryInstrumentation instrumentation;
+
+        private ConnectionHandler(Connection connection, QueryInstrumentation instrumentation) {
+            this.connection = connection;
+            this.instrumentation = instrumentation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "createStatement", "prepareStatement", "prepareCall":
+                    Statement statement = (Statement) invokeTarget(connection, method, args);
+                    String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                    Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                    return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type},
+                            new StatementHandler(statement, sql, instrumentation));
+                default:
+                    return invokeTarget(connection, method, args);
+            }
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final QueryInstrumentation instrumentation;
+        /** SQL de la sentencia preparada, o el último pasado a {@code addBatch(String)}. */
+        private String sql;
+        private Object[] parameters;
+        private int parameterCount;
+        private QueryInstrumentation.StatementStats lastStats;
+
+        private StatementHandler(Statement statement, String sql, QueryInstrumentation instrumentation) {
+            this.statement = statement;
+            this.sql = sql;
+            this.instrumentation = instrumentation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getResultSet":
+                    Object resultSet = invokeTarget(statement, method, args);
+                    return resultSet != null && lastStats != null ? wrap((ResultSet) resultSet, lastStats) : resultSet;
+                case "addBatch":
+                    if (args != null && args.length == 1 && args[0] instanceof String batchSql) {
+                        sql = batchSql;
+                    }
+                    return invokeTarget(statement, method, args);
+                case "clearParameters":
+                    parameterCount = 0;
+                    return invokeTarget(statement, method, args);
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 1 && args[0] instanceof Integer index
+                            && method.getDeclaringClass() != Statement.class) {
+                        captureParameter(index, "setNull".equals(name) || args.length < 2 ? null : args[1]);
+                    }
+                    return invokeTarget(statement, method, args);
+            }
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String executedSql = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+            if (executedSql == null) {
+                return invokeTarget(statement, method, args);
+            }
+            QueryInstrumentation.StatementStats stats = instrumentation.statementFor(executedSql);
+            lastStats = stats;
+            long start = System.nanoTime();
+            Object result = null;
+            try {
+                result = invokeTarget(statement, method, args);
+                return result instanceof ResultSet resultSet ? wrap(resultSet, stats) : result;
+            } finally {
+                instrumentation.recordExecution(stats, executedSql, System.nanoTime() - start, affectedRows(result),
+                        parameters, parameterCount);
+            }
+        }
+
+        private void captureParameter(int index, Object value) {
+            if (!instrumentation.isCapturingParameters() || index < 1) {
+                return;
+            }
+            parameterCount = Math.max(parameterCount, index);
+            int max = instrumentation.getMaxParameters();
+            if (index > max) {
+                return;
+            }
+            if (parameters == null || parameters.length < index) {
+                Object[] grown = new Object[Math.min(Math.max(index, 8) * 2, max)];
+                if (parameters != null) {
+                    System.arraycopy(parameters, 0, grown, 0, parameters.length);
+                }
+                parameters = grown;
+            }
+            parameters[index - 1] = value;
+        }
+
+        private ResultSet wrap(ResultSet resultSet, QueryInstrumentation.StatementStats stats) {
+            return (ResultSet) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet, stats, instrumentation));
+        }
+
+        private static long affectedRows(Object result) {
+            if (result instanceof Integer count) {
+                return count;
+            }
+            if (result instanceof Long count) {
+                return count;
+            }
+            long total = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            // executeQuery (se cuentan al leer) o execute()
+            return -1;
+        }
+    }
+
+    /** Cuenta las filas leídas y las registra al agotar o cerrar el ResultSet. */
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final QueryInstrumentation.StatementStats stats;
+        private final QueryInstrumentation instrumentation;
+        private long rows;
+        private boolean recorded;
+
+        private ResultSetHandler(ResultSet resultSet, QueryInstrumentation.StatementStats stats,
+                                 QueryInstrumentation instrumentation) {
+            this.resultSet = resultSet;
+            this.stats = stats;
+            this.instrumentation = instrumentation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    boolean hasRow = (Boolean) invokeTarget(resultSet, method, args);
+                    if (hasRow) {
+                        rows++;
+                    } else {
+                        finish();
+                    }
+                    return hasRow;
+                case "close":
+                    finish();
+                    return invokeTarget(resultSet, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invokeTarget(resultSet, method, args);
+            }
+        }
+
+        private void finish() {
+            if (!recorded) {
+                recorded = true;
+                instrumentation.recordRows(stats, rows);
+            }
+        }
+    }
+}
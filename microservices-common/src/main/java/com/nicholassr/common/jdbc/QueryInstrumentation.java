@@ -0,0 +1,443 @@
+package com.nicholassr.common.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import com.zaxxer.hikari.util.DriverDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula lo que mide {@link InstrumentedDataSource}: por sentencia normalizada ({@link SqlFingerprints}),
+ * el timer {@code jdbc.query} y el resumen {@code jdbc.query.rows} (tags {@code statement} y
+ * {@code operation}); el timer {@code jdbc.connections.acquire} con la espera para obtener conexión de cada
+ * pool (tag {@code pool}); y los contadores {@code jdbc.query.slow} y {@code jdbc.query.repeated}.
+ *
+ * Se instrumentan los pools físicos de Hikari ({@link #instrument}), no los DataSource de enrutamiento que
+ * hay delante: la espera medida es la del pool que entrega la conexión.
+ *
+ * Las consultas lentas se registran en el log con los parámetros enmascarados (tipo y longitud); los valores
+ * solo salen en DEBUG y con {@code log-parameter-values=true}. Dentro de una petición HTTP
+ * ({@link #beginRequest}/{@link #endRequest}) se cuentan las ejecuciones de cada sentencia: si una se
+ * repite {@code repeat-threshold} veces o más, se avisa de un posible N+1.
+ */
+public class QueryInstrumentation {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryInstrumentation.class);
+
+    static final String OTHER = "other";
+
+    private final QueryInstrumentationProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final long slowQueryThresholdNanos;
+    private final int maxCachedSql;
+
+    /** SQL tal cual lo envía Hibernate → sentencia; evita normalizar en cada ejecución. */
+    private final Map<String, StatementStats> bySql = new ConcurrentHashMap<>();
+    private final Map<String, StatementStats> byFingerprint = new ConcurrentHashMap<>();
+    private final StatementStats other;
+
+    private final Map<String, Timer> acquireTimers = new ConcurrentHashMap<>();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator acquireMaxNanos = new LongAccumulator(Long::max, 0);
+    private final Counter slowQueries;
+    private final Counter repeatedStatements;
+
+    private final Deque<SlowQuery> recentSlowQueries = new ArrayDeque<>();
+    private final Deque<RepeatedStatement> recentRepeatedStatements = new ArrayDeque<>();
+    private final ThreadLocal<RequestQueries> currentRequest = new ThreadLocal<>();
+
+    public QueryInstrumentation(QueryInstrumentationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowQueryThresholdMs());
+        this.maxCachedSql = Math.max(properties.getMaxStatements(), 1) * 10;
+        this.other = newStatement(OTHER, "(sentencias por encima de max-statements)", OTHER);
+        this.slowQueries = Counter.builder("jdbc.query.slow")
+                .description("Ejecuciones por encima de slow-query-threshold-ms")
+                .register(meterRegistry);
+        this.repeatedStatements = Counter.builder("jdbc.query.repeated")
+                .description("Peticiones en las que una sentencia se repitió repeat-threshold veces o más (posible N+1)")
+                .register(meterRegistry);
+    }
+
+    StatementStats statementFor(String sql) {
+        StatementStats stats = bySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String fingerprint = SqlFingerprints.fingerprint(sql);
+        stats = byFingerprint.get(fingerprint);
+        if (stats == null) {
+            if (byFingerprint.size() >= properties.getMaxStatements()) {
+                stats = other;
+            } else {
+                stats = byFingerprint.computeIfAbsent(fingerprint, key ->
+                        newStatement(SqlFingerprints.id(key), key, SqlFingerprints.operation(key)));
+            }
+        }
+        if (bySql.size() < maxCachedSql) {
+            bySql.put(sql, stats);
+        }
+        return stats;
+    }
+
+    private StatementStats newStatement(String id, String sql, String operation) {
+        Timer timer = Timer.builder("jdbc.query")
+                .description("Tiempo de ejecución de la sentencia (sin leer el ResultSet)")
+                .tag("statement", id)
+                .tag("operation", operation)
+                .publishPercentileHistogram(properties.isHistogram())
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        DistributionSummary rows = DistributionSummary.builder("jdbc.query.rows")
+                .description("Filas leídas (select) o modificadas por ejecución")
+                .tag("statement", id)
+                .tag("operation", operation)
+                .register(meterRegistry);
+        return new StatementStats(id, sql, operation, timer, rows);
+    }
+
+    /**
+     * Instrumenta un pool de Hikari sin sustituirlo (antes de que arranque): sus conexiones físicas salen de un
+     * {@link InstrumentedDataSource}, y la espera para obtenerlas se registra en {@code jdbc.connections.acquire}
+     * además de en las métricas {@code hikaricp.*} del propio pool.
+     */
+    public void instrument(HikariDataSource pool) {
+        if (pool.getDataSource() instanceof InstrumentedDataSource) {
+            return;
+        }
+        DataSource physical = pool.getDataSource();
+        if (physical == null && pool.getJdbcUrl() != null) {
+            // Lo mismo que haría Hikari al arrancar con jdbcUrl
+            physical = new DriverDataSource(pool.getJdbcUrl(), pool.getDriverClassName(), pool.getDataSourceProperties(),
+                    pool.getUsername(), pool.getPassword());
+        }
+        if (physical != null) {
+            pool.setDataSource(new InstrumentedDataSource(physical, this));
+        } else {
+            logger.warn("El pool {} se configura con dataSourceClassName: se mide la espera de conexión pero no sus sentencias.",
+                    pool.getPoolName());
+        }
+        if (pool.getMetricRegistry() == null) {
+            MetricsTrackerFactory poolMetrics = pool.getMetricsTrackerFactory() != null ? pool.getMetricsTrackerFactory()
+                    : new MicrometerMetricsTrackerFactory(meterRegistry);
+            pool.setMetricsTrackerFactory((poolName, poolStats) -> new AcquireTracker(poolName, poolMetrics.create(poolName, poolStats)));
+        }
+    }
+
+    void recordAcquire(String pool, long nanos) {
+        acquireTimers.computeIfAbsent(pool, name -> Timer.builder("jdbc.connections.acquire")
+                        .description("Espera para obtener una conexión del pool")
+                        .tag("pool", name)
+                        .publishPercentileHistogram(properties.isHistogram())
+                        .minimumExpectedValue(Duration.ofNanos(50_000))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        acquireCount.increment();
+        acquireNanos.add(nanos);
+        acquireMaxNanos.accumulate(nanos);
+        RequestQueries request = currentRequest.get();
+        if (request != null) {
+            request.acquireNanos += nanos;
+        }
+    }
+
+    /**
+     * @param rows Filas modificadas, o -1 si se conocerán al leer el ResultSet ({@link #recordRows}).
+     * @param parameters Parámetros capturados (puede ser null); solo se formatean si la ejecución es lenta.
+     */
+    void recordExecution(StatementStats stats, String sql, long nanos, long rows, Object[] parameters, int parameterCount) {
+        stats.timer.record(nanos, TimeUnit.NANOSECONDS);
+        stats.executions.increment();
+        stats.totalNanos.add(nanos);
+        stats.maxNanos.accumulate(nanos);
+        if (rows >= 0) {
+            recordRows(stats, rows);
+        }
+        RequestQueries request = currentRequest.get();
+        if (request != null) {
+            request.queries++;
+            request.executions.computeIfAbsent(stats, key -> new int[1])[0]++;
+        }
+        if (nanos >= slowQueryThresholdNanos) {
+            slowQuery(stats, sql, nanos, parameters, parameterCount, request);
+        }
+    }
+
+    void recordRows(StatementStats stats, long rows) {
+        stats.rows.record(rows);
+        stats.totalRows.add(rows);
+    }
+
+    private void slowQuery(StatementStats stats, String sql, long nanos, Object[] parameters, int parameterCount,
+                           RequestQueries request) {
+        slowQueries.increment();
+        List<String> masked = formatParameters(parameters, parameterCount, false);
+        double millis = nanos / 1_000_000.0;
+        String requestLine = request != null ? request.description : null;
+        logger.warn("Consulta lenta ({} ms, sentencia {}{}): {} parámetros {}", String.format("%.1f", millis), stats.id,
+                requestLine != null ? ", " + requestLine : "", sql, masked);
+        if (properties.isLogParameterValues() && logger.isDebugEnabled()) {
+            logger.debug("Valores de la consulta lenta (sentencia {}): {}", stats.id, formatParameters(parameters, parameterCount, true));
+        }
+        addRecent(recentSlowQueries, new SlowQuery(Instant.now(), stats.id, sql, millis, masked, requestLine));
+    }
+
+    /**
+     * Empieza a contar las sentencias del hilo actual.
+     *
+     * @return false si ya había una petición en curso en este hilo (no hay que llamar a {@link #endRequest}).
+     */
+    public boolean beginRequest(String description) {
+        if (currentRequest.get() != null) {
+            return false;
+        }
+        currentRequest.set(new RequestQueries(description));
+        return true;
+    }
+
+    public void endRequest() {
+        RequestQueries request = currentRequest.get();
+        currentRequest.remove();
+        if (request == null) {
+            return;
+        }
+        int threshold = properties.getRepeatThreshold();
+        for (Map.Entry<StatementStats, int[]> entry : request.executions.entrySet()) {
+            int executions = entry.getValue()[0];
+            if (threshold <= 0 || executions < threshold) {
+                continue;
+            }
+            StatementStats stats = entry.getKey();
+            repeatedStatements.increment();
+            double acquireMillis = request.acquireNanos / 1_000_000.0;
+            logger.warn("Posible N+1 en {}: la sentencia {} se ejecutó {} veces ({} sentencias en la petición): {}",
+                    request.description, stats.id, executions, request.queries, stats.sql);
+            addRecent(recentRepeatedStatements, new RepeatedStatement(Instant.now(), request.description, stats.id,
+                    stats.sql, executions, request.queries, acquireMillis));
+        }
+    }
+
+    private <T> void addRecent(Deque<T> events, T event) {
+        synchronized (events) {
+            events.addFirst(event);
+            while (events.size() > properties.getRecentEvents()) {
+                events.removeLast();
+            }
+        }
+    }
+
+    /** @param values Valores reales; si no, solo el tipo (y la longitud del texto): pueden ser datos personales. */
+    private List<String> formatParameters(Object[] parameters, int parameterCount, boolean values) {
+        if (parameters == null || parameterCount == 0) {
+            return List.of();
+        }
+        int limit = Math.min(parameterCount, parameters.length);
+        List<String> formatted = new ArrayList<>(limit + 1);
+        for (int i = 0; i < limit; i++) {
+            formatted.add(values ? formatParameter(parameters[i]) : maskParameter(parameters[i]));
+        }
+        if (parameterCount > limit) {
+            formatted.add("... (" + (parameterCount - limit) + " más)");
+        }
+        return formatted;
+    }
+
+    private static String maskParameter(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (value instanceof CharSequence text) {
+            return "<" + value.getClass().getSimpleName() + "(" + text.length() + ")>";
+        }
+        return "<" + value.getClass().getSimpleName() + ">";
+    }
+
+    private String formatParameter(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (value instanceof InputStream || value instanceof Reader || value instanceof java.sql.Blob
+                || value instanceof java.sql.Clob) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        String text = value.toString();
+        int max = properties.getMaxParameterLength();
+        if (text.length() > max) {
+            text = text.substring(0, max) + "...";
+        }
+        return value instanceof CharSequence || value instanceof Character ? "'" + text + "'" : text;
+    }
+
+    boolean isCapturingParameters() {
+        return properties.isCaptureParameters();
+    }
+
+    int getMaxParameters() {
+        return properties.getMaxParameters();
+    }
+
+    long getSlowQueryThresholdMs() {
+        return properties.getSlowQueryThresholdMs();
+    }
+
+    Collection<StatementStats> statements() {
+        List<StatementStats> statements = new ArrayList<>(byFingerprint.values());
+        if (other.executions.sum() > 0) {
+            statements.add(other);
+        }
+        return statements;
+    }
+
+    long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    long getAcquireNanos() {
+        return acquireNanos.sum();
+    }
+
+    long getAcquireMaxNanos() {
+        return acquireMaxNanos.get();
+    }
+
+    List<SlowQuery> recentSlowQueries() {
+        synchronized (recentSlowQueries) {
+            return List.copyOf(recentSlowQueries);
+        }
+    }
+
+    List<RepeatedStatement> recentRepeatedStatements() {
+        synchronized (recentRepeatedStatements) {
+            return List.copyOf(recentRepeatedStatements);
+        }
+    }
+
+    /** Pone a cero lo que muestra el endpoint; las métricas de Micrometer son acumulativas y no se tocan. */
+    void reset() {
+        for (StatementStats stats : statements()) {
+            stats.executions.reset();
+            stats.totalNanos.reset();
+            stats.maxNanos.reset();
+            stats.totalRows.reset();
+        }
+        acquireCount.reset();
+        acquireNanos.reset();
+        acquireMaxNanos.reset();
+        synchronized (recentSlowQueries) {
+            recentSlowQueries.clear();
+        }
+        synchronized (recentRepeatedStatements) {
+            recentRepeatedStatements.clear();
+        }
+    }
+
+    static final class StatementStats {
+        final String id;
+        final String sql;
+        final String operation;
+        final Timer timer;
+        final DistributionSummary rows;
+        final LongAdder executions = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        final LongAdder totalRows = new LongAdder();
+
+        private StatementStats(String id, String sql, String operation, Timer timer, DistributionSummary rows) {
+            this.id = id;
+            this.sql = sql;
+            this.operation = operation;
+            this.timer = timer;
+            this.rows = rows;
+        }
+    }
+
+    /** Registra la espera de cada préstamo del pool y pasa todo al tracker de métricas que tendría el pool. */
+    private final class AcquireTracker implements IMetricsTracker {
+        private final String pool;
+        private final IMetricsTracker delegate;
+
+        private AcquireTracker(String pool, IMetricsTracker delegate) {
+            this.pool = pool;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            recordAcquire(pool, elapsedAcquiredNanos);
+            delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            delegate.recordConnectionTimeout();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    /** Sentencias ejecutadas por la petición en curso (solo la usa su hilo). */
+    private static final class RequestQueries {
+        private final String description;
+        private final Map<StatementStats, int[]> executions = new IdentityHashMap<>();
+        private int queries;
+        private long acquireNanos;
+
+        private RequestQueries(String description) {
+            this.description = description;
+        }
+    }
+
+    public record SlowQuery(Instant at, String statement, String sql, double durationMs, List<String> parameters,
+                            String request) {
+    }
+
+    public record RepeatedStatement(Instant at, String request, String statement, String sql, int executions,
+                                    int requestQueries, double acquireWaitMs) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.nicholassr.common.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Instrumentación JDBC: se activa con {@code app.jdbc.instrumentation.enabled=true} e instrumenta los pools
+ * de Hikari del contexto con {@link QueryInstrumentation#instrument}, sin sustituir los beans (siguen siendo
+ * {@code HikariDataSource}). Los pools que hay detrás de un DataSource de enrutamiento (réplicas, shards) no
+ * son beans: los instrumenta quien los crea. Sustituye a {@code spring.jpa.show-sql}: solo se escriben en el
+ * log las consultas lentas y los posibles N+1.
+ */
+@AutoConfiguration
+@ConditionalOnClass(HikariDataSource.class)
+@ConditionalOnProperty(prefix = "app.jdbc.instrumentation", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(QueryInstrumentationProperties.class)
+public class QueryInstrumentationAutoConfiguration {
+
+    @Bean
+    public QueryInstrumentation queryInstrumentation(QueryInstrumentationProperties properties,
+                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new QueryInstrumentation(properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<QueryInstrumentation> instrumentation) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    instrumentation.getObject().instrument(pool);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class QueryInstrumentationFilterConfiguration {
+
+        @Bean
+        public FilterRegistrationBean<QueryInstrumentationFilter> queryInstrumentationFilter(QueryInstrumentation instrumentation) {
+            FilterRegistrationBean<QueryInstrumentationFilter> registration = new FilterRegistrationBean<>(
+                    new QueryInstrumentationFilter(instrumentation));
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+            return registration;
+        }
+    }
+}
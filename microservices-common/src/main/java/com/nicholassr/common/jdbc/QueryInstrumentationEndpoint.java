@@ -0,0 +1,73 @@
+package com.nicholassr.common.jdbc;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/queries}: sentencias normalizadas ordenadas por tiempo total, espera para obtener
+ * conexión, y las consultas lentas y posibles N+1 más recientes.
+ * {@code DELETE /actuator/queries} pone a cero los contadores del endpoint (no las métricas).
+ */
+@Endpoint(id = "queries")
+public class QueryInstrumentationEndpoint {
+
+    private final QueryInstrumentation instrumentation;
+
+    public QueryInstrumentationEndpoint(QueryInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    @ReadOperation
+    public Map<String, Object> queries() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("slowQueryThresholdMs", instrumentation.getSlowQueryThresholdMs());
+
+        Map<String, Object> connections = new LinkedHashMap<>();
+        long acquired = instrumentation.getAcquireCount();
+        connections.put("acquired", acquired);
+        connections.put("totalWaitMs", millis(instrumentation.getAcquireNanos()));
+        connections.put("meanWaitMs", acquired == 0 ? 0.0 : millis(instrumentation.getAcquireNanos()) / acquired);
+        connections.put("maxWaitMs", millis(instrumentation.getAcquireMaxNanos()));
+        result.put("connections", connections);
+
+        List<QueryInstrumentation.StatementStats> statements = new ArrayList<>(instrumentation.statements());
+        statements.sort(Comparator.comparingLong((QueryInstrumentation.StatementStats stats) -> stats.totalNanos.sum()).reversed());
+        List<Map<String, Object>> statementStats = new ArrayList<>();
+        for (QueryInstrumentation.StatementStats stats : statements) {
+            long executions = stats.executions.sum();
+            if (executions == 0) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("statement", stats.id);
+            entry.put("operation", stats.operation);
+            entry.put("sql", stats.sql);
+            entry.put("executions", executions);
+            entry.put("totalMs", millis(stats.totalNanos.sum()));
+            entry.put("meanMs", millis(stats.totalNanos.sum()) / executions);
+            entry.put("maxMs", millis(stats.maxNanos.get()));
+            entry.put("rows", stats.totalRows.sum());
+            statementStats.add(entry);
+        }
+        result.put("statements", statementStats);
+        result.put("slowQueries", instrumentation.recentSlowQueries());
+        result.put("repeatedStatements", instrumentation.recentRepeatedStatements());
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        instrumentation.reset();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
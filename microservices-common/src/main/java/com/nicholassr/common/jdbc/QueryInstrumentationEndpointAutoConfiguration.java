@@ -0,0 +1,21 @@
+package com.nicholassr.common.jdbc;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Endpoint {@code /actuator/queries}, cuando la instrumentación JDBC está activa.
+ */
+@AutoConfiguration(after = QueryInstrumentationAutoConfiguration.class)
+@ConditionalOnClass(Endpoint.class)
+public class QueryInstrumentationEndpointAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean(QueryInstrumentation.class)
+    public QueryInstrumentationEndpoint queryInstrumentationEndpoint(QueryInstrumentation instrumentation) {
+        return new QueryInstrumentationEndpoint(instrumentation);
+    }
+}
@@ -0,0 +1,36 @@
+package com.nicholassr.common.jdbc;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Delimita cada petición para {@link QueryInstrumentation}: al terminar se comprueba si alguna sentencia
+ * se ha repetido lo suficiente como para ser un N+1.
+ */
+public class QueryInstrumentationFilter extends OncePerRequestFilter {
+
+    private final QueryInstrumentation instrumentation;
+
+    public QueryInstrumentationFilter(QueryInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!instrumentation.beginRequest(request.getMethod() + " " + request.getRequestURI())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            instrumentation.endRequest();
+        }
+    }
+}
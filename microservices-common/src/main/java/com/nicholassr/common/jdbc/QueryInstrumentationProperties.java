@@ -0,0 +1,50 @@
+package com.nicholassr.common.jdbc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Instrumentación JDBC (tiempos por sentencia, filas, espera de conexión, N+1 y consultas lentas).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.jdbc.instrumentation")
+public class QueryInstrumentationProperties {
+
+    private boolean enabled = false;
+
+    /** Una ejecución que tarda al menos esto se registra como lenta, con sus parámetros. */
+    private long slowQueryThresholdMs = 200;
+
+    /**
+     * Guarda los parámetros de las sentencias preparadas para el log de consultas lentas, enmascarados (tipo y
+     * longitud) en el log y en el endpoint.
+     */
+    private boolean captureParameters = true;
+
+    /**
+     * Escribe además los valores de los parámetros de las consultas lentas, solo en DEBUG. Pueden llevar datos
+     * personales o secretos: para depurar puntualmente.
+     */
+    private boolean logParameterValues = false;
+
+    /** Parámetros por sentencia que se guardan (el resto se cuenta pero no se muestra). */
+    private int maxParameters = 32;
+
+    /** Longitud máxima de cada parámetro de texto en el log de valores. */
+    private int maxParameterLength = 100;
+
+    /**
+     * Sentencias distintas (ya normalizadas) con métricas propias; las siguientes se agrupan en
+     * {@code statement=other} para acotar la cardinalidad.
+     */
+    private int maxStatements = 200;
+
+    /** Publica los buckets del histograma de {@code jdbc.query} para calcular percentiles en el backend. */
+    private boolean histogram = true;
+
+    /** Ejecuciones de la misma sentencia dentro de una petición a partir de las cuales se avisa de un posible N+1. */
+    private int repeatThreshold = 10;
+
+    /** Consultas lentas y N+1 recientes que muestra {@code /actuator/queries}. */
+    private int recentEvents = 50;
+}
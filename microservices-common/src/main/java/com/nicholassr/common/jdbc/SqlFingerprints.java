@@ -0,0 +1,107 @@
+package com.nicholassr.common.jdbc;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza una sentencia SQL para agrupar sus ejecuciones: los literales (texto y números) pasan a
+ * {@code ?}, se quitan los comentarios, los espacios se colapsan y las listas {@code in (?, ?, ...)}
+ * quedan como {@code in (?...)} para que el número de elementos no cree sentencias distintas.
+ */
+final class SqlFingerprints {
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin ?\\(\\?(?: ?, ?\\?)+\\)");
+
+    private SqlFingerprints() {
+    }
+
+    static String fingerprint(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // Literal de texto ('' es una comilla escapada)
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+            } else if (c == '"') {
+                // Identificador entre comillas: se copia tal cual
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? length : end + 1;
+                out.append(sql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                appendSpace(out);
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+                appendSpace(out);
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(out);
+                i++;
+            } else if (Character.isDigit(c) && !continuesIdentifier(out)) {
+                i++;
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') {
+            out.setLength(end - 1);
+        }
+        return IN_LIST.matcher(out).replaceAll("in (?...)");
+    }
+
+    /** {@code select}, {@code insert}, {@code update}, {@code delete} u {@code other}. */
+    static String operation(String fingerprint) {
+        int end = 0;
+        while (end < fingerprint.length() && Character.isLetter(fingerprint.charAt(end))) {
+            end++;
+        }
+        String keyword = fingerprint.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "with" -> "select";
+            case "insert", "update", "delete", "merge" -> keyword;
+            default -> "other";
+        };
+    }
+
+    /** Identificador corto y estable de la sentencia normalizada, usado como tag de las métricas. */
+    static String id(String fingerprint) {
+        return String.format("%08x", fingerprint.hashCode());
+    }
+
+    private static void appendSpace(StringBuilder out) {
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) != ' ') {
+            out.append(' ');
+        }
+    }
+
+    private static boolean continuesIdentifier(StringBuilder out) {
+        if (out.isEmpty()) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+}
@@ -0,0 +1,26 @@
+package com.nicholassr.common.jsonapi;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Errores como documentos {@code errors} de JSON:API. Aquí no se registra nada: los resultados esperados
+ * ({@link JsonApiException}) no llevan traza, y los fallos reales ya se registran donde se producen.
+ *
+ * Lo registra {@link JsonApiErrorsAutoConfiguration} en las aplicaciones web que usan este módulo.
+ */
+@ControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(JsonApiException.class)
+    public ResponseEntity<byte[]> handleJsonApiException(JsonApiException ex) {
+        return JsonApiErrors.response(ex);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<byte[]> handleResponseStatusException(ResponseStatusException ex) {
+        return JsonApiErrors.response(ex.getStatusCode(), ex.getReason());
+    }
+}
@@ -0,0 +1,44 @@
+package com.nicholassr.common.jsonapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Lectura y escritura de un objeto de recurso JSON:API ({@code {"type", "id", "attributes", "relationships"}})
+ * sin reflexión.
+ * Las implementaciones las genera {@code JsonApiCodecProcessor} (módulo microservices-codegen) para cada
+ * clase anotada con {@code @Type} y se registran con {@link java.util.ServiceLoader}; el documento
+ * (data, included, meta, links) lo escribe y lee {@link JsonApiConverter}.
+ *
+ * @param <T> Clase del recurso.
+ */
+public interface JsonApiCodec<T> {
+
+    Class<T> javaType();
+
+    /** Valor de {@code type} en el documento (el de {@code @Type}). */
+    String resourceType();
+
+    /** Id del recurso como texto (null si no tiene). */
+    String idOf(T resource);
+
+    /**
+     * Escribe el objeto de recurso completo.
+     *
+     * @param includeNulls Si es false se omiten los atributos nulos (ObjectMapper con NON_NULL).
+     */
+    void write(JsonGenerator generator, T resource, boolean includeNulls) throws IOException;
+
+    /** Entrega los recursos de sus relaciones no nulas (para {@code included}). */
+    void collectRelated(T resource, Consumer<Object> related);
+
+    /**
+     * Lee un objeto de recurso; el parser está sobre su {@code START_OBJECT} y queda sobre su {@code END_OBJECT}.
+     *
+     * @param failOnUnknown Si es true un atributo desconocido es un error (FAIL_ON_UNKNOWN_PROPERTIES).
+     */
+    T read(JsonParser parser, boolean failOnUnknown) throws IOException;
+}
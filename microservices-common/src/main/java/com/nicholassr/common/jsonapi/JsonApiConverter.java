@@ -0,0 +1,312 @@
+package com.nicholassr.common.jsonapi;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.github.jasminb.jsonapi.Link;
+import com.github.jasminb.jsonapi.Links;
+import com.github.jasminb.jsonapi.SerializationFeature;
+import com.github.jasminb.jsonapi.exceptions.DocumentSerializationException;
+import com.github.jasminb.jsonapi.exceptions.ResourceParseException;
+import com.github.jasminb.jsonapi.models.errors.Error;
+import com.github.jasminb.jsonapi.models.errors.Errors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Sustituto de {@code ResourceConverter} (mismos métodos y excepciones) que usa los {@link JsonApiCodec}
+ * generados en compilación en lugar de reflexión. El formato (JSON, Smile) lo decide la factoría del
+ * ObjectMapper recibido, que también escribe {@code meta} y los atributos de tipos no básicos.
+ *
+ * Diferencias con {@code ResourceConverter}: los ids numéricos ({@code Long}, {@code Integer}) se leen
+ * correctamente, un recurso sin id se acepta al leer, y los BigDecimal conservan su escala al escribir.
+ * Las relaciones solo se escriben: identificadores en {@code relationships} y, con
+ * {@link SerializationFeature#INCLUDE_RELATIONSHIP_ATTRIBUTES}, los recursos en {@code included} (sin
+ * repetir ni incluir los de {@code data}); al leer se ignoran.
+ */
+public class JsonApiConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonApiConverter.class);
+
+    private static final TypeReference<Map<String, Object>> META_TYPE = new TypeReference<>() {
+    };
+
+    private static final TypeReference<List<Error>> ERRORS_TYPE = new TypeReference<>() {
+    };
+
+    private final JsonFactory factory;
+    private final Map<Class<?>, JsonApiCodec<?>> codecs = new HashMap<>();
+    private final boolean includeNulls;
+    private final boolean failOnUnknown;
+    private final EnumSet<SerializationFeature> serializationFeatures = EnumSet.copyOf(SerializationFeature.getDefaultFeatures());
+
+    /**
+     * @param objectMapper Configuración (inclusión de nulos, atributos desconocidos, módulos) y formato.
+     * @param classes Clases {@code @Type} que maneja este conversor; cada una debe tener codec generado.
+     * @throws IllegalArgumentException Si alguna clase no tiene codec (¿falta el procesador en el módulo?) o si
+     *                                  el ObjectMapper tiene una estrategia de nombres, que los codecs no aplican
+     *                                  (en su lugar, {@code @JsonNaming} en la clase).
+     */
+    public JsonApiConverter(ObjectMapper objectMapper, Class<?>... classes) {
+        if (objectMapper.getPropertyNamingStrategy() != null) {
+            throw new IllegalArgumentException("Los codecs JSON:API generados no aplican la estrategia de nombres del ObjectMapper ("
+                    + objectMapper.getPropertyNamingStrategy().getClass().getName() + "): usa @JsonNaming en las clases @Type");
+        }
+        this.factory = objectMapper.getFactory();
+        JsonInclude.Include inclusion = objectMapper.getSerializationConfig().getDefaultPropertyInclusion().getValueInclusion();
+        this.includeNulls = inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+        this.failOnUnknown = objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        Map<Class<?>, JsonApiCodec<?>> available = loadCodecs(classes.length > 0 ? classes[0].getClassLoader() : null);
+        for (Class<?> type : classes) {
+            JsonApiCodec<?> codec = available.get(type);
+            if (codec == null) {
+                throw new IllegalArgumentException("No hay codec JSON:API generado para " + type.getName()
+                        + ": el módulo debe compilarse con microservices-codegen");
+            }
+            codecs.put(type, codec);
+        }
+    }
+
+    private static Map<Class<?>, JsonApiCodec<?>> loadCodecs(ClassLoader classLoader) {
+        Map<Class<?>, JsonApiCodec<?>> available = new HashMap<>();
+        var iterator = ServiceLoader.load(JsonApiCodec.class, classLoader).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                JsonApiCodec<?> codec = iterator.next();
+                available.put(codec.javaType(), codec);
+            } catch (ServiceConfigurationError e) {
+                // Entrada obsoleta del registro (clase @Type borrada sin recompilar todo el módulo)
+                logger.warn("Codec JSON:API ignorado: {}", e.getMessage());
+            }
+        }
+        return available;
+    }
+
+    /** Como en {@code ResourceConverter}; de momento solo INCLUDE_RELATIONSHIP_ATTRIBUTES cambia la salida. */
+    public void enableSerializationOption(SerializationFeature option) {
+        serializationFeatures.add(option);
+    }
+
+    public void disableSerializationOption(SerializationFeature option) {
+        serializationFeatures.remove(option);
+    }
+
+    public byte[] writeDocument(JSONAPIDocument<?> document) throws DocumentSerializationException {
+        return write(document, false);
+    }
+
+    public byte[] writeDocumentCollection(JSONAPIDocument<? extends Iterable<?>> document) throws DocumentSerializationException {
+        return write(document, true);
+    }
+
+    public <T> JSONAPIDocument<T> readDocument(byte[] data, Class<T> type) {
+        return read(data, type, false);
+    }
+
+    public <T> JSONAPIDocument<List<T>> readDocumentCollection(byte[] data, Class<T> type) {
+        return read(data, type, true);
+    }
+
+    private byte[] write(JSONAPIDocument<?> document, boolean collection) throws DocumentSerializationException {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(512);
+        try (JsonGenerator generator = factory.createGenerator(buffer, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            Object data = document.get();
+            if (data != null) {
+                generator.writeFieldName("data");
+                if (collection) {
+                    generator.writeStartArray();
+                    for (Object resource : (Iterable<?>) data) {
+                        writeResource(generator, resource);
+                    }
+                    generator.writeEndArray();
+                } else {
+                    writeResource(generator, data);
+                }
+                if (serializationFeatures.contains(SerializationFeature.INCLUDE_RELATIONSHIP_ATTRIBUTES)) {
+                    writeIncluded(generator, collection ? (Iterable<?>) data : List.of(data));
+                }
+            }
+            if (document.getMeta() != null && !document.getMeta().isEmpty()) {
+                generator.writeFieldName("meta");
+                generator.writeObject(document.getMeta());
+            }
+            if (document.getLinks() != null && document.getLinks().getLinks() != null
+                    && !document.getLinks().getLinks().isEmpty()) {
+                generator.writeFieldName("links");
+                writeLinks(generator, document.getLinks());
+            }
+            generator.writeEndObject();
+        } catch (IOException | RuntimeException e) {
+            throw new DocumentSerializationException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeResource(JsonGenerator generator, Object resource) throws IOException {
+        ((JsonApiCodec<Object>) codecFor(resource.getClass())).write(generator, resource, includeNulls);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeIncluded(JsonGenerator generator, Iterable<?> primary) throws IOException {
+        Map<String, Object> included = new LinkedHashMap<>();
+        for (Object resource : primary) {
+            ((JsonApiCodec<Object>) codecFor(resource.getClass()))
+                    .collectRelated(resource, related -> included.putIfAbsent(key(related), related));
+        }
+        for (Object resource : primary) {
+            included.remove(key(resource));
+        }
+        // Como ResourceConverter, con la opción activa "included" se escribe aunque quede vacío
+        generator.writeFieldName("included");
+        generator.writeStartArray();
+        for (Object resource : included.values()) {
+            writeResource(generator, resource);
+        }
+        generator.writeEndArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private String key(Object resource) {
+        JsonApiCodec<Object> codec = (JsonApiCodec<Object>) codecFor(resource.getClass());
+        String id = codec.idOf(resource);
+        // Sin id no se puede saber si dos objetos son el mismo recurso: se incluyen todos
+        return codec.resourceType() + ":" + (id != null ? id : "@" + System.identityHashCode(resource));
+    }
+
+    private void writeLinks(JsonGenerator generator, Links links) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, Link> entry : links.getLinks().entrySet()) {
+            generator.writeFieldName(entry.getKey());
+            Link link = entry.getValue();
+            if (link == null) {
+                generator.writeNull();
+            } else if (link.getMeta() == null || link.getMeta().isEmpty()) {
+                generator.writeString(link.getHref());
+            } else {
+                generator.writeStartObject();
+                generator.writeStringField("href", link.getHref());
+                generator.writeFieldName("meta");
+                generator.writeObject(link.getMeta());
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, D> JSONAPIDocument<D> read(byte[] data, Class<T> type, boolean collection) {
+        JsonApiCodec<T> codec = (JsonApiCodec<T>) codecFor(type);
+        try (JsonParser parser = factory.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("El documento JSON:API debe ser un objeto");
+            }
+            Object resources = null;
+            Map<String, Object> meta = null;
+            Links links = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "data" -> resources = token == JsonToken.VALUE_NULL ? null
+                            : collection ? readCollection(parser, codec) : codec.read(parser, failOnUnknown);
+                    case "meta" -> meta = parser.readValueAs(META_TYPE);
+                    case "links" -> links = readLinks(parser);
+                    case "errors" -> throw new ResourceParseException(readErrors(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            JSONAPIDocument<D> document = new JSONAPIDocument<>((D) resources);
+            if (meta != null) {
+                document.setMeta(meta);
+            }
+            if (links != null) {
+                document.setLinks(links);
+            }
+            return document;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Documento JSON:API inválido: " + e.getMessage(), e);
+        }
+    }
+
+    private <T> List<T> readCollection(JsonParser parser, JsonApiCodec<T> codec) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Se esperaba un array en 'data'");
+        }
+        List<T> resources = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            resources.add(codec.read(parser, failOnUnknown));
+        }
+        return resources;
+    }
+
+    /** Como {@code ResourceConverter}: un documento de errores se convierte en {@link ResourceParseException}. */
+    private static Errors readErrors(JsonParser parser) throws IOException {
+        Errors errors = new Errors();
+        errors.setErrors(parser.readValueAs(ERRORS_TYPE));
+        return errors;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Links readLinks(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Map<String, Link> links = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_STRING) {
+                links.put(name, new Link(parser.getText()));
+            } else if (token == JsonToken.START_OBJECT) {
+                Map<String, Object> value = parser.readValueAs(META_TYPE);
+                Object href = value.get("href");
+                Object linkMeta = value.get("meta");
+                links.put(name, new Link(href != null ? href.toString() : null,
+                        linkMeta instanceof Map<?, ?> map ? (Map<String, ?>) map : null));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Links(links);
+    }
+
+    private JsonApiCodec<?> codecFor(Class<?> type) {
+        JsonApiCodec<?> codec = codecs.get(type);
+        if (codec == null) {
+            // Proxies de Hibernate y subclases: se usa el codec de la clase registrada más cercana
+            for (Class<?> current = type.getSuperclass(); current != null && codec == null; current = current.getSuperclass()) {
+                codec = codecs.get(current);
+            }
+        }
+        if (codec == null) {
+            throw new IllegalArgumentException("Clase no registrada en el conversor JSON:API: " + type.getName());
+        }
+        return codec;
+    }
+}
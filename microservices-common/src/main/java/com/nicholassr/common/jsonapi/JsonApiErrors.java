@@ -0,0 +1,64 @@
+package com.nicholassr.common.jsonapi;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Documentos {@code errors} de JSON:API ({@code {"errors":[{"status":"404","title":"Not Found","detail":"..."}]}})
+ * a partir de plantillas ya codificadas por estado: por respuesta solo se escapa y copia {@code detail}, sin
+ * ObjectMapper ni árbol intermedio. Sin detail el documento es siempre el mismo array.
+ */
+public final class JsonApiErrors {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType("application/vnd.api+json");
+
+    private static final ConcurrentMap<Integer, Template> TEMPLATES = new ConcurrentHashMap<>();
+
+    private JsonApiErrors() {
+    }
+
+    /** Documento con un único error. */
+    public static byte[] document(HttpStatusCode status, String detail) {
+        Template template = TEMPLATES.computeIfAbsent(status.value(), Template::new);
+        if (detail == null) {
+            return template.withoutDetail;
+        }
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(detail);
+        byte[] document = new byte[template.prefix.length + escaped.length + template.suffix.length];
+        System.arraycopy(template.prefix, 0, document, 0, template.prefix.length);
+        System.arraycopy(escaped, 0, document, template.prefix.length, escaped.length);
+        System.arraycopy(template.suffix, 0, document, template.prefix.length + escaped.length, template.suffix.length);
+        return document;
+    }
+
+    public static ResponseEntity<byte[]> response(HttpStatusCode status, String detail) {
+        return ResponseEntity.status(status).contentType(MEDIA_TYPE).body(document(status, detail));
+    }
+
+    public static ResponseEntity<byte[]> response(JsonApiException exception) {
+        return response(exception.getStatus(), exception.getDetail());
+    }
+
+    private static final class Template {
+
+        final byte[] prefix;
+        final byte[] suffix;
+        final byte[] withoutDetail;
+
+        Template(int status) {
+            HttpStatus known = HttpStatus.resolve(status);
+            String head = "{\"errors\":[{\"status\":\"" + status + "\""
+                    + (known != null ? ",\"title\":\"" + known.getReasonPhrase() + "\"" : "");
+            this.prefix = (head + ",\"detail\":\"").getBytes(StandardCharsets.UTF_8);
+            this.suffix = "\"}]}".getBytes(StandardCharsets.UTF_8);
+            this.withoutDetail = (head + "}]}").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.nicholassr.common.jsonapi;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Resultado esperado de una petición (recurso inexistente, parámetro inválido, conflicto) que se responde
+ * con un documento {@code errors} de JSON:API ({@link JsonApiErrors}).
+ *
+ * No captura la traza ni admite causa: crear una cuesta lo mismo que crear cualquier objeto, y un 404 de un
+ * bot que recorre ids no debe costar más que la consulta que lo detecta. Los fallos reales (errores de base
+ * de datos, de serialización...) siguen siendo excepciones normales, con su traza en el log.
+ */
+public class JsonApiException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public JsonApiException(HttpStatus status, String detail) {
+        super(detail, null, false, false);
+        this.status = status;
+    }
+
+    public static JsonApiException badRequest(String detail) {
+        return new JsonApiException(HttpStatus.BAD_REQUEST, detail);
+    }
+
+    public static JsonApiException notFound(String detail) {
+        return new JsonApiException(HttpStatus.NOT_FOUND, detail);
+    }
+
+    public static JsonApiException conflict(String detail) {
+        return new JsonApiException(HttpStatus.CONFLICT, detail);
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    /** Explicación para el cliente ({@code errors[0].detail}); puede ser null. */
+    public String getDetail() {
+        return getMessage();
+    }
+}
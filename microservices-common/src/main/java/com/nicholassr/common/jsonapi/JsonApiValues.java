@@ -0,0 +1,144 @@
+package com.nicholassr.common.jsonapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Funciones auxiliares de los codecs generados: nombres de campo precodificados y lectura/escritura de
+ * valores que pueden ser null. Forma parte del contrato con el código generado, no se usa directamente.
+ */
+public final class JsonApiValues {
+
+    public static final SerializedString TYPE = new SerializedString("type");
+    public static final SerializedString ID = new SerializedString("id");
+    public static final SerializedString ATTRIBUTES = new SerializedString("attributes");
+    public static final SerializedString RELATIONSHIPS = new SerializedString("relationships");
+    public static final SerializedString DATA = new SerializedString("data");
+
+    private JsonApiValues() {
+    }
+
+    /** Identificador de recurso ({@code {"type", "id"}}) de una relación; sin id se omite el campo. */
+    public static void writeIdentifier(JsonGenerator generator, SerializedString type, Object id) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(TYPE);
+        generator.writeString(type);
+        if (id != null) {
+            generator.writeFieldName(ID);
+            generator.writeString(id.toString());
+        }
+        generator.writeEndObject();
+    }
+
+    public static void writeString(JsonGenerator generator, String value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    public static void writeLong(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    public static void writeInteger(JsonGenerator generator, Integer value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    public static void writeBigDecimal(JsonGenerator generator, BigDecimal value) throws IOException {
+        // writeNumber(BigDecimal) ya escribe null si el valor lo es
+        generator.writeNumber(value);
+    }
+
+    public static void writeDouble(JsonGenerator generator, Double value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    public static void writeBoolean(JsonGenerator generator, Boolean value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeBoolean(value);
+        }
+    }
+
+    public static String readString(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    public static Long readLong(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+    }
+
+    public static Integer readInteger(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+    }
+
+    public static BigDecimal readBigDecimal(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING -> new BigDecimal(parser.getText().trim());
+            default -> parser.getDecimalValue();
+        };
+    }
+
+    public static Double readDouble(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsDouble();
+    }
+
+    public static Boolean readBoolean(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean();
+    }
+
+    /** El id de JSON:API es texto; se acepta también un número. */
+    public static Long readLongId(JsonParser parser) throws IOException {
+        String text = readString(parser);
+        return text == null || text.isEmpty() ? null : Long.valueOf(text);
+    }
+
+    public static Integer readIntegerId(JsonParser parser) throws IOException {
+        String text = readString(parser);
+        return text == null || text.isEmpty() ? null : Integer.valueOf(text);
+    }
+
+    public static void expectObject(JsonParser parser, String resourceType) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Se esperaba un objeto en el recurso '" + resourceType
+                    + "', encontrado " + parser.currentToken());
+        }
+    }
+
+    public static void checkType(JsonParser parser, String expected) throws IOException {
+        String actual = parser.getValueAsString();
+        if (!expected.equals(actual)) {
+            throw new JsonParseException(parser, "Tipo de recurso '" + actual + "', se esperaba '" + expected + "'");
+        }
+    }
+
+    public static void unknownAttribute(JsonParser parser, String resourceType, String name, boolean failOnUnknown)
+            throws IOException {
+        if (failOnUnknown) {
+            throw new JsonParseException(parser, "Atributo desconocido '" + name + "' en el recurso '" + resourceType + "'");
+        }
+        parser.skipChildren();
+    }
+}
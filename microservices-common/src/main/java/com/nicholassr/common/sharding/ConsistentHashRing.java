@@ -0,0 +1,74 @@
+package com.nicholassr.common.sharding;
+
+import java.util.Arrays;
+
+/**
+ * Anillo de hash consistente con nodos virtuales: asigna cada clave a un shard de {@code 0..shardCount-1}.
+ * Al pasar de N a N+1 shards solo cambia de dueño ~1/(N+1) de las claves, todas hacia el shard nuevo.
+ *
+ * Inmutable; para cambiar el número de shards se construye otro anillo.
+ */
+public final class ConsistentHashRing {
+
+    /**
+     * Las posiciones de los nodos se calculan con otra semilla que las claves: si no, la clave k caería
+     * exactamente sobre el nodo virtual k del shard 0.
+     */
+    private static final long NODE_SEED = 0x9E3779B97F4A7C15L;
+
+    private final int shardCount;
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(int shardCount, int virtualNodes) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("El anillo necesita al menos un shard");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes debe ser positivo");
+        }
+        this.shardCount = shardCount;
+        int size = shardCount * virtualNodes;
+        long[][] entries = new long[size][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                // La posición de un nodo virtual solo depende de (shard, node): añadir shards no mueve los existentes
+                entries[shard * virtualNodes + node] = new long[]{mix((((long) shard << 32) | node) ^ NODE_SEED), shard};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    public int shardFor(long key) {
+        long hash = mix(key);
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return owners[index];
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /** Finalizador de MurmurHash3 (64 bits): reparte bien claves consecutivas como los ids. */
+    static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,89 @@
+package com.nicholassr.common.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * DataSource expuesto a JPA cuando hay shards: las conexiones pedidas dentro de {@link #onShard} salen del
+ * shard indicado y el resto de la base principal ({@code spring.datasource.*}), que guarda las tablas no
+ * repartidas.
+ *
+ * El shard se fija en el hilo antes de empezar la transacción: una transacción usa una sola conexión, así
+ * que no puede cambiar de shard a mitad.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final DataSource main;
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(DataSource main, List<DataSource> shards) {
+        this.main = main;
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(main);
+        // Un shard inexistente es un error de enrutamiento, no algo que deba acabar en la base principal
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /** Ejecuta {@code work} con las conexiones del hilo dirigidas al shard indicado. */
+    public static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_SHARD.set(previous);
+            } else {
+                CURRENT_SHARD.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT_SHARD.get();
+    }
+
+    public DataSource getMain() {
+        return main;
+    }
+
+    /** Pool físico de un shard, para copias entre shards que no deben pasar por JPA. */
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void close() {
+        List<DataSource> all = new ArrayList<>(shards);
+        all.add(main);
+        for (DataSource dataSource : all) {
+            if (dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ignored) {
+                    // Se cierra con el contexto; un fallo aquí no debe impedir el apagado.
+                }
+            }
+        }
+    }
+}
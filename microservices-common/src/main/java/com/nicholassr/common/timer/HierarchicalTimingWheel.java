@@ -0,0 +1,243 @@
+package com.nicholassr.common.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de tiempo jerárquica para muchos vencimientos pendientes (millones) con coste constante por alta,
+ * cancelación y tick: no hay una tarea programada por elemento ni recorridos de todos los pendientes.
+ *
+ * El primer nivel tiene {@code wheelSize} cubos de {@code tickMs}; cada nivel superior, creado cuando hace
+ * falta, tiene cubos del tamaño de la vuelta completa del anterior. Al avanzar el reloj, los cubos vencidos
+ * de un nivel superior bajan sus elementos a niveles más finos. Un elemento vence como muy pronto en su
+ * instante y como muy tarde un tick después.
+ *
+ * Thread-safe (un único cerrojo); el reloj lo mueve quien llama a {@link #advance}, normalmente una tarea
+ * periódica cada {@code tickMs}.
+ *
+ * @param <T> Lo que se entrega al vencer.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final Level root;
+    /** Elementos que ya estaban vencidos al darse de alta: se entregan en el siguiente avance. */
+    private final List<Timeout<T>> due = new ArrayList<>();
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs debe ser positivo y wheelSize al menos 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.root = new Level(tickMs, floor(startMs, tickMs));
+    }
+
+    /**
+     * Programa {@code payload} para {@code expirationMs} (reloj de {@link #advance}).
+     *
+     * @return Para cancelarlo antes de que venza.
+     */
+    public synchronized Timeout<T> schedule(T payload, long expirationMs) {
+        Timeout<T> timeout = new Timeout<>(this, payload, expirationMs);
+        if (!place(timeout)) {
+            due.add(timeout);
+        }
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Mueve el reloj hasta {@code nowMs} y entrega los elementos vencidos. El callback se llama con el
+     * cerrojo liberado, así puede programar o cancelar otros elementos.
+     *
+     * @return Elementos entregados.
+     */
+    public int advance(long nowMs, Consumer<T> onExpired) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            List<Timeout<T>> drained = new ArrayList<>(due);
+            due.clear();
+            for (Level level = root; level != null; level = level.overflow) {
+                level.advance(nowMs, drained);
+            }
+            for (Timeout<T> timeout : drained) {
+                if (!place(timeout)) {
+                    timeout.expired = true;
+                    size--;
+                    expired.add(timeout.payload);
+                }
+            }
+        }
+        expired.forEach(onExpired);
+        return expired.size();
+    }
+
+    /** Elementos pendientes (programados y no vencidos ni cancelados). */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Coloca el elemento en el nivel que le corresponde; false si ya ha vencido. */
+    private boolean place(Timeout<T> timeout) {
+        if (timeout.expirationMs <= root.currentTime) {
+            return false;
+        }
+        // Primer nivel: cubo del tick siguiente a la expiración (nunca vence antes de tiempo)
+        long slot = ceil(timeout.expirationMs, tickMs);
+        if (slot <= root.currentTime + root.interval) {
+            root.bucket(slot).add(timeout);
+            return true;
+        }
+        Level level = root;
+        while (true) {
+            Level next = level.overflow();
+            // Niveles superiores: cubo que empieza antes de la expiración; al vencer baja a un nivel más fino
+            long start = floor(timeout.expirationMs, next.tick);
+            if (start <= next.currentTime + next.interval) {
+                next.bucket(start).add(timeout);
+                return true;
+            }
+            level = next;
+        }
+    }
+
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.expired || timeout.cancelled) {
+            return false;
+        }
+        timeout.cancelled = true;
+        if (timeout.bucket != null) {
+            timeout.bucket.remove(timeout);
+        } else {
+            due.remove(timeout);
+        }
+        size--;
+        return true;
+    }
+
+    private static long floor(long value, long unit) {
+        return value - Math.floorMod(value, unit);
+    }
+
+    private static long ceil(long value, long unit) {
+        long floor = floor(value, unit);
+        return floor == value ? value : floor + unit;
+    }
+
+    /** Un nivel de la rueda: {@code wheelSize} cubos de {@code tick} ms. */
+    private final class Level {
+
+        final long tick;
+        final long interval;
+        final Bucket<T>[] buckets;
+        long currentTime;
+        Level overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tick, long currentTime) {
+            this.tick = tick;
+            this.interval = tick * wheelSize;
+            this.currentTime = currentTime;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        Bucket<T> bucket(long slotStart) {
+            return buckets[(int) Math.floorMod(slotStart / tick, (long) wheelSize)];
+        }
+
+        Level overflow() {
+            if (overflow == null) {
+                overflow = new Level(interval, floor(currentTime, interval));
+            }
+            return overflow;
+        }
+
+        /** Vacía en {@code drained} los cubos cuyo inicio queda entre el reloj anterior y {@code nowMs}. */
+        void advance(long nowMs, List<Timeout<T>> drained) {
+            long target = floor(nowMs, tick);
+            if (target <= currentTime) {
+                return;
+            }
+            // Tras una vuelta completa todos los cubos han vencido: basta con visitar cada uno una vez
+            long steps = Math.min((target - currentTime) / tick, wheelSize);
+            for (long i = 0; i < steps; i++) {
+                bucket(target - i * tick).drainTo(drained);
+            }
+            currentTime = target;
+        }
+    }
+
+    /** Lista doblemente enlazada con centinela: alta y baja en O(1). */
+    private static final class Bucket<T> {
+
+        private final Timeout<T> head = new Timeout<>(null, null, 0);
+
+        Bucket() {
+            head.next = head;
+            head.previous = head;
+        }
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.previous = head.previous;
+            timeout.next = head;
+            head.previous.next = timeout;
+            head.previous = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            timeout.previous.next = timeout.next;
+            timeout.next.previous = timeout.previous;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void drainTo(List<Timeout<T>> drained) {
+            while (head.next != head) {
+                Timeout<T> timeout = head.next;
+                remove(timeout);
+                drained.add(timeout);
+            }
+        }
+    }
+
+    /** Elemento programado. */
+    public static final class Timeout<T> {
+
+        private final HierarchicalTimingWheel<T> wheel;
+        private final T payload;
+        private final long expirationMs;
+        private Bucket<T> bucket;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private boolean expired;
+        private boolean cancelled;
+
+        private Timeout(HierarchicalTimingWheel<T> wheel, T payload, long expirationMs) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.expirationMs = expirationMs;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getExpirationMs() {
+            return expirationMs;
+        }
+
+        /** @return false si ya había vencido o estaba cancelado. */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+    }
+}
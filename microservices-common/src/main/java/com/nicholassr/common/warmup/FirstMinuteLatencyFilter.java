@@ -0,0 +1,89 @@
+package com.nicholassr.common.warmup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de las peticiones que llegan durante los primeros {@code app.warmup.latency-report.window-ms}
+ * tras pasar a {@code ACCEPTING_TRAFFIC}: timer {@code http.server.requests.first-minute} (p50, p90 y p99) y,
+ * al cerrar la ventana, un resumen en el log. Las peticiones del calentamiento no cuentan (son anteriores).
+ */
+public class FirstMinuteLatencyFilter extends OncePerRequestFilter
+        implements ApplicationListener<AvailabilityChangeEvent<ReadinessState>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirstMinuteLatencyFilter.class);
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final WarmupProperties properties;
+    private final Timer timer;
+    // Fin de la ventana en System.nanoTime(); 0 mientras no se acepte tráfico
+    private volatile long windowEnd;
+
+    public FirstMinuteLatencyFilter(WarmupProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.timer = Timer.builder("http.server.requests.first-minute")
+                .description("Latencia de las peticiones recibidas justo después de aceptar tráfico")
+                .tag("warmup", String.valueOf(properties.isEnabled()))
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onApplicationEvent(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || windowEnd != 0) {
+            return;
+        }
+        long windowMs = properties.getLatencyReport().getWindowMs();
+        windowEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+        CompletableFuture.delayedExecutor(windowMs, TimeUnit.MILLISECONDS).execute(this::logSummary);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        long end = windowEnd;
+        if (end == 0 || System.nanoTime() - end > 0) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getLatencyReport().getPaths().stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void logSummary() {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        StringBuilder percentiles = new StringBuilder();
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            percentiles.append(String.format(" p%.0f=%.1fms", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+        }
+        logger.info("Latencia tras aceptar tráfico ({} ms, calentamiento {}): {} peticiones,{} max={}ms.",
+                properties.getLatencyReport().getWindowMs(), properties.isEnabled() ? "activado" : "desactivado",
+                snapshot.count(), percentiles, String.format("%.1f", snapshot.max(TimeUnit.MILLISECONDS)));
+    }
+}
@@ -0,0 +1,51 @@
+package com.nicholassr.common.warmup;
+
+import com.nicholassr.common.concurrency.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Calentamiento previo a aceptar tráfico ({@code app.warmup.enabled=true}) y medida de la latencia de las
+ * primeras peticiones reales ({@code app.warmup.latency-report.enabled}, activa por defecto para poder
+ * comparar con y sin calentamiento).
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(WarmupProperties.class)
+public class WarmupAutoConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.warmup", name = "enabled", havingValue = "true")
+    public WarmupRunner warmupRunner(WarmupProperties properties, ObjectProvider<WarmupTask> tasks,
+                                     ObjectProvider<DataSource> dataSource, ObjectProvider<MeterRegistry> meterRegistry,
+                                     ObjectProvider<GradientConcurrencyLimiter> concurrencyLimiter) {
+        return new WarmupRunner(properties, tasks.orderedStream().toList(), dataSource.getIfUnique(),
+                meterRegistry.getIfAvailable(), concurrencyLimiter.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.warmup.latency-report", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FirstMinuteLatencyFilter firstMinuteLatencyFilter(WarmupProperties properties,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        return new FirstMinuteLatencyFilter(properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.warmup.latency-report", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<FirstMinuteLatencyFilter> firstMinuteLatencyFilterRegistration(FirstMinuteLatencyFilter filter) {
+        FilterRegistrationBean<FirstMinuteLatencyFilter> registration = new FilterRegistrationBean<>(filter);
+        // Justo después del límite de concurrencia: mide todo lo demás, incluida la espera por el pool JDBC
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
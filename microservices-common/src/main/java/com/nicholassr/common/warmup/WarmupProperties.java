@@ -0,0 +1,62 @@
+package com.nicholassr.common.warmup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calentamiento antes de aceptar tráfico: peticiones sintéticas contra la propia aplicación y tareas
+ * ({@link WarmupTask}) hasta que el JIT ha compilado los caminos calientes.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.warmup")
+public class WarmupProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Rutas GET (con query) que se piden a la propia aplicación por HTTP. {@code {i}} se sustituye por
+     * 1..{@code distinct-ids}, así no se repite siempre la misma fila ni la misma entrada de caché. Los
+     * corchetes de la query van codificados ({@code %5B}, {@code %5D}).
+     */
+    private List<String> paths = new ArrayList<>();
+
+    /** Headers de esas peticiones (p. ej. la API key interna). */
+    private Map<String, String> headers = new LinkedHashMap<>();
+
+    /** Ejecuciones de cada ruta y de cada tarea. */
+    private int iterations = 2000;
+
+    private int distinctIds = 100;
+
+    /** Hilos que lanzan las ejecuciones a la vez. */
+    private int concurrency = 4;
+
+    /** Tope del calentamiento: pasado este tiempo la aplicación pasa a aceptar tráfico aunque falten ejecuciones. */
+    private long maxDurationMs = 30_000;
+
+    /** Conexiones del pool JDBC que se abren antes de empezar (0 = ninguna). */
+    private int poolConnections = 10;
+
+    private LatencyReport latencyReport = new LatencyReport();
+
+    /**
+     * Latencia de las peticiones reales justo después de pasar a ACCEPTING_TRAFFIC (métrica
+     * {@code http.server.requests.first-minute} y un resumen en el log). Independiente de {@code enabled}:
+     * sirve para comparar con y sin calentamiento.
+     */
+    @Data
+    public static class LatencyReport {
+
+        private boolean enabled = true;
+
+        private long windowMs = 60_000;
+
+        /** Rutas medidas (patrones Ant). */
+        private List<String> paths = new ArrayList<>(List.of("/api/**"));
+    }
+}
@@ -0,0 +1,209 @@
+package com.nicholassr.common.warmup;
+
+import com.nicholassr.common.concurrency.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calienta la aplicación antes de que pase a aceptar tráfico. Escucha {@link ApplicationReadyEvent} con la
+ * menor precedencia: Spring Boot publica {@code ReadinessState.ACCEPTING_TRAFFIC} justo después de ese
+ * evento y en el mismo hilo, así que mientras esto se ejecuta el servidor ya escucha pero
+ * {@code /actuator/health/readiness} sigue respondiendo 503 y el balanceador no manda peticiones.
+ *
+ * Primero abre {@code pool-connections} conexiones JDBC a la vez (y las devuelve al pool); después reparte
+ * {@code iterations} ejecuciones de cada ruta HTTP y de cada {@link WarmupTask} entre {@code concurrency}
+ * hilos, intercaladas, hasta terminar o hasta {@code max-duration-ms}.
+ *
+ * Las rutas HTTP pasan por el límite de concurrencia, que aprendería las latencias del código aún sin
+ * compilar: al terminar se reinicia el {@link GradientConcurrencyLimiter} para que empiece a medir con el
+ * primer tráfico real.
+ */
+public class WarmupRunner implements ApplicationListener<ApplicationReadyEvent>, Ordered {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    private final WarmupProperties properties;
+    private final List<WarmupTask> tasks;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final GradientConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * @param dataSource         Puede ser null (sin JDBC).
+     * @param meterRegistry      Puede ser null.
+     * @param concurrencyLimiter Puede ser null (límite de concurrencia desactivado).
+     */
+    public WarmupRunner(WarmupProperties properties, List<WarmupTask> tasks, DataSource dataSource,
+                        MeterRegistry meterRegistry, GradientConcurrencyLimiter concurrencyLimiter) {
+        this.properties = properties;
+        this.tasks = tasks;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long start = System.nanoTime();
+        openPoolConnections();
+        List<Job> jobs = new ArrayList<>();
+        if (!properties.getPaths().isEmpty()) {
+            if (event.getApplicationContext() instanceof WebServerApplicationContext webContext) {
+                HttpClient client = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+                String baseUrl = "http://localhost:" + webContext.getWebServer().getPort();
+                for (String path : properties.getPaths()) {
+                    AtomicLong serverErrors = new AtomicLong();
+                    jobs.add(new Job("GET " + path, Integer.MAX_VALUE, serverErrors, i -> {
+                        // Un 404 también calienta el camino; un 5xx se cuenta para el resumen pero no detiene la ruta
+                        if (get(client, baseUrl, path, i) >= 500) {
+                            serverErrors.incrementAndGet();
+                        }
+                    }));
+                }
+            } else {
+                logger.warn("Calentamiento: sin servidor web, se omiten las rutas HTTP.");
+            }
+        }
+        for (WarmupTask task : tasks) {
+            jobs.add(new Job(task.getClass().getSimpleName(), task.maxIterations(), new AtomicLong(), task));
+        }
+        int executions = run(jobs);
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.reset();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (meterRegistry != null) {
+            Timer.builder("app.warmup.duration")
+                    .description("Duración del calentamiento previo a aceptar tráfico")
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        long failed = jobs.stream().filter(job -> job.failed.get()).count();
+        logger.info("Calentamiento completado en {} ms: {} ejecuciones de {} rutas y tareas ({} desactivadas por error, {} respuestas 5xx).",
+                TimeUnit.NANOSECONDS.toMillis(elapsed), executions, jobs.size(), failed,
+                jobs.stream().mapToLong(job -> job.serverErrors.get()).sum());
+    }
+
+    private void openPoolConnections() {
+        if (dataSource == null || properties.getPoolConnections() <= 0) {
+            return;
+        }
+        // Abiertas a la vez: con una sola el pool reutilizaría siempre la misma
+        List<Connection> connections = new ArrayList<>(properties.getPoolConnections());
+        try {
+            for (int i = 0; i < properties.getPoolConnections(); i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            logger.warn("Calentamiento: solo se abrieron {} conexiones JDBC: {}", connections.size(), e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.debug("Calentamiento: error al devolver una conexión al pool: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private int run(List<Job> jobs) {
+        if (jobs.isEmpty()) {
+            return 0;
+        }
+        long total = (long) properties.getIterations() * jobs.size();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getMaxDurationMs());
+        AtomicLong next = new AtomicLong();
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getConcurrency()));
+        for (int t = 0; t < Math.max(1, properties.getConcurrency()); t++) {
+            executor.execute(() -> {
+                long n;
+                while ((n = next.getAndIncrement()) < total && System.nanoTime() < deadline) {
+                    Job job = jobs.get((int) (n % jobs.size()));
+                    int iteration = (int) (n / jobs.size());
+                    if (job.failed.get() || iteration >= job.maxIterations) {
+                        continue;
+                    }
+                    try {
+                        job.action.run(iteration);
+                        executions.incrementAndGet();
+                    } catch (Exception e) {
+                        if (job.failed.compareAndSet(false, true)) {
+                            logger.warn("Calentamiento: '{}' falló y no se vuelve a ejecutar: {}", job.name, e.toString());
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            // Las peticiones en curso al llegar al tope terminan (como mucho) con su timeout
+            if (!executor.awaitTermination(properties.getMaxDurationMs() + REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (next.get() < total) {
+            logger.warn("Calentamiento cortado a los {} ms (app.warmup.max-duration-ms).", properties.getMaxDurationMs());
+        }
+        return executions.get();
+    }
+
+    private int get(HttpClient client, String baseUrl, String path, int iteration) throws IOException, InterruptedException {
+        String id = String.valueOf(iteration % Math.max(1, properties.getDistinctIds()) + 1);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path.replace("{i}", id)))
+                .timeout(REQUEST_TIMEOUT)
+                .GET();
+        properties.getHeaders().forEach(request::header);
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static final class Job {
+
+        final String name;
+        final int maxIterations;
+        final AtomicLong serverErrors;
+        final WarmupTask action;
+        final AtomicBoolean failed = new AtomicBoolean();
+
+        Job(String name, int maxIterations, AtomicLong serverErrors, WarmupTask action) {
+            this.name = name;
+            this.maxIterations = maxIterations;
+            this.serverErrors = serverErrors;
+            this.action = action;
+        }
+    }
+}
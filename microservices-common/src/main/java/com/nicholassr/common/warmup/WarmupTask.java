@@ -0,0 +1,18 @@
+package com.nicholassr.common.warmup;
+
+/**
+ * Trabajo de calentamiento que un servicio registra como bean (p. ej. leer y escribir un documento JSON:API
+ * sintético, sin pasar por la base). {@link WarmupRunner} lo ejecuta {@code app.warmup.iterations} veces
+ * en paralelo; si falla una vez, no se vuelve a ejecutar.
+ */
+@FunctionalInterface
+public interface WarmupTask {
+
+    /** @param iteration 0, 1, 2... (puede servir para variar los datos). */
+    void run(int iteration) throws Exception;
+
+    /** Tope de ejecuciones de esta tarea, p. ej. si llama a otro servicio. */
+    default int maxIterations() {
+        return Integer.MAX_VALUE;
+    }
+}
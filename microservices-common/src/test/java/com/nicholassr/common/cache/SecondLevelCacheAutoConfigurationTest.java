@@ -0,0 +1,127 @@
+package com.nicholassr.common.cache;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecondLevelCacheAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                    HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class,
+                    SecondLevelCacheAutoConfiguration.class, SecondLevelCacheEndpointAutoConfiguration.class))
+            .withUserConfiguration(EntityPackage.class)
+            .withPropertyValues("spring.datasource.url=jdbc:h2:mem:l2cache;DB_CLOSE_DELAY=-1",
+                    "spring.jpa.hibernate.ddl-auto=create-drop");
+
+    @Test
+    void enabled_SecondLoadIsServedFromCache() {
+        contextRunner.withPropertyValues("app.jpa.second-level-cache.enabled=true",
+                        "app.jpa.second-level-cache.regions.widgets.max-entries=100")
+                .run(context -> {
+                    EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+                    Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+                    persist(emf, new Widget(1L, "uno"));
+
+                    load(emf, 1L);
+                    load(emf, 1L);
+
+                    assertThat(statistics.getCacheRegionStatistics("widgets").getHitCount()).isEqualTo(2);
+                    assertThat(statistics.getEntityLoadCount()).isZero();
+                    assertThat(context.getBean(CacheManager.class).getCache("widgets")).isNotNull();
+                    assertThat(context).hasSingleBean(SecondLevelCacheEndpoint.class);
+                });
+    }
+
+    @Test
+    void enabled_UpdateInvalidatesCachedEntity() {
+        contextRunner.withPropertyValues("app.jpa.second-level-cache.enabled=true")
+                .run(context -> {
+                    EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+                    persist(emf, new Widget(2L, "antes"));
+                    load(emf, 2L);
+
+                    EntityManager em = emf.createEntityManager();
+                    em.getTransaction().begin();
+                    em.find(Widget.class, 2L).setName("después");
+                    em.getTransaction().commit();
+                    em.close();
+
+                    assertThat(load(emf, 2L).getName()).isEqualTo("después");
+                    // Región no configurada: la crea la factoría con los valores por defecto
+                    assertThat(context.getBean(CacheManager.class).getCache("widgets")).isNotNull();
+                });
+    }
+
+    @Test
+    void disabled_NoCacheManagerButEndpointAvailable() {
+        contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean(CacheManager.class);
+            assertThat(context).hasSingleBean(SecondLevelCacheEndpoint.class);
+        });
+    }
+
+    private static void persist(EntityManagerFactory emf, Widget widget) {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        em.persist(widget);
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    private static Widget load(EntityManagerFactory emf, Long id) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(Widget.class, id);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @AutoConfigurationPackage
+    static class EntityPackage {
+    }
+
+    @Entity
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "widgets")
+    static class Widget {
+
+        @Id
+        private Long id;
+        private String name;
+
+        protected Widget() {
+        }
+
+        Widget(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.nicholassr.common.compression;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCompressionFilterTest {
+
+    private static final byte[] DOCUMENT = ("{\"data\":[" + "{\"type\":\"products\",\"id\":\"1\",\"attributes\":{\"name\":\"Teclado\"}},".repeat(100)
+            + "{}]}").getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResponseCompressionFilter filter = new ResponseCompressionFilter(new CompressionProperties(),
+            new CompressedResponseCache(1024 * 1024, 64 * 1024), meterRegistry);
+
+    @Test
+    void gzip_CompressesJsonApiAndReplacesContentLength() throws Exception {
+        MockHttpServletResponse response = perform("gzip, deflate", "application/vnd.api+json", DOCUMENT, null);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+        assertArrayEquals(DOCUMENT, new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).readAllBytes());
+    }
+
+    @Test
+    void zstd_PreferredWhenAccepted() throws Exception {
+        MockHttpServletResponse response = perform("gzip, zstd", "application/vnd.api+json", DOCUMENT, null);
+
+        assertEquals("zstd", response.getHeader("Content-Encoding"));
+        assertArrayEquals(DOCUMENT, Zstd.decompress(response.getContentAsByteArray(), DOCUMENT.length));
+    }
+
+    @Test
+    void smallOrUnacceptedBodies_SentAsIs() throws Exception {
+        byte[] small = "{\"data\":[]}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletResponse smallResponse = perform("gzip", "application/vnd.api+json", small, null);
+        MockHttpServletResponse refused = perform("gzip;q=0, identity", "application/vnd.api+json", DOCUMENT, null);
+
+        assertNull(smallResponse.getHeader("Content-Encoding"));
+        assertArrayEquals(small, smallResponse.getContentAsByteArray());
+        assertEquals(small.length, smallResponse.getContentLength());
+        assertNull(refused.getHeader("Content-Encoding"));
+        assertArrayEquals(DOCUMENT, refused.getContentAsByteArray());
+    }
+
+    @Test
+    void otherContentTypes_PassThroughWithDeclaredLength() throws Exception {
+        MockHttpServletResponse response = perform("gzip", "application/gzip", DOCUMENT, null);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertNull(response.getHeader("Vary"));
+        assertEquals(DOCUMENT.length, response.getContentLength());
+        assertArrayEquals(DOCUMENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void strongEtag_CompressedOnceAndWeakened() throws Exception {
+        MockHttpServletResponse first = perform("gzip", "application/vnd.api+json", DOCUMENT, "\"abc\"");
+        MockHttpServletResponse second = perform("gzip", "application/vnd.api+json", DOCUMENT, "\"abc\"");
+
+        assertEquals("W/\"abc\"", first.getHeader("ETag"));
+        assertEquals("W/\"abc\"", second.getHeader("ETag"));
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+        assertEquals(1.0, meterRegistry.get("http.server.compression.responses").tag("cache", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("http.server.compression.responses").tag("cache", "hit").counter().count());
+    }
+
+    @Test
+    void writeListener_WritesTheBodyThroughTheBuffer() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/vnd.api+json");
+                ServletOutputStream out = resp.getOutputStream();
+                out.setWriteListener(new WriteListener() {
+                    @Override
+                    public void onWritePossible() throws IOException {
+                        out.write(DOCUMENT);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+                });
+            }
+        };
+
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertArrayEquals(DOCUMENT, new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).readAllBytes());
+    }
+
+    @Test
+    void negotiate_HonoursQualityAndAvailability() {
+        assertEquals(ContentEncoding.ZSTD, ContentEncoding.negotiate("br, zstd;q=0.5, gzip", true));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("zstd, gzip", false));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("*", false));
+        assertNull(ContentEncoding.negotiate("zstd;q=0, gzip;q=0.0", true));
+        assertNull(ContentEncoding.negotiate(null, true));
+    }
+
+    /** Pasa por el filtro una respuesta escrita como lo hace Spring MVC: headers, Content-Length y cuerpo. */
+    private MockHttpServletResponse perform(String acceptEncoding, String contentType, byte[] body, String etag) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products");
+        request.addHeader("Accept-Encoding", acceptEncoding);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType(contentType);
+                if (etag != null) {
+                    resp.setHeader("ETag", etag);
+                }
+                resp.addHeader("Content-Length", String.valueOf(body.length));
+                resp.getOutputStream().write(body);
+                resp.flushBuffer();
+            }
+        };
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+}
@@ -0,0 +1,55 @@
+package com.nicholassr.common.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimitProperties properties;
+    private GradientConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(2);
+        properties.setMinLimit(2);
+        properties.setPublicShare(0.5);
+        limiter = new GradientConcurrencyLimiter(properties);
+        // La parte pública del límite (1 de 2) queda ocupada
+        assertNotNull(limiter.tryAcquire(false));
+    }
+
+    private int perform(String apiKey) throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, properties, new SimpleMeterRegistry());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products");
+        if (apiKey != null) {
+            request.addHeader(properties.getApiKeyHeader(), apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    @Test
+    void configuredPriorityKey_UsesTheReservedShare() throws Exception {
+        properties.setPriorityApiKey("internal-key");
+
+        assertEquals(503, perform(null));
+        assertEquals(503, perform("other-key"));
+        assertEquals(200, perform("internal-key"));
+    }
+
+    @Test
+    void emptyPriorityKey_MeansNoPriorityTraffic() throws Exception {
+        properties.setPriorityApiKey("");
+
+        assertEquals(503, perform("any-key"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.nicholassr.common.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private ConcurrencyLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(100);
+        properties.setWindowMs(1);
+        properties.setMinWindowSamples(1);
+        properties.setSmoothing(1.0);
+        properties.setPublicShare(0.5);
+    }
+
+    /**
+     * Ejecuta una ventana con todas las peticiones que admite el límite y la latencia indicada.
+     */
+    private void runWindow(GradientConcurrencyLimiter limiter, long latencyNanos) {
+        List<GradientConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        GradientConcurrencyLimiter.Permit permit;
+        while ((permit = limiter.tryAcquire(true)) != null) {
+            permits.add(permit);
+        }
+        clock.addAndGet(latencyNanos);
+        permits.forEach(GradientConcurrencyLimiter.Permit::onSuccess);
+    }
+
+    @Test
+    void stableLatency_LimitGrows() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(properties, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, 10_000_000);
+        }
+
+        assertTrue(limiter.getLimit() > 10, "límite actual: " + limiter.getLimit());
+    }
+
+    @Test
+    void latencyAboveTolerance_LimitShrinks() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(properties, clock::get);
+        runWindow(limiter, 10_000_000);
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, 100_000_000);
+        }
+
+        assertTrue(limiter.getLimit() < before, "antes " + before + ", después " + limiter.getLimit());
+    }
+
+    @Test
+    void failedRequests_BackOffDownToMinLimit() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(properties, clock::get);
+
+        for (int i = 0; i < 100; i++) {
+            GradientConcurrencyLimiter.Permit permit = limiter.tryAcquire(true);
+            clock.addAndGet(1_000_000);
+            permit.onDropped();
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void reset_ForgetsWhatItLearned() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(properties, clock::get);
+        for (int i = 0; i < 100; i++) {
+            GradientConcurrencyLimiter.Permit permit = limiter.tryAcquire(true);
+            clock.addAndGet(1_000_000);
+            permit.onDropped();
+        }
+        GradientConcurrencyLimiter.Permit running = limiter.tryAcquire(true);
+
+        limiter.reset();
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(1, limiter.getInFlight());
+        running.onSuccess();
+        // La referencia se toma de nuevo: una latencia mayor que la del calentamiento no reduce el límite
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, 50_000_000);
+        }
+        assertTrue(limiter.getLimit() >= 10, "límite actual: " + limiter.getLimit());
+    }
+
+    @Test
+    void publicTraffic_CannotUseReservedShare() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(properties, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(limiter.tryAcquire(false));
+        }
+        assertNull(limiter.tryAcquire(false));
+
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(limiter.tryAcquire(true));
+        }
+        assertNull(limiter.tryAcquire(true));
+        assertEquals(10, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,144 @@
+package com.nicholassr.common.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaPoolDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replicaA;
+    private DataSource replicaB;
+    private Connection primaryConnection;
+    private Connection connectionA;
+    private Connection connectionB;
+    private ReadYourWritesTracker tracker;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replicaA = mock(DataSource.class);
+        replicaB = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        connectionA = mock(Connection.class);
+        connectionB = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaA.getConnection()).thenReturn(connectionA);
+        when(replicaB.getConnection()).thenReturn(connectionB);
+        tracker = new ReadYourWritesTracker(60_000);
+    }
+
+    private ReplicaPoolDataSource pool(List<DataSource> replicas) {
+        return new ReplicaPoolDataSource(primary, replicas, tracker, 0, 1);
+    }
+
+    @Test
+    void reads_AreSpreadRoundRobinAcrossReplicas() throws SQLException {
+        ReplicaPoolDataSource pool = pool(List.of(replicaA, replicaB));
+
+        assertSame(connectionA, pool.getConnection());
+        assertSame(connectionB, pool.getConnection());
+        assertSame(connectionA, pool.getConnection());
+    }
+
+    @Test
+    void failingReplica_IsSkippedUntilHealthCheckRestoresIt() throws SQLException {
+        when(replicaA.getConnection()).thenThrow(new SQLException("connection refused")).thenReturn(connectionA);
+        when(connectionA.isValid(1)).thenReturn(true);
+        ReplicaPoolDataSource pool = pool(List.of(replicaA, replicaB));
+
+        assertSame(connectionB, pool.getConnection());
+        assertEquals(1, pool.healthyReplicas());
+        assertSame(connectionB, pool.getConnection());
+
+        pool.checkReplicas();
+        assertEquals(2, pool.healthyReplicas());
+    }
+
+    @Test
+    void noHealthyReplica_FallsBackToPrimary() throws SQLException {
+        when(replicaA.getConnection()).thenThrow(new SQLException("connection refused"));
+        ReplicaPoolDataSource pool = pool(List.of(replicaA));
+
+        assertSame(primaryConnection, pool.getConnection());
+        assertSame(primaryConnection, pool.getConnection());
+    }
+
+    @Test
+    void sessionThatJustWrote_ReadsFromPrimary() throws SQLException {
+        ReplicaPoolDataSource pool = pool(List.of(replicaA));
+
+        tracker.beginRequest("session-1");
+        tracker.recordWrite();
+        tracker.endRequest();
+
+        tracker.beginRequest("session-1");
+        assertSame(primaryConnection, pool.getConnection());
+        tracker.endRequest();
+
+        tracker.beginRequest("session-2");
+        assertSame(connectionA, pool.getConnection());
+        tracker.endRequest();
+    }
+
+    @Test
+    void pinnedSession_ReturnsToReplicasAfterWindow() throws SQLException {
+        tracker = new ReadYourWritesTracker(0);
+        ReplicaPoolDataSource pool = pool(List.of(replicaA));
+
+        tracker.beginRequest("session-1");
+        tracker.recordWrite();
+        tracker.endRequest();
+
+        tracker.beginRequest("session-1");
+        assertSame(connectionA, pool.getConnection());
+        tracker.endRequest();
+        assertEquals(0, tracker.trackedSessions());
+    }
+
+    @Test
+    void writeOutsideRequest_DoesNotPinTheThread() throws SQLException {
+        ReplicaPoolDataSource pool = pool(List.of(replicaA));
+
+        // Hilo de una tarea programada: escribe sin petición en curso
+        tracker.recordWrite();
+        assertSame(connectionA, pool.getConnection());
+
+        tracker.beginRequest(null);
+        tracker.recordWrite();
+        assertSame(primaryConnection, pool.getConnection());
+        tracker.endRequest();
+        assertSame(connectionA, pool.getConnection());
+    }
+
+    @Test
+    void primaryRequiredRequest_ReadsFromPrimaryWithoutWriting() throws SQLException {
+        ReplicaPoolDataSource pool = pool(List.of(replicaA));
+
+        tracker.beginRequest("session-1", true);
+        assertSame(primaryConnection, pool.getConnection());
+        tracker.endRequest();
+
+        // No deja la sesión fijada: la siguiente petición vuelve a la réplica
+        tracker.beginRequest("session-1");
+        assertSame(connectionA, pool.getConnection());
+        tracker.endRequest();
+    }
+
+    @Test
+    void explicitCredentials_GoToPrimary() throws SQLException {
+        when(primary.getConnection("reporting", "secret")).thenReturn(primaryConnection);
+        ReplicaPoolDataSource pool = pool(List.of(replicaA));
+
+        assertSame(primaryConnection, pool.getConnection("reporting", "secret"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.nicholassr.common.export;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExportFileResponderTest {
+
+    @TempDir
+    Path directory;
+
+    private ExportFile file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        Path path = Files.write(directory.resolve("products-20260101T000000000Z.ndjson.gz"), "0123456789".getBytes());
+        file = new ExportFile(path, 10, Instant.parse("2026-01-01T00:00:00.250Z"));
+    }
+
+    @Test
+    void serve_WholeFileWithValidators() throws IOException {
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/exports/ndjson"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+        assertThat(response.getHeader("ETag")).isEqualTo("\"products-20260101T000000000Z.ndjson.gz\"");
+        assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+        assertThat(response.getContentType()).isEqualTo("application/gzip");
+    }
+
+    @Test
+    void serve_SingleRanges() throws IOException {
+        assertRange("bytes=2-5", "2345", "bytes 2-5/10");
+        assertRange("bytes=7-", "789", "bytes 7-9/10");
+        assertRange("bytes=-3", "789", "bytes 7-9/10");
+        assertRange("bytes=8-100", "89", "bytes 8-9/10");
+    }
+
+    @Test
+    void serve_UnsatisfiableRangeIs416() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/exports/ndjson");
+        request.addHeader("Range", "bytes=10-");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void serve_InvalidOrMultipleRangesSendWholeFile() throws IOException {
+        for (String range : new String[]{"bytes=5-2", "bytes=0-1,4-5", "items=0-1"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/exports/ndjson");
+            request.addHeader("Range", range);
+            MockHttpServletResponse response = serve(request);
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo("0123456789");
+        }
+    }
+
+    @Test
+    void serve_IfNoneMatchAndIfModifiedSinceAre304() throws IOException {
+        MockHttpServletRequest byEtag = new MockHttpServletRequest("GET", "/exports/ndjson");
+        byEtag.addHeader("If-None-Match", file.etag());
+        assertThat(serve(byEtag).getStatus()).isEqualTo(304);
+
+        MockHttpServletRequest byDate = new MockHttpServletRequest("GET", "/exports/ndjson");
+        byDate.addHeader("If-Modified-Since", "Thu, 01 Jan 2026 00:00:00 GMT");
+        MockHttpServletResponse response = serve(byDate);
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void serve_IfRangeWithOldEtagSendsWholeFile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/exports/ndjson");
+        request.addHeader("Range", "bytes=2-5");
+        request.addHeader("If-Range", "\"products-20250101T000000000Z.ndjson.gz\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void serve_UsesTomcatSendfileWhenAvailable() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/exports/ndjson");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=2-5");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.path().toString());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(2L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(6L);
+    }
+
+    private void assertRange(String range, String body, String contentRange) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/exports/ndjson");
+        request.addHeader("Range", range);
+        MockHttpServletResponse response = serve(request);
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo(body);
+        assertThat(response.getHeader("Content-Range")).isEqualTo(contentRange);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExportFileResponder.serve(file, request, response);
+        return response;
+    }
+}
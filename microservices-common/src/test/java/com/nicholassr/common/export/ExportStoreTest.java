@@ -0,0 +1,90 @@
+package com.nicholassr.common.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExportStoreTest {
+
+    private static final List<String> COLUMNS = List.of("id", "name", "price");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void export_WritesGzippedNdjson() throws IOException {
+        ExportStore store = new ExportStore(directory, 3);
+
+        ExportFile file = store.export("products", ExportFormat.NDJSON, COLUMNS, writer -> {
+            writer.write(1L, "Lápiz \"HB\"", new BigDecimal("1.50"));
+            writer.write(2L, null, BigDecimal.TEN);
+        });
+
+        assertThat(file.fileName()).startsWith("products-").endsWith(".ndjson.gz");
+        assertThat(gunzip(file.path())).isEqualTo("{\"id\":1,\"name\":\"Lápiz \\\"HB\\\"\",\"price\":1.50}\n"
+                + "{\"id\":2,\"name\":null,\"price\":10}\n");
+        assertThat(store.latest("products", ExportFormat.NDJSON)).contains(file);
+        assertThat(store.latest("products", ExportFormat.CSV)).isEmpty();
+    }
+
+    @Test
+    void export_WritesCsvWithHeaderAndQuoting() throws IOException {
+        ExportStore store = new ExportStore(directory, 3);
+
+        ExportFile file = store.export("products", ExportFormat.CSV, COLUMNS, writer -> {
+            writer.write(1L, "Cable, 2 m", new BigDecimal("1E+1"));
+            writer.write(2L, "Dice \"hola\"", null);
+        });
+
+        assertThat(gunzip(file.path())).isEqualTo("id,name,price\r\n"
+                + "1,\"Cable, 2 m\",10\r\n"
+                + "2,\"Dice \"\"hola\"\"\",\r\n");
+    }
+
+    @Test
+    void export_KeepsOnlyTheMostRecentFiles() throws IOException {
+        ExportStore store = new ExportStore(directory, 2);
+
+        for (int i = 0; i < 4; i++) {
+            long id = i;
+            store.export("products", ExportFormat.NDJSON, COLUMNS, writer -> writer.write(id, "p", BigDecimal.ONE));
+        }
+        ExportFile latest = store.latest("products", ExportFormat.NDJSON).orElseThrow();
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.toList()).hasSize(2).contains(latest.path());
+        }
+        assertThat(gunzip(latest.path())).contains("\"id\":3");
+    }
+
+    @Test
+    void export_FailureLeavesNoFile() throws IOException {
+        ExportStore store = new ExportStore(directory, 2);
+
+        assertThatThrownBy(() -> store.export("products", ExportFormat.CSV, COLUMNS, writer -> {
+            writer.write(1L, "p", BigDecimal.ONE);
+            throw new IOException("cursor cerrado");
+        })).hasMessage("cursor cerrado");
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.toList()).isEmpty();
+        }
+    }
+
+    private static String gunzip(Path path) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
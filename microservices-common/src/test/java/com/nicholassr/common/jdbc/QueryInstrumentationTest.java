@@ -0,0 +1,136 @@
+package com.nicholassr.common.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryInstrumentationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                    QueryInstrumentationAutoConfiguration.class, QueryInstrumentationEndpointAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues("spring.datasource.url=jdbc:h2:mem:queries;DB_CLOSE_DELAY=-1");
+
+    @Test
+    void fingerprint_ReplacesLiteralsAndCollapsesInLists() {
+        String fingerprint = SqlFingerprints.fingerprint(
+                "select p1_0.id, p1_0.name /* load */ from products p1_0\n  where p1_0.name = 'O''Brien' and p1_0.id in (?, ?, ?) limit 10");
+
+        assertThat(fingerprint).isEqualTo("select p1_0.id, p1_0.name from products p1_0 where p1_0.name = ? and p1_0.id in (?...) limit ?");
+        assertThat(SqlFingerprints.fingerprint("select * from products where id in (?,?)"))
+                .isEqualTo(SqlFingerprints.fingerprint("select * from products where id in (?,?,?,?)"));
+        assertThat(SqlFingerprints.operation(fingerprint)).isEqualTo("select");
+    }
+
+    @Test
+    void enabled_RecordsTimingsRowsAndMaskedSlowQueryParameters() {
+        contextRunner.withPropertyValues("app.jdbc.instrumentation.enabled=true",
+                        "app.jdbc.instrumentation.slow-query-threshold-ms=0")
+                .run(context -> {
+                    DataSource dataSource = context.getBean(DataSource.class);
+                    // El bean sigue siendo el pool de Hikari; lo instrumentado es su DataSource físico
+                    assertThat(dataSource).isInstanceOf(HikariDataSource.class);
+                    assertThat(((HikariDataSource) dataSource).getDataSource()).isInstanceOf(InstrumentedDataSource.class);
+                    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+                    jdbc.execute("create table widgets (id bigint primary key, name varchar(50))");
+                    jdbc.update("insert into widgets values (?, ?)", 1L, "uno");
+                    jdbc.update("insert into widgets values (?, ?)", 2L, "dos");
+
+                    List<String> names = jdbc.queryForList("select name from widgets where id >= ? order by id", String.class, 1L);
+
+                    assertThat(names).containsExactly("uno", "dos");
+                    QueryInstrumentation instrumentation = context.getBean(QueryInstrumentation.class);
+                    QueryInstrumentation.StatementStats select = instrumentation.statementFor("select name from widgets where id >= ? order by id");
+                    assertThat(select.executions.sum()).isEqualTo(1);
+                    assertThat(select.totalRows.sum()).isEqualTo(2);
+                    QueryInstrumentation.StatementStats insert = instrumentation.statementFor("insert into widgets values (?, ?)");
+                    assertThat(insert.executions.sum()).isEqualTo(2);
+                    assertThat(insert.totalRows.sum()).isEqualTo(2);
+
+                    assertThat(instrumentation.recentSlowQueries().get(0).parameters()).containsExactly("<Long>");
+                    assertThat(instrumentation.recentSlowQueries().get(1).parameters()).containsExactly("<Long>", "<String(3)>");
+                    MeterRegistry registry = context.getBean(MeterRegistry.class);
+                    assertThat(registry.get("jdbc.query").tag("statement", select.id).timer().count()).isEqualTo(1);
+                    assertThat(registry.get("jdbc.connections.acquire").timer().count()).isGreaterThanOrEqualTo(4);
+                    // Las métricas propias del pool se mantienen
+                    assertThat(registry.get("hikaricp.connections.acquire").timer().count()).isGreaterThanOrEqualTo(4);
+                    assertThat(context.getBean(QueryInstrumentationEndpoint.class).queries())
+                            .extractingByKey("statements", InstanceOfAssertFactories.LIST).hasSize(3);
+                });
+    }
+
+    @Test
+    void enabled_StatementRepeatedWithinRequestIsReported() {
+        contextRunner.withPropertyValues("app.jdbc.instrumentation.enabled=true",
+                        "app.jdbc.instrumentation.repeat-threshold=3")
+                .run(context -> {
+                    JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+                    QueryInstrumentation instrumentation = context.getBean(QueryInstrumentation.class);
+                    jdbc.execute("create table items (id bigint primary key)");
+
+                    instrumentation.beginRequest("GET /api/v1/items");
+                    jdbc.queryForList("select id from items");
+                    for (long id = 1; id <= 3; id++) {
+                        jdbc.queryForList("select id from items where id = " + id);
+                    }
+                    instrumentation.endRequest();
+
+                    assertThat(instrumentation.recentRepeatedStatements()).singleElement().satisfies(event -> {
+                        assertThat(event.request()).isEqualTo("GET /api/v1/items");
+                        assertThat(event.sql()).isEqualTo("select id from items where id = ?");
+                        assertThat(event.executions()).isEqualTo(3);
+                        assertThat(event.requestQueries()).isEqualTo(4);
+                    });
+                    assertThat(instrumentation.recentSlowQueries()).isEmpty();
+                });
+    }
+
+    @Test
+    void poolBehindRouting_IsInstrumentedWithItsName() throws Exception {
+        QueryInstrumentationProperties properties = new QueryInstrumentationProperties();
+        properties.setSlowQueryThresholdMs(0);
+        properties.setLogParameterValues(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryInstrumentation instrumentation = new QueryInstrumentation(properties, registry);
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("replica-0");
+        pool.setJdbcUrl("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1");
+        pool.setUsername("sa");
+
+        instrumentation.instrument(pool);
+        instrumentation.instrument(pool);
+        try (pool) {
+            JdbcTemplate jdbc = new JdbcTemplate(pool);
+            jdbc.execute("create table secrets (id bigint primary key, token varchar(50))");
+            jdbc.update("insert into secrets values (?, ?)", 1L, "s3cr3t");
+        }
+
+        assertThat(instrumentation.statementFor("insert into secrets values (?, ?)").executions.sum()).isEqualTo(1);
+        assertThat(registry.get("jdbc.connections.acquire").tag("pool", "replica-0").timer().count()).isEqualTo(2);
+        // Los valores nunca llegan al endpoint, aunque se escriban en DEBUG
+        assertThat(instrumentation.recentSlowQueries().get(0).parameters()).containsExactly("<Long>", "<String(6)>");
+    }
+
+    @Test
+    void disabledByDefault_DataSourceIsNotWrapped() {
+        contextRunner.run(context -> {
+            assertThat(((HikariDataSource) context.getBean(DataSource.class)).getDataSource()).isNull();
+            assertThat(context).doesNotHaveBean(QueryInstrumentationEndpoint.class);
+            Map<String, DataSource> dataSources = context.getBeansOfType(DataSource.class);
+            assertThat(dataSources).hasSize(1);
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package com.nicholassr.common.jsonapi;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.github.jasminb.jsonapi.Link;
+import com.github.jasminb.jsonapi.Links;
+import com.github.jasminb.jsonapi.ResourceConverter;
+import com.github.jasminb.jsonapi.SerializationFeature;
+import com.github.jasminb.jsonapi.exceptions.ResourceParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonApiConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static Widget widget(long id, String name) {
+        Widget widget = new Widget();
+        widget.setId(id);
+        widget.setName(name);
+        widget.setPrice(new BigDecimal("19.90"));
+        widget.setStock(7);
+        widget.setActive(true);
+        widget.setTags(List.of("a", "b"));
+        widget.setDisplayName(name.toUpperCase());
+        widget.setSecret("no-se-serializa");
+        return widget;
+    }
+
+    @Test
+    void writeDocumentCollection_SameTreeAsResourceConverter() throws Exception {
+        Widget withNulls = new Widget();
+        withNulls.setId(2L);
+        JSONAPIDocument<List<Widget>> document = new JSONAPIDocument<>(List.of(widget(1, "uno"), withNulls));
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("total", 2);
+        document.setMeta(meta);
+        Links links = new Links();
+        links.addLink("self", new Link("http://localhost/widgets"));
+        links.addLink("next", null);
+        document.setLinks(links);
+
+        byte[] generated = new JsonApiConverter(objectMapper, Widget.class).writeDocumentCollection(document);
+        byte[] reflective = new ResourceConverter(objectMapper, Widget.class).writeDocumentCollection(document);
+
+        assertEquals(objectMapper.readTree(reflective), objectMapper.readTree(generated));
+    }
+
+    @Test
+    void nonNullMapper_OmitsNullAttributesLikeResourceConverter() throws Exception {
+        ObjectMapper nonNull = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        Widget empty = new Widget();
+        empty.setId(3L);
+        JSONAPIDocument<Widget> document = new JSONAPIDocument<>(empty);
+
+        byte[] generated = new JsonApiConverter(nonNull, Widget.class).writeDocument(document);
+        byte[] reflective = new ResourceConverter(nonNull, Widget.class).writeDocument(document);
+
+        assertEquals(objectMapper.readTree(reflective), objectMapper.readTree(generated));
+    }
+
+    @Test
+    void relationships_SameTreeAsResourceConverter() throws Exception {
+        WidgetBox box = new WidgetBox();
+        box.setId("caja-1");
+        box.setLabel("Caja");
+        box.setWidgets(List.of(widget(1, "uno"), widget(2, "dos")));
+        box.setFeatured(box.getWidgets().get(1));
+        JSONAPIDocument<WidgetBox> document = new JSONAPIDocument<>(box);
+
+        JsonApiConverter generated = new JsonApiConverter(objectMapper, WidgetBox.class, Widget.class);
+        ResourceConverter reflective = new ResourceConverter(objectMapper, WidgetBox.class, Widget.class);
+        assertEquals(objectMapper.readTree(reflective.writeDocument(document)),
+                objectMapper.readTree(generated.writeDocument(document)));
+
+        // included: mismos recursos (ResourceConverter no garantiza el orden)
+        generated.enableSerializationOption(SerializationFeature.INCLUDE_RELATIONSHIP_ATTRIBUTES);
+        reflective.enableSerializationOption(SerializationFeature.INCLUDE_RELATIONSHIP_ATTRIBUTES);
+        JsonNode expected = objectMapper.readTree(reflective.writeDocument(document));
+        JsonNode actual = objectMapper.readTree(generated.writeDocument(document));
+        assertEquals(expected.get("data"), actual.get("data"));
+        assertEquals(2, actual.get("included").size());
+        assertEquals(new HashSet<>(List.of(expected.get("included").get(0), expected.get("included").get(1))),
+                new HashSet<>(List.of(actual.get("included").get(0), actual.get("included").get(1))));
+
+        box.setWidgets(List.of());
+        box.setFeatured(null);
+        assertEquals(objectMapper.readTree(reflective.writeDocument(document)),
+                objectMapper.readTree(generated.writeDocument(document)));
+    }
+
+    @Test
+    void jsonNaming_SameTreeAsResourceConverterAndReadBack() throws Exception {
+        WidgetLabel label = new WidgetLabel();
+        label.setId(5L);
+        label.setDisplayName("Etiqueta");
+        label.setProductURL("http://localhost/widgets/5");
+        label.setUnitsInStock(3);
+        label.setShortLabel("E");
+        JSONAPIDocument<WidgetLabel> document = new JSONAPIDocument<>(label);
+
+        JsonApiConverter generated = new JsonApiConverter(objectMapper, WidgetLabel.class);
+        byte[] written = generated.writeDocument(document);
+        JsonNode expected = objectMapper.readTree(new ResourceConverter(objectMapper, WidgetLabel.class).writeDocument(document));
+
+        assertEquals(expected, objectMapper.readTree(written));
+        assertEquals("http://localhost/widgets/5", expected.at("/data/attributes/product_url").asText());
+        assertEquals(label, generated.readDocument(written, WidgetLabel.class).get());
+    }
+
+    @Test
+    void mapperWithNamingStrategy_IsRejected() {
+        ObjectMapper snakeCase = objectMapper.copy().setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+
+        assertThrows(IllegalArgumentException.class, () -> new JsonApiConverter(snakeCase, Widget.class));
+    }
+
+    @Test
+    void smileRoundTrip_KeepsIdTypeAndDecimalScale() throws Exception {
+        JsonApiConverter smile = new JsonApiConverter(objectMapper.copyWith(new SmileFactory()), Widget.class);
+        Widget original = widget(42, "teclado");
+
+        Widget read = smile.readDocument(smile.writeDocument(new JSONAPIDocument<>(original)), Widget.class).get();
+
+        original.setSecret(null);
+        assertEquals(original, read);
+        assertEquals(new BigDecimal("19.90"), read.getPrice());
+    }
+
+    @Test
+    void readDocumentCollection_ReadsMetaLinksAndSkipsUnknownAttributes() {
+        String json = "{\"data\":[{\"type\":\"widgets\",\"id\":\"5\",\"attributes\":{\"name\":\"x\",\"otro\":{\"a\":1}},"
+                + "\"relationships\":{}}],\"meta\":{\"total\":1},\"links\":{\"next\":{\"href\":\"http://n\"}}}";
+
+        JSONAPIDocument<List<Widget>> document = new JsonApiConverter(objectMapper, Widget.class)
+                .readDocumentCollection(json.getBytes(), Widget.class);
+
+        assertEquals(1, document.get().size());
+        assertEquals(5L, document.get().get(0).getId());
+        assertEquals("x", document.get().get(0).getName());
+        assertEquals(1, document.getMeta().get("total"));
+        assertEquals("http://n", document.getLinks().getNext().getHref());
+    }
+
+    @Test
+    void unknownAttribute_FailsWhenMapperIsStrict() {
+        JsonApiConverter strict = new JsonApiConverter(new ObjectMapper(), Widget.class);
+        byte[] json = "{\"data\":{\"type\":\"widgets\",\"id\":\"1\",\"attributes\":{\"otro\":1}}}".getBytes();
+
+        assertThrows(UncheckedIOException.class, () -> strict.readDocument(json, Widget.class));
+    }
+
+    @Test
+    void errorsDocument_ThrowsResourceParseException() {
+        JsonApiConverter converter = new JsonApiConverter(objectMapper, Widget.class);
+        byte[] json = "{\"errors\":[{\"status\":\"404\",\"title\":\"Not Found\"}]}".getBytes();
+
+        ResourceParseException e = assertThrows(ResourceParseException.class, () -> converter.readDocument(json, Widget.class));
+        assertEquals("404", e.getErrors().getErrors().get(0).getStatus());
+    }
+
+    @Test
+    void classWithoutGeneratedCodec_IsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new JsonApiConverter(objectMapper, String.class));
+        assertNull(new JsonApiConverter(objectMapper, Widget.class)
+                .readDocument("{\"data\":null}".getBytes(), Widget.class).get());
+    }
+}
@@ -0,0 +1,83 @@
+package com.nicholassr.common.jsonapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonApiErrorsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void document_EscapesDetail() throws Exception {
+        byte[] document = JsonApiErrors.document(HttpStatus.NOT_FOUND, "Producto \"42\" no encontrado\n<script>");
+
+        JsonNode error = objectMapper.readTree(document).path("errors").path(0);
+        assertEquals("404", error.path("status").textValue());
+        assertEquals("Not Found", error.path("title").textValue());
+        assertEquals("Producto \"42\" no encontrado\n<script>", error.path("detail").textValue());
+    }
+
+    @Test
+    void document_WithoutDetailIsPreEncoded() {
+        byte[] first = JsonApiErrors.document(HttpStatus.CONFLICT, null);
+
+        assertEquals("{\"errors\":[{\"status\":\"409\",\"title\":\"Conflict\"}]}", new String(first, StandardCharsets.UTF_8));
+        assertSame(first, JsonApiErrors.document(HttpStatus.CONFLICT, null));
+    }
+
+    @Test
+    void document_UnknownStatusHasNoTitle() throws Exception {
+        JsonNode error = objectMapper.readTree(JsonApiErrors.document(HttpStatusCode.valueOf(499), "x")).path("errors").path(0);
+
+        assertEquals("499", error.path("status").textValue());
+        assertFalse(error.has("title"));
+    }
+
+    @Test
+    void jsonApiException_HasNoStackTrace() {
+        JsonApiException exception = JsonApiException.notFound("Product not found with id 1");
+
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        assertEquals("Product not found with id 1", exception.getDetail());
+    }
+
+    @Test
+    void handler_WritesErrorDocuments() throws Exception {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+        ResponseEntity<byte[]> notFound = handler.handleJsonApiException(JsonApiException.notFound("Producto 7 no encontrado"));
+        ResponseEntity<byte[]> badRequest = handler.handleResponseStatusException(
+                new ResponseStatusException(HttpStatus.BAD_REQUEST, "size inválido"));
+
+        assertEquals(HttpStatus.NOT_FOUND, notFound.getStatusCode());
+        assertEquals(JsonApiErrors.MEDIA_TYPE, notFound.getHeaders().getContentType());
+        assertEquals("Producto 7 no encontrado",
+                objectMapper.readTree(notFound.getBody()).path("errors").path(0).path("detail").textValue());
+        assertEquals("400", objectMapper.readTree(badRequest.getBody()).path("errors").path(0).path("status").textValue());
+    }
+
+    @Test
+    void autoConfiguration_RegistersTheHandlerInWebApplications() {
+        AutoConfigurations configurations = AutoConfigurations.of(JsonApiErrorsAutoConfiguration.class);
+        new WebApplicationContextRunner().withConfiguration(configurations)
+                .run(context -> assertTrue(context.containsBean("globalExceptionHandler")));
+        new ApplicationContextRunner().withConfiguration(configurations)
+                .run(context -> assertFalse(context.containsBean("globalExceptionHandler")));
+    }
+}
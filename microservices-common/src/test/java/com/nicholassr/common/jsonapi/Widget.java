@@ -0,0 +1,32 @@
+package com.nicholassr.common.jsonapi;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Recurso de prueba con un atributo de cada tipo que el procesador trata de forma distinta.
+ */
+@Data
+@NoArgsConstructor
+@Type("widgets")
+public class Widget {
+
+    @Id
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Integer stock;
+    private boolean active;
+    private List<String> tags;
+    @JsonProperty("display_name")
+    private String displayName;
+    @JsonIgnore
+    private String secret;
+}
@@ -0,0 +1,26 @@
+package com.nicholassr.common.jsonapi;
+
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Relationship;
+import com.github.jasminb.jsonapi.annotations.Type;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Recurso de prueba con una relación a-muchos y otra a-uno.
+ */
+@Data
+@NoArgsConstructor
+@Type("widget-boxes")
+public class WidgetBox {
+
+    @Id
+    private String id;
+    private String label;
+    @Relationship("widgets")
+    private List<Widget> widgets;
+    @Relationship("featured")
+    private Widget featured;
+}
@@ -0,0 +1,27 @@
+package com.nicholassr.common.jsonapi;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Recurso de prueba con {@code @JsonNaming}: los atributos sin {@code @JsonProperty} van en snake_case.
+ */
+@Data
+@NoArgsConstructor
+@Type("widget-labels")
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class WidgetLabel {
+
+    @Id
+    private Long id;
+    private String displayName;
+    private String productURL;
+    private Integer unitsInStock;
+    @JsonProperty("label")
+    private String shortLabel;
+}
@@ -0,0 +1,64 @@
+package com.nicholassr.common.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void shardFor_SpreadsSequentialKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+        int[] counts = new int[4];
+        for (long key = 1; key <= KEYS; key++) {
+            counts[ring.shardFor(key)]++;
+        }
+
+        for (int count : counts) {
+            assertThat(count).isBetween((int) (KEYS / 4 * 0.8), (int) (KEYS / 4 * 1.2));
+        }
+    }
+
+    @Test
+    void shardFor_SmallKeysAreNotPinnedToFirstShard() {
+        ConsistentHashRing ring = new ConsistentHashRing(2, 128);
+        int[] counts = new int[2];
+        for (long key = 1; key <= 100; key++) {
+            counts[ring.shardFor(key)]++;
+        }
+
+        assertThat(counts[0]).isBetween(25, 75);
+    }
+
+    @Test
+    void addingShard_OnlyMovesKeysToTheNewShard() {
+        ConsistentHashRing three = new ConsistentHashRing(3, 128);
+        ConsistentHashRing four = new ConsistentHashRing(4, 128);
+        int moved = 0;
+        for (long key = 1; key <= KEYS; key++) {
+            int before = three.shardFor(key);
+            int after = four.shardFor(key);
+            if (before != after) {
+                assertThat(after).isEqualTo(3);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween((int) (KEYS / 4 * 0.8), (int) (KEYS / 4 * 1.2));
+    }
+
+    @Test
+    void sameConfiguration_IsDeterministic() {
+        ConsistentHashRing first = new ConsistentHashRing(2, 64);
+        ConsistentHashRing second = new ConsistentHashRing(2, 64);
+
+        for (long key = 1; key <= 1000; key++) {
+            assertThat(first.shardFor(key)).isEqualTo(second.shardFor(key));
+        }
+        assertThat(new ConsistentHashRing(1, 8).shardFor(42)).isZero();
+        assertThatThrownBy(() -> new ConsistentHashRing(0, 8)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.nicholassr.common.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advance_ExpiresNeverEarlyAndAtMostOneTickLate() {
+        // 10 ms x 8 cubos: a partir de 80 ms se usan niveles superiores
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        Random random = new Random(42);
+        Map<Long, Long> expirations = new HashMap<>();
+        for (long i = 0; i < 5_000; i++) {
+            long expiration = 1 + random.nextInt(100_000);
+            expirations.put(i, expiration);
+            wheel.schedule(i, expiration);
+        }
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 100_020; now += 10) {
+            long current = now;
+            wheel.advance(now, id -> firedAt.put(id, current));
+        }
+
+        assertThat(firedAt).hasSize(5_000);
+        firedAt.forEach((id, at) -> assertThat(at - expirations.get(id)).isBetween(0L, 9L));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advance_BigJumpExpiresEverythingDue() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 16, 1_000);
+        wheel.schedule("pronto", 1_500);
+        wheel.schedule("lejos", 1_000_000);
+        wheel.schedule("pasado", 500);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(50_000, fired::add);
+
+        assertThat(fired).containsExactlyInAnyOrder("pronto", "pasado");
+        assertThat(wheel.size()).isEqualTo(1);
+        wheel.advance(1_000_000, fired::add);
+        assertThat(fired).contains("lejos");
+    }
+
+    @Test
+    void cancel_RemovesPendingTimeout() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelada", 50);
+        HierarchicalTimingWheel.Timeout<String> farAway = wheel.schedule("lejana", 5_000);
+        wheel.schedule("activa", 60);
+
+        assertThat(cancelled.cancel()).isTrue();
+        assertThat(farAway.cancel()).isTrue();
+        assertThat(cancelled.cancel()).isFalse();
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(10_000, fired::add);
+        assertThat(fired).containsExactly("activa");
+        assertThat(wheel.size()).isZero();
+    }
+}
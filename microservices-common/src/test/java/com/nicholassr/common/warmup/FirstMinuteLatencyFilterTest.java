@@ -0,0 +1,72 @@
+package com.nicholassr.common.warmup;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FirstMinuteLatencyFilterTest {
+
+    private WarmupProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WarmupProperties();
+        properties.getLatencyReport().setWindowMs(200);
+        registry = new SimpleMeterRegistry();
+    }
+
+    private static void perform(FirstMinuteLatencyFilter filter, String path) throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", path), new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private static void acceptTraffic(FirstMinuteLatencyFilter filter) {
+        filter.onApplicationEvent(new AvailabilityChangeEvent<>(filter, ReadinessState.ACCEPTING_TRAFFIC));
+    }
+
+    private Timer timer(String warmup) {
+        return registry.get("http.server.requests.first-minute").tag("warmup", warmup).timer();
+    }
+
+    @Test
+    void samplesWithWarmup_AreTaggedTrue() throws Exception {
+        properties.setEnabled(true);
+        FirstMinuteLatencyFilter filter = new FirstMinuteLatencyFilter(properties, registry);
+        acceptTraffic(filter);
+        perform(filter, "/api/v1/products");
+
+        assertEquals(1, timer("true").count());
+        assertEquals(0, registry.find("http.server.requests.first-minute").tag("warmup", "false").timers().size());
+    }
+
+    @Test
+    void samplesWithoutWarmup_AreTaggedFalse() throws Exception {
+        FirstMinuteLatencyFilter filter = new FirstMinuteLatencyFilter(properties, registry);
+        acceptTraffic(filter);
+        perform(filter, "/api/v1/products");
+
+        assertEquals(1, timer("false").count());
+    }
+
+    @Test
+    void onlyRequestsInsideTheWindowAndOnMeasuredPaths_AreRecorded() throws Exception {
+        FirstMinuteLatencyFilter filter = new FirstMinuteLatencyFilter(properties, registry);
+
+        perform(filter, "/api/v1/products");
+        acceptTraffic(filter);
+        perform(filter, "/api/v1/products");
+        perform(filter, "/actuator/health");
+        Thread.sleep(300);
+        perform(filter, "/api/v1/products");
+
+        assertEquals(1, timer("false").count());
+    }
+}
@@ -0,0 +1,105 @@
+package com.nicholassr.common.warmup;
+
+import com.nicholassr.common.concurrency.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class WarmupRunnerTest {
+
+    private WarmupProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WarmupProperties();
+        properties.setIterations(10);
+        properties.setConcurrency(1);
+        properties.setPoolConnections(0);
+    }
+
+    private void warmUp(GradientConcurrencyLimiter limiter, WarmupTask... tasks) {
+        WarmupRunner runner = new WarmupRunner(properties, List.of(tasks), null, new SimpleMeterRegistry(), limiter);
+        runner.onApplicationEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0],
+                mock(ConfigurableApplicationContext.class), Duration.ZERO));
+    }
+
+    @Test
+    void failingTask_IsDisabledAfterItsFirstFailure() {
+        AtomicInteger failing = new AtomicInteger();
+        AtomicInteger healthy = new AtomicInteger();
+
+        warmUp(null, iteration -> {
+            failing.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, iteration -> healthy.incrementAndGet());
+
+        assertEquals(1, failing.get());
+        assertEquals(10, healthy.get());
+    }
+
+    @Test
+    void maxDuration_StopsTheLoop() {
+        properties.setIterations(Integer.MAX_VALUE);
+        properties.setMaxDurationMs(200);
+        AtomicInteger executions = new AtomicInteger();
+
+        long start = System.nanoTime();
+        warmUp(null, iteration -> {
+            executions.incrementAndGet();
+            Thread.sleep(10);
+        });
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMs < 2_000, "duró " + elapsedMs + " ms");
+        assertTrue(executions.get() > 0 && executions.get() < 100, executions.get() + " ejecuciones");
+    }
+
+    @Test
+    void taskMaxIterations_CapsThatTaskOnly() {
+        AtomicInteger capped = new AtomicInteger();
+        AtomicInteger uncapped = new AtomicInteger();
+
+        warmUp(null, new WarmupTask() {
+            @Override
+            public void run(int iteration) {
+                capped.incrementAndGet();
+            }
+
+            @Override
+            public int maxIterations() {
+                return 3;
+            }
+        }, iteration -> uncapped.incrementAndGet());
+
+        assertEquals(3, capped.get());
+        assertEquals(10, uncapped.get());
+    }
+
+    @Test
+    void concurrencyLimiter_IsResetAfterTheRun() {
+        GradientConcurrencyLimiter limiter = mock(GradientConcurrencyLimiter.class);
+        AtomicInteger executions = new AtomicInteger();
+
+        warmUp(limiter, iteration -> {
+            executions.incrementAndGet();
+            // Si ya se hubiera reiniciado, el fallo cortaría el hilo antes de llegar a 10 ejecuciones
+            verify(limiter, never()).reset();
+        });
+
+        assertEquals(10, executions.get());
+        verify(limiter).reset();
+    }
+}
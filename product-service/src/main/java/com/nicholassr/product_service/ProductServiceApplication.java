@@ -2,8 +2,10 @@ package com.nicholassr.product_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Exportación periódica del catálogo (ProductCatalogExport)
 public class ProductServiceApplication {
 
 	public static void main(String[] args) {
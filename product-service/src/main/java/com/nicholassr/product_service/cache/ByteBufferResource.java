@@ -0,0 +1,70 @@
+package com.nicholassr.product_service.cache;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Expone un documento de {@link SerializedResponseCache} como Resource: el ResourceHttpMessageConverter
+ * lo copia tal cual a la respuesta, sin pasar por el serializador.
+ */
+public class ByteBufferResource extends AbstractResource {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferResource(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        ByteBuffer source = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return source.hasRemaining() ? source.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, source.remaining());
+                source.get(bytes, offset, count);
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return source.remaining();
+            }
+        };
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof ByteBufferResource resource && buffer.equals(resource.buffer));
+    }
+
+    @Override
+    public int hashCode() {
+        return buffer.hashCode();
+    }
+
+    @Override
+    public String getDescription() {
+        return "Cached product document [" + buffer.remaining() + " bytes]";
+    }
+}
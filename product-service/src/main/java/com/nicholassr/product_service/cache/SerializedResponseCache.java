@@ -0,0 +1,336 @@
+package com.nicholassr.product_service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Documentos JSON:API ya serializados de {@code GET /api/v1/products/{id}}, por producto y codificación.
+ *
+ * Los bytes se guardan fuera del heap, en un {@link SlabArena} de {@code max-size} reservado al arrancar:
+ * guardar un documento copia sus bytes en un hueco libre y no reserva memoria nueva. Cuando no hay hueco de
+ * su clase de tamaño se expulsa el menos usado recientemente (LRU) de esa clase o, si no tiene ninguno, se
+ * vacía la página del menos usado de toda la caché para dársela a la clase.
+ *
+ * {@link #get} devuelve un {@link Lease} que fija el hueco: si la entrada se expulsa mientras la respuesta
+ * se está escribiendo, el hueco no se reutiliza hasta cerrarlo.
+ *
+ * Una entrada guarda la versión del producto: al actualizar o borrar, {@link #invalidate} deja una marca con
+ * la versión mínima aceptada, para que una lectura que cargó la versión anterior antes del commit no pueda
+ * volver a guardarla. El TTL acota lo que puede tardar otra instancia del servicio en ver un cambio.
+ */
+@Component
+public class SerializedResponseCache {
+
+    public enum Encoding { JSON_API, SMILE }
+
+    private record Key(long productId, Encoding encoding) {
+    }
+
+    /** Documento guardado en un hueco del arena. Los campos mutables están protegidos por "this". */
+    private static final class Entry {
+
+        private final Key key;
+        private final long version;
+        private final int slotClass;
+        private final int offset;
+        private final int length;
+        private final long storedAtNanos;
+        private int pins;
+        private boolean removed;
+
+        private Entry(Key key, long version, int slotClass, int offset, int length, long storedAtNanos) {
+            this.key = key;
+            this.version = version;
+            this.slotClass = slotClass;
+            this.offset = offset;
+            this.length = length;
+            this.storedAtNanos = storedAtNanos;
+        }
+    }
+
+    private record Tombstone(long minVersion, long createdAtNanos) {
+    }
+
+    /**
+     * Un documento servido desde la caché. Mientras no se cierre, su hueco no se reutiliza aunque la entrada
+     * se expulse o se invalide.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private final ByteBuffer body;
+        private boolean closed;
+
+        private Lease(Entry entry, ByteBuffer body) {
+            this.entry = entry;
+            this.body = body;
+        }
+
+        /** Vista de solo lectura del documento (posición 0, límite = longitud). */
+        public ByteBuffer body() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            synchronized (SerializedResponseCache.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                entry.pins--;
+                if (entry.removed && entry.pins == 0) {
+                    arena.free(entry.slotClass, entry.offset);
+                }
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final long maxEntryBytes;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    // Protegidos por "this"
+    private final SlabArena arena;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Long, Tombstone> tombstones = new HashMap<>();
+    private long usedBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter rejectedPuts;
+
+    @Autowired
+    public SerializedResponseCache(@Value("${app.response-cache.enabled:true}") boolean enabled,
+                                   @Value("${app.response-cache.max-size:64MB}") DataSize maxSize,
+                                   @Value("${app.response-cache.max-entry-size:64KB}") DataSize maxEntrySize,
+                                   @Value("${app.response-cache.ttl-ms:60000}") long ttlMs,
+                                   MeterRegistry meterRegistry) {
+        this(enabled, maxSize.toBytes(), maxEntrySize.toBytes(), ttlMs, meterRegistry, System::nanoTime);
+    }
+
+    SerializedResponseCache(boolean enabled, long maxBytes, long maxEntryBytes, long ttlMs,
+                            MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        // Desactivada no se reserva el arena
+        this.arena = enabled ? new SlabArena(maxBytes, (int) Math.min(maxEntryBytes, Integer.MAX_VALUE)) : null;
+        this.maxEntryBytes = enabled ? Math.min(maxEntryBytes, arena.pageSize()) : 0;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.nanoClock = nanoClock;
+        this.hits = Counter.builder("product.response_cache.requests").tag("result", "hit")
+                .description("Lecturas de la caché de respuestas serializadas").register(meterRegistry);
+        this.misses = Counter.builder("product.response_cache.requests").tag("result", "miss")
+                .description("Lecturas de la caché de respuestas serializadas").register(meterRegistry);
+        this.evictions = Counter.builder("product.response_cache.evictions")
+                .description("Entradas expulsadas por falta de espacio o caducadas").register(meterRegistry);
+        this.rejectedPuts = Counter.builder("product.response_cache.rejected_puts")
+                .description("Documentos no guardados por ser de una versión invalidada, demasiado grandes o sin hueco libre")
+                .register(meterRegistry);
+        Gauge.builder("product.response_cache.size", this, SerializedResponseCache::usedBytes)
+                .description("Bytes de los documentos guardados en la caché de respuestas").baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("product.response_cache.allocated", this, SerializedResponseCache::allocatedBytes)
+                .description("Bytes del arena fuera del heap ocupados por huecos en uso").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return el documento, que hay que cerrar cuando se haya escrito la respuesta, o null si no está.
+     */
+    public Lease get(long productId, Encoding encoding) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            Key key = new Key(productId, encoding);
+            entry = entries.get(key);
+            if (entry != null && nanoClock.getAsLong() - entry.storedAtNanos > ttlNanos) {
+                removeEntry(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry != null) {
+                entry.pins++;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Lease(entry, arena.view(entry.offset, entry.length));
+    }
+
+    /**
+     * Guarda el documento de la versión {@code version} del producto, salvo que esa versión ya se haya
+     * invalidado o que el documento supere el tamaño máximo por entrada.
+     */
+    public void put(long productId, Encoding encoding, long version, byte[] body) {
+        if (!enabled) {
+            return;
+        }
+        if (body.length > maxEntryBytes) {
+            rejectedPuts.increment();
+            return;
+        }
+        Key key = new Key(productId, encoding);
+        int slotClass = arena.slotClass(body.length);
+        int offset;
+        synchronized (this) {
+            if (!accepts(key, version, nanoClock.getAsLong())) {
+                return;
+            }
+            offset = reserve(slotClass);
+            if (offset < 0) {
+                rejectedPuts.increment();
+                return;
+            }
+        }
+        // La copia al hueco reservado se hace sin el lock: nadie más lo ve hasta publicarlo
+        arena.write(offset, body);
+
+        synchronized (this) {
+            long now = nanoClock.getAsLong();
+            // Entre tanto pudo llegar una invalidación u otra versión
+            if (!accepts(key, version, now)) {
+                arena.free(slotClass, offset);
+                return;
+            }
+            removeEntry(key);
+            entries.put(key, new Entry(key, version, slotClass, offset, body.length, now));
+            usedBytes += body.length;
+        }
+    }
+
+    /**
+     * Descarta los documentos del producto. Hasta que pase el TTL no se aceptarán documentos de versiones
+     * anteriores a {@code minVersion} ({@link Long#MAX_VALUE} tras un borrado).
+     */
+    public void invalidate(long productId, long minVersion) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            for (Encoding encoding : Encoding.values()) {
+                removeEntry(new Key(productId, encoding));
+            }
+            long now = nanoClock.getAsLong();
+            tombstones.merge(productId, new Tombstone(minVersion, now),
+                    (current, added) -> new Tombstone(Math.max(current.minVersion(), added.minVersion()), now));
+            purgeExpiredTombstones(now);
+        }
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized long allocatedBytes() {
+        return enabled ? arena.allocatedBytes() : 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean accepts(Key key, long version, long now) {
+        Tombstone tombstone = tombstones.get(key.productId());
+        if (tombstone != null && now - tombstone.createdAtNanos() <= ttlNanos && version < tombstone.minVersion()) {
+            rejectedPuts.increment();
+            return false;
+        }
+        Entry previous = entries.get(key);
+        return previous == null || previous.version <= version;
+    }
+
+    /** Reserva un hueco de la clase expulsando lo necesario; -1 si solo quedan documentos fijados. */
+    private int reserve(int slotClass) {
+        int offset = arena.allocate(slotClass);
+        while (offset < 0) {
+            if (!arena.releaseEmptyPage() && !evictFor(slotClass)) {
+                return -1;
+            }
+            offset = arena.allocate(slotClass);
+        }
+        return offset;
+    }
+
+    private boolean evictFor(int slotClass) {
+        Entry sameClass = null;
+        Entry eldest = null;
+        for (Entry entry : entries.values()) {
+            if (entry.pins > 0) {
+                continue;
+            }
+            if (eldest == null) {
+                eldest = entry;
+            }
+            if (entry.slotClass == slotClass) {
+                sameClass = entry;
+                break;
+            }
+        }
+        if (sameClass != null) {
+            removeEntry(sameClass.key);
+            evictions.increment();
+            return true;
+        }
+        if (eldest == null) {
+            return false;
+        }
+        // La clase no tiene nada que expulsar: se vacía la página del menos usado para dársela
+        int page = arena.pageOf(eldest.offset);
+        evict(entry -> arena.pageOf(entry.offset) == page);
+        arena.releasePage(page);
+        return true;
+    }
+
+    private void evict(Predicate<Entry> victim) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (victim.test(entry)) {
+                iterator.remove();
+                release(entry);
+                evictions.increment();
+            }
+        }
+    }
+
+    private void removeEntry(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            release(removed);
+        }
+    }
+
+    /** Libera el hueco de una entrada ya quitada del mapa, o lo deja para cuando se cierre su último Lease. */
+    private void release(Entry entry) {
+        usedBytes -= entry.length;
+        if (entry.pins == 0) {
+            arena.free(entry.slotClass, entry.offset);
+        } else {
+            entry.removed = true;
+        }
+    }
+
+    private void purgeExpiredTombstones(long now) {
+        tombstones.values().removeIf(tombstone -> now - tombstone.createdAtNanos() > ttlNanos);
+    }
+}
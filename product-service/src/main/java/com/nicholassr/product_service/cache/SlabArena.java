@@ -0,0 +1,204 @@
+package com.nicholassr.product_service.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Memoria fuera del heap de {@link SerializedResponseCache}: un único ByteBuffer directo reservado al
+ * arrancar y dividido en páginas de {@code pageSize} bytes. Cada página se asigna a una clase de tamaño
+ * (64 bytes, 128, 256... hasta la página) y se parte en huecos de ese tamaño, así que un documento ocupa
+ * siempre un hueco contiguo y se puede servir como una vista del buffer. Un hueco liberado vuelve a su
+ * clase; una página vacía puede pasar a otra clase con {@link #releasePage}.
+ *
+ * No es seguro entre hilos: lo protege el lock de la caché.
+ */
+class SlabArena {
+
+    static final int MIN_SLOT_BYTES = 64;
+
+    private final ByteBuffer buffer;
+    private final int pageSize;
+    private final int[] slotSizes;
+
+    // Clase de cada página (-1 sin asignar) y huecos ocupados en ella
+    private final int[] pageClass;
+    private final int[] pageUsed;
+    private final IntStack unassignedPages;
+    private final IntStack[] freeSlots;
+    private long allocatedBytes;
+
+    SlabArena(long capacity, int maxSlotBytes) {
+        int limit = (int) Math.max(1, Math.min(capacity, Integer.MAX_VALUE));
+        int slot = Math.max(maxSlotBytes, MIN_SLOT_BYTES);
+        int page = Integer.highestOneBit(slot) == slot ? slot : Integer.highestOneBit(slot) << 1;
+        this.pageSize = Math.min(page, limit);
+        int pages = limit / pageSize;
+        this.buffer = ByteBuffer.allocateDirect(pages * pageSize);
+        this.slotSizes = slotSizes(pageSize);
+        this.pageClass = new int[pages];
+        this.pageUsed = new int[pages];
+        Arrays.fill(pageClass, -1);
+        this.unassignedPages = new IntStack(pages);
+        for (int i = pages - 1; i >= 0; i--) {
+            unassignedPages.push(i);
+        }
+        this.freeSlots = new IntStack[slotSizes.length];
+        for (int i = 0; i < slotSizes.length; i++) {
+            freeSlots[i] = new IntStack(pageSize / slotSizes[i]);
+        }
+    }
+
+    private static int[] slotSizes(int pageSize) {
+        int count = 1;
+        for (int size = MIN_SLOT_BYTES; size < pageSize; size <<= 1) {
+            count++;
+        }
+        int[] sizes = new int[count];
+        for (int i = 0, size = MIN_SLOT_BYTES; i < count - 1; i++, size <<= 1) {
+            sizes[i] = size;
+        }
+        sizes[count - 1] = pageSize;
+        return sizes;
+    }
+
+    int pageSize() {
+        return pageSize;
+    }
+
+    long capacity() {
+        return buffer.capacity();
+    }
+
+    /** Bytes de los huecos en uso, incluida la parte que no llena el documento. */
+    long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /** La clase más pequeña cuyos huecos caben {@code length} bytes, o -1 si no cabe en una página. */
+    int slotClass(int length) {
+        for (int i = 0; i < slotSizes.length; i++) {
+            if (length <= slotSizes[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int slotSize(int slotClass) {
+        return slotSizes[slotClass];
+    }
+
+    int pageOf(int offset) {
+        return offset / pageSize;
+    }
+
+    /**
+     * Reserva un hueco de la clase, de los libres o de una página sin asignar.
+     *
+     * @return el desplazamiento del hueco en el buffer, o -1 si la clase no tiene huecos libres ni quedan páginas.
+     */
+    int allocate(int slotClass) {
+        IntStack free = freeSlots[slotClass];
+        if (free.isEmpty()) {
+            if (unassignedPages.isEmpty()) {
+                return -1;
+            }
+            int page = unassignedPages.pop();
+            pageClass[page] = slotClass;
+            int size = slotSizes[slotClass];
+            int start = page * pageSize;
+            for (int offset = start + (pageSize / size - 1) * size; offset >= start; offset -= size) {
+                free.push(offset);
+            }
+        }
+        int offset = free.pop();
+        pageUsed[pageOf(offset)]++;
+        allocatedBytes += slotSizes[slotClass];
+        return offset;
+    }
+
+    void free(int slotClass, int offset) {
+        freeSlots[slotClass].push(offset);
+        pageUsed[pageOf(offset)]--;
+        allocatedBytes -= slotSizes[slotClass];
+    }
+
+    /**
+     * Devuelve una página sin huecos en uso al conjunto sin asignar, para que la tome otra clase.
+     *
+     * @return false si la página todavía tiene huecos ocupados.
+     */
+    boolean releasePage(int page) {
+        if (pageClass[page] < 0) {
+            return true;
+        }
+        if (pageUsed[page] > 0) {
+            return false;
+        }
+        int start = page * pageSize;
+        freeSlots[pageClass[page]].removeIf(offset -> offset >= start && offset < start + pageSize);
+        pageClass[page] = -1;
+        unassignedPages.push(page);
+        return true;
+    }
+
+    /**
+     * Devuelve al conjunto sin asignar alguna página asignada que se haya quedado sin huecos en uso.
+     *
+     * @return false si no hay ninguna.
+     */
+    boolean releaseEmptyPage() {
+        for (int page = 0; page < pageClass.length; page++) {
+            if (pageClass[page] >= 0 && pageUsed[page] == 0) {
+                return releasePage(page);
+            }
+        }
+        return false;
+    }
+
+    void write(int offset, byte[] body) {
+        buffer.put(offset, body);
+    }
+
+    /** Vista de solo lectura del documento: posición 0 y límite igual a su longitud. */
+    ByteBuffer view(int offset, int length) {
+        return buffer.slice(offset, length).asReadOnlyBuffer();
+    }
+
+    /** Pila de enteros sin cajas para las listas de huecos y páginas libres. */
+    private static final class IntStack {
+
+        private int[] values;
+        private int size;
+
+        IntStack(int capacity) {
+            this.values = new int[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        void removeIf(IntPredicate predicate) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!predicate.test(values[i])) {
+                    values[kept++] = values[i];
+                }
+            }
+            size = kept;
+        }
+    }
+}
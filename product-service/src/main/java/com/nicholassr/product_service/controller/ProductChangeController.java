@@ -0,0 +1,67 @@
+package com.nicholassr.product_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.github.jasminb.jsonapi.exceptions.DocumentSerializationException;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import com.nicholassr.common.jsonapi.JsonApiException;
+import com.nicholassr.product_service.models.ProductChange;
+import com.nicholassr.product_service.services.ProductService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feed de cambios de productos para los servicios que mantienen una copia local (inventory-service).
+ */
+@RestController
+@RequestMapping("/api/v1/products/changes")
+@Tag(name = "Productos", description = "API para la gestión de productos")
+public class ProductChangeController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ProductService productService;
+    private final JsonApiConverter resourceConverter;
+
+    public ProductChangeController(ProductService productService, ObjectMapper objectMapper) {
+        this.productService = productService;
+        this.resourceConverter = new JsonApiConverter(objectMapper, ProductChange.class);
+    }
+
+    @Operation(summary = "Feed de cambios de productos",
+            description = "Cambios con seq mayor que 'after', en orden. meta.latestSeq es el último seq confirmado: "
+                    + "un consumidor nuevo lo guarda antes de la carga inicial y después continúa desde ahí.")
+    @GetMapping(produces = "application/vnd.api+json")
+    public ResponseEntity<byte[]> getChanges(
+            @Parameter(description = "Último seq ya procesado") @RequestParam(defaultValue = "0") long after,
+            @Parameter(description = "Máximo de cambios (hasta 1000)") @RequestParam(defaultValue = "500") int size)
+            throws DocumentSerializationException {
+        if (size < 0 || size > MAX_PAGE_SIZE) {
+            throw JsonApiException.badRequest("size must be between 0 and " + MAX_PAGE_SIZE);
+        }
+        // latestSeq se lee antes que la página: nunca es menor que el último seq que ésta contiene
+        long latestSeq = productService.getLatestChangeSeq();
+        List<ProductChange> changes = size == 0 ? List.of() : productService.getChangesAfter(after, size);
+
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("latestSeq", Math.max(latestSeq, changes.isEmpty() ? 0 : changes.get(changes.size() - 1).getSeq()));
+        meta.put("hasMore", changes.size() == size && size > 0);
+
+        JSONAPIDocument<List<ProductChange>> document = new JSONAPIDocument<>(changes);
+        document.setMeta(meta);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/vnd.api+json"))
+                .body(resourceConverter.writeDocumentCollection(document));
+    }
+}
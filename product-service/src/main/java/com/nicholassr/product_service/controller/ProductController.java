@@ -3,11 +3,17 @@ package com.nicholassr.product_service.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.github.jasminb.jsonapi.JSONAPIDocument;
-import com.github.jasminb.jsonapi.ResourceConverter;
 import com.github.jasminb.jsonapi.exceptions.DocumentSerializationException;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import com.nicholassr.common.jsonapi.JsonApiException;
+import com.nicholassr.product_service.cache.ByteBufferResource;
+import com.nicholassr.product_service.cache.SerializedResponseCache;
 import com.nicholassr.product_service.dtos.ProductDto;
+import com.nicholassr.product_service.exception.ProductNotFoundException;
 import com.nicholassr.product_service.models.Product;
+import com.nicholassr.product_service.services.ProductCursor;
 import com.nicholassr.product_service.services.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,24 +25,41 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import com.github.jasminb.jsonapi.Link;
 import com.github.jasminb.jsonapi.Links;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 
 @RestController
@@ -44,15 +67,33 @@ import java.util.Optional;
 @Tag(name = "Productos", description = "API para la gestión de productos")
 public class ProductController {
 
+    /**
+     * Tipo de medio binario (Smile) que negocian los servicios internos mediante el header Accept.
+     * Los clientes públicos siguen recibiendo JSON:API en texto ({@code application/vnd.api+json}).
+     */
+    public static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+
+    private static final String RESPONSE_CACHE_LEASE = ProductController.class.getName() + ".RESPONSE_CACHE_LEASE";
+
+    /** Campos admitidos en {@code sort}: los que tienen índice (ver V2__products_sort_indexes.sql y V5__products_sort_nulls_last.sql). */
+    private static final Set<String> SORTABLE_FIELDS = Set.of("price", "name", "id");
+    // Máximo de IDs en filter[id]
+    static final int MAX_BULK_IDS = 100;
+
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
     private final ProductService productService;
-    private final ResourceConverter resourceConverter;
+    private final JsonApiConverter resourceConverter;
+    private final JsonApiConverter smileResourceConverter;
     private final ObjectMapper objectMapper;
+    private final SerializedResponseCache responseCache;
 
-    public ProductController(ProductService productService, ObjectMapper objectMapper) {
+    public ProductController(ProductService productService, ObjectMapper objectMapper, SerializedResponseCache responseCache) {
         this.productService = productService;
         this.objectMapper = objectMapper;
-        this.resourceConverter = new ResourceConverter(objectMapper, Product.class);
+        this.responseCache = responseCache;
+        this.resourceConverter = new JsonApiConverter(objectMapper, Product.class);
+        // Misma configuración que el ObjectMapper de Spring, pero codificando el documento JSON:API en Smile
+        this.smileResourceConverter = new JsonApiConverter(objectMapper.copyWith(new SmileFactory()), Product.class);
     }
 
     @Operation(summary = "Crear un nuevo producto",
@@ -86,15 +127,18 @@ public class ProductController {
             logger.info("Producto creado: {}", createdProduct.getId());
 
             URI location = ucb.path("/api/v1/products/{id}").buildAndExpand(createdProduct.getId()).toUri();
-            // 5. Serializar la respuesta (Product con ID) usando ResourceConverter
+            // 5. Serializar la respuesta (Product con ID) con el codec JSON:API generado
             byte[] response = resourceConverter.writeDocument(new JSONAPIDocument<>(createdProduct));
             return ResponseEntity.created(location)
                     .contentType(MediaType.parseMediaType("application/vnd.api+json"))
                     .body(response);
 
         } catch (IOException e) {
-            logger.error("Error de lectura/parseo JSON al crear producto: {}", e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid JSON format: " + e.getMessage(), e);
+            logger.warn("JSON inválido al crear producto: {}", e.getMessage());
+            throw JsonApiException.badRequest("Invalid JSON format: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Producto rechazado: {}", e.getMessage());
+            throw JsonApiException.badRequest(e.getMessage());
         } catch (Exception e) {
             logger.error("Error al crear producto: {}", e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error creating product: " + e.getMessage(), e);
@@ -108,22 +152,88 @@ public class ProductController {
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Product.class))),
             @ApiResponse(responseCode = "404", description = "Producto no encontrado")
     })
-    @GetMapping(value = "/{id}", produces = "application/vnd.api+json")
-    public ResponseEntity<byte[]> getProductById(
-            @Parameter(description = "ID del producto a buscar") @PathVariable Long id) {
+    @GetMapping(value = "/{id}", produces = {"application/vnd.api+json", SMILE_MEDIA_TYPE})
+    public ResponseEntity<Resource> getProductById(
+            @Parameter(description = "ID del producto a buscar") @PathVariable Long id,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (prefersSmile(accept)) {
+            return writeProduct(id, smileResourceConverter, MediaType.parseMediaType(SMILE_MEDIA_TYPE),
+                    SerializedResponseCache.Encoding.SMILE);
+        }
+        return writeProduct(id, resourceConverter, MediaType.parseMediaType("application/vnd.api+json"),
+                SerializedResponseCache.Encoding.JSON_API);
+    }
+
+    /**
+     * Solo se responde en Smile cuando el cliente lo pide de forma explícita y con una calidad
+     * mayor o igual que la de JSON:API. Un Accept ausente o con comodines mantiene el JSON:API en texto.
+     */
+    static boolean prefersSmile(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        double smileQuality = -1;
+        double jsonApiQuality = -1;
+        for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                jsonApiQuality = Math.max(jsonApiQuality, mediaType.getQualityValue());
+            } else if (mediaType.isCompatibleWith(MediaType.parseMediaType(SMILE_MEDIA_TYPE))) {
+                smileQuality = Math.max(smileQuality, mediaType.getQualityValue());
+            } else if (mediaType.isCompatibleWith(MediaType.parseMediaType("application/vnd.api+json"))) {
+                jsonApiQuality = Math.max(jsonApiQuality, mediaType.getQualityValue());
+            }
+        }
+        return smileQuality > 0 && smileQuality >= jsonApiQuality;
+    }
+
+    /**
+     * El hueco de la caché queda fijado hasta que termina la petición, después de escribir el cuerpo.
+     * Fuera de una petición se copia y se suelta en el momento.
+     */
+    private static ByteBuffer holdUntilResponseIsWritten(SerializedResponseCache.Lease lease) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            try (lease) {
+                ByteBuffer copy = ByteBuffer.allocate(lease.body().remaining());
+                copy.put(lease.body().duplicate()).flip();
+                return copy;
+            }
+        }
+        attributes.registerDestructionCallback(RESPONSE_CACHE_LEASE, lease::close,
+                RequestAttributes.SCOPE_REQUEST);
+        return lease.body();
+    }
+
+    /**
+     * Si el documento está en la caché de respuestas se copia tal cual, sin cargar ni serializar el producto.
+     */
+    private ResponseEntity<Resource> writeProduct(Long id, JsonApiConverter converter, MediaType contentType,
+                                                  SerializedResponseCache.Encoding encoding) {
+        SerializedResponseCache.Lease cached = responseCache.get(id, encoding);
+        if (cached != null) {
+            ByteBuffer body = holdUntilResponseIsWritten(cached);
+            return ResponseEntity.ok()
+                    .contentType(contentType)
+                    .contentLength(body.remaining())
+                    .body(new ByteBufferResource(body));
+        }
+
         Optional<Product> product = productService.getProductById(id);
         if (product.isPresent()) {
             try {
-                byte[] response = resourceConverter.writeDocument(new JSONAPIDocument<>(product.get()));
+                byte[] response = converter.writeDocument(new JSONAPIDocument<>(product.get()));
+                Long version = product.get().getVersion();
+                responseCache.put(id, encoding, version == null ? 0 : version, response);
                 return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType("application/vnd.api+json"))
-                        .body(response);
+                        .contentType(contentType)
+                        .contentLength(response.length)
+                        .body(new ByteArrayResource(response));
             } catch (DocumentSerializationException e) {
                 logger.error("Error serializando producto: {}", id, e);
                 throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error serializing product", e);
             }
         } else {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id " + id);
+            throw new ProductNotFoundException(id);
         }
     }
 
@@ -177,11 +287,14 @@ public class ProductController {
                     .body(response);
 
         } catch (IOException e) {
-            logger.error("Error de lectura/parseo JSON al actualizar producto: {}", e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid JSON format: " + e.getMessage(), e);
+            logger.warn("JSON inválido al actualizar producto {}: {}", id, e.getMessage());
+            throw JsonApiException.badRequest("Invalid JSON format: " + e.getMessage());
         } catch (IllegalArgumentException e) { // Este bloque ya lo tienes y lo capturará
-            logger.error("Validacion de payload fallida: {}", e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            logger.warn("Validacion de payload fallida: {}", e.getMessage());
+            throw JsonApiException.badRequest(e.getMessage());
+        } catch (JsonApiException e) {
+            // Resultado esperado (p. ej. ProductNotFoundException): sin traza en el log
+            throw e;
         } catch (RuntimeException e) {
             logger.error("Error al actualizar producto (no encontrado): {}", id, e);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
@@ -207,6 +320,10 @@ public class ProductController {
             productService.deleteProduct(id);
             logger.info("Producto eliminado: {}", id);
             return ResponseEntity.noContent().build();
+        } catch (JsonApiException e) {
+            // ProductNotFoundException: se responde 404 sin traza en el log
+            logger.warn("No se eliminó el producto {}: {}", id, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error al eliminar producto: {}", id, e);
             // In a real app, you might check if the product existed before throwing 404
@@ -215,7 +332,11 @@ public class ProductController {
     }
 
     @Operation(summary = "Listar todos los productos",
-            description = "Obtiene una lista paginada de todos los productos.")
+            description = "Obtiene una lista paginada de todos los productos. Con filter[name] devuelve los productos "
+                    + "cuyo nombre contiene el texto y con filter[name][prefix] los que empiezan por él "
+                    + "(sin distinguir mayúsculas ni tildes). Con filter[price][gte|lte] o sort (price, name, id; "
+                    + "'-' para descendente) la paginación es por cursor: page[cursor] del enlace next. Con filter[id] "
+                    + "(hasta 100 IDs separados por comas) devuelve los que existen, en orden de ID y sin paginar.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de productos obtenida",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Product.class)))
@@ -223,9 +344,41 @@ public class ProductController {
     @GetMapping(produces = "application/vnd.api+json")
     public ResponseEntity<byte[]> getAllProducts(
             @Parameter(description = "Número de página (0-indexed)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Tamaño de la página") @RequestParam(defaultValue = "10") int size) throws DocumentSerializationException {
+            @Parameter(description = "Tamaño de la página") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Texto contenido en el nombre") @RequestParam(name = "filter[name]", required = false) String nameFilter,
+            @Parameter(description = "Prefijo del nombre") @RequestParam(name = "filter[name][prefix]", required = false) String namePrefixFilter,
+            @Parameter(description = "Precio mínimo (inclusivo)") @RequestParam(name = "filter[price][gte]", required = false) BigDecimal minPrice,
+            @Parameter(description = "Precio máximo (inclusivo)") @RequestParam(name = "filter[price][lte]", required = false) BigDecimal maxPrice,
+            @Parameter(description = "Orden, p. ej. price,-name") @RequestParam(name = "sort", required = false) String sort,
+            @Parameter(description = "Cursor de continuación (enlace next)") @RequestParam(name = "page[cursor]", required = false) String cursor,
+            @Parameter(description = "IDs separados por comas") @RequestParam(name = "filter[id]", required = false) List<Long> ids,
+            WebRequest webRequest) throws DocumentSerializationException {
+
+        if (ids != null) {
+            if (nameFilter != null || namePrefixFilter != null || minPrice != null || maxPrice != null || sort != null || cursor != null) {
+                throw JsonApiException.badRequest("filter[id] cannot be combined with other filters, sort or page[cursor]");
+            }
+            return getProductsByIds(ids, webRequest);
+        }
+
+        if (minPrice != null || maxPrice != null || sort != null || cursor != null) {
+            if (nameFilter != null || namePrefixFilter != null) {
+                throw JsonApiException.badRequest("filter[name] cannot be combined with filter[price], sort or page[cursor]");
+            }
+            return getProductsByKeyset(minPrice, maxPrice, sort, cursor, size, webRequest);
+        }
 
-        Page<Product> productPage = productService.getAllProducts(page, size);
+        Page<Product> productPage;
+        String filterQuery = "";
+        if (namePrefixFilter != null && !namePrefixFilter.isBlank()) {
+            productPage = productService.searchProductsByName(namePrefixFilter, true, page, size);
+            filterQuery = "&filter[name][prefix]=" + UriUtils.encodeQueryParam(namePrefixFilter, StandardCharsets.UTF_8);
+        } else if (nameFilter != null && !nameFilter.isBlank()) {
+            productPage = productService.searchProductsByName(nameFilter, false, page, size);
+            filterQuery = "&filter[name]=" + UriUtils.encodeQueryParam(nameFilter, StandardCharsets.UTF_8);
+        } else {
+            productPage = productService.getAllProducts(page, size);
+        }
         List<Product> products = productPage.getContent();
         logger.info("Listando productos, página: {}, tamaño: {}, total elementos: {}", page, size, productPage.getTotalElements());
 
@@ -234,24 +387,24 @@ public class ProductController {
                 .toUriString();
 
         Map<String, String> linksMap = new HashMap<>();
-        linksMap.put("self", baseUrl + "?page=" + page + "&size=" + size);
-        linksMap.put("first", baseUrl + "?page=0&size=" + size);
+        linksMap.put("self", baseUrl + "?page=" + page + "&size=" + size + filterQuery);
+        linksMap.put("first", baseUrl + "?page=0&size=" + size + filterQuery);
 
         if (productPage.hasPrevious()) {
-            linksMap.put("prev", baseUrl + "?page=" + productPage.previousPageable().getPageNumber() + "&size=" + size);
+            linksMap.put("prev", baseUrl + "?page=" + productPage.previousPageable().getPageNumber() + "&size=" + size + filterQuery);
         } else {
             // JSON:API recomienda un enlace a null si no existe la página
             linksMap.put("prev", null);
         }
 
         if (productPage.hasNext()) {
-            linksMap.put("next", baseUrl + "?page=" + productPage.nextPageable().getPageNumber() + "&size=" + size);
+            linksMap.put("next", baseUrl + "?page=" + productPage.nextPageable().getPageNumber() + "&size=" + size + filterQuery);
         } else {
             linksMap.put("next", null);
         }
 
         if (productPage.getTotalPages() > 0) {
-            linksMap.put("last", baseUrl + "?page=" + (productPage.getTotalPages() - 1) + "&size=" + size);
+            linksMap.put("last", baseUrl + "?page=" + (productPage.getTotalPages() - 1) + "&size=" + size + filterQuery);
         } else {
             linksMap.put("last", null);
         }
@@ -266,11 +419,117 @@ public class ProductController {
         jsonApiDocument.setMeta(metaMap);
         jsonApiDocument.setLinks(new Links());
 
-        byte[] response = resourceConverter.writeDocumentCollection(jsonApiDocument);
+        return collectionResponse(resourceConverter.writeDocumentCollection(jsonApiDocument), webRequest);
+    }
+
+    /**
+     * Consulta en bloque de {@code getAllProducts}: los productos que existen de entre los pedidos, sin
+     * enlaces ni totales. Los IDs que faltan son productos borrados o que nunca existieron.
+     */
+    private ResponseEntity<byte[]> getProductsByIds(List<Long> ids, WebRequest webRequest) throws DocumentSerializationException {
+        if (ids.isEmpty() || ids.size() > MAX_BULK_IDS) {
+            throw JsonApiException.badRequest("filter[id] must contain between 1 and " + MAX_BULK_IDS + " IDs");
+        }
+        List<Product> products = productService.getProductsByIds(ids);
+        logger.debug("Consulta en bloque de {} productos, encontrados: {}", ids.size(), products.size());
+
+        JSONAPIDocument<List<Product>> document = new JSONAPIDocument<>(products);
+        document.setMeta(Map.of("requested", ids.size(), "found", products.size()));
+        return collectionResponse(resourceConverter.writeDocumentCollection(document), webRequest);
+    }
+
+    /**
+     * Respuesta de un listado con ETag del documento: si coincide con If-None-Match responde 304 sin cuerpo,
+     * y con app.compression la versión comprimida de la página se sirve de caché mientras el ETag no cambie.
+     */
+    private static ResponseEntity<byte[]> collectionResponse(byte[] response, WebRequest webRequest) {
+        String etag = "\"" + DigestUtils.md5DigestAsHex(response) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType("application/vnd.api+json"))
+                .eTag(etag)
                 .body(response);
     }
 
+    /**
+     * Página de {@code getAllProducts} paginada por clave. Sin totales (exigirían un COUNT sobre todo el
+     * rango): el documento trae los enlaces self y next, y next solo si hay más resultados.
+     */
+    private ResponseEntity<byte[]> getProductsByKeyset(BigDecimal minPrice, BigDecimal maxPrice, String sortParam,
+                                                       String cursor, int size, WebRequest webRequest)
+            throws DocumentSerializationException {
+        if (size < 1) {
+            throw JsonApiException.badRequest("size must be greater than zero");
+        }
+        Sort sort = parseSort(sortParam);
+        ScrollPosition position;
+        try {
+            position = ProductCursor.decode(cursor, sort);
+        } catch (IllegalArgumentException e) {
+            throw JsonApiException.badRequest(e.getMessage());
+        }
+
+        Window<Product> window = productService.findProducts(minPrice, maxPrice, sort, position, size);
+        logger.info("Listando productos por cursor, precio [{}, {}], orden: {}, resultados: {}",
+                minPrice, maxPrice, sort, window.size());
+
+        UriComponentsBuilder base = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .replacePath("/api/v1/products")
+                .queryParam("size", size);
+        if (minPrice != null) {
+            base.queryParam("filter[price][gte]", minPrice.toPlainString());
+        }
+        if (maxPrice != null) {
+            base.queryParam("filter[price][lte]", maxPrice.toPlainString());
+        }
+        if (sortParam != null) {
+            base.queryParam("sort", sortParam);
+        }
+
+        Links links = new Links();
+        UriComponentsBuilder self = base.cloneBuilder();
+        if (cursor != null) {
+            self.queryParam("page[cursor]", cursor);
+        }
+        links.addLink("self", new Link(self.encode().toUriString()));
+        if (window.hasNext()) {
+            String next = ProductCursor.encode(window.positionAt(window.size() - 1));
+            links.addLink("next", new Link(base.cloneBuilder().queryParam("page[cursor]", next).encode().toUriString()));
+        }
+
+        Map<String, Object> metaMap = new HashMap<>();
+        metaMap.put("pageSize", size);
+        metaMap.put("hasNext", window.hasNext());
+
+        JSONAPIDocument<List<Product>> jsonApiDocument = new JSONAPIDocument<>(window.getContent());
+        jsonApiDocument.setMeta(metaMap);
+        jsonApiDocument.setLinks(links);
+
+        return collectionResponse(resourceConverter.writeDocumentCollection(jsonApiDocument), webRequest);
+    }
+
+    /**
+     * Traduce el parámetro {@code sort} de JSON:API (campos separados por comas, '-' para descendente).
+     * Solo se admiten los campos con índice; cualquier otro es un 400, como pide la especificación.
+     */
+    static Sort parseSort(String sortParam) {
+        if (sortParam == null || sortParam.isBlank()) {
+            return Sort.by("id");
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String field : sortParam.split(",")) {
+            String trimmed = field.trim();
+            boolean descending = trimmed.startsWith("-");
+            String property = descending ? trimmed.substring(1) : trimmed;
+            if (!SORTABLE_FIELDS.contains(property)) {
+                throw JsonApiException.badRequest("Unsupported sort field: " + property);
+            }
+            orders.add(descending ? Sort.Order.desc(property) : Sort.Order.asc(property));
+        }
+        return Sort.by(orders);
+    }
+
     // Si tienes otros métodos (getProductById, updateProduct, deleteProduct), cópialos aquí debajo.
 }
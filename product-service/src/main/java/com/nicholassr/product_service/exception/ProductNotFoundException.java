@@ -0,0 +1,12 @@
+package com.nicholassr.product_service.exception;
+
+import com.nicholassr.common.jsonapi.JsonApiException;
+import org.springframework.http.HttpStatus;
+
+/** El producto no existe (404). Sin traza, como todo {@link JsonApiException}. */
+public class ProductNotFoundException extends JsonApiException {
+
+    public ProductNotFoundException(Long id) {
+        super(HttpStatus.NOT_FOUND, "Product not found with id " + id);
+    }
+}
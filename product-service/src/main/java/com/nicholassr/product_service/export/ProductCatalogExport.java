@@ -0,0 +1,92 @@
+package com.nicholassr.product_service.export;
+
+import com.nicholassr.common.export.ExportFile;
+import com.nicholassr.common.export.ExportFormat;
+import com.nicholassr.common.export.ExportRowWriter;
+import com.nicholassr.common.export.ExportStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Exportación del catálogo completo a ficheros NDJSON/CSV comprimidos en {@code app.export.directory}, para
+ * los consumidores que necesitan todos los productos (analítica) en lugar de paginar la API.
+ *
+ * Las filas se leen con un cursor de base de datos ({@code fetch-size} filas por viaje, en una transacción
+ * de solo lectura: en PostgreSQL el driver solo usa cursor así, y con réplicas va a una réplica) y se escriben
+ * según llegan, sin cargar el catálogo en memoria.
+ */
+@Component
+public class ProductCatalogExport implements DisposableBean {
+
+    public static final String DATASET = "products";
+    private static final List<String> COLUMNS = List.of("id", "name", "price");
+
+    private final ExportStore store;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+
+    public ProductCatalogExport(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                @Value("${app.export.directory:./exports}") String directory,
+                                @Value("${app.export.retain:3}") int retain,
+                                @Value("${app.export.fetch-size:1000}") int fetchSize) throws IOException {
+        this.store = new ExportStore(Path.of(directory), retain);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /** Exportación periódica en todos los formatos ({@code app.export.cron}; "-" la desactiva). */
+    @Scheduled(cron = "${app.export.cron:-}")
+    public void exportAll() {
+        for (ExportFormat format : ExportFormat.values()) {
+            store.exportAsync(DATASET, format, COLUMNS, this::writeProducts);
+        }
+    }
+
+    /** Lanza una exportación en segundo plano; false si ya hay una en curso en ese formato. */
+    public boolean requestExport(ExportFormat format) {
+        return store.exportAsync(DATASET, format, COLUMNS, this::writeProducts);
+    }
+
+    public boolean isRunning(ExportFormat format) {
+        return store.isRunning(DATASET, format);
+    }
+
+    public Optional<ExportFile> latest(ExportFormat format) {
+        return store.latest(DATASET, format);
+    }
+
+    @Override
+    public void destroy() {
+        store.close();
+    }
+
+    private void writeProducts(ExportRowWriter writer) throws IOException {
+        try {
+            readTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                    "select id, name, price from products order by id", (RowCallbackHandler) rs -> {
+                        try {
+                            writer.write(rs.getLong("id"), rs.getString("name"), rs.getBigDecimal("price"));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.nicholassr.product_service.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.github.jasminb.jsonapi.annotations.Id;
 import com.github.jasminb.jsonapi.annotations.Type;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
@@ -18,6 +22,7 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @AllArgsConstructor
 @Type("products") // Define el tipo de recurso JSON:API
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "products") // Caché L2 (app.jpa.second-level-cache)
 public class Product {
 
     @jakarta.persistence.Id // Marca el campo como ID para JPA
@@ -28,4 +33,8 @@ public class Product {
     private String name;
     private BigDecimal price;
 
+    @Version // Bloqueo optimista; también identifica la versión serializada en SerializedResponseCache
+    @JsonIgnore
+    private Long version;
+
 }
@@ -0,0 +1,46 @@
+package com.nicholassr.product_service.models;
+
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Entrada del feed de cambios de productos ({@code GET /api/v1/products/changes}). Guarda el estado del
+ * producto tras el cambio, así el consumidor no necesita volver a pedirlo.
+ */
+@Entity
+@Table(name = "product_changes")
+@Data
+@NoArgsConstructor
+@Type("product-changes")
+public class ProductChange {
+
+    @jakarta.persistence.Id
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    private Long productId;
+    private String name;
+    private BigDecimal price;
+    private boolean deleted;
+    private Instant changedAt;
+
+    public static ProductChange of(Product product, boolean deleted) {
+        ProductChange change = new ProductChange();
+        change.setProductId(product.getId());
+        change.setName(product.getName());
+        change.setPrice(product.getPrice());
+        change.setDeleted(deleted);
+        change.setChangedAt(Instant.now());
+        return change;
+    }
+}
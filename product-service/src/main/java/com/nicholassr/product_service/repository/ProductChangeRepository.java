@@ -0,0 +1,27 @@
+package com.nicholassr.product_service.repository;
+
+import com.nicholassr.product_service.models.ProductChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    /** Clave del advisory lock que serializa las escrituras en el feed. */
+    long FEED_LOCK_KEY = 0x70726f64L;
+
+    List<ProductChange> findBySeqGreaterThanOrderBySeq(Long afterSeq, Pageable pageable);
+
+    @Query("select coalesce(max(c.seq), 0) from ProductChange c")
+    Long findLatestSeq();
+
+    /**
+     * Toma el advisory lock del feed hasta el final de la transacción. Con él, el orden de los seq es
+     * también el orden de commit: un consumidor que ya leyó el seq N no puede ver aparecer después un N-1.
+     */
+    @Query(value = "select 1 from (select pg_advisory_xact_lock(:key)) feed_lock", nativeQuery = true)
+    Integer lockFeed(@Param("key") long key);
+}
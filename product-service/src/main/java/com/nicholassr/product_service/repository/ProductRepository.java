@@ -1,7 +1,34 @@
 package com.nicholassr.product_service.repository;
 
 import com.nicholassr.product_service.models.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    /**
+     * Id y nombre de los productos con id mayor que {@code afterId}, por lotes (paginación por clave).
+     * Solo lo usa la carga del índice de nombres, que no necesita la entidad completa.
+     */
+    @Query("select p.id as id, p.name as name from Product p where p.id > :afterId order by p.id")
+    List<ProductName> findNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Búsqueda con LIKE, solo mientras el índice en memoria se está cargando.
+     */
+    Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
+
+    Page<Product> findByNameStartingWithIgnoreCase(String name, Pageable pageable);
+
+    interface ProductName {
+        Long getId();
+
+        String getName();
+    }
 }
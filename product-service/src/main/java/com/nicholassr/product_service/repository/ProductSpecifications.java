@@ -0,0 +1,125 @@
+package com.nicholassr.product_service.repository;
+
+import com.nicholassr.product_service.models.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtros de la colección de productos traducidos a predicados SQL (los resuelven los índices de
+ * {@code V2__products_sort_indexes.sql} y {@code V5__products_sort_nulls_last.sql}).
+ *
+ * Los productos con la columna de ordenación a NULL van al final en los dos sentidos (NULLS LAST) y el
+ * cursor puede guardar un NULL: la comparación con el último valor servido trata NULL como mayor que
+ * cualquier valor, y dos NULL como iguales.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * El orden pedido con el id como último desempate, en el sentido de la última columna, para que el
+     * orden sea total y un índice (columna, id) lo pueda recorrer de una vez.
+     */
+    public static Sort totalOrder(Sort sort) {
+        if (sort.getOrderFor("id") != null) {
+            return sort;
+        }
+        Sort.Order last = null;
+        for (Sort.Order order : sort) {
+            last = order;
+        }
+        return sort.and(Sort.by(last != null && last.isDescending() ? Sort.Order.desc("id") : Sort.Order.asc("id")));
+    }
+
+    /**
+     * Una página de productos en el rango de precio (límites inclusivos, null = sin límite), ordenada por
+     * {@code totalOrder} con NULLS LAST y a continuación de {@code after} (vacío en la primera página).
+     *
+     * La consulta se parte en dos tramos de la primera columna de ordenación, cada uno resoluble por su
+     * índice sin recorrer lo ya servido: {@code nullTail = false} son las filas con valor (con la cota
+     * {@code columna >= último valor} como condición del índice), {@code nullTail = true} las que la tienen
+     * a NULL, que van detrás.
+     */
+    public static Specification<Product> page(BigDecimal min, BigDecimal max, Sort totalOrder,
+                                              Map<String, Object> after, boolean nullTail) {
+        return (root, query, cb) -> {
+            List<Order> orders = new ArrayList<>();
+            for (Sort.Order order : totalOrder) {
+                Path<?> column = root.get(order.getProperty());
+                orders.add(order.isAscending()
+                        ? ((HibernateCriteriaBuilder) cb).asc(column, false)
+                        : ((HibernateCriteriaBuilder) cb).desc(column, false));
+            }
+            query.orderBy(orders);
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (min != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), min));
+            }
+            if (max != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), max));
+            }
+            List<Sort.Order> columns = totalOrder.toList();
+            Sort.Order leading = columns.get(0);
+            Path<Comparable<Object>> leadingColumn = root.get(leading.getProperty());
+            boolean leadingNullable = !"id".equals(leading.getProperty());
+            if (nullTail) {
+                predicates.add(cb.isNull(leadingColumn));
+                // Si el cursor quedó en el tramo con valores, los NULL empiezan desde el principio
+                if (!after.isEmpty() && after.get(leading.getProperty()) == null) {
+                    predicates.add(after(root, cb, columns.subList(1, columns.size()), after));
+                }
+            } else {
+                if (leadingNullable) {
+                    predicates.add(cb.isNotNull(leadingColumn));
+                }
+                if (!after.isEmpty()) {
+                    Comparable<Object> last = cast(after.get(leading.getProperty()));
+                    predicates.add(leading.isAscending()
+                            ? cb.greaterThanOrEqualTo(leadingColumn, last)
+                            : cb.lessThanOrEqualTo(leadingColumn, last));
+                    predicates.add(after(root, cb, columns, after));
+                }
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Filas posteriores a la posición {@code after} en el orden de {@code columns}:
+     * {@code c1 > v1 OR (c1 = v1 AND (c2 > v2 OR (c2 = v2 AND ...)))}, con NULL al final.
+     */
+    private static Predicate after(Root<Product> root, CriteriaBuilder cb, List<Sort.Order> columns,
+                                   Map<String, Object> after) {
+        Predicate result = cb.disjunction();
+        for (int i = columns.size() - 1; i >= 0; i--) {
+            Sort.Order order = columns.get(i);
+            Path<Comparable<Object>> column = root.get(order.getProperty());
+            Comparable<Object> value = cast(after.get(order.getProperty()));
+            Predicate equal = value == null ? cb.isNull(column) : cb.equal(column, value);
+            // Detrás de un NULL no hay nada; detrás de un valor, los mayores (o menores) y los NULL
+            Predicate greater = value == null ? cb.disjunction() : cb.or(
+                    order.isAscending() ? cb.greaterThan(column, value) : cb.lessThan(column, value),
+                    cb.isNull(column));
+            result = i == columns.size() - 1 ? greater : cb.or(greater, cb.and(equal, result));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> cast(Object value) {
+        return (Comparable<Object>) value;
+    }
+}
@@ -0,0 +1,393 @@
+package com.nicholassr.product_service.search;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria de los nombres de producto para {@code filter[name]}.
+ *
+ * Guarda dos estructuras sobre el nombre normalizado (minúsculas y sin tildes):
+ * <ul>
+ *     <li>Listas de ids por trigrama ({@code long[]} ordenados), para la búsqueda por subcadena: se recorre la
+ *     lista más corta de los trigramas de la consulta, se avanza por las demás con búsqueda binaria y se
+ *     verifica la subcadena sobre el nombre. Junto a ellas, listas por cada carácter y cada par de caracteres
+ *     del nombre: una consulta de menos de {@value #GRAM} caracteres es exactamente una de esas listas.</li>
+ *     <li>Un mapa ordenado nombre → ids para la búsqueda por prefijo.</li>
+ * </ul>
+ *
+ * El recorrido se corta en cuanto la página está completa y se han contado {@value #MAX_COUNT} coincidencias:
+ * el total de una búsqueda muy amplia es entonces una cota inferior ({@link SearchResult#exact()} false).
+ */
+@Component
+public class ProductNameIndex {
+
+    static final int GRAM = 3;
+    /** Coincidencias que se cuentan como mucho por búsqueda. */
+    static final int MAX_COUNT = 10_000;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> namesById = new HashMap<>();
+    private final SortedIds allIds = new SortedIds();
+    private final Map<String, SortedIds> postings = new HashMap<>();
+    private final NavigableMap<String, SortedIds> idsByName = new TreeMap<>();
+    // Borrados llegados durante una reconstrucción: la carga no debe volver a añadirlos
+    private final Set<Long> tombstones = new HashSet<>();
+    private boolean rebuilding;
+    private volatile boolean ready;
+
+    /**
+     * Página de resultados: ids en el orden de la búsqueda y total de coincidencias (exacto, o una cota
+     * inferior si se llegó a {@value #MAX_COUNT}).
+     */
+    public record SearchResult(List<Long> ids, long total, boolean exact) {
+    }
+
+    /** Alta o cambio de nombre de un producto. */
+    public void put(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            if (name != null) {
+                addInternal(id, normalize(name));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Para la reconstrucción: como {@link #put}, pero sin pisar un producto ya indexado ni resucitar uno
+     * borrado desde {@link #beginRebuild}; las altas, cambios y borrados que llegan mientras se lee la tabla
+     * ganan a lo leído.
+     */
+    public void putIfAbsent(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            if (name != null && !namesById.containsKey(id) && !tombstones.contains(id)) {
+                addInternal(id, normalize(name));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            if (rebuilding) {
+                tombstones.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            namesById.clear();
+            allIds.clear();
+            postings.clear();
+            idsByName.clear();
+            tombstones.clear();
+            rebuilding = false;
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Empieza una carga con {@link #putIfAbsent}: desde aquí se recuerdan los borrados hasta {@link #markReady}. */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            tombstones.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Marca el índice como completo (tras la carga inicial). */
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = false;
+            tombstones.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Mientras es false el índice puede estar incompleto y las búsquedas deben ir a la base de datos. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return namesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Productos cuyo nombre contiene {@code query}, ordenados por id.
+     */
+    public SearchResult searchSubstring(String query, int offset, int limit) {
+        String needle = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (needle.length() < GRAM) {
+                return exact(needle.isEmpty() ? allIds : postings.get(needle), offset, limit);
+            }
+            List<SortedIds> lists = new ArrayList<>();
+            for (String gram : grams(needle)) {
+                SortedIds ids = postings.get(gram);
+                if (ids == null) {
+                    return new SearchResult(List.of(), 0, true);
+                }
+                lists.add(ids);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            SortedIds smallest = lists.get(0);
+            int[] cursors = new int[lists.size()];
+
+            Page page = new Page(offset, limit);
+            for (int i = 0; i < smallest.size && !page.full(); i++) {
+                long id = smallest.ids[i];
+                boolean inAll = true;
+                for (int l = 1; l < lists.size(); l++) {
+                    SortedIds other = lists.get(l);
+                    cursors[l] = other.lowerBound(id, cursors[l]);
+                    if (cursors[l] == other.size) {
+                        // Una lista agotada: no puede haber más coincidencias
+                        return page.result(true);
+                    }
+                    if (other.ids[cursors[l]] != id) {
+                        inAll = false;
+                        break;
+                    }
+                }
+                if (inAll && namesById.get(id).contains(needle)) {
+                    page.add(id);
+                }
+            }
+            return page.result(!page.full());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Productos cuyo nombre empieza por {@code prefix}, ordenados por nombre y después por id.
+     */
+    public SearchResult searchPrefix(String prefix, int offset, int limit) {
+        String start = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, SortedIds> range = start.isEmpty()
+                    ? idsByName
+                    : idsByName.subMap(start, true, start + Character.MAX_VALUE, false);
+            Page page = new Page(offset, limit);
+            for (SortedIds ids : range.values()) {
+                if (page.full()) {
+                    return page.result(false);
+                }
+                if (!page.skip(ids.size)) {
+                    for (int i = 0; i < ids.size; i++) {
+                        page.add(ids.ids[i]);
+                    }
+                }
+            }
+            return page.result(true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Subcadena corta: su lista son justo las coincidencias, así que el total es exacto sin recorrerla. */
+    private static SearchResult exact(SortedIds ids, int offset, int limit) {
+        if (ids == null) {
+            return new SearchResult(List.of(), 0, true);
+        }
+        List<Long> page = new ArrayList<>(Math.max(0, Math.min(limit, ids.size - offset)));
+        for (int i = offset; i < ids.size && i - offset < limit; i++) {
+            page.add(ids.ids[i]);
+        }
+        return new SearchResult(page, ids.size, true);
+    }
+
+    private void addInternal(Long id, String name) {
+        namesById.put(id, name);
+        allIds.add(id);
+        idsByName.computeIfAbsent(name, key -> new SortedIds()).add(id);
+        for (String gram : grams(name)) {
+            postings.computeIfAbsent(gram, key -> new SortedIds()).add(id);
+        }
+        for (String gram : shortGrams(name)) {
+            postings.computeIfAbsent(gram, key -> new SortedIds()).add(id);
+        }
+    }
+
+    private void removeInternal(Long id) {
+        String previous = namesById.remove(id);
+        if (previous == null) {
+            return;
+        }
+        allIds.remove(id);
+        removeFrom(idsByName, previous, id);
+        for (String gram : grams(previous)) {
+            removeFrom(postings, gram, id);
+        }
+        for (String gram : shortGrams(previous)) {
+            removeFrom(postings, gram, id);
+        }
+    }
+
+    private static void removeFrom(Map<String, SortedIds> map, String key, long id) {
+        SortedIds ids = map.get(key);
+        if (ids != null && ids.remove(id) && ids.size == 0) {
+            map.remove(key);
+        }
+    }
+
+    /** Trigramas distintos del texto (ya normalizado). */
+    static List<String> grams(String text) {
+        if (text.length() < GRAM) {
+            return Collections.emptyList();
+        }
+        List<String> grams = new ArrayList<>(text.length() - GRAM + 1);
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM);
+            if (!grams.contains(gram)) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    /** Caracteres y pares de caracteres distintos del texto (ya normalizado). */
+    static Set<String> shortGrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int length = 1; length < GRAM; length++) {
+            for (int i = 0; i + length <= text.length(); i++) {
+                grams.add(text.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /** Ids ordenados sin cajas. Las cargas llegan en orden de id, así que casi siempre se añade al final. */
+    private static final class SortedIds {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            if (size > 0 && size * 4 < ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+            }
+            return true;
+        }
+
+        /** Primera posición desde {@code from} con un id mayor o igual que {@code id}. */
+        int lowerBound(long id, int from) {
+            int index = Arrays.binarySearch(ids, from, size, id);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        void clear() {
+            ids = new long[4];
+            size = 0;
+        }
+    }
+
+    /** Recoge la página pedida y cuenta las coincidencias hasta {@value #MAX_COUNT}. */
+    private static final class Page {
+
+        private final int offset;
+        private final int limit;
+        private final List<Long> ids;
+        private long total;
+
+        Page(int offset, int limit) {
+            this.offset = offset;
+            this.limit = limit;
+            this.ids = new ArrayList<>(Math.min(limit, 64));
+        }
+
+        void add(long id) {
+            if (total >= offset && ids.size() < limit) {
+                ids.add(id);
+            }
+            total++;
+        }
+
+        /** Cuenta {@code count} coincidencias de golpe si quedan todas antes de la página; true si lo hizo. */
+        boolean skip(int count) {
+            if (total + count > offset) {
+                return false;
+            }
+            total += count;
+            return true;
+        }
+
+        /** Ya no hace falta seguir: la página está completa y se alcanzó el máximo a contar. */
+        boolean full() {
+            return total >= Math.max(MAX_COUNT, (long) offset + limit);
+        }
+
+        SearchResult result(boolean exact) {
+            return new SearchResult(ids, total, exact);
+        }
+    }
+}
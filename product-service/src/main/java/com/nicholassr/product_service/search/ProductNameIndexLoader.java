@@ -0,0 +1,51 @@
+package com.nicholassr.product_service.search;
+
+import com.nicholassr.product_service.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Carga el {@link ProductNameIndex} al arrancar. Corre en el ApplicationReadyEvent, antes de que la
+ * aplicación pase a ACCEPTING_TRAFFIC, así que la sonda de readiness espera a que el índice esté completo.
+ */
+@Component
+public class ProductNameIndexLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductNameIndexLoader.class);
+
+    private final ProductRepository productRepository;
+    private final ProductNameIndex nameIndex;
+    private final int batchSize;
+
+    public ProductNameIndexLoader(ProductRepository productRepository, ProductNameIndex nameIndex,
+                                  @Value("${app.search.name-index.batch-size:10000}") int batchSize) {
+        this.productRepository = productRepository;
+        this.nameIndex = nameIndex;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        nameIndex.beginRebuild();
+        List<ProductRepository.ProductName> batch;
+        do {
+            batch = productRepository.findNamesAfter(afterId, PageRequest.ofSize(batchSize));
+            for (ProductRepository.ProductName product : batch) {
+                nameIndex.putIfAbsent(product.getId(), product.getName());
+                afterId = product.getId();
+            }
+        } while (batch.size() == batchSize);
+        nameIndex.markReady();
+        logger.info("Índice de nombres cargado: {} productos en {} ms.",
+                nameIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,86 @@
+package com.nicholassr.product_service.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicholassr.product_service.repository.ProductSpecifications;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cursor opaco de {@code page[cursor]}: los valores de las columnas de ordenación del último producto
+ * servido, en JSON y Base64 URL-safe. El cliente solo lo copia del enlace {@code next}.
+ */
+public final class ProductCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<LinkedHashMap<String, String>> KEYS_TYPE = new TypeReference<>() {
+    };
+
+    private ProductCursor() {
+    }
+
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded as a cursor");
+        }
+        Map<String, String> keys = new LinkedHashMap<>();
+        keyset.getKeys().forEach((property, value) -> keys.put(property, value == null ? null : value.toString()));
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(keys));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot encode cursor", e);
+        }
+    }
+
+    /**
+     * @param sort el orden de la petición: el cursor tiene que traer exactamente sus columnas (más el id de
+     *             desempate), en el mismo orden; uno de otra ordenación no sirve para continuar esta.
+     * @throws IllegalArgumentException si el cursor no es válido o no corresponde al orden pedido.
+     */
+    public static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, String> raw;
+        try {
+            raw = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), KEYS_TYPE);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid page[cursor]", e);
+        }
+        List<String> columns = ProductSpecifications.totalOrder(sort).stream().map(Sort.Order::getProperty).toList();
+        if (raw == null || !List.copyOf(raw.keySet()).equals(columns)) {
+            throw new IllegalArgumentException("page[cursor] does not match the requested sort");
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        raw.forEach((property, value) -> keys.put(property, parse(property, value)));
+        return ScrollPosition.forward(keys);
+    }
+
+    private static Object parse(String property, String value) {
+        // El precio y el nombre pueden ser NULL (van al final); el id no
+        if (value == null) {
+            if ("id".equals(property)) {
+                throw new IllegalArgumentException("Invalid page[cursor]");
+            }
+            return null;
+        }
+        try {
+            return switch (property) {
+                case "id" -> Long.valueOf(value);
+                case "price" -> new BigDecimal(value);
+                case "name" -> value;
+                default -> throw new IllegalArgumentException("Invalid page[cursor]");
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page[cursor]", e);
+        }
+    }
+
+}
@@ -1,26 +1,59 @@
 package com.nicholassr.product_service.services;
 
+import com.nicholassr.product_service.cache.SerializedResponseCache;
+import com.nicholassr.product_service.exception.ProductNotFoundException;
 import com.nicholassr.product_service.models.Product;
+import com.nicholassr.product_service.models.ProductChange;
+import com.nicholassr.product_service.repository.ProductChangeRepository;
 import com.nicholassr.product_service.repository.ProductRepository;
+import com.nicholassr.product_service.repository.ProductSpecifications;
+import com.nicholassr.product_service.search.ProductNameIndex;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
     private final ProductRepository productRepository;
+    private final ProductNameIndex nameIndex;
+    private final SerializedResponseCache responseCache;
+    private final ProductChangeRepository changeRepository;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ProductNameIndex nameIndex,
+                          SerializedResponseCache responseCache, ProductChangeRepository changeRepository) {
         this.productRepository = productRepository;
+        this.nameIndex = nameIndex;
+        this.responseCache = responseCache;
+        this.changeRepository = changeRepository;
     }
 
     @Transactional
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        recordChange(saved, false);
+        afterCommit(() -> nameIndex.put(saved.getId(), saved.getName()));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -40,13 +73,35 @@ public class ProductService {
             }
             // Agrega más campos aquí si los tuvieras y quieres que se actualicen parcialmente
 
-            return productRepository.save(existingProduct);
-        }).orElseThrow(() -> new RuntimeException("Product not found with id " + id));
+            Product saved = productRepository.save(existingProduct);
+            recordChange(saved, false);
+            afterCommit(() -> {
+                nameIndex.put(saved.getId(), saved.getName());
+                // Tras el commit la entidad ya tiene la versión nueva
+                responseCache.invalidate(saved.getId(), saved.getVersion() == null ? 0 : saved.getVersion());
+            });
+            return saved;
+        }).orElseThrow(() -> new ProductNotFoundException(id));
     }
 
     @Transactional
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        // Sin producto no hay cambio que publicar en el feed: 404 como al actualizar
+        Product existing = productRepository.findById(id).orElseThrow(() -> new ProductNotFoundException(id));
+        productRepository.delete(existing);
+        recordChange(existing, true);
+        afterCommit(() -> {
+            nameIndex.remove(id);
+            responseCache.invalidate(id, Long.MAX_VALUE);
+        });
+    }
+
+    /** Los productos existentes de entre {@code ids}, en orden de ID; los que no existen no aparecen. */
+    @Transactional(readOnly = true)
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        List<Product> products = new ArrayList<>(productRepository.findAllById(ids));
+        products.sort(Comparator.comparing(Product::getId));
+        return products;
     }
 
     @Transactional(readOnly = true)
@@ -54,4 +109,121 @@ public class ProductService {
         Pageable pageable = PageRequest.of(page, size);
         return productRepository.findAll(pageable);
     }
+
+    /**
+     * Busca por nombre en el índice en memoria ({@code prefix} = true: el nombre empieza por el texto;
+     * false: lo contiene) y carga solo los productos de la página pedida. Mientras el índice se carga
+     * al arrancar, la búsqueda va a la base de datos con LIKE.
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> searchProductsByName(String query, boolean prefix, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        if (!nameIndex.isReady()) {
+            Pageable byId = PageRequest.of(page, size, Sort.by("id"));
+            return prefix
+                    ? productRepository.findByNameStartingWithIgnoreCase(query, byId)
+                    : productRepository.findByNameContainingIgnoreCase(query, byId);
+        }
+
+        int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+        ProductNameIndex.SearchResult result = prefix
+                ? nameIndex.searchPrefix(query, offset, size)
+                : nameIndex.searchSubstring(query, offset, size);
+
+        // findAllById no conserva el orden: se reordena según el índice.
+        Map<Long, Product> byId = productRepository.findAllById(result.ids()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = result.ids().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        // Con el total como cota inferior se añade uno para que siga habiendo página siguiente
+        return new PageImpl<>(content, pageable, result.exact() ? result.total() : result.total() + 1);
+    }
+
+    /**
+     * Productos en un rango de precio y con un orden dado, paginados por clave: cada página continúa
+     * desde los valores de ordenación del último producto de la anterior, de modo que el coste no crece
+     * con la profundidad como con OFFSET. El id se añade siempre como desempate para que el orden sea
+     * total, y los productos con la columna de ordenación a NULL van al final (ver {@link ProductSpecifications}).
+     *
+     * @param position posición de {@link ProductCursor#decode}, con las mismas columnas que el orden.
+     */
+    @Transactional(readOnly = true)
+    public Window<Product> findProducts(BigDecimal minPrice, BigDecimal maxPrice, Sort sort,
+                                        ScrollPosition position, int size) {
+        Sort totalOrder = ProductSpecifications.totalOrder(sort);
+        Map<String, Object> after = position instanceof KeysetScrollPosition keyset ? keyset.getKeys() : Map.of();
+        String leading = totalOrder.iterator().next().getProperty();
+        boolean inNullTail = !after.isEmpty() && after.get(leading) == null;
+
+        List<Product> content = new ArrayList<>();
+        if (!inNullTail) {
+            content.addAll(productRepository.findBy(
+                    ProductSpecifications.page(minPrice, maxPrice, totalOrder, after, false),
+                    query -> query.limit(size + 1).all()));
+        }
+        // Un filtro de precio ya deja fuera los precios NULL
+        boolean nullable = !"id".equals(leading) && !("price".equals(leading) && (minPrice != null || maxPrice != null));
+        if (content.size() <= size && nullable) {
+            int remaining = size + 1 - content.size();
+            content.addAll(productRepository.findBy(
+                    ProductSpecifications.page(minPrice, maxPrice, totalOrder, after, true),
+                    query -> query.limit(remaining).all()));
+        }
+
+        boolean hasNext = content.size() > size;
+        List<Product> items = hasNext ? content.subList(0, size) : content;
+        return Window.from(items, index -> ScrollPosition.forward(sortKeys(items.get(index), totalOrder)), hasNext);
+    }
+
+    private static Map<String, Object> sortKeys(Product product, Sort totalOrder) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Sort.Order order : totalOrder) {
+            keys.put(order.getProperty(), switch (order.getProperty()) {
+                case "price" -> product.getPrice();
+                case "name" -> product.getName();
+                default -> product.getId();
+            });
+        }
+        return keys;
+    }
+
+    /**
+     * Cambios del feed con seq mayor que {@code afterSeq}, en orden.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductChange> getChangesAfter(long afterSeq, int size) {
+        return changeRepository.findBySeqGreaterThanOrderBySeq(afterSeq, PageRequest.ofSize(size));
+    }
+
+    @Transactional(readOnly = true)
+    public long getLatestChangeSeq() {
+        return changeRepository.findLatestSeq();
+    }
+
+    /**
+     * Añade el cambio al feed en la misma transacción que la escritura del producto.
+     */
+    private void recordChange(Product product, boolean deleted) {
+        changeRepository.lockFeed(ProductChangeRepository.FEED_LOCK_KEY);
+        changeRepository.save(ProductChange.of(product, deleted));
+    }
+
+    /**
+     * El índice de nombres y la caché de respuestas solo reflejan cambios confirmados: si hay transacción se actualiza tras el
+     * commit (un rollback no lo toca); si no, en el momento.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
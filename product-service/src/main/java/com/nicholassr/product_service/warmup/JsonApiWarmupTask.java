@@ -0,0 +1,50 @@
+package com.nicholassr.product_service.warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import com.nicholassr.common.warmup.WarmupTask;
+import com.nicholassr.product_service.dtos.ProductDto;
+import com.nicholassr.product_service.models.Product;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Calentamiento de la serialización: lo mismo que hace {@code ProductController} con un producto sintético
+ * (parseo del cuerpo de un POST, documento JSON:API en JSON y en Smile, colecciones), sin tocar la base.
+ */
+@Component
+public class JsonApiWarmupTask implements WarmupTask {
+
+    private final ObjectMapper objectMapper;
+    private final JsonApiConverter resourceConverter;
+    private final JsonApiConverter smileResourceConverter;
+
+    public JsonApiWarmupTask(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.resourceConverter = new JsonApiConverter(objectMapper, Product.class);
+        this.smileResourceConverter = new JsonApiConverter(objectMapper.copyWith(new SmileFactory()), Product.class);
+    }
+
+    @Override
+    public void run(int iteration) throws Exception {
+        byte[] requestBody = ("{\"data\":{\"type\":\"products\",\"attributes\":{\"name\":\"Warmup " + iteration
+                + "\",\"price\":" + (iteration % 1000) + ".99}}}").getBytes(StandardCharsets.UTF_8);
+        JsonNode attributes = objectMapper.readTree(requestBody).path("data").path("attributes");
+        ProductDto dto = objectMapper.treeToValue(attributes, ProductDto.class);
+
+        Product product = new Product((long) iteration + 1, dto.getName(), dto.getPrice(), 0L);
+        byte[] json = resourceConverter.writeDocument(new JSONAPIDocument<>(product));
+        resourceConverter.readDocument(json, Product.class);
+        byte[] smile = smileResourceConverter.writeDocument(new JSONAPIDocument<>(product));
+        smileResourceConverter.readDocument(smile, Product.class);
+        List<Product> page = List.of(product, new Product(product.getId() + 1, "Warmup", BigDecimal.ONE, 0L));
+        resourceConverter.writeDocumentCollection(new JSONAPIDocument<>(page));
+        smileResourceConverter.writeDocumentCollection(new JSONAPIDocument<>(page));
+    }
+}
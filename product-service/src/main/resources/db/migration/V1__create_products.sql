@@ -0,0 +1,7 @@
+-- Esquema inicial de productos. Hasta ahora lo creaba Hibernate (ddl-auto=update): en bases ya
+-- existentes Flyway marca la línea base en la versión 0 y esta migración no cambia nada.
+CREATE TABLE IF NOT EXISTS products (
+    id    BIGSERIAL PRIMARY KEY,
+    name  VARCHAR(255),
+    price NUMERIC(38, 2)
+);
@@ -0,0 +1,5 @@
+-- Índices para filter[price] y sort: el id final desempata y permite paginar por clave
+-- (WHERE (price, id) > (?, ?) ORDER BY price, id LIMIT n) sin recorrer las filas ya servidas.
+-- Los índices B-tree se recorren en ambos sentidos, así que también sirven para -price y -name.
+CREATE INDEX IF NOT EXISTS idx_products_price_id ON products (price, id);
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products (name, id);
@@ -0,0 +1,3 @@
+-- Versión para bloqueo optimista (@Version en Product). La caché de respuestas serializadas la usa
+-- para no guardar el documento de una versión ya reemplazada.
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- Feed de cambios de productos (altas, cambios y borrados) que consumen otros servicios para mantener
+-- su copia local. seq es el cursor de los consumidores: las escrituras toman un advisory lock antes de
+-- insertar, así que los seq se confirman en orden y un consumidor nunca salta un cambio aún no visible.
+CREATE TABLE IF NOT EXISTS product_changes (
+    seq        BIGSERIAL PRIMARY KEY,
+    product_id BIGINT      NOT NULL,
+    name       VARCHAR(255),
+    price      NUMERIC(38, 2),
+    deleted    BOOLEAN     NOT NULL DEFAULT FALSE,
+    changed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
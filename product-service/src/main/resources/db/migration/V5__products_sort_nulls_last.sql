@@ -0,0 +1,4 @@
+-- Orden descendente con NULLS LAST para sort=-price y sort=-name: el recorrido hacia atrás de los
+-- índices de V2 da DESC NULLS FIRST, así que no sirve. El id desempata en el mismo sentido que la columna.
+CREATE INDEX IF NOT EXISTS idx_products_price_desc_id ON products (price DESC NULLS LAST, id DESC);
+CREATE INDEX IF NOT EXISTS idx_products_name_desc_id ON products (name DESC NULLS LAST, id DESC);
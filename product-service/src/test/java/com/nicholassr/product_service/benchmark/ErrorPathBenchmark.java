@@ -0,0 +1,92 @@
+package com.nicholassr.product_service.benchmark;
+
+import com.nicholassr.common.jsonapi.GlobalExceptionHandler;
+import com.nicholassr.common.jsonapi.JsonApiException;
+import com.nicholassr.product_service.exception.ProductNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Camino de un 404 (GET /api/v1/products/{id} de un id que no existe) antes y después de las excepciones sin
+ * traza: {@code stackTrace} lanza un ResponseStatusException a {@code depth} marcos de profundidad (la pila de
+ * Spring MVC ronda los 100), formatea la traza como hace el log con {@code logger.error(..., e)} y responde
+ * texto plano; {@code stackless} lanza un ProductNotFoundException y responde con {@link GlobalExceptionHandler},
+ * que escribe el documento JSON:API pre-codificado.
+ *
+ * Ejecutar con (sin fork: exec:java no pasa el classpath de test a otra JVM):
+ * mvn -pl product-service test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ *     "-Dexec.args=ErrorPathBenchmark -f 0"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    @Param({"10", "100"})
+    public int depth;
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    private long id = 1_000_000L;
+
+    @Benchmark
+    public ResponseEntity<byte[]> stackTrace(Blackhole blackhole) {
+        try {
+            throwAt(depth, () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id " + id++));
+            throw new AssertionError();
+        } catch (ResponseStatusException e) {
+            StringWriter log = new StringWriter();
+            e.printStackTrace(new PrintWriter(log));
+            blackhole.consume(log.toString());
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> stackless() {
+        try {
+            throwAt(depth, () -> new ProductNotFoundException(id++));
+            throw new AssertionError();
+        } catch (JsonApiException e) {
+            return handler.handleJsonApiException(e);
+        }
+    }
+
+    /** Crea y lanza la excepción con {@code frames} llamadas en la pila, como en un controlador real. */
+    private static void throwAt(int frames, Supplier<? extends RuntimeException> exception) {
+        if (frames > 0) {
+            throwAt(frames - 1, exception);
+            return;
+        }
+        throw exception.get();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ErrorPathBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
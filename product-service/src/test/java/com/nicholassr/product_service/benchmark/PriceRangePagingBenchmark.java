@@ -0,0 +1,125 @@
+package com.nicholassr.product_service.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Paginación profunda sobre un rango de precio: OFFSET contra paginación por clave, las dos con el
+ * orden que genera {@code GET /api/v1/products?filter[price][gte]=..&sort=price}.
+ *
+ * Con OFFSET PostgreSQL recorre y descarta todas las filas anteriores, así que el tiempo crece con la
+ * profundidad; la consulta por clave es la que genera {@code ProductSpecifications.page}: la cota
+ * {@code price >= ?} hace que el índice idx_products_price_id empiece directamente en la página pedida
+ * (el resto de la condición solo descarta los empates ya servidos) y el tiempo es el mismo en la página 1
+ * que en la 10.000.
+ *
+ * Necesita una base PostgreSQL con las migraciones aplicadas (arrancar product-service una vez). Si la
+ * tabla tiene menos filas de las pedidas, inserta productos de prueba. Ejecutar con:
+ * mvn -pl product-service test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.nicholassr.product_service.benchmark.PriceRangePagingBenchmark
+ *     -Dexec.args="jdbc:postgresql://localhost:5432/productsdb postgres 12345 2000000"
+ */
+public class PriceRangePagingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int REPETITIONS = 20;
+    private static final BigDecimal MIN_PRICE = new BigDecimal("100.00");
+    private static final int[] DEPTHS = {0, 1_000, 10_000, 100_000, 500_000};
+
+    private static final String OFFSET_QUERY = "SELECT id, name, price FROM products WHERE price >= ? "
+            + "ORDER BY price, id LIMIT ? OFFSET ?";
+    private static final String KEYSET_QUERY = "SELECT id, name, price FROM products WHERE price >= ? "
+            + "AND price IS NOT NULL AND price >= ? AND (price > ? OR price IS NULL OR (price = ? AND id > ?)) "
+            + "ORDER BY price NULLS LAST, id LIMIT ?";
+
+    public static void main(String[] args) throws SQLException {
+        String url = args.length > 0 ? args[0] : "jdbc:postgresql://localhost:5432/productsdb";
+        String user = args.length > 1 ? args[1] : "postgres";
+        String password = args.length > 2 ? args[2] : "12345";
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 2_000_000;
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            seed(connection, rows);
+            System.out.printf("%-12s %-16s %-16s%n", "profundidad", "OFFSET (ms)", "keyset (ms)");
+            for (int depth : DEPTHS) {
+                Object[] boundary = boundaryAt(connection, depth);
+                if (depth > 0 && boundary == null) {
+                    break;
+                }
+                double offsetMs = time(connection, depth, null);
+                double keysetMs = time(connection, depth, boundary);
+                System.out.printf("%-12d %-16.3f %-16.3f%n", depth, offsetMs, keysetMs);
+            }
+        }
+    }
+
+    private static void seed(Connection connection, int rows) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("SELECT count(*) FROM products")) {
+            count.next();
+            long existing = count.getLong(1);
+            if (existing >= rows) {
+                return;
+            }
+            System.out.printf("Insertando %d productos de prueba...%n", rows - existing);
+            statement.executeUpdate("INSERT INTO products (name, price) "
+                    + "SELECT 'Producto ' || g, round((random() * 1000)::numeric, 2) "
+                    + "FROM generate_series(1, " + (rows - existing) + ") g");
+            statement.execute("ANALYZE products");
+        }
+    }
+
+    /** Último (price, id) antes de la página en {@code depth}: lo que el cursor lleva codificado. */
+    private static Object[] boundaryAt(Connection connection, int depth) throws SQLException {
+        if (depth == 0) {
+            return null;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(OFFSET_QUERY)) {
+            statement.setBigDecimal(1, MIN_PRICE);
+            statement.setInt(2, 1);
+            statement.setInt(3, depth - 1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next()
+                        ? new Object[]{resultSet.getBigDecimal("price"), resultSet.getLong("id")}
+                        : null;
+            }
+        }
+    }
+
+    private static double time(Connection connection, int depth, Object[] boundary) throws SQLException {
+        boolean keyset = boundary != null;
+        try (PreparedStatement statement = connection.prepareStatement(keyset ? KEYSET_QUERY : OFFSET_QUERY)) {
+            statement.setBigDecimal(1, MIN_PRICE);
+            if (keyset) {
+                for (int i = 2; i <= 4; i++) {
+                    statement.setBigDecimal(i, (BigDecimal) boundary[0]);
+                }
+                statement.setLong(5, (Long) boundary[1]);
+                statement.setInt(6, PAGE_SIZE);
+            } else {
+                statement.setInt(2, PAGE_SIZE);
+                statement.setInt(3, depth);
+            }
+            // Calentamiento: plan y páginas del índice en caché
+            drain(statement);
+            long start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                drain(statement);
+            }
+            return (System.nanoTime() - start) / 1_000_000.0 / REPETITIONS;
+        }
+    }
+
+    private static void drain(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.nicholassr.product_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.github.jasminb.jsonapi.ResourceConverter;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import com.nicholassr.product_service.models.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara JSON:API en texto contra Smile para el documento de un producto
+ * (lo que viaja en cada llamada de inventory-service a GET /api/v1/products/{id}),
+ * con ResourceConverter (reflexión) y con el codec generado en compilación (JsonApiConverter).
+ *
+ * Ejecutar con:
+ * mvn -pl product-service test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.nicholassr.product_service.benchmark.ProductEncodingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductEncodingBenchmark {
+
+    private ResourceConverter jsonConverter;
+    private ResourceConverter smileConverter;
+    private JsonApiConverter generatedJsonConverter;
+    private JsonApiConverter generatedSmileConverter;
+    private Product product;
+    private byte[] jsonPayload;
+    private byte[] smilePayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        jsonConverter = new ResourceConverter(objectMapper, Product.class);
+        smileConverter = new ResourceConverter(objectMapper.copyWith(new SmileFactory()), Product.class);
+        generatedJsonConverter = new JsonApiConverter(objectMapper, Product.class);
+        generatedSmileConverter = new JsonApiConverter(objectMapper.copyWith(new SmileFactory()), Product.class);
+        product = new Product(42L, "Teclado mecánico", new BigDecimal("129.99"), 0L);
+        jsonPayload = jsonConverter.writeDocument(new JSONAPIDocument<>(product));
+        smilePayload = smileConverter.writeDocument(new JSONAPIDocument<>(product));
+    }
+
+    @Benchmark
+    public byte[] encodeJsonApi() throws Exception {
+        return jsonConverter.writeDocument(new JSONAPIDocument<>(product));
+    }
+
+    @Benchmark
+    public byte[] encodeSmile() throws Exception {
+        return smileConverter.writeDocument(new JSONAPIDocument<>(product));
+    }
+
+    @Benchmark
+    public Product decodeJsonApi() {
+        return jsonConverter.readDocument(jsonPayload, Product.class).get();
+    }
+
+    @Benchmark
+    public Product decodeSmile() {
+        return smileConverter.readDocument(smilePayload, Product.class).get();
+    }
+
+    @Benchmark
+    public byte[] encodeJsonApiGenerated() throws Exception {
+        return generatedJsonConverter.writeDocument(new JSONAPIDocument<>(product));
+    }
+
+    @Benchmark
+    public byte[] encodeSmileGenerated() throws Exception {
+        return generatedSmileConverter.writeDocument(new JSONAPIDocument<>(product));
+    }
+
+    @Benchmark
+    public Product decodeJsonApiGenerated() {
+        return generatedJsonConverter.readDocument(jsonPayload, Product.class).get();
+    }
+
+    @Benchmark
+    public Product decodeSmileGenerated() {
+        return generatedSmileConverter.readDocument(smilePayload, Product.class).get();
+    }
+
+    public static void main(String[] args) throws Exception {
+        ProductEncodingBenchmark sizes = new ProductEncodingBenchmark();
+        sizes.setUp();
+        System.out.printf("Bytes por respuesta -> JSON:API: %d, Smile: %d%n",
+                sizes.jsonPayload.length, sizes.smilePayload.length);
+
+        new Runner(new OptionsBuilder()
+                .include(ProductEncodingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
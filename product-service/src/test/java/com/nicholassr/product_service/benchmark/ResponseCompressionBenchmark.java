@@ -0,0 +1,108 @@
+package com.nicholassr.product_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.nicholassr.common.compression.CompressedResponseCache;
+import com.nicholassr.common.compression.ContentEncoding;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import com.nicholassr.product_service.models.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU por respuesta al comprimir una página de GET /api/v1/products de {@code pageSize} productos con gzip y
+ * zstd a varios niveles, y al servirla de {@link CompressedResponseCache} (misma página, mismo ETag). El
+ * {@code main} imprime antes los bytes enviados con cada codificación.
+ *
+ * Ejecutar con:
+ * mvn -pl product-service test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.nicholassr.product_service.benchmark.ResponseCompressionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseCompressionBenchmark {
+
+    private static final String ETAG = "\"page\"";
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    private byte[] page;
+    private CompressedResponseCache cache;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<Product> products = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            products.add(new Product(id, "Producto de catálogo " + id, new BigDecimal(id * 7 % 1000 + ".99"), id % 5));
+        }
+        JSONAPIDocument<List<Product>> document = new JSONAPIDocument<>(products);
+        document.setMeta(Map.of("totalPages", 1000, "totalElements", 1000L * pageSize, "currentPage", 0,
+                "pageSize", pageSize));
+        page = new JsonApiConverter(new ObjectMapper(), Product.class).writeDocumentCollection(document);
+
+        cache = new CompressedResponseCache(64L * 1024 * 1024, 8 * 1024 * 1024);
+        cache.put(ETAG, ContentEncoding.GZIP, ContentEncoding.GZIP.compress(page, 6));
+    }
+
+    @Benchmark
+    public byte[] gzip1() {
+        return ContentEncoding.GZIP.compress(page, 1);
+    }
+
+    @Benchmark
+    public byte[] gzip6() {
+        return ContentEncoding.GZIP.compress(page, 6);
+    }
+
+    @Benchmark
+    public byte[] zstd1() {
+        return ContentEncoding.ZSTD.compress(page, 1);
+    }
+
+    @Benchmark
+    public byte[] zstd3() {
+        return ContentEncoding.ZSTD.compress(page, 3);
+    }
+
+    @Benchmark
+    public byte[] cachedGzip6() {
+        return cache.get(ETAG, ContentEncoding.GZIP);
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int size : new int[]{10, 100, 1000}) {
+            ResponseCompressionBenchmark sizes = new ResponseCompressionBenchmark();
+            sizes.pageSize = size;
+            sizes.setUp();
+            System.out.printf("Bytes por página de %d -> identity: %d, gzip-1: %d, gzip-6: %d, zstd-1: %d, zstd-3: %d%n",
+                    size, sizes.page.length, sizes.gzip1().length, sizes.gzip6().length,
+                    sizes.zstd1().length, sizes.zstd3().length);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(ResponseCompressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,156 @@
+package com.nicholassr.product_service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SerializedResponseCacheTest {
+
+    private static final SerializedResponseCache.Encoding JSON = SerializedResponseCache.Encoding.JSON_API;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private SerializedResponseCache cache(long maxBytes, long maxEntryBytes) {
+        return new SerializedResponseCache(true, maxBytes, maxEntryBytes, 1_000, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] body = new byte[length];
+        Arrays.fill(body, (byte) value);
+        return body;
+    }
+
+    private static byte[] read(SerializedResponseCache.Lease lease) {
+        ByteBuffer body = lease.body().duplicate();
+        byte[] copy = new byte[body.remaining()];
+        body.get(copy);
+        return copy;
+    }
+
+    private static boolean cached(SerializedResponseCache cache, long productId) {
+        SerializedResponseCache.Lease lease = cache.get(productId, JSON);
+        if (lease == null) {
+            return false;
+        }
+        lease.close();
+        return true;
+    }
+
+    @Test
+    void hit_ReturnsStoredBytes() {
+        SerializedResponseCache cache = cache(1024, 1024);
+        cache.put(1L, JSON, 0, new byte[]{1, 2, 3});
+
+        try (SerializedResponseCache.Lease lease = cache.get(1L, JSON)) {
+            assertNotNull(lease);
+            assertArrayEquals(new byte[]{1, 2, 3}, read(lease));
+        }
+        assertNull(cache.get(1L, SerializedResponseCache.Encoding.SMILE));
+    }
+
+    @Test
+    void fullArena_EvictsLeastRecentlyUsed() {
+        // Cuatro páginas de 256 bytes, un documento de 200 por página
+        SerializedResponseCache cache = cache(1024, 256);
+        for (long id = 1; id <= 4; id++) {
+            cache.put(id, JSON, 0, new byte[200]);
+        }
+        assertTrue(cached(cache, 1L));
+
+        cache.put(5L, JSON, 0, new byte[200]);
+
+        assertTrue(cached(cache, 1L));
+        assertFalse(cached(cache, 2L));
+        assertTrue(cached(cache, 5L));
+        assertEquals(800, cache.usedBytes());
+        assertEquals(1024, cache.allocatedBytes());
+    }
+
+    @Test
+    void freedSlots_AreReusedWithoutReservingMore() {
+        SerializedResponseCache cache = cache(1024, 256);
+
+        for (long id = 1; id <= 1_000; id++) {
+            cache.put(id, JSON, 0, filled(40, (int) id));
+        }
+
+        // 1024 bytes dan para 16 huecos de 64 con los documentos más recientes
+        assertEquals(16, cache.size());
+        assertEquals(1024, cache.allocatedBytes());
+        try (SerializedResponseCache.Lease lease = cache.get(1_000L, JSON)) {
+            assertArrayEquals(filled(40, 1_000), read(lease));
+        }
+    }
+
+    @Test
+    void classWithoutRoom_TakesThePageOfTheLeastRecentlyUsed() {
+        SerializedResponseCache cache = cache(1024, 256);
+        for (long id = 1; id <= 4; id++) {
+            cache.put(id, JSON, 0, new byte[200]);
+        }
+
+        cache.put(5L, JSON, 0, filled(40, 5));
+
+        assertFalse(cached(cache, 1L));
+        assertTrue(cached(cache, 2L));
+        assertTrue(cached(cache, 4L));
+        try (SerializedResponseCache.Lease lease = cache.get(5L, JSON)) {
+            assertArrayEquals(filled(40, 5), read(lease));
+        }
+    }
+
+    @Test
+    void evictedWhileServed_KeepsItsBytesUntilClosed() {
+        SerializedResponseCache cache = cache(256, 256);
+        cache.put(1L, JSON, 0, filled(200, 1));
+        SerializedResponseCache.Lease lease = cache.get(1L, JSON);
+
+        cache.invalidate(1L, 1);
+        // El único hueco sigue fijado: no se puede guardar otro documento encima
+        cache.put(2L, JSON, 0, filled(200, 2));
+        assertFalse(cached(cache, 2L));
+        assertArrayEquals(filled(200, 1), read(lease));
+
+        lease.close();
+        lease.close();
+        cache.put(2L, JSON, 0, filled(200, 2));
+        assertTrue(cached(cache, 2L));
+        assertEquals(256, cache.allocatedBytes());
+    }
+
+    @Test
+    void afterInvalidate_StaleVersionIsRejected() {
+        SerializedResponseCache cache = cache(1024, 1024);
+        cache.put(1L, JSON, 0, new byte[10]);
+
+        cache.invalidate(1L, 1);
+        // Una lectura que cargó la versión 0 antes del commit llega tarde
+        cache.put(1L, JSON, 0, new byte[10]);
+        assertNull(cache.get(1L, JSON));
+
+        cache.put(1L, JSON, 1, new byte[10]);
+        assertTrue(cached(cache, 1L));
+    }
+
+    @Test
+    void expiredEntry_IsNotServed() {
+        SerializedResponseCache cache = cache(1024, 1024);
+        cache.put(1L, JSON, 0, new byte[10]);
+
+        clock.addAndGet(2_000_000_000L);
+
+        assertNull(cache.get(1L, JSON));
+        assertEquals(0, cache.usedBytes());
+        assertEquals(0, cache.allocatedBytes());
+    }
+}
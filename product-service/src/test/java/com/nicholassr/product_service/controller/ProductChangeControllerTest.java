@@ -0,0 +1,72 @@
+package com.nicholassr.product_service.controller;
+
+import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nicholassr.common.jsonapi.GlobalExceptionHandler;
+import com.nicholassr.product_service.models.Product;
+import com.nicholassr.product_service.models.ProductChange;
+import com.nicholassr.product_service.services.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductChangeControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private ProductService productService;
+
+    private final ObjectMapper testObjectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductChangeController(productService, testObjectMapper))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private ProductChange change(long seq, long productId, boolean deleted) {
+        ProductChange change = ProductChange.of(new Product(productId, "Teclado", new BigDecimal("19.90"), 0L), deleted);
+        change.setSeq(seq);
+        return change;
+    }
+
+    @Test
+    void getChanges_ReturnsPageAfterSeqWithLatestSeq() throws Exception {
+        when(productService.getLatestChangeSeq()).thenReturn(12L);
+        when(productService.getChangesAfter(10L, 2)).thenReturn(List.of(change(11, 5, false), change(12, 6, true)));
+
+        String body = mockMvc.perform(get("/api/v1/products/changes").param("after", "10").param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode document = testObjectMapper.readTree(body);
+        assertEquals(2, document.get("data").size());
+        assertEquals("11", document.get("data").get(0).get("id").asText());
+        assertEquals(0, new BigDecimal("19.90").compareTo(document.get("data").get(0).get("attributes").get("price").decimalValue()));
+        assertEquals(true, document.get("data").get(1).get("attributes").get("deleted").asBoolean());
+        assertEquals(12, document.get("meta").get("latestSeq").asLong());
+        assertEquals(true, document.get("meta").get("hasMore").asBoolean());
+    }
+
+    @Test
+    void getChanges_SizeTooLarge_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/products/changes").param("size", "5000"))
+                .andExpect(status().isBadRequest());
+    }
+}
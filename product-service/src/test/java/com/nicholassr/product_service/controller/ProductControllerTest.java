@@ -2,28 +2,51 @@ package com.nicholassr.product_service.controller;
 
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.nicholassr.product_service.exception.GlobalExceptionHandler;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.nicholassr.product_service.cache.SerializedResponseCache;
+import com.nicholassr.common.jsonapi.GlobalExceptionHandler;
+import com.nicholassr.product_service.exception.ProductNotFoundException;
 import com.nicholassr.product_service.models.Product;
+import com.nicholassr.product_service.services.ProductCursor;
 import com.nicholassr.product_service.services.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 public class ProductControllerTest {
@@ -33,6 +56,7 @@ public class ProductControllerTest {
     @Mock
     private ProductService productService;
     private ProductController productController;
+    private SerializedResponseCache responseCache;
 
     // Inicializa ObjectMapper para usarlo en el test
     private final ObjectMapper testObjectMapper = new ObjectMapper();
@@ -46,8 +70,10 @@ public class ProductControllerTest {
     void setUp() {
         // AQUÍ ES DONDE PASAMOS MANUALMENTE LAS DEPENDENCIAS AL CONSTRUCTOR DEL CONTROLADOR
         // Asegúrate de que el orden de los argumentos coincida con el constructor de tu ProductController
-        // public ProductController(ProductService productService, ObjectMapper objectMapper) { ... }
-        productController = new ProductController(productService, testObjectMapper);
+        // public ProductController(ProductService productService, ObjectMapper objectMapper, SerializedResponseCache responseCache) { ... }
+        responseCache = new SerializedResponseCache(true, DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), 60_000,
+                new SimpleMeterRegistry());
+        productController = new ProductController(productService, testObjectMapper, responseCache);
 
         mockMvc = MockMvcBuilders.standaloneSetup(productController)
                 .setControllerAdvice(globalExceptionHandler)
@@ -172,6 +198,153 @@ public class ProductControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getProductById_DefaultAccept_ReturnsJsonApi() throws Exception {
+        Long productId = 7L;
+        when(productService.getProductById(productId)).thenReturn(Optional.of(createMockProduct(productId, "Teclado", 25.50)));
+
+        mockMvc.perform(get("/api/v1/products/{id}", productId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(JSON_API_MEDIA_TYPE));
+    }
+
+    @Test
+    void getProductById_NonExistingId_ReturnsJsonApiError() throws Exception {
+        Long productId = 404L;
+        when(productService.getProductById(productId)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/products/{id}", productId))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(JSON_API_MEDIA_TYPE))
+                .andExpect(content().json("{\"errors\":[{\"status\":\"404\",\"title\":\"Not Found\","
+                        + "\"detail\":\"Product not found with id 404\"}]}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void getProductById_SmileAccept_ReturnsSmileDocument() throws Exception {
+        Long productId = 8L;
+        when(productService.getProductById(productId)).thenReturn(Optional.of(createMockProduct(productId, "Monitor", 199.99)));
+
+        byte[] body = mockMvc.perform(get("/api/v1/products/{id}", productId)
+                        .header("Accept", ProductController.SMILE_MEDIA_TYPE + ", " + JSON_API_MEDIA_TYPE + ";q=0.9"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ProductController.SMILE_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode document = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertEquals("8", document.path("data").path("id").asText());
+        assertEquals("Monitor", document.path("data").path("attributes").path("name").asText());
+    }
+
+    @Test
+    void getAllProducts_NameFilter_UsesIndexedSearch() throws Exception {
+        Page<Product> page = new PageImpl<>(List.of(createMockProduct(3L, "Teclado inalámbrico", 45.00)), PageRequest.of(0, 10), 1);
+        when(productService.searchProductsByName("inalambrico", false, 0, 10)).thenReturn(page);
+
+        byte[] body = mockMvc.perform(get("/api/v1/products").param("filter[name]", "inalambrico"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(JSON_API_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode document = testObjectMapper.readTree(body);
+        assertEquals("3", document.path("data").get(0).path("id").asText());
+        assertEquals(1, document.path("meta").path("totalElements").asInt());
+        verify(productService, never()).getAllProducts(anyInt(), anyInt());
+    }
+
+    @Test
+    void getAllProducts_PriceFilterAndSort_ReturnsNextCursor() throws Exception {
+        Product product = createMockProduct(4L, "Silla", 120.00);
+        Window<Product> window = Window.from(List.of(product),
+                index -> ScrollPosition.forward(Map.of("price", product.getPrice(), "id", product.getId())), true);
+        when(productService.findProducts(eq(new BigDecimal("100")), eq(null),
+                eq(Sort.by(Sort.Order.asc("price"), Sort.Order.desc("name"))), any(ScrollPosition.class), eq(1)))
+                .thenReturn(window);
+
+        byte[] body = mockMvc.perform(get("/api/v1/products")
+                        .param("filter[price][gte]", "100")
+                        .param("sort", "price,-name")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode document = testObjectMapper.readTree(body);
+        assertEquals("4", document.path("data").get(0).path("id").asText());
+        String next = document.path("links").path("next").asText();
+        assertTrue(next.contains("page%5Bcursor%5D="), next);
+    }
+
+    @Test
+    void getAllProducts_CursorFromAnotherSort_ReturnsBadRequest() throws Exception {
+        String cursor = ProductCursor.encode(ScrollPosition.forward(Map.of("price", new BigDecimal("120.00"))));
+
+        mockMvc.perform(get("/api/v1/products")
+                        .param("sort", "name")
+                        .param("page[cursor]", cursor))
+                .andExpect(status().isBadRequest());
+        verify(productService, never()).findProducts(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getAllProducts_IdFilter_ReturnsExistingProducts() throws Exception {
+        when(productService.getProductsByIds(List.of(5L, 6L, 7L)))
+                .thenReturn(List.of(createMockProduct(5L, "Lámpara", 30.00), createMockProduct(7L, "Mesa", 80.00)));
+
+        byte[] body = mockMvc.perform(get("/api/v1/products").param("filter[id]", "5,6,7"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(JSON_API_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode document = testObjectMapper.readTree(body);
+        assertEquals(2, document.path("data").size());
+        assertEquals("7", document.path("data").get(1).path("id").asText());
+        assertEquals(3, document.path("meta").path("requested").asInt());
+        assertEquals(2, document.path("meta").path("found").asInt());
+    }
+
+    @Test
+    void getAllProducts_MatchingIfNoneMatch_ReturnsNotModified() throws Exception {
+        when(productService.getProductsByIds(List.of(5L)))
+                .thenReturn(List.of(createMockProduct(5L, "Lámpara", 30.00)));
+
+        String etag = mockMvc.perform(get("/api/v1/products").param("filter[id]", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Con compresión el ETag llega débil: también debe valer para If-None-Match
+        mockMvc.perform(get("/api/v1/products").param("filter[id]", "5").header("If-None-Match", "W/" + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getAllProducts_UnsupportedSortField_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("sort", "-stock"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void getProductById_SecondRequest_ServedFromResponseCache() throws Exception {
+        Long productId = 9L;
+        when(productService.getProductById(productId)).thenReturn(Optional.of(createMockProduct(productId, "Webcam", 59.90)));
+
+        byte[] first = mockMvc.perform(get("/api/v1/products/{id}", productId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] second = mockMvc.perform(get("/api/v1/products/{id}", productId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(JSON_API_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertArrayEquals(first, second);
+        verify(productService, times(1)).getProductById(productId);
+
+        // Al terminar la petición se soltó el hueco: invalidar lo libera
+        responseCache.invalidate(productId, Long.MAX_VALUE);
+        assertEquals(0, responseCache.allocatedBytes());
+    }
+
     @Test
     void deleteProduct_ExistingId_ReturnsNoContent() throws Exception {
         Long productId = 12L;
@@ -194,4 +367,16 @@ public class ProductControllerTest {
                 .andExpect(status().isNotFound()); // Espera un 404 Not Found
     }
 
+    @Test
+    void deleteProduct_ProductNotFound_ReturnsJsonApiNotFound() throws Exception {
+        Long productId = 98L;
+        doThrow(new ProductNotFoundException(productId)).when(productService).deleteProduct(productId);
+
+        mockMvc.perform(delete("/api/v1/products/{id}", productId))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(JSON_API_MEDIA_TYPE))
+                .andExpect(content().json("{\"errors\":[{\"status\":\"404\",\"title\":\"Not Found\","
+                        + "\"detail\":\"Product not found with id 98\"}]}", JsonCompareMode.STRICT));
+    }
+
 }
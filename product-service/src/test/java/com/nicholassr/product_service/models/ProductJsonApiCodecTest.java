@@ -0,0 +1,61 @@
+package com.nicholassr.product_service.models;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.jasminb.jsonapi.JSONAPIDocument;
+import com.github.jasminb.jsonapi.ResourceConverter;
+import com.nicholassr.common.jsonapi.JsonApiConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Los codecs generados para los recursos del servicio producen el mismo documento que {@link ResourceConverter}.
+ */
+public class ProductJsonApiCodecTest {
+
+    // Misma configuración que el ObjectMapper de Spring Boot (fechas ISO-8601, atributos desconocidos ignorados)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void product_SameDocumentAsResourceConverter() throws Exception {
+        JSONAPIDocument<List<Product>> document = new JSONAPIDocument<>(List.of(
+                new Product(1L, "Teclado mecánico", new BigDecimal("129.99"), 3L),
+                new Product(2L, null, null, null)));
+
+        byte[] generated = new JsonApiConverter(objectMapper, Product.class).writeDocumentCollection(document);
+        byte[] reflective = new ResourceConverter(objectMapper, Product.class).writeDocumentCollection(document);
+
+        assertEquals(objectMapper.readTree(reflective), objectMapper.readTree(generated));
+    }
+
+    @Test
+    void productChange_SameDocumentAsResourceConverter() throws Exception {
+        ProductChange change = ProductChange.of(new Product(5L, "Ratón", new BigDecimal("25.50"), 0L), true);
+        change.setSeq(11L);
+        change.setChangedAt(Instant.parse("2025-06-01T10:15:30Z"));
+        JSONAPIDocument<ProductChange> document = new JSONAPIDocument<>(change);
+
+        byte[] generated = new JsonApiConverter(objectMapper, ProductChange.class).writeDocument(document);
+        byte[] reflective = new ResourceConverter(objectMapper, ProductChange.class).writeDocument(document);
+
+        assertEquals(objectMapper.readTree(reflective), objectMapper.readTree(generated));
+    }
+
+    @Test
+    void product_SmileRoundTrip() throws Exception {
+        JsonApiConverter smile = new JsonApiConverter(objectMapper.copyWith(new SmileFactory()), Product.class);
+        Product product = new Product(42L, "Monitor", new BigDecimal("199.00"), 1L);
+
+        Product read = smile.readDocument(smile.writeDocument(new JSONAPIDocument<>(product)), Product.class).get();
+
+        assertEquals(42L, read.getId());
+        assertEquals("Monitor", read.getName());
+        assertEquals(new BigDecimal("199.00"), read.getPrice());
+    }
+}
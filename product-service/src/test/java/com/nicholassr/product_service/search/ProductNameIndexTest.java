@@ -0,0 +1,134 @@
+package com.nicholassr.product_service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductNameIndexTest {
+
+    private ProductNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductNameIndex();
+        index.put(1L, "Teclado mecánico");
+        index.put(2L, "Monitor 27 pulgadas");
+        index.put(3L, "Teclado inalámbrico");
+        index.put(4L, "Ratón inalámbrico");
+    }
+
+    @Test
+    void substring_IgnoresCaseAndAccents_OrderedById() {
+        ProductNameIndex.SearchResult result = index.searchSubstring("INALAMBRICO", 0, 10);
+
+        assertEquals(List.of(3L, 4L), result.ids());
+        assertEquals(2, result.total());
+    }
+
+    @Test
+    void substring_RequiresContiguousMatch() {
+        // "ado" y "mec" aparecen en el nombre 1, pero no "adomec"
+        assertEquals(0, index.searchSubstring("adomec", 0, 10).total());
+        assertEquals(List.of(1L), index.searchSubstring("ado mec", 0, 10).ids());
+    }
+
+    @Test
+    void prefix_OrderedByNameAndPaginated() {
+        ProductNameIndex.SearchResult firstPage = index.searchPrefix("tec", 0, 1);
+        ProductNameIndex.SearchResult secondPage = index.searchPrefix("tec", 1, 1);
+
+        assertEquals(List.of(3L), firstPage.ids());
+        assertEquals(List.of(1L), secondPage.ids());
+        assertEquals(2, secondPage.total());
+    }
+
+    @Test
+    void shortSubstring_MatchesAnywhereInTheName() {
+        // "ni" está en "mecanico" y en "monitor", no solo al principio
+        assertEquals(List.of(1L, 2L), index.searchSubstring("ni", 0, 10).ids());
+        assertEquals(List.of(2L), index.searchSubstring("ni", 1, 10).ids());
+        assertEquals(2, index.searchSubstring("ni", 1, 10).total());
+        assertEquals(List.of(2L), index.searchSubstring("7", 0, 10).ids());
+        assertEquals(List.of(1L, 2L, 3L, 4L), index.searchSubstring("Ó", 0, 10).ids());
+        assertEquals(0, index.searchSubstring("zz", 0, 10).total());
+        assertEquals(List.of(3L, 4L), index.searchSubstring("", 2, 10).ids());
+    }
+
+    @Test
+    void shortSubstring_IsExactAndFollowsUpdates() {
+        for (long id = 10; id < 10 + ProductNameIndex.MAX_COUNT + 500; id++) {
+            index.put(id, "Cable " + id);
+        }
+        index.put(1L, "Altavoz");
+        index.remove(2L);
+
+        ProductNameIndex.SearchResult result = index.searchSubstring("ca", 0, 3);
+        assertEquals(List.of(10L, 11L, 12L), result.ids());
+        assertEquals(ProductNameIndex.MAX_COUNT + 500, result.total());
+        assertTrue(result.exact());
+        assertEquals(List.of(1L), index.searchSubstring("vo", 0, 10).ids());
+        assertEquals(0, index.searchSubstring("pu", 0, 10).total());
+    }
+
+    @Test
+    void broadSearch_StopsCountingAfterTheLimit() {
+        for (long id = 10; id < 10 + ProductNameIndex.MAX_COUNT + 500; id++) {
+            index.put(id, "Cable " + id);
+        }
+
+        ProductNameIndex.SearchResult firstPage = index.searchSubstring("cable", 0, 20);
+        assertEquals(20, firstPage.ids().size());
+        assertEquals(10L, firstPage.ids().get(0));
+        assertEquals(ProductNameIndex.MAX_COUNT, firstPage.total());
+        assertFalse(firstPage.exact());
+
+        // Las páginas más allá del máximo se siguen pudiendo pedir
+        ProductNameIndex.SearchResult deepPage = index.searchSubstring("cable", ProductNameIndex.MAX_COUNT + 490, 20);
+        assertEquals(10, deepPage.ids().size());
+        assertTrue(deepPage.exact());
+        assertEquals(ProductNameIndex.MAX_COUNT + 500, deepPage.total());
+    }
+
+    @Test
+    void updateAndRemove_KeepIndexInSync() {
+        index.put(1L, "Altavoz");
+        index.remove(4L);
+
+        assertEquals(List.of(3L), index.searchSubstring("teclado", 0, 10).ids());
+        assertEquals(List.of(1L), index.searchPrefix("alta", 0, 10).ids());
+        assertEquals(0, index.searchSubstring("raton", 0, 10).total());
+    }
+
+    @Test
+    void rebuild_DoesNotResurrectProductsDeletedMeanwhile() {
+        index.clear();
+        index.beginRebuild();
+        index.remove(2L); // Borrado confirmado antes de que la carga llegue a su fila
+
+        index.putIfAbsent(1L, "Teclado mecánico");
+        index.putIfAbsent(2L, "Monitor 27 pulgadas");
+        index.markReady();
+
+        assertEquals(0, index.searchSubstring("monitor", 0, 10).total());
+        assertEquals(List.of(1L), index.searchSubstring("teclado", 0, 10).ids());
+
+        // Fuera de una reconstrucción no se guardan borrados
+        index.remove(1L);
+        index.putIfAbsent(1L, "Teclado mecánico");
+        assertEquals(List.of(1L), index.searchSubstring("teclado", 0, 10).ids());
+    }
+
+    @Test
+    void putIfAbsent_DoesNotOverwriteNewerName() {
+        index.putIfAbsent(2L, "Nombre antiguo");
+        index.putIfAbsent(5L, "Cable HDMI");
+
+        assertEquals(List.of(2L), index.searchSubstring("monitor", 0, 10).ids());
+        assertEquals(List.of(5L), index.searchSubstring("hdmi", 0, 10).ids());
+    }
+}
@@ -0,0 +1,50 @@
+package com.nicholassr.product_service.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductCursorTest {
+
+    private static String cursor(Object... keysAndValues) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            keys.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return ProductCursor.encode(ScrollPosition.forward(keys));
+    }
+
+    @Test
+    void nullSortValue_SurvivesTheRoundTrip() {
+        String cursor = cursor("price", null, "id", 7L);
+
+        KeysetScrollPosition position = (KeysetScrollPosition) ProductCursor.decode(cursor, Sort.by("price"));
+
+        assertNull(position.getKeys().get("price"));
+        assertEquals(7L, position.getKeys().get("id"));
+    }
+
+    @Test
+    void cursorFromAnotherSort_IsRejected() {
+        String cursor = cursor("price", new BigDecimal("9.50"), "id", 7L);
+
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(cursor, Sort.by("name")));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(cursor, Sort.by("price", "name")));
+        assertEquals(new BigDecimal("9.50"),
+                ((KeysetScrollPosition) ProductCursor.decode(cursor, Sort.by(Sort.Order.desc("price")))).getKeys().get("price"));
+    }
+
+    @Test
+    void nullId_IsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(cursor("id", null), Sort.by("id")));
+    }
+}
@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Prueba de carga de la caché de segundo nivel: arranca el servicio con la caché activada y desactivada,
+# lanza las mismas lecturas sobre unos pocos registros "calientes" y compara cuántas sentencias JDBC
+# preparó Hibernate (preparedStatements de /actuator/l2cache).
+#
+# Uso:
+#   mvn -B package -DskipTests && scripts/l2cache-load-test.sh [product-service|inventory-service]
+#
+# Variables opcionales:
+#   REQUESTS=2000     lecturas por ejecución
+#   CONCURRENCY=8     peticiones en paralelo
+#   HOT_IDS="1 2 3 4 5"   ids leídos (deben existir; en product-service se crean si faltan)
+#
+# Requiere PostgreSQL en marcha con la configuración de application.properties. En inventory-service
+# las lecturas también llaman al servicio de productos, que debe estar arrancado.
+set -euo pipefail
+
+SERVICE="${1:-product-service}"
+REQUESTS="${REQUESTS:-2000}"
+CONCURRENCY="${CONCURRENCY:-8}"
+HOT_IDS="${HOT_IDS:-1 2 3 4 5}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+
+case "$SERVICE" in
+  product-service) PORT=8082; READ_PATH=/api/v1/products ;;
+  inventory-service) PORT=8083; READ_PATH=/api/v1/inventories/products ;;
+  *) echo "Servicio desconocido: $SERVICE" >&2; exit 1 ;;
+esac
+BASE="http://localhost:$PORT"
+
+prepared_statements() {
+  curl -fs "$BASE/actuator/l2cache" | sed -E 's/.*"preparedStatements":([0-9]+).*/\1/'
+}
+
+ensure_products() {
+  for id in $HOT_IDS; do
+    if ! curl -fs -o /dev/null "$BASE/api/v1/products/$id"; then
+      curl -fs -o /dev/null -X POST "$BASE/api/v1/products" \
+        -H 'Content-Type: application/vnd.api+json' \
+        -d "{\"data\":{\"type\":\"products\",\"attributes\":{\"name\":\"Producto carga $id\",\"price\":10.0}}}"
+    fi
+  done
+}
+
+run() {
+  local enabled="$1" pid before after
+  (cd "$ROOT/$SERVICE/target" && exec java -jar "$SERVICE-1.0.0-SNAPSHOT.jar" \
+      --app.jpa.second-level-cache.enabled="$enabled" \
+      --spring.jpa.properties.hibernate.generate_statistics=true \
+      --spring.jpa.show-sql=false --logging.level.root=WARN >/dev/null 2>&1) &
+  pid=$!
+  until curl -fs -o /dev/null "$BASE/actuator/health/readiness"; do
+    kill -0 "$pid" 2>/dev/null || { echo "$SERVICE terminó antes de arrancar" >&2; return 1; }
+    sleep 0.2
+  done
+  [[ "$SERVICE" == "product-service" ]] && ensure_products
+
+  before="$(prepared_statements)"
+  local ids=($HOT_IDS) start elapsed
+  start="$(date +%s%3N)"
+  for ((i = 0; i < REQUESTS; i++)); do
+    echo "$BASE$READ_PATH/${ids[$((i % ${#ids[@]}))]}"
+  done | xargs -P "$CONCURRENCY" -n 1 curl -fs -o /dev/null
+  elapsed=$(( $(date +%s%3N) - start ))
+  after="$(prepared_statements)"
+
+  echo "caché L2 enabled=$enabled: $REQUESTS lecturas en ${elapsed} ms, $(( after - before )) sentencias JDBC"
+  curl -fs "$BASE/actuator/l2cache"; echo
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run false
+run true
@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+# Prueba de escalado del reparto de inventario: arranca inventory-service con 1, 2 y 4 shards, lanza las
+# mismas actualizaciones de cantidad (PATCH) sobre productos distintos y compara el throughput. Al final de
+# cada ejecución muestra las filas por shard (/actuator/shards).
+#
+# Uso:
+#   mvn -B package -DskipTests && scripts/sharding-benchmark.sh
+#
+# Variables opcionales:
+#   REQUESTS=4000     escrituras por ejecución
+#   CONCURRENCY=32    peticiones en paralelo
+#   SHARD_COUNTS="1 2 4"
+#   SHARD_URL_PREFIX=jdbc:postgresql://localhost:5432/inventory_shard_   (se añade 0..3)
+#
+# Requiere PostgreSQL en marcha con la configuración de application.properties y las bases
+# inventory_shard_0..3 creadas (p. ej. createdb -U postgres inventory_shard_0). Las tablas las crea el
+# servicio. Para que la base no sea el límite, cada shard debería estar en otra instancia o máquina.
+set -euo pipefail
+
+REQUESTS="${REQUESTS:-4000}"
+CONCURRENCY="${CONCURRENCY:-32}"
+SHARD_COUNTS="${SHARD_COUNTS:-1 2 4}"
+SHARD_URL_PREFIX="${SHARD_URL_PREFIX:-jdbc:postgresql://localhost:5432/inventory_shard_}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BASE="http://localhost:8083"
+
+run() {
+  local shards="$1" pid start elapsed
+  (cd "$ROOT/inventory-service/target" && exec java -jar inventory-service-1.0.0-SNAPSHOT.jar \
+      --app.sharding.enabled=true \
+      --app.sharding.nodes[0].url="${SHARD_URL_PREFIX}0" \
+      --app.sharding.nodes[1].url="${SHARD_URL_PREFIX}1" \
+      --app.sharding.nodes[2].url="${SHARD_URL_PREFIX}2" \
+      --app.sharding.nodes[3].url="${SHARD_URL_PREFIX}3" \
+      --app.sharding.active-shards="$shards" \
+      --app.sharding.maximum-pool-size="$CONCURRENCY" \
+      --logging.level.root=WARN >/dev/null 2>&1) &
+  pid=$!
+  until curl -fs -o /dev/null "$BASE/actuator/health/readiness"; do
+    kill -0 "$pid" 2>/dev/null || { echo "inventory-service terminó antes de arrancar" >&2; return 1; }
+    sleep 0.2
+  done
+  # Si una ejecución anterior dejó otra topología guardada, se reparte primero al número pedido
+  curl -fs -o /dev/null -X POST "$BASE/actuator/shards" -H 'Content-Type: application/json' -d "{\"shards\":$shards}"
+  until curl -fs "$BASE/actuator/shards" | grep -q '"targetShards":null'; do sleep 0.5; done
+
+  start="$(date +%s%3N)"
+  for ((i = 1; i <= REQUESTS; i++)); do
+    echo "$i"
+  done | xargs -P "$CONCURRENCY" -I{} curl -fs -o /dev/null -X PATCH "$BASE/api/v1/inventories/products/{}" \
+      -H 'Content-Type: application/vnd.api+json' \
+      -d '{"data":{"type":"inventories","attributes":{"quantity":{}}}}'
+  elapsed=$(( $(date +%s%3N) - start ))
+
+  echo "$shards shard(s): $REQUESTS escrituras en ${elapsed} ms ($(( REQUESTS * 1000 / (elapsed > 0 ? elapsed : 1) )) escrituras/s)"
+  curl -fs "$BASE/actuator/shards"; echo
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+for shards in $SHARD_COUNTS; do
+  run "$shards"
+done
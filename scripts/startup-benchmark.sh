@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Mide el tiempo hasta la primera petición exitosa de cada servicio, con el jar normal
+# y con la imagen de arranque rápido (perfil Maven fast-startup: AOT + CDS).
+#
+# Uso:
+#   mvn -B package -DskipTests                 && scripts/startup-benchmark.sh baseline
+#   mvn -B -Pfast-startup package -DskipTests  && scripts/startup-benchmark.sh fast-startup
+#
+# Variables opcionales:
+#   RUNS=5                      repeticiones por servicio
+#   SERVICES="product-service inventory-service"
+#   PROBE_PATH=/actuator/health/liveness   petición que se considera "primera respuesta"
+#
+# Requiere PostgreSQL en marcha con la configuración de application.properties.
+set -euo pipefail
+
+MODE="${1:-baseline}"
+RUNS="${RUNS:-5}"
+SERVICES="${SERVICES:-product-service inventory-service}"
+PROBE_PATH="${PROBE_PATH:-/actuator/health/liveness}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+
+port_of() {
+  case "$1" in
+    product-service) echo 8082 ;;
+    inventory-service) echo 8083 ;;
+  esac
+}
+
+now_ms() {
+  date +%s%3N
+}
+
+measure() {
+  local service="$1" port jar workdir start elapsed pid
+  port="$(port_of "$service")"
+  local -a java_args=()
+
+  if [[ "$MODE" == "fast-startup" ]]; then
+    workdir="$ROOT/$service/target/cds"
+    jar="$service-1.0.0-SNAPSHOT.jar"
+    java_args=(-XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup)
+  else
+    workdir="$ROOT/$service/target"
+    jar="$service-1.0.0-SNAPSHOT.jar"
+  fi
+
+  start="$(now_ms)"
+  (cd "$workdir" && exec java "${java_args[@]}" -jar "$jar" >/dev/null 2>&1) &
+  pid=$!
+
+  until curl -fs -o /dev/null "http://localhost:$port$PROBE_PATH"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "$service terminó antes de responder" >&2
+      return 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(( $(now_ms) - start ))
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$elapsed"
+}
+
+for service in $SERVICES; do
+  total=0
+  results=()
+  for ((i = 1; i <= RUNS; i++)); do
+    ms="$(measure "$service")"
+    results+=("$ms")
+    total=$(( total + ms ))
+  done
+  echo "$MODE $service: primera respuesta en ${results[*]} ms (media $(( total / RUNS )) ms)"
+done
@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+# Compara un arranque sin y con calentamiento (app.warmup.enabled): tiempo hasta readiness y latencia de las
+# peticiones del primer minuto tras aceptar tráfico (p50/p99 de http.server.requests.first-minute).
+#
+# Uso:
+#   mvn -B package -DskipTests && scripts/warmup-benchmark.sh
+#
+# Variables opcionales:
+#   SERVICE=product-service     servicio a medir (product-service | inventory-service)
+#   REQUESTS=5000               peticiones durante la ventana, repartidas entre CONCURRENCY clientes
+#   CONCURRENCY=8
+#   PATHS="/api/v1/products/1 /api/v1/products?size=20"   rutas pedidas (por defecto, según el servicio)
+#
+# Requiere PostgreSQL en marcha con la configuración de application.properties (y, para inventory-service,
+# el servicio de productos).
+set -euo pipefail
+
+SERVICE="${SERVICE:-product-service}"
+REQUESTS="${REQUESTS:-5000}"
+CONCURRENCY="${CONCURRENCY:-8}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+
+case "$SERVICE" in
+  product-service)
+    PORT=8082
+    PATHS="${PATHS:-/api/v1/products/1 /api/v1/products?size=20}" ;;
+  inventory-service)
+    PORT=8083
+    PATHS="${PATHS:-/api/v1/inventories/products/1 /api/v1/inventories?filter%5BproductId%5D=1}" ;;
+  *)
+    echo "Servicio desconocido: $SERVICE" >&2
+    exit 1 ;;
+esac
+BASE="http://localhost:$PORT"
+
+now_ms() {
+  date +%s%3N
+}
+
+percentile() {
+  curl -fs "$BASE/actuator/metrics/http.server.requests.first-minute.percentile?tag=phi:$1" \
+    | sed -E 's/.*"value":([0-9.eE+-]+).*/\1/' \
+    | awk '{ printf "%.1f", $1 * 1000 }'
+}
+
+run() {
+  local warmup="$1" start ready pid
+  start="$(now_ms)"
+  (cd "$ROOT/$SERVICE/target" && exec java -jar "$SERVICE-1.0.0-SNAPSHOT.jar" --app.warmup.enabled="$warmup" >/dev/null 2>&1) &
+  pid=$!
+
+  until curl -fs -o /dev/null "$BASE/actuator/health/readiness"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "$SERVICE terminó antes de estar listo" >&2
+      return 1
+    fi
+    sleep 0.05
+  done
+  ready=$(( $(now_ms) - start ))
+
+  # Carga dentro de la ventana del primer minuto
+  local per_client=$(( REQUESTS / CONCURRENCY ))
+  local -a clients=()
+  for ((c = 0; c < CONCURRENCY; c++)); do
+    (
+      for ((i = 0; i < per_client; i++)); do
+        for path in $PATHS; do
+          curl -s -o /dev/null "$BASE$path"
+        done
+      done
+    ) &
+    clients+=($!)
+  done
+  wait "${clients[@]}"
+
+  echo "warmup=$warmup: readiness en ${ready} ms, primer minuto p50=$(percentile 0.5) ms p99=$(percentile 0.99) ms"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run false
+run true